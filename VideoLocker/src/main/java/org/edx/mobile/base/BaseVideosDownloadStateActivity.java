@@ -1,19 +1,27 @@
 package org.edx.mobile.base;
 
-import android.text.format.DateUtils;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 
+import com.google.inject.Inject;
+
 import org.edx.mobile.R;
-import org.edx.mobile.module.db.DataCallback;
+import org.edx.mobile.module.download.DownloadProgressService;
+import org.edx.mobile.module.download.DownloadProgressSnapshot;
 import org.edx.mobile.util.NetworkUtil;
 import org.edx.mobile.view.custom.ProgressWheel;
 
 public abstract class BaseVideosDownloadStateActivity extends BaseFragmentActivity {
     private ProgressWheel progressWheel;
     private MenuItem progressMenuItem;
-    private Runnable updateDownloadProgressRunnable;
+    @Nullable
+    private DownloadProgressSnapshot downloadProgress;
+
+    @Inject
+    private DownloadProgressService downloadProgressService;
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
@@ -35,51 +43,46 @@ public abstract class BaseVideosDownloadStateActivity extends BaseFragmentActivi
                 environment.getRouter().showDownloads(BaseVideosDownloadStateActivity.this);
             }
         });
-        if (updateDownloadProgressRunnable == null) {
-            updateDownloadProgressRunnable = new Runnable() {
-                @Override
-                public void run() {
-                    if (!NetworkUtil.isConnected(BaseVideosDownloadStateActivity.this) ||
-                            !environment.getDatabase().isAnyVideoDownloading(null)) {
-                        progressMenuItem.setVisible(false);
-                    } else {
-                        progressMenuItem.setVisible(true);
-                        environment.getStorage().getAverageDownloadProgress(
-                                new DataCallback<Integer>() {
-                            @Override
-                            public void onResult(Integer result) {
-                                int progressPercent = result;
-                                if (progressPercent >= 0 && progressPercent <= 100) {
-                                    progressWheel.setProgressPercent(progressPercent);
-                                }
-                            }
-                            @Override
-                            public void onFail(Exception ex) {
-                                logger.error(ex);
-                            }
-                        });
-                    }
-                    progressWheel.postDelayed(this, DateUtils.SECOND_IN_MILLIS);
-                }
-            };
-            updateDownloadProgressRunnable.run();
-        }
+        updateDownloadProgress();
         return true;
     }
 
     @Override
     protected void onStart() {
         super.onStart();
-        if (updateDownloadProgressRunnable != null) {
-            updateDownloadProgressRunnable.run();
-        }
+        downloadProgressService.subscribe(downloadProgressListener);
     }
 
     @Override
     protected void onStop() {
         super.onStop();
-        if (updateDownloadProgressRunnable != null) {
-            progressWheel.removeCallbacks(updateDownloadProgressRunnable);
+        downloadProgressService.unsubscribe(downloadProgressListener);
+    }
+
+    private final DownloadProgressService.Listener downloadProgressListener =
+            new DownloadProgressService.Listener() {
+        @Override
+        public void onDownloadProgress(@NonNull DownloadProgressSnapshot snapshot) {
+            downloadProgress = snapshot;
+            updateDownloadProgress();
+        }
+    };
+
+    private void updateDownloadProgress() {
+        if (progressMenuItem == null) {
+            return;
+        }
+        if (downloadProgress == null) {
+            // Until the first snapshot arrives, so that the menu item isn't shown needlessly
+            progressMenuItem.setVisible(NetworkUtil.isConnected(this) &&
+                    environment.getDatabase().isAnyVideoDownloading(null));
+            return;
+        }
+        if (!NetworkUtil.isConnected(this) || !downloadProgress.isAnyVideoDownloading()) {
+            progressMenuItem.setVisible(false);
+        } else {
+            progressMenuItem.setVisible(true);
+            progressWheel.setProgressPercent(downloadProgress.getAverageProgress());
         }
     }
 }
@@ -23,6 +23,7 @@ import org.edx.mobile.core.EdxDefaultModule;
 import org.edx.mobile.core.IEdxEnvironment;
 import org.edx.mobile.logger.Logger;
 import org.edx.mobile.module.prefs.PrefManager;
+import org.edx.mobile.module.prefs.PrefStore;
 import org.edx.mobile.module.storage.IStorage;
 import org.edx.mobile.receivers.NetworkConnectivityReceiver;
 import org.edx.mobile.util.Config;
@@ -43,6 +44,8 @@ public abstract class MainApplication extends MultiDexApplication {
     //FIXME - temporary solution
     public static final boolean RETROFIT_ENABLED = false;
 
+    private static final int ICON_BITMAP_CACHE_SIZE = 1024 * 1024;
+
     protected final Logger logger = new Logger(getClass().getName());
 
     public static MainApplication application;
@@ -62,6 +65,16 @@ public abstract class MainApplication extends MultiDexApplication {
         init();
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            // The app may be killed while it's in the background, so the
+            // preferences that are still being written are put on disk now
+            PrefStore.flushAll();
+        }
+    }
+
     /**
      * Initializes the request manager, image cache,
      * all third party integrations and shared components.
@@ -104,6 +117,8 @@ public abstract class MainApplication extends MultiDexApplication {
 
         // Register Font Awesome module in android-iconify library
         Iconify.with(new FontAwesomeModule());
+        // Let the static icons of the lists be drawn from bitmaps rendered once
+        Iconify.setBitmapCacheSize(ICON_BITMAP_CACHE_SIZE);
 
         CalligraphyConfig.initDefault(new CalligraphyConfig.Builder()
                 .setDefaultFontPath("fonts/OpenSans-Regular.ttf")
@@ -14,13 +14,14 @@ import org.edx.mobile.http.Api;
 import org.edx.mobile.http.IApi;
 import org.edx.mobile.http.OkHttpUtil;
 import org.edx.mobile.http.RestApiManager;
+import org.edx.mobile.http.cache.CacheManager;
 import org.edx.mobile.http.serialization.JsonPageDeserializer;
 import org.edx.mobile.model.Page;
+import org.edx.mobile.module.analytics.BufferedSegmentTracker;
 import org.edx.mobile.module.analytics.ISegment;
 import org.edx.mobile.module.analytics.ISegmentEmptyImpl;
 import org.edx.mobile.module.analytics.ISegmentImpl;
 import org.edx.mobile.module.analytics.ISegmentTracker;
-import org.edx.mobile.module.analytics.ISegmentTrackerImpl;
 import org.edx.mobile.module.db.IDatabase;
 import org.edx.mobile.module.db.impl.IDatabaseImpl;
 import org.edx.mobile.module.download.IDownloadManager;
@@ -53,7 +54,7 @@ public class EdxDefaultModule extends AbstractModule {
 
         bind(IDatabase.class).to(IDatabaseImpl.class);
         bind(IStorage.class).to(Storage.class);
-        bind(ISegmentTracker.class).to(ISegmentTrackerImpl.class);
+        bind(ISegmentTracker.class).to(BufferedSegmentTracker.class);
         if (config.getSegmentConfig().isEnabled()) {
             bind(ISegment.class).to(ISegmentImpl.class);
         } else {
@@ -62,6 +63,7 @@ public class EdxDefaultModule extends AbstractModule {
 
         bind(IDownloadManager.class).to(IDownloadManagerImpl.class);
 
+        bind(CacheManager.class).toInstance(CacheManager.getInstance(context));
         bind(OkHttpClient.class).toInstance(OkHttpUtil.getOAuthBasedClient(context));
 
         if (MainApplication.RETROFIT_ENABLED) {
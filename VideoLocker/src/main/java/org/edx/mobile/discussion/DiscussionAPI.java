@@ -26,6 +26,7 @@ import org.edx.mobile.http.HttpException;
 import org.edx.mobile.model.Page;
 import org.edx.mobile.util.NetworkUtil;
 
+import java.util.Collections;
 import java.util.List;
 
 import retrofit.RestAdapter;
@@ -55,11 +56,14 @@ class RetrofitAdaptor<T> extends Callback {
 public class DiscussionAPI {
     private final Context context;
     private final DiscussionService discussionService;
+    private final DiscussionBodyRenderer bodyRenderer;
 
     @Inject
-    public DiscussionAPI(@NonNull Context context, @NonNull RestAdapter restAdapter) {
+    public DiscussionAPI(@NonNull Context context, @NonNull RestAdapter restAdapter,
+                         @NonNull DiscussionBodyRenderer bodyRenderer) {
         this.context = context;
         discussionService = restAdapter.create(DiscussionService.class);
+        this.bodyRenderer = bodyRenderer;
     }
 
     /**
@@ -94,43 +98,55 @@ public class DiscussionAPI {
                                                 String filter, String orderBy, int page,
                                                 List<String> requestedFields)
             throws HttpException {
-        return discussionService.getThreadList(courseId, topicIds, filter, orderBy,
-                ApiConstants.STANDARD_PAGE_SIZE, page, requestedFields);
+        final Page<DiscussionThread> threads = discussionService.getThreadList(courseId,
+                topicIds, filter, orderBy, ApiConstants.STANDARD_PAGE_SIZE, page, requestedFields);
+        bodyRenderer.prerenderThreads(threads.getResults());
+        return threads;
     }
 
     public Page<DiscussionThread> getFollowingThreadList(String courseId, String filter,
                                                          String orderBy, int page,
                                                          List<String> requestedFields)
             throws HttpException {
-        return discussionService.getFollowingThreadList(courseId, "True", filter, orderBy,
-                ApiConstants.STANDARD_PAGE_SIZE, page, requestedFields);
+        final Page<DiscussionThread> threads = discussionService.getFollowingThreadList(courseId,
+                "True", filter, orderBy, ApiConstants.STANDARD_PAGE_SIZE, page, requestedFields);
+        bodyRenderer.prerenderThreads(threads.getResults());
+        return threads;
     }
 
 
     public Page<DiscussionThread> searchThreadList(String courseId, String text, int page,
                                                    List<String> requestedFields)
             throws HttpException {
-        return discussionService.searchThreadList(courseId, text, ApiConstants.STANDARD_PAGE_SIZE,
-                page, requestedFields);
+        final Page<DiscussionThread> threads = discussionService.searchThreadList(courseId, text,
+                ApiConstants.STANDARD_PAGE_SIZE, page, requestedFields);
+        bodyRenderer.prerenderThreads(threads.getResults());
+        return threads;
     }
 
     public DiscussionThread getThread(String threadId) throws HttpException {
-        return discussionService.getThread(threadId);
+        final DiscussionThread thread = discussionService.getThread(threadId);
+        bodyRenderer.prerenderThreads(Collections.singletonList(thread));
+        return thread;
     }
 
     public Page<DiscussionComment> getResponsesList(String threadId, int page,
                                                     List<String> requestedFields)
             throws HttpException {
-        return discussionService.getResponsesList(threadId, ApiConstants.STANDARD_PAGE_SIZE, page,
-                requestedFields);
+        final Page<DiscussionComment> responses = discussionService.getResponsesList(threadId,
+                ApiConstants.STANDARD_PAGE_SIZE, page, requestedFields);
+        bodyRenderer.prerenderComments(responses.getResults());
+        return responses;
     }
 
     public Page<DiscussionComment> getResponsesListForQuestion(String threadId, int page,
                                                                boolean endorsed,
                                                                List<String> requestedFields)
             throws HttpException {
-        return discussionService.getResponsesListForQuestion(threadId,
-                ApiConstants.STANDARD_PAGE_SIZE, page, endorsed, requestedFields);
+        final Page<DiscussionComment> responses = discussionService.getResponsesListForQuestion(
+                threadId, ApiConstants.STANDARD_PAGE_SIZE, page, endorsed, requestedFields);
+        bodyRenderer.prerenderComments(responses.getResults());
+        return responses;
     }
 
     public Page<DiscussionComment> getCommentsList(String responseId, int pageSize, int page,
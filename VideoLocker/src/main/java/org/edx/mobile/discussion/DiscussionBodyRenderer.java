@@ -0,0 +1,113 @@
+package org.edx.mobile.discussion;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.SpannedString;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+import com.google.inject.Singleton;
+
+import org.edx.mobile.util.observer.AsyncCallableUtils;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Renders the HTML bodies of the threads and responses into styled text, and keeps the results
+ * by identifier, so that the lists only have to assign the text when they bind their rows.
+ * <p>
+ * The bodies of the pages that are fetched by {@link DiscussionAPI} are rendered in the
+ * background as soon as they arrive. A body that has been edited since it was rendered, as told
+ * by its update date, is rendered again.
+ */
+@Singleton
+public class DiscussionBodyRenderer {
+    private static final int MAX_CACHED_BODIES = 500;
+
+    @NonNull
+    private final LruCache<String, RenderedBody> renderedBodies =
+            new LruCache<>(MAX_CACHED_BODIES);
+
+    /**
+     * Renders the bodies of the threads on a background thread.
+     */
+    public void prerenderThreads(@NonNull final List<DiscussionThread> threads) {
+        AsyncCallableUtils.EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (DiscussionThread thread : threads) {
+                    getBody(thread);
+                }
+            }
+        });
+    }
+
+    /**
+     * Renders the bodies of the responses or comments on a background thread.
+     */
+    public void prerenderComments(@NonNull final List<DiscussionComment> comments) {
+        AsyncCallableUtils.EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (DiscussionComment comment : comments) {
+                    getBody(comment);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return The rendered body of the thread, which is rendered now if it hasn't been yet.
+     */
+    @NonNull
+    public CharSequence getBody(@NonNull DiscussionThread thread) {
+        return getBody(thread.getIdentifier(), thread.getUpdatedAt(), thread.getRenderedBody());
+    }
+
+    /**
+     * @return The rendered body of the response or comment, which is rendered now if it hasn't
+     * been yet.
+     */
+    @NonNull
+    public CharSequence getBody(@NonNull DiscussionComment comment) {
+        return getBody(comment.getIdentifier(), comment.getUpdatedAt(), comment.getRenderedBody());
+    }
+
+    @NonNull
+    private CharSequence getBody(@Nullable String identifier, @Nullable Date updatedAt,
+                                 @Nullable String html) {
+        if (TextUtils.isEmpty(html)) {
+            return "";
+        }
+        if (identifier == null) {
+            return render(html);
+        }
+        final long updatedTime = updatedAt == null ? 0 : updatedAt.getTime();
+        final RenderedBody cached = renderedBodies.get(identifier);
+        if (cached != null && cached.updatedTime == updatedTime) {
+            return cached.text;
+        }
+        final CharSequence text = render(html);
+        renderedBodies.put(identifier, new RenderedBody(updatedTime, text));
+        return text;
+    }
+
+    @NonNull
+    private static CharSequence render(@NonNull String html) {
+        // The text is shared by every view that shows the body, so it's copied into an
+        // immutable Spanned, as TextView attaches its watchers to Spannable texts
+        return new SpannedString(DiscussionTextUtils.parseHtml(html));
+    }
+
+    private static class RenderedBody {
+        final long updatedTime;
+        @NonNull
+        final CharSequence text;
+
+        RenderedBody(long updatedTime, @NonNull CharSequence text) {
+            this.updatedTime = updatedTime;
+            this.text = text;
+        }
+    }
+}
@@ -641,8 +641,9 @@ public class Api implements IApi {
         if (NetworkUtil.isConnected(context)) {
             // get data from server
             String urlWithAppendedParams = HttpManager.toGetUrl(delegate.endPoint.getUrl(), null);
-            HttpManager.HttpResult result = http.get(urlWithAppendedParams, getAuthHeaders());
-            return result;
+            // The response can be several megabytes, so it's parsed from the cache file
+            return http.getIntoCache(urlWithAppendedParams, getAuthHeaders(),
+                    delegate.cacheManager, delegate.endPoint.getCacheKey());
         }
 
         return null;
@@ -0,0 +1,77 @@
+package org.edx.mobile.http;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Network interceptor that counts how many requests were sent over a connection that had
+ * already carried an earlier request, i.e. one taken from the connection pool rather than
+ * newly opened.
+ */
+public class ConnectionReuseInterceptor implements Interceptor {
+
+    public interface Listener {
+        /**
+         * Called on the calling thread before each request is sent over the network.
+         *
+         * @param host   The host the request is sent to.
+         * @param reused Whether the connection had been used by an earlier request.
+         */
+        void onConnectionUsed(@NonNull String host, boolean reused);
+    }
+
+    // The following are guarded by this object's lock
+    private final Map<Connection, Boolean> seenConnections = new WeakHashMap<>();
+    private long requestCount;
+    private long reusedCount;
+
+    @Nullable
+    private volatile Listener listener;
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        final Connection connection = chain.connection();
+        final boolean reused;
+        synchronized (this) {
+            reused = connection != null && seenConnections.put(connection, Boolean.TRUE) != null;
+            requestCount++;
+            if (reused) {
+                reusedCount++;
+            }
+        }
+        final Listener listener = this.listener;
+        if (listener != null) {
+            listener.onConnectionUsed(request.url().host(), reused);
+        }
+        return chain.proceed(request);
+    }
+
+    public synchronized long getRequestCount() {
+        return requestCount;
+    }
+
+    public synchronized long getReusedCount() {
+        return reusedCount;
+    }
+
+    /**
+     * @return The fraction of requests sent over a reused connection, or 0 if none were sent.
+     */
+    public synchronized float getReuseRate() {
+        return requestCount == 0 ? 0 : (float) reusedCount / requestCount;
+    }
+}
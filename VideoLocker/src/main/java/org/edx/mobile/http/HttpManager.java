@@ -33,6 +33,7 @@ import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
 import org.edx.mobile.BuildConfig;
 import org.edx.mobile.R;
+import org.edx.mobile.http.cache.CacheManager;
 import org.edx.mobile.logger.Logger;
 import org.edx.mobile.util.IOUtils;
 import org.json.JSONException;
@@ -104,6 +105,55 @@ public class HttpManager {
         return result;
     }
 
+    /**
+     * Executes a GET request to the given URL, and stores a successful response in the cache
+     * as it's read, rather than reading it into a String, so that large responses can be
+     * parsed from the cache file afterwards.
+     *
+     * @return The result, whose body is null if the response was stored in the cache.
+     */
+    public HttpResult getIntoCache(String urlWithAppendedParams, Bundle headers,
+                                   CacheManager cacheManager, String cacheKey)
+            throws Exception {
+        final DefaultHttpClient client = newClient();
+
+        HttpGet get = new HttpGet(urlWithAppendedParams);
+        AndroidHttpClient.modifyRequestToAcceptGzipResponse(get);
+
+        // allow redirects
+        HttpClientParams.setRedirecting(client.getParams(), true);
+        HttpClientParams.setRedirecting(get.getParams(), true);
+
+        // set request headers
+        if (headers != null) {
+            for (String key : headers.keySet()) {
+                get.setHeader(key, headers.getString(key));
+            }
+        }
+
+        try {
+            HttpResponse response = client.execute(get);
+            HttpResult result = new HttpResult();
+            result.statusCode = response.getStatusLine().getStatusCode();
+            logger.debug("StatusCode for get request= " + result.statusCode);
+
+            InputStream inputStream = AndroidHttpClient
+                    .getUngzippedContent(response.getEntity());
+            try {
+                if (result.statusCode == HttpStatus.SC_OK) {
+                    cacheManager.put(cacheKey, inputStream);
+                } else {
+                    result.body = IOUtils.toString(inputStream, Charset.defaultCharset());
+                }
+            } finally {
+                inputStream.close();
+            }
+            return result;
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
+
     /**
      * Executes a POST request to given URL with given parameters.
      * Returns "cookie" in a JSON object if response is HTTP 204 NO CONTENT.
@@ -8,10 +8,13 @@ import com.google.gson.reflect.TypeToken;
 import org.edx.mobile.base.MainApplication;
 import org.edx.mobile.http.cache.CacheManager;
 import org.edx.mobile.logger.Logger;
+import org.edx.mobile.util.IOUtils;
 import org.edx.mobile.util.NetworkUtil;
 
+import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
 
 public abstract class HttpRequestDelegate<T> {
     protected final Logger logger = new Logger(getClass().getName());
@@ -43,40 +46,57 @@ public abstract class HttpRequestDelegate<T> {
         }
     }
 
+    /**
+     * Parses the response from a stream. By default it's read into a String for
+     * {@link #fromJson(String)}; subclasses with large responses can override this to parse
+     * them without buffering.
+     */
+    public T fromStream(InputStream in) throws Exception {
+        return fromJson(IOUtils.toString(in, Charset.defaultCharset()));
+    }
+
     public T fetchData(OkHttpUtil.REQUEST_CACHE_TYPE requestCacheType) throws Exception{
-        String json = null;
         String cacheKey = endPoint.getCacheKey();
         if ( requestCacheType != OkHttpUtil.REQUEST_CACHE_TYPE.IGNORE_CACHE
             || !NetworkUtil.isConnected(MainApplication.instance()) ){
             try {
-                json = cacheManager.get(cacheKey);
+                T cached = fromCache(cacheKey);
+                if ( cached != null ) {
+                    return cached;
+                }
             } catch (Exception e) {
                 logger.error(e);
             }
-            if ( json != null ) {
-                try {
-                    return fromJson(json);
-                } catch (Exception e) {
-                    logger.error(e);
-                }
-            }
         }
         if ( requestCacheType == OkHttpUtil.REQUEST_CACHE_TYPE.ONLY_CACHE )
             return null;
 
         // get data from server
         HttpManager.HttpResult result = invokeHttpCall();
-        if ( result.statusCode == HttpURLConnection.HTTP_OK ) {
-            try {
-                cacheManager.put(cacheKey, result.body);
-            } catch ( Exception e) {
-               logger.error(e);
-            }
-            json = result.body;
+        if ( result == null || result.statusCode != HttpURLConnection.HTTP_OK ) {
+            return null;
         }
-
-        return json == null ? null : fromJson(json);
+        if ( result.body == null ) {
+            // The call stored the response in the cache without reading it
+            return fromCache(cacheKey);
+        }
+        try {
+            cacheManager.put(cacheKey, result.body);
+        } catch ( Exception e) {
+           logger.error(e);
+        }
+        return fromJson(result.body);
     }
 
-
+    private T fromCache(String cacheKey) throws Exception {
+        InputStream in = cacheManager.getInputStream(cacheKey);
+        if ( in == null ) {
+            return null;
+        }
+        try {
+            return fromStream(in);
+        } finally {
+            in.close();
+        }
+    }
 }
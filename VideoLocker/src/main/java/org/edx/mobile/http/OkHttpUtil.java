@@ -6,16 +6,17 @@ import android.support.annotation.NonNull;
 
 import org.edx.mobile.BuildConfig;
 import org.edx.mobile.R;
+import org.edx.mobile.http.cache.CacheManager;
 
-import java.io.File;
 import java.net.HttpCookie;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
-import okhttp3.Cache;
+import okhttp3.ConnectionPool;
 import okhttp3.Cookie;
 import okhttp3.CookieJar;
+import okhttp3.Dispatcher;
 import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.MediaType;
@@ -30,24 +31,76 @@ public class OkHttpUtil {
             = MediaType.parse("application/json; charset=utf-8");
 
 
-    private static final int cacheSize = 10 * 1024 * 1024; // 10 MiB
+    /**
+     * Reports the connection reuse of all the clients.
+     */
+    public static final ConnectionReuseInterceptor CONNECTION_REUSE =
+            new ConnectionReuseInterceptor();
 
-    public static OkHttpClient getClient(@NonNull Context context) {
-        return getClient(context, false);
+    /**
+     * Estimates the download throughput from the response bodies of all the clients.
+     */
+    public static final ThroughputEstimator THROUGHPUT_ESTIMATOR = new ThroughputEstimator();
+
+    // The following are guarded by the class lock
+    private static Context clientContext;
+    private static OkHttpClient rootClient;
+    private static OkHttpClient client;
+    private static OkHttpClient oauthBasedClient;
+
+    public static synchronized OkHttpClient getClient(@NonNull Context context) {
+        updateClientContext(context);
+        if (client == null) {
+            client = createClient(clientContext, false);
+        }
+        return client;
     }
 
-    public static OkHttpClient getOAuthBasedClient(@NonNull Context context) {
-        return getClient(context, true);
+    public static synchronized OkHttpClient getOAuthBasedClient(@NonNull Context context) {
+        updateClientContext(context);
+        if (oauthBasedClient == null) {
+            oauthBasedClient = createClient(clientContext, true);
+        }
+        return oauthBasedClient;
     }
 
-    private static OkHttpClient getClient(@NonNull Context context, boolean isOAuthBased) {
-        final OkHttpClient.Builder builder = new OkHttpClient.Builder();
-        final File cacheDirectory = new File(context.getFilesDir(), "http-cache");
-        if (!cacheDirectory.exists()) {
-            cacheDirectory.mkdirs();
+    /**
+     * Drops the clients if they were created for another application, which only happens
+     * between test runs.
+     */
+    private static void updateClientContext(@NonNull Context context) {
+        final Context applicationContext = context.getApplicationContext();
+        if (clientContext != applicationContext) {
+            clientContext = applicationContext;
+            rootClient = null;
+            client = null;
+            oauthBasedClient = null;
         }
-        final Cache cache = new Cache(cacheDirectory, cacheSize);
-        builder.cache(cache);
+    }
+
+    /**
+     * @return The client that all the others are derived from, so that they share its
+     * connection pool, dispatcher and cache.
+     */
+    private static OkHttpClient getRootClient(@NonNull Context context) {
+        if (rootClient == null) {
+            final Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequestsPerHost(context.getResources().getInteger(
+                    R.integer.http_max_requests_per_host));
+            final OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .dispatcher(dispatcher)
+                    .connectionPool(new ConnectionPool())
+                    // All clients share the process-wide cache, as only one may own its journal
+                    .cache(CacheManager.getInstance(context).getOkHttpCache());
+            builder.networkInterceptors().add(CONNECTION_REUSE);
+            builder.networkInterceptors().add(new ThroughputInterceptor(THROUGHPUT_ESTIMATOR));
+            rootClient = builder.build();
+        }
+        return rootClient;
+    }
+
+    private static OkHttpClient createClient(@NonNull Context context, boolean isOAuthBased) {
+        final OkHttpClient.Builder builder = getRootClient(context).newBuilder();
         List<Interceptor> interceptors = builder.interceptors();
         interceptors.add(new JsonMergePatchInterceptor());
         interceptors.add(new UserAgentInterceptor(
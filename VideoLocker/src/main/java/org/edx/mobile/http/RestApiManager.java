@@ -21,12 +21,9 @@ import org.edx.mobile.model.api.HandoutModel;
 import org.edx.mobile.model.api.SectionEntry;
 import org.edx.mobile.model.api.SyncLastAccessedSubsectionResponse;
 import org.edx.mobile.model.api.VideoResponseModel;
-import org.edx.mobile.model.course.CourseComponent;
-import org.edx.mobile.model.course.CourseStructureJsonHandler;
-import org.edx.mobile.model.course.CourseStructureV1Model;
 import org.edx.mobile.module.prefs.LoginPrefs;
 import org.edx.mobile.module.registration.model.RegistrationDescription;
-import org.edx.mobile.services.CourseManager;
+import org.edx.mobile.user.EnrollmentRepository;
 import org.edx.mobile.util.DateUtil;
 import org.edx.mobile.util.NetworkUtil;
 import org.json.JSONObject;
@@ -34,7 +31,6 @@ import org.json.JSONObject;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpCookie;
-import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -64,9 +60,13 @@ public class RestApiManager implements IApi {
     @Inject
     LoginPrefs loginPrefs;
 
+    @Inject
+    EnrollmentRepository enrollmentRepository;
+
     private final OkHttpClient oauthBasedClient;
     private final OauthRestApi oauthRestApi;
     private final OkHttpClient client;
+    private final OkHttpClient speedTestClient;
     private final Gson gson = new Gson();
     private Context context;
 
@@ -82,16 +82,18 @@ public class RestApiManager implements IApi {
         oauthRestApi = restAdapter.create(OauthRestApi.class);
 
         client = OkHttpUtil.getClient(context);
+        int timeoutMillis = context.getResources().getInteger(R.integer.speed_test_timeout_in_milliseconds);
+        speedTestClient = client.newBuilder()
+                .connectTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .build();
     }
 
     public final OkHttpClient getClient() {
         return client;
     }
 
-    public final OkHttpClient createSpeedTestClient() {
-        OkHttpClient.Builder builder = OkHttpUtil.getClient(context).newBuilder();
-        int timeoutMillis = context.getResources().getInteger(R.integer.speed_test_timeout_in_milliseconds);
-        return builder.connectTimeout(timeoutMillis, TimeUnit.MILLISECONDS).build();
+    public final OkHttpClient getSpeedTestClient() {
+        return speedTestClient;
     }
 
     public String getBaseUrl() {
@@ -106,10 +108,9 @@ public class RestApiManager implements IApi {
     @Override
     public EnrolledCoursesResponse getCourseById(String courseId) {
         try {
-            for (EnrolledCoursesResponse r : getEnrolledCourses(true)) {
-                if (r.getCourse().getId().equals(courseId)) {
-                    return r;
-                }
+            final String username = loginPrefs.getUsername();
+            if (username != null) {
+                return enrollmentRepository.getCourseById(username, courseId);
             }
         } catch (Exception ex) {
             logger.error(ex);
@@ -239,26 +240,6 @@ public class RestApiManager implements IApi {
         return OkHttpUtil.getCookies(context, url, false);
     }
 
-    public CourseComponent getCourseStructure(String courseId, boolean preferCache) throws Exception {
-        String username = URLEncoder.encode(loginPrefs.getUsername(), "UTF-8");
-        String block_counts = URLEncoder.encode("video", "UTF-8");
-        String requested_fields = URLEncoder.encode("graded,format,student_view_multi_device", "UTF-8");
-        String student_view_data = URLEncoder.encode("video,discussion", "UTF-8");
-
-        String response;
-        if (!NetworkUtil.isConnected(context)) {
-            response = oauthRestApi.getCourseOutline(courseId, username, requested_fields, student_view_data, block_counts);
-        } else if (preferCache) {
-            response = oauthRestApi.getCourseOutline(courseId, username, requested_fields, student_view_data, block_counts);
-        } else {
-            response = oauthRestApi.getCourseOutlineNoCache(courseId, username, requested_fields, student_view_data, block_counts);
-        }
-
-        CourseStructureV1Model model = new CourseStructureJsonHandler().processInput(response);
-        return (CourseComponent) CourseManager.normalizeCourseStructure(model, courseId);
-    }
-
-
     @Override
     public VideoResponseModel getVideoById(String courseId, String videoId) throws Exception {
         return null;
@@ -0,0 +1,143 @@
+package org.edx.mobile.http;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import android.text.format.DateUtils;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Estimates the download throughput from samples of the bytes transferred over time, which are
+ * taken from the speed test and, passively, from the HTTP traffic of the app.
+ * <p>
+ * The estimate is the total of the bytes over the total of the time of the samples in a sliding
+ * window, which holds the last {@link #MAX_SAMPLES} samples of the last {@link #WINDOW_MS}, so
+ * that longer transfers weigh more than shorter ones. Samples smaller than
+ * {@link #MIN_SAMPLE_BYTES} are ignored, as their time is mostly latency rather than transfer.
+ */
+public class ThroughputEstimator {
+    public static final long MIN_SAMPLE_BYTES = 16 * 1024;
+    public static final long WINDOW_MS = DateUtils.MINUTE_IN_MILLIS;
+    public static final int MAX_SAMPLES = 20;
+    /**
+     * How much the estimate must change, relative to the last one that the listeners were told
+     * about, for them to be told again.
+     */
+    private static final float CHANGE_FRACTION = 0.25f;
+    private static final long NS_PER_SEC = 1000000000;
+
+    public interface Listener {
+        /**
+         * Called on the thread that took the sample when the estimate has changed significantly.
+         *
+         * @param kbps The new estimate in KB/s.
+         */
+        void onThroughputChanged(float kbps);
+    }
+
+    @NonNull
+    private final Set<Listener> listeners = new CopyOnWriteArraySet<>();
+
+    // The following are guarded by this object's lock
+    @NonNull
+    private final ArrayDeque<Sample> samples = new ArrayDeque<>();
+    private long totalBytes;
+    private long totalNanos;
+    private float notifiedKbps;
+
+    public void addListener(@NonNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds a sample to the estimate.
+     *
+     * @param bytes         The number of bytes that were transferred.
+     * @param durationNanos How long the transfer took.
+     */
+    public void addSample(long bytes, long durationNanos) {
+        addSample(bytes, durationNanos, SystemClock.elapsedRealtime());
+    }
+
+    @VisibleForTesting
+    public void addSample(long bytes, long durationNanos, long nowMillis) {
+        if (bytes < MIN_SAMPLE_BYTES || durationNanos <= 0) {
+            return;
+        }
+        final float kbps;
+        synchronized (this) {
+            samples.addLast(new Sample(nowMillis, bytes, durationNanos));
+            totalBytes += bytes;
+            totalNanos += durationNanos;
+            trim(nowMillis);
+            kbps = computeKbps();
+            if (notifiedKbps != 0 &&
+                    Math.abs(kbps - notifiedKbps) <= notifiedKbps * CHANGE_FRACTION) {
+                return;
+            }
+            notifiedKbps = kbps;
+        }
+        for (Listener listener : listeners) {
+            listener.onThroughputChanged(kbps);
+        }
+    }
+
+    /**
+     * @return The estimate in KB/s, or 0 if there aren't any samples in the window.
+     */
+    public float getKbps() {
+        return getKbps(SystemClock.elapsedRealtime());
+    }
+
+    @VisibleForTesting
+    public synchronized float getKbps(long nowMillis) {
+        trim(nowMillis);
+        return computeKbps();
+    }
+
+    public synchronized int getSampleCount() {
+        return samples.size();
+    }
+
+    /**
+     * Drops the samples that have left the window.
+     */
+    private void trim(long nowMillis) {
+        while (!samples.isEmpty() && (samples.size() > MAX_SAMPLES
+                || nowMillis - samples.peekFirst().timeMillis > WINDOW_MS)) {
+            final Sample sample = samples.removeFirst();
+            totalBytes -= sample.bytes;
+            totalNanos -= sample.durationNanos;
+        }
+        if (samples.isEmpty()) {
+            // Start afresh, so that the next estimate is reported whatever it is
+            notifiedKbps = 0;
+        }
+    }
+
+    private float computeKbps() {
+        if (totalNanos == 0) {
+            return 0;
+        }
+        return (float) ((double) totalBytes * NS_PER_SEC / totalNanos / 1024);
+    }
+
+    private static class Sample {
+        final long timeMillis;
+        final long bytes;
+        final long durationNanos;
+
+        Sample(long timeMillis, long bytes, long durationNanos) {
+            this.timeMillis = timeMillis;
+            this.bytes = bytes;
+            this.durationNanos = durationNanos;
+        }
+    }
+}
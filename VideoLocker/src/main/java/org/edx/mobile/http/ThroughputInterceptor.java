@@ -0,0 +1,105 @@
+package org.edx.mobile.http;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Network interceptor that samples the throughput of the response bodies as they're read, and
+ * adds the samples to a {@link ThroughputEstimator}. It doesn't read anything itself.
+ * <p>
+ * A sample is taken whenever {@link #SAMPLE_BYTES} have been read, and when the body is exhausted
+ * or closed. Its time runs from the previous sample, or from when the body was handed over, so it
+ * also includes any time that the reader spends between reads.
+ */
+public class ThroughputInterceptor implements Interceptor {
+    public static final long SAMPLE_BYTES = 64 * 1024;
+
+    @NonNull
+    private final ThroughputEstimator estimator;
+
+    public ThroughputInterceptor(@NonNull ThroughputEstimator estimator) {
+        this.estimator = estimator;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Response response = chain.proceed(chain.request());
+        final ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        return response.newBuilder()
+                .body(new SamplingResponseBody(body))
+                .build();
+    }
+
+    private class SamplingResponseBody extends ResponseBody {
+        @NonNull
+        private final ResponseBody body;
+        private BufferedSource source;
+
+        SamplingResponseBody(@NonNull ResponseBody body) {
+            this.body = body;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return body.contentLength();
+        }
+
+        @Override
+        public synchronized BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(body.source()) {
+                    private long bytes;
+                    private long startNanos = System.nanoTime();
+
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        final long read = super.read(sink, byteCount);
+                        if (read == -1) {
+                            sample();
+                        } else {
+                            bytes += read;
+                            if (bytes >= SAMPLE_BYTES) {
+                                sample();
+                            }
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        sample();
+                        super.close();
+                    }
+
+                    private void sample() {
+                        final long now = System.nanoTime();
+                        if (bytes > 0) {
+                            estimator.addSample(bytes, now - startNanos);
+                        }
+                        bytes = 0;
+                        startNanos = now;
+                    }
+                });
+            }
+            return source;
+        }
+    }
+}
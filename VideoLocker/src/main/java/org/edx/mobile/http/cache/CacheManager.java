@@ -1,71 +1,382 @@
 package org.edx.mobile.http.cache;
 
 import android.content.Context;
-
-import com.google.inject.Inject;
-import com.google.inject.Singleton;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
 
 import org.edx.mobile.logger.Logger;
-import org.edx.mobile.util.Sha1Util;
 import org.edx.mobile.util.IOUtils;
+import org.edx.mobile.util.Sha1Util;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-@Singleton
+import okhttp3.Cache;
+
+/**
+ * The process-wide HTTP response cache, shared by the legacy {@link org.edx.mobile.http.Api}
+ * paths and by all the OkHttp clients.
+ * <p>
+ * Both live under one directory with a single byte budget. OkHttp keeps its own journal in
+ * a subdirectory, capped at {@link #OKHTTP_MAX_SIZE_BYTES}, and the responses stored through
+ * {@link #put(String, String)} use the rest of the budget. Those are written atomically,
+ * and the least recently used ones are evicted once the budget is exceeded.
+ */
 public class CacheManager {
+    @VisibleForTesting
+    static final String CACHE_FOLDER_NAME = "http-cache";
+    private static final String OKHTTP_FOLDER_NAME = "okhttp";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    /**
+     * Byte budget of the whole cache.
+     */
+    public static final long MAX_SIZE_BYTES = 20 * 1024 * 1024; // 20 MiB
+    /**
+     * Byte budget of the part of the cache used by OkHttp.
+     */
+    public static final long OKHTTP_MAX_SIZE_BYTES = 10 * 1024 * 1024; // 10 MiB
+
+    private static CacheManager instance;
 
-    private File cacheFolder;
     protected final Logger logger = new Logger(getClass().getName());
 
-    @Inject
-    public CacheManager(Context context) {
-        if (context == null) {
-            logger.warn("Context must not be NULL");
+    @NonNull
+    private final File cacheFolder;
+    private final long maxSize;
+    @NonNull
+    private final Cache okHttpCache;
+
+    // The following are guarded by this object's lock
+    /**
+     * Sizes of the cached files by name, in access order, loaded on first use.
+     */
+    private LinkedHashMap<String, Long> entries;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private long evictionCount;
+
+    /**
+     * @return The cache for the application's files directory.
+     */
+    @NonNull
+    public static synchronized CacheManager getInstance(@NonNull Context context) {
+        final File cacheFolder = new File(context.getFilesDir(), CACHE_FOLDER_NAME);
+        // The files directory only changes between test runs
+        if (instance == null || !instance.cacheFolder.equals(cacheFolder)) {
+            instance = new CacheManager(cacheFolder, MAX_SIZE_BYTES, OKHTTP_MAX_SIZE_BYTES);
         }
-        cacheFolder = new File(context.getFilesDir(), "http-cache");
+        return instance;
+    }
+
+    @VisibleForTesting
+    public CacheManager(@NonNull File cacheFolder, long maxSize, long okHttpMaxSize) {
+        this.cacheFolder = cacheFolder;
+        this.maxSize = maxSize;
         if (!cacheFolder.exists()) {
             cacheFolder.mkdirs();
         }
+        okHttpCache = new Cache(new File(cacheFolder, OKHTTP_FOLDER_NAME), okHttpMaxSize);
+    }
+
+    /**
+     * @return The cache to be used by every OkHttp client, so that there is a single owner of
+     * its journal.
+     */
+    @NonNull
+    public Cache getOkHttpCache() {
+        return okHttpCache;
     }
 
     public boolean has(String url) throws NoSuchAlgorithmException,
             UnsupportedEncodingException {
+        final String hash = Sha1Util.SHA1(url);
+        synchronized (this) {
+            return getEntries().containsKey(hash);
+        }
+    }
+
+    /**
+     * Returns a version for the cached response of the given URL, which changes whenever the
+     * response is replaced. It's derived from the cache file's metadata, so the response
+     * doesn't need to be read.
+     *
+     * @return The version, or null if the response is not cached.
+     */
+    @Nullable
+    public String getVersion(String url) throws NoSuchAlgorithmException,
+            UnsupportedEncodingException {
         String hash = Sha1Util.SHA1(url);
         File file = new File(cacheFolder, hash);
-        return file.exists();
+        long lastModified = file.lastModified();
+        if (lastModified == 0) {
+            // not in cache
+            return null;
+        }
+        return Long.toHexString(lastModified) + "-" + Long.toHexString(file.length());
     }
 
     public void put(String url, String response)
             throws NoSuchAlgorithmException, UnsupportedEncodingException,
             IOException {
-        String hash = Sha1Util.SHA1(url);
-        File file = new File(cacheFolder, hash);
-        FileOutputStream out = new FileOutputStream(file);
-        out.write(response.getBytes());
-        out.close();
+        put(url, new ByteArrayInputStream(response.getBytes()));
+    }
+
+    /**
+     * Stores the response as it's read from the stream, so that large responses don't have to
+     * be held in memory. The stream isn't closed.
+     */
+    public void put(String url, InputStream response)
+            throws NoSuchAlgorithmException, UnsupportedEncodingException,
+            IOException {
+        final String hash = Sha1Util.SHA1(url);
+        final File file = new File(cacheFolder, hash);
+        synchronized (this) {
+            // Loading the index deletes temporary files, so it mustn't happen during the write
+            getEntries();
+        }
+        // Write to a temporary file first, so that a partially written response is never read
+        final File tempFile = File.createTempFile(hash, TEMP_FILE_EXTENSION, cacheFolder);
+        try {
+            final FileOutputStream out = new FileOutputStream(tempFile);
+            try {
+                IOUtils.copy(response, out);
+            } finally {
+                out.close();
+            }
+            synchronized (this) {
+                if (!tempFile.renameTo(file)) {
+                    throw new IOException("Failed to rename " + tempFile + " to " + file);
+                }
+                final Long oldSize = entries.remove(hash);
+                if (oldSize != null) {
+                    size -= oldSize;
+                }
+                final long newSize = file.length();
+                entries.put(hash, newSize);
+                size += newSize;
+                putCount++;
+                trimToSize();
+            }
+        } finally {
+            tempFile.delete();
+        }
         logger.debug("Cache.put = " + hash);
     }
 
     public String get(String url) throws IOException, NoSuchAlgorithmException {
-        String hash = Sha1Util.SHA1(url);
-        File file = new File(cacheFolder, hash);
-
-        if (!file.exists()) {
-            logger.debug("Cache.get failed, not cached");
-            // not in cache
+        final InputStream in = getInputStream(url);
+        if (in == null) {
             return null;
         }
+        try {
+            return IOUtils.toString(in, Charset.defaultCharset());
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Opens the cached response, so that it can be parsed without reading it into a String.
+     * The responses are replaced by renaming, so the stream keeps reading the version that was
+     * opened even if it's replaced or evicted meanwhile.
+     *
+     * @return The stream, which the caller must close, or null if the response is not cached.
+     */
+    @Nullable
+    public InputStream getInputStream(String url) throws IOException, NoSuchAlgorithmException {
+        final String hash = Sha1Util.SHA1(url);
+        synchronized (this) {
+            // Also marks the entry as the most recently used one
+            if (getEntries().get(hash) == null) {
+                missCount++;
+                logger.debug("Cache.get failed, not cached");
+                return null;
+            }
+        }
 
-        FileInputStream in = new FileInputStream(file);
-        String cache = IOUtils.toString(in, Charset.defaultCharset());
-        in.close();
+        final InputStream in;
+        try {
+            in = new FileInputStream(new File(cacheFolder, hash));
+        } catch (FileNotFoundException e) {
+            // Evicted since the index was checked
+            synchronized (this) {
+                final Long oldSize = getEntries().remove(hash);
+                if (oldSize != null) {
+                    size -= oldSize;
+                }
+                missCount++;
+            }
+            return null;
+        }
+        synchronized (this) {
+            hitCount++;
+        }
         logger.debug("Cache.get = " + hash);
-        return cache;
+        return in;
+    }
+
+    /**
+     * @return A snapshot of the cache's counters, covering both the responses stored here and
+     * the OkHttp cache.
+     */
+    @NonNull
+    public Stats getStats() {
+        long okHttpSize;
+        try {
+            okHttpSize = okHttpCache.size();
+        } catch (IOException e) {
+            okHttpSize = 0;
+        }
+        final int okHttpRequestCount = okHttpCache.requestCount();
+        final int okHttpHitCount = okHttpCache.hitCount();
+        synchronized (this) {
+            getEntries();
+            return new Stats(hitCount + okHttpHitCount,
+                    missCount + okHttpRequestCount - okHttpHitCount,
+                    putCount + okHttpCache.writeSuccessCount(),
+                    evictionCount, size + okHttpSize, maxSize);
+        }
+    }
+
+    /**
+     * Loads the index of the cached files on first use, oldest first.
+     */
+    @NonNull
+    private LinkedHashMap<String, Long> getEntries() {
+        if (entries != null) {
+            return entries;
+        }
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+        size = 0;
+        File[] files = cacheFolder.listFiles();
+        if (files == null) {
+            files = new File[0];
+        }
+        // Read each timestamp once, as they take a system call each
+        final Map<File, Long> lastModifiedByFile = new HashMap<>();
+        for (File file : files) {
+            lastModifiedByFile.put(file, file.lastModified());
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                final long lhsTime = lastModifiedByFile.get(lhs);
+                final long rhsTime = lastModifiedByFile.get(rhs);
+                return lhsTime < rhsTime ? -1 : (lhsTime == rhsTime ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (file.isDirectory()) {
+                continue;
+            }
+            final String name = file.getName();
+            if (name.indexOf('.') >= 0 || name.equals("journal")) {
+                // Left over by an interrupted write, or by OkHttp before it had its own folder
+                file.delete();
+                continue;
+            }
+            final long fileSize = file.length();
+            entries.put(name, fileSize);
+            size += fileSize;
+        }
+        trimToSize();
+        return entries;
+    }
+
+    /**
+     * Evicts the least recently used responses until the whole cache fits into the budget.
+     */
+    private void trimToSize() {
+        long okHttpSize;
+        try {
+            okHttpSize = okHttpCache.size();
+        } catch (IOException e) {
+            okHttpSize = 0;
+        }
+        final Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (size + okHttpSize > maxSize && iterator.hasNext()) {
+            final Map.Entry<String, Long> entry = iterator.next();
+            new File(cacheFolder, entry.getKey()).delete();
+            size -= entry.getValue();
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * A snapshot of the cache's counters.
+     */
+    public static class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long putCount;
+        private final long evictionCount;
+        private final long size;
+        private final long maxSize;
+
+        public Stats(long hitCount, long missCount, long putCount, long evictionCount,
+                     long size, long maxSize) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.putCount = putCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+            this.maxSize = maxSize;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getPutCount() {
+            return putCount;
+        }
+
+        /**
+         * @return The number of responses evicted to stay within the budget. OkHttp doesn't
+         * report its own evictions, so they aren't included.
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * @return The total size of the cached responses, in bytes.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hitCount + ", misses=" + missCount + ", puts=" + putCount
+                    + ", evictions=" + evictionCount + ", size=" + size + "/" + maxSize;
+        }
     }
 }
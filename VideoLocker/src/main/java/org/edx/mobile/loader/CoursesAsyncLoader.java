@@ -10,7 +10,7 @@ import org.edx.mobile.http.HttpException;
 import org.edx.mobile.model.api.EnrolledCoursesResponse;
 import org.edx.mobile.model.api.ProfileModel;
 import org.edx.mobile.module.prefs.LoginPrefs;
-import org.edx.mobile.user.UserAPI;
+import org.edx.mobile.user.EnrollmentRepository;
 
 import java.util.List;
 import java.util.Observable;
@@ -27,7 +27,7 @@ public class CoursesAsyncLoader extends AsyncTaskLoader<AsyncTaskResult<List<Enr
     IEdxEnvironment environment;
 
     @Inject
-    UserAPI api;
+    EnrollmentRepository enrollmentRepository;
 
     @Inject
     LoginPrefs loginPrefs;
@@ -47,7 +47,7 @@ public class CoursesAsyncLoader extends AsyncTaskLoader<AsyncTaskResult<List<Enr
 
         try {
             if (profile != null) {
-                enrolledCoursesResponse = api.getUserEnrolledCourses(profile.username, false);
+                enrolledCoursesResponse = enrollmentRepository.refresh(profile.username);
                 environment.getNotificationDelegate().syncWithServerForFailure();
                 environment.getNotificationDelegate().checkCourseEnrollment(enrolledCoursesResponse);
             }
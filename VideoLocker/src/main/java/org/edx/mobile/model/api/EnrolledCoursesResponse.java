@@ -18,6 +18,22 @@ public class EnrolledCoursesResponse implements SectionItemInterface {
     public int videoCount;
     public long size;
 
+    public EnrolledCoursesResponse() {
+    }
+
+    /**
+     * Creates a copy of the course, which can be given its own derived fields.
+     */
+    public EnrolledCoursesResponse(EnrolledCoursesResponse other) {
+        created = other.created;
+        mode = other.mode;
+        is_active = other.is_active;
+        course = other.course;
+        certificate = other.certificate;
+        videoCount = other.videoCount;
+        size = other.size;
+    }
+
     public String getCreated() {
         return created;
     }
@@ -8,6 +8,9 @@ import java.util.Map;
  *  returned from server
  */
 public class BlockList extends HashMap<String, BlockModel> {
+    public BlockList() {
+    }
+
     public BlockList(Map<String,BlockModel> map){
         super(map);
     }
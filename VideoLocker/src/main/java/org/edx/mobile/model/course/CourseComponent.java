@@ -1,5 +1,7 @@
 package org.edx.mobile.model.course;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import org.edx.mobile.R;
@@ -33,6 +35,11 @@ public class CourseComponent implements IBlock, IPathNode {
     protected List<CourseComponent> children = new ArrayList<>();
     private String courseId;
     private String format;
+    /**
+     * Lookup tables for the tree, only kept on the root. Built on first use, and dropped
+     * whenever the tree changes.
+     */
+    private volatile CourseIndex index;
 
     public CourseComponent(){}
 
@@ -58,6 +65,7 @@ public class CourseComponent implements IBlock, IPathNode {
             parent.getChildren().add(this);
             //we cache the root to improve the performance
             this.root = (CourseComponent)parent.getRoot();
+            this.root.index = null;
         }
     }
 
@@ -69,6 +77,9 @@ public class CourseComponent implements IBlock, IPathNode {
     @Override
     public void setId(String id) {
         this.id = id;
+        if (root != null) {
+            root.index = null;
+        }
     }
 
     @Override
@@ -211,10 +222,84 @@ public class CourseComponent implements IBlock, IPathNode {
         return null;
     }
 
+    /**
+     * Finds the component with the given id, in constant time.
+     *
+     * @return The component, which is either this one or one of its descendants, or null if
+     * there is none with the id.
+     */
+    @Nullable
+    public CourseComponent getComponentById(@NonNull String componentId) {
+        final CourseComponent component = getIndex().componentsById.get(componentId);
+        if (component == null || component == this || root == this) {
+            return component;
+        }
+        // The index covers the whole tree, so make sure it's in this subtree
+        return component.isDescendantOf(this) ? component : null;
+    }
+
+    /**
+     * @return All the discussion blocks under this node, in tree order.
+     */
+    @NonNull
+    public List<DiscussionBlockModel> getDiscussionBlocks() {
+        return getDescendants(getIndex().discussions);
+    }
+
+    /**
+     * @return All the blocks under this node which are displayed as HTML, in tree order.
+     */
+    @NonNull
+    public List<HtmlBlockModel> getHtmlBlocks() {
+        return getDescendants(getIndex().htmlBlocks);
+    }
+
+    /**
+     * @return The components from the index which are in this subtree.
+     */
+    @NonNull
+    private <T extends CourseComponent> List<T> getDescendants(@NonNull List<T> components) {
+        if (root == this) {
+            return components;
+        }
+        final List<T> descendants = new ArrayList<>();
+        for (T component : components) {
+            if (component == this || ((CourseComponent) component).isDescendantOf(this)) {
+                descendants.add(component);
+            }
+        }
+        return descendants;
+    }
+
+    @NonNull
+    private CourseIndex getIndex() {
+        final CourseComponent root = this.root == null ? this : this.root;
+        CourseIndex index = root.index;
+        if (index == null) {
+            // Another thread may build it at the same time, which is harmless
+            index = CourseIndex.build(root);
+            root.index = index;
+        }
+        return index;
+    }
+
+    private boolean isDescendantOf(@NonNull CourseComponent ancestor) {
+        for (CourseComponent node = parent; node != null; node = node.parent) {
+            if (node == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * return all videos blocks under this node
      */
     public List<VideoBlockModel> getVideos(){
+        if (root == this) {
+            // Read-only, straight from the index
+            return getIndex().videos;
+        }
         List<CourseComponent> videos = new ArrayList<>();
         fetchAllLeafComponents(videos, EnumSet.of(BlockType.VIDEO));
         // Confirm that these are actually VideoBlockModel instances.
@@ -268,6 +353,15 @@ public class CourseComponent implements IBlock, IPathNode {
      * @param leaves
      */
     public void fetchAllLeafComponents(List<CourseComponent> leaves, EnumSet<BlockType> types){
+         if (root == this) {
+             // The index has the leaves in the same order as the recursion below
+             for (CourseComponent leaf : getIndex().leaves) {
+                 if (types.contains(leaf.type)) {
+                     leaves.add(leaf);
+                 }
+             }
+             return;
+         }
          if ( !isContainer() && types.contains(type)){
              leaves.add(this);
          } else {
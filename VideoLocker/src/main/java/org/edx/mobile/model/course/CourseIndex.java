@@ -0,0 +1,74 @@
+package org.edx.mobile.model.course;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup tables for a whole course tree, built in a single walk from the root. The lists keep
+ * the tree order. It's never modified after being built, so it can be shared between threads.
+ */
+class CourseIndex {
+    @NonNull
+    final Map<String, CourseComponent> componentsById;
+    @NonNull
+    final List<CourseComponent> leaves;
+    @NonNull
+    final List<VideoBlockModel> videos;
+    @NonNull
+    final List<DiscussionBlockModel> discussions;
+    @NonNull
+    final List<HtmlBlockModel> htmlBlocks;
+
+    private CourseIndex(@NonNull Map<String, CourseComponent> componentsById,
+                        @NonNull List<CourseComponent> leaves,
+                        @NonNull List<VideoBlockModel> videos,
+                        @NonNull List<DiscussionBlockModel> discussions,
+                        @NonNull List<HtmlBlockModel> htmlBlocks) {
+        this.componentsById = Collections.unmodifiableMap(componentsById);
+        this.leaves = Collections.unmodifiableList(leaves);
+        this.videos = Collections.unmodifiableList(videos);
+        this.discussions = Collections.unmodifiableList(discussions);
+        this.htmlBlocks = Collections.unmodifiableList(htmlBlocks);
+    }
+
+    @NonNull
+    static CourseIndex build(@NonNull CourseComponent root) {
+        final Builder builder = new Builder();
+        builder.add(root);
+        return new CourseIndex(builder.componentsById, builder.leaves, builder.videos,
+                builder.discussions, builder.htmlBlocks);
+    }
+
+    private static class Builder {
+        final Map<String, CourseComponent> componentsById = new HashMap<>();
+        final List<CourseComponent> leaves = new ArrayList<>();
+        final List<VideoBlockModel> videos = new ArrayList<>();
+        final List<DiscussionBlockModel> discussions = new ArrayList<>();
+        final List<HtmlBlockModel> htmlBlocks = new ArrayList<>();
+
+        void add(@NonNull CourseComponent component) {
+            // Keep the first of any duplicate ids, which is what a depth-first search finds
+            if (component.getId() != null && !componentsById.containsKey(component.getId())) {
+                componentsById.put(component.getId(), component);
+            }
+            if (!component.isContainer()) {
+                leaves.add(component);
+                if (component instanceof VideoBlockModel) {
+                    videos.add((VideoBlockModel) component);
+                } else if (component instanceof DiscussionBlockModel) {
+                    discussions.add((DiscussionBlockModel) component);
+                } else if (component instanceof HtmlBlockModel) {
+                    htmlBlocks.add((HtmlBlockModel) component);
+                }
+            }
+            for (CourseComponent child : component.children) {
+                add(child);
+            }
+        }
+    }
+}
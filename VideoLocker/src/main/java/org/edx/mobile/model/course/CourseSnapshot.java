@@ -0,0 +1,281 @@
+package org.edx.mobile.model.course;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.edx.mobile.model.api.TranscriptModel;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A normalized course tree along with the version of the course structure it was built from,
+ * which can be written to and read from a compact binary format. Reading a snapshot rebuilds
+ * the tree directly, without any JSON parsing or normalization.
+ */
+public class CourseSnapshot {
+    /**
+     * Version of the binary format, to be incremented whenever the format changes.
+     */
+    public static final int BINARY_FORMAT_VERSION = 1;
+
+    private static final int KIND_CONTAINER = 0;
+    private static final int KIND_VIDEO = 1;
+    private static final int KIND_DISCUSSION = 2;
+    private static final int KIND_HTML = 3;
+
+    private static final int DATA_NONE = 0;
+    private static final int DATA_BLOCK = 1;
+    private static final int DATA_VIDEO = 2;
+    private static final int DATA_DISCUSSION = 3;
+
+    @NonNull
+    private final CourseComponent course;
+    @NonNull
+    private final String version;
+
+    public CourseSnapshot(@NonNull CourseComponent course, @NonNull String version) {
+        this.course = course;
+        this.version = version;
+    }
+
+    @NonNull
+    public CourseComponent getCourse() {
+        return course;
+    }
+
+    /**
+     * @return The version of the course structure the tree was built from.
+     */
+    @NonNull
+    public String getVersion() {
+        return version;
+    }
+
+    @NonNull
+    public static CourseSnapshot readFrom(@NonNull DataInputStream in) throws IOException {
+        final int formatVersion = in.readInt();
+        if (formatVersion != BINARY_FORMAT_VERSION) {
+            throw new IOException("Unsupported course snapshot version: " + formatVersion);
+        }
+        final String version = in.readUTF();
+        final String courseId = in.readUTF();
+        final CourseComponent course = readComponent(in, null);
+        course.setCourseId(courseId);
+        return new CourseSnapshot(course, version);
+    }
+
+    public void writeTo(@NonNull DataOutputStream out) throws IOException {
+        out.writeInt(BINARY_FORMAT_VERSION);
+        out.writeUTF(version);
+        out.writeUTF(course.getCourseId());
+        writeComponent(out, course);
+        out.flush();
+    }
+
+    /**
+     * Writes a component and its descendants in pre-order.
+     */
+    private static void writeComponent(@NonNull DataOutputStream out,
+                                       @NonNull CourseComponent component) throws IOException {
+        final BlockData data;
+        if (component instanceof VideoBlockModel) {
+            out.writeByte(KIND_VIDEO);
+            data = ((VideoBlockModel) component).getData();
+        } else if (component instanceof DiscussionBlockModel) {
+            out.writeByte(KIND_DISCUSSION);
+            data = ((DiscussionBlockModel) component).getData();
+        } else if (component instanceof HtmlBlockModel) {
+            out.writeByte(KIND_HTML);
+            data = ((HtmlBlockModel) component).getData();
+        } else {
+            out.writeByte(KIND_CONTAINER);
+            data = null;
+        }
+        writeString(out, component.getId());
+        writeString(out, component.getType() == null ? null : component.getType().name());
+        writeString(out, component.getInternalName());
+        out.writeBoolean(component.isGraded());
+        out.writeBoolean(component.isMultiDevice());
+        writeString(out, component.getBlockUrl());
+        writeString(out, component.getWebUrl());
+        writeString(out, component.getFormat());
+        out.writeInt(component.getBlockCount() == null ? 0 : component.getBlockCount().videoCount);
+        writeBlockData(out, data);
+
+        final List<IBlock> children = component.getChildren();
+        out.writeInt(children.size());
+        for (IBlock child : children) {
+            writeComponent(out, (CourseComponent) child);
+        }
+    }
+
+    @NonNull
+    private static CourseComponent readComponent(@NonNull DataInputStream in,
+                                                 @Nullable CourseComponent parent) throws IOException {
+        final int kind = in.readByte();
+        final BlockModel block = new BlockModel();
+        block.id = readString(in);
+        final String type = readString(in);
+        try {
+            block.type = type == null ? null : BlockType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown block type: " + type);
+        }
+        block.displayName = readString(in);
+        block.graded = in.readBoolean();
+        block.studentViewMultiDevice = in.readBoolean();
+        block.studentViewUrl = readString(in);
+        block.lmsWebUrl = readString(in);
+        block.format = readString(in);
+        block.blockCounts = new BlockCount();
+        block.blockCounts.videoCount = in.readInt();
+        block.data = readBlockData(in);
+
+        final CourseComponent component;
+        switch (kind) {
+            case KIND_CONTAINER:
+                component = new CourseComponent(block, parent);
+                break;
+            case KIND_VIDEO:
+                if (!(block.data instanceof VideoData)) {
+                    throw new IOException("Video block without video data: " + block.id);
+                }
+                component = new VideoBlockModel(block, parent);
+                break;
+            case KIND_DISCUSSION:
+                if (!(block.data instanceof DiscussionData)) {
+                    throw new IOException("Discussion block without discussion data: " + block.id);
+                }
+                component = new DiscussionBlockModel(block, parent);
+                break;
+            case KIND_HTML:
+                component = new HtmlBlockModel(block, parent);
+                break;
+            default:
+                throw new IOException("Unknown component kind: " + kind);
+        }
+
+        final int childCount = in.readInt();
+        if (childCount < 0) {
+            throw new IOException("Invalid child count: " + childCount);
+        }
+        for (int i = 0; i < childCount; i++) {
+            // The child adds itself to the parent's children
+            readComponent(in, component);
+        }
+        return component;
+    }
+
+    private static void writeBlockData(@NonNull DataOutputStream out,
+                                       @Nullable BlockData data) throws IOException {
+        if (data == null) {
+            out.writeByte(DATA_NONE);
+        } else if (data instanceof VideoData) {
+            final VideoData videoData = (VideoData) data;
+            out.writeByte(DATA_VIDEO);
+            out.writeLong(videoData.duration);
+            out.writeBoolean(videoData.onlyOnWeb);
+            final TranscriptModel transcripts = videoData.transcripts;
+            out.writeBoolean(transcripts != null);
+            if (transcripts != null) {
+                writeString(out, transcripts.englishUrl);
+                writeString(out, transcripts.spanishUrl);
+                writeString(out, transcripts.germanUrl);
+                writeString(out, transcripts.portugueseUrl);
+                writeString(out, transcripts.chineseUrl);
+                writeString(out, transcripts.frenchUrl);
+            }
+            final EncodedVideos encodedVideos = videoData.encodedVideos;
+            out.writeBoolean(encodedVideos != null);
+            if (encodedVideos != null) {
+                writeVideoInfo(out, encodedVideos.fallback);
+                writeVideoInfo(out, encodedVideos.mobileHigh);
+                writeVideoInfo(out, encodedVideos.mobileLow);
+                writeVideoInfo(out, encodedVideos.youtube);
+            }
+        } else if (data instanceof DiscussionData) {
+            out.writeByte(DATA_DISCUSSION);
+            writeString(out, ((DiscussionData) data).topicId);
+        } else {
+            out.writeByte(DATA_BLOCK);
+        }
+    }
+
+    @Nullable
+    private static BlockData readBlockData(@NonNull DataInputStream in) throws IOException {
+        final int kind = in.readByte();
+        switch (kind) {
+            case DATA_NONE:
+                return null;
+            case DATA_BLOCK:
+                return new BlockData();
+            case DATA_VIDEO: {
+                final VideoData videoData = new VideoData();
+                videoData.duration = in.readLong();
+                videoData.onlyOnWeb = in.readBoolean();
+                if (in.readBoolean()) {
+                    final TranscriptModel transcripts = new TranscriptModel();
+                    transcripts.englishUrl = readString(in);
+                    transcripts.spanishUrl = readString(in);
+                    transcripts.germanUrl = readString(in);
+                    transcripts.portugueseUrl = readString(in);
+                    transcripts.chineseUrl = readString(in);
+                    transcripts.frenchUrl = readString(in);
+                    videoData.transcripts = transcripts;
+                }
+                if (in.readBoolean()) {
+                    final EncodedVideos encodedVideos = new EncodedVideos();
+                    encodedVideos.fallback = readVideoInfo(in);
+                    encodedVideos.mobileHigh = readVideoInfo(in);
+                    encodedVideos.mobileLow = readVideoInfo(in);
+                    encodedVideos.youtube = readVideoInfo(in);
+                    videoData.encodedVideos = encodedVideos;
+                }
+                return videoData;
+            }
+            case DATA_DISCUSSION: {
+                final DiscussionData discussionData = new DiscussionData();
+                discussionData.topicId = readString(in);
+                return discussionData;
+            }
+            default:
+                throw new IOException("Unknown block data kind: " + kind);
+        }
+    }
+
+    private static void writeVideoInfo(@NonNull DataOutputStream out,
+                                       @Nullable VideoInfo videoInfo) throws IOException {
+        out.writeBoolean(videoInfo != null);
+        if (videoInfo != null) {
+            writeString(out, videoInfo.url);
+            out.writeLong(videoInfo.fileSize);
+        }
+    }
+
+    @Nullable
+    private static VideoInfo readVideoInfo(@NonNull DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        final VideoInfo videoInfo = new VideoInfo();
+        videoInfo.url = readString(in);
+        videoInfo.fileSize = in.readLong();
+        return videoInfo;
+    }
+
+    private static void writeString(@NonNull DataOutputStream out,
+                                    @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readString(@NonNull DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -1,86 +1,308 @@
 package org.edx.mobile.model.course;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import org.edx.mobile.logger.Logger;
+import org.edx.mobile.model.api.TranscriptModel;
 
-import java.lang.reflect.Type;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 /**
  * Created by hanning on 5/19/15.
+ * <p>
+ * Parses the course blocks response with a streaming {@link JsonReader}, straight into
+ * {@link BlockModel}s, so that the whole response never needs to be held in memory as a
+ * JSON tree.
  */
 public class CourseStructureJsonHandler {
     protected static final Logger logger = new Logger(CourseStructureJsonHandler.class.getName());
 
+    private static final Gson gson = new Gson();
+
     public CourseStructureV1Model processInput(String jsonInput) {
-        BlockDataDeserializer dataDeserializer = new BlockDataDeserializer();
-        BlockListDeserializer blockListDeserializer = new BlockListDeserializer();
-        BlockTypeDeserializer blockTypeListDeserializer = new BlockTypeDeserializer();
-
-        //ideally we should use this approach. but it requires base class to
-        //define some properties.
-//        RuntimeTypeAdapterFactory<BlockData> rta = RuntimeTypeAdapterFactory.of(
-//            BlockData.class)
-//            .registerSubtype(VideoData.class);
-
-        Gson gson = new GsonBuilder()  //.registerTypeAdapterFactory(rta)
-                .registerTypeAdapter(BlockData.class, dataDeserializer)
-                .registerTypeAdapter(BlockType.class, blockTypeListDeserializer)
-                .registerTypeAdapter(BlockList.class, blockListDeserializer).create();
-
-        return gson.fromJson(jsonInput, CourseStructureV1Model.class);
+        if (jsonInput == null) {
+            return null;
+        }
+        try {
+            return processInput(new StringReader(jsonInput));
+        } catch (IOException e) {
+            // Can't happen with a StringReader
+            throw new JsonParseException(e);
+        }
     }
 
+    /**
+     * Parses the course structure from a UTF-8 encoded stream, which is closed afterwards.
+     */
+    public CourseStructureV1Model processInput(@NonNull InputStream in) throws IOException {
+        try {
+            return processInput(new InputStreamReader(in, "UTF-8"));
+        } finally {
+            in.close();
+        }
+    }
 
-    private static class BlockDataDeserializer implements JsonDeserializer<BlockData> {
-        @Override
-        public BlockData deserialize(JsonElement json, Type typeOfT,
-                                     JsonDeserializationContext context) throws JsonParseException {
-            JsonObject jsonObject = json.getAsJsonObject();
-            //TODO - can not figure out a way to pass parent properties, for example, "type" field
-            //so have to check the existence of certain fields
-            if (jsonObject.has("encoded_videos") || jsonObject.has("transcripts")) {
-                return context.deserialize(jsonObject, VideoData.class);
-            } else if (jsonObject.has("topic_id")) {
-                return context.deserialize(jsonObject, DiscussionData.class);
+    public CourseStructureV1Model processInput(@NonNull Reader in) throws IOException {
+        final JsonReader reader = new JsonReader(in);
+        try {
+            final JsonToken token;
+            try {
+                token = reader.peek();
+            } catch (EOFException e) {
+                // Empty document
+                return null;
             }
-            return new BlockData();
+            if (token == JsonToken.NULL) {
+                return null;
+            }
+            final CourseStructureV1Model model = new CourseStructureV1Model();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "root":
+                        model.root = nextString(reader);
+                        break;
+                    case "blocks":
+                        model.blockData = readBlockList(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return model;
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new JsonParseException(e);
         }
     }
 
-    private static class BlockListDeserializer implements JsonDeserializer<BlockList> {
-        @Override
-        public BlockList deserialize(JsonElement json, Type typeOfT,
-                                     JsonDeserializationContext context) throws JsonParseException {
-            Type mapType = new TypeToken<Map<String, BlockModel>>() {}.getType();
-            JsonObject jsonObject = json.getAsJsonObject();
-            Map<String, BlockModel> map = (Map<String, BlockModel>) context.deserialize(jsonObject, mapType);
-            return new BlockList(map);
+    @Nullable
+    private static BlockList readBlockList(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        final BlockList blockList = new BlockList();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String id = reader.nextName();
+            blockList.put(id, readBlock(reader));
         }
+        reader.endObject();
+        return blockList;
     }
 
-    private static class BlockTypeDeserializer implements JsonDeserializer<BlockType> {
-        @Override
-        public BlockType deserialize(JsonElement json, Type typeOfT,
-                                     JsonDeserializationContext context) throws JsonParseException {
-            String value = json.getAsString();
-            try {
-                //we force the String.toUpperCase to use English local.
-                //as it is just a mapping from english string to constants.
-                return BlockType.valueOf(value.toUpperCase(Locale.US));
-            } catch (Exception ex) {
-                logger.debug(ex.getMessage());
-                return BlockType.OTHERS;
+    @Nullable
+    private static BlockModel readBlock(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        final BlockModel block = new BlockModel();
+        // The block data can only be mapped to a subclass once the block type is known,
+        // which may come after the data in the response
+        BlockDataFields dataFields = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    block.id = nextString(reader);
+                    break;
+                case "type":
+                    block.type = toBlockType(nextString(reader));
+                    break;
+                case "display_name":
+                    block.displayName = nextString(reader);
+                    break;
+                case "graded":
+                    block.graded = nextBoolean(reader);
+                    break;
+                case "student_view_multi_device":
+                    block.studentViewMultiDevice = nextBoolean(reader);
+                    break;
+                case "student_view_url":
+                    block.studentViewUrl = nextString(reader);
+                    break;
+                case "block_counts":
+                    block.blockCounts = gson.fromJson(reader, BlockCount.class);
+                    break;
+                case "lms_web_url":
+                    block.lmsWebUrl = nextString(reader);
+                    break;
+                case "format":
+                    block.format = nextString(reader);
+                    break;
+                case "descendants":
+                    block.descendants = readStringList(reader);
+                    break;
+                case "student_view_data":
+                    dataFields = readBlockData(reader, block.type);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (dataFields != null) {
+            block.data = dataFields.toBlockData(block.type);
+        }
+        return block;
+    }
+
+    /**
+     * Reads the fields of a block's data object which are relevant to its type. If the type
+     * isn't known yet, the fields relevant to any type are read.
+     */
+    @Nullable
+    private static BlockDataFields readBlockData(@NonNull JsonReader reader,
+                                                 @Nullable BlockType type) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        final boolean readVideoFields = type == null || type == BlockType.VIDEO;
+        final boolean readDiscussionFields = type == null || type == BlockType.DISCUSSION;
+        final BlockDataFields fields = new BlockDataFields();
+        if (!readVideoFields && !readDiscussionFields) {
+            reader.skipValue();
+            return fields;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (readVideoFields) {
+                switch (name) {
+                    case "duration":
+                        fields.getVideoData().duration = nextLong(reader);
+                        continue;
+                    case "transcripts":
+                        fields.hasVideoFields = true;
+                        fields.getVideoData().transcripts =
+                                gson.fromJson(reader, TranscriptModel.class);
+                        continue;
+                    case "only_on_web":
+                        fields.getVideoData().onlyOnWeb = nextBoolean(reader);
+                        continue;
+                    case "encoded_videos":
+                        fields.hasVideoFields = true;
+                        fields.getVideoData().encodedVideos =
+                                gson.fromJson(reader, EncodedVideos.class);
+                        continue;
+                }
+            }
+            if (readDiscussionFields && name.equals("topic_id")) {
+                fields.hasDiscussionFields = true;
+                fields.topicId = nextString(reader);
+                continue;
             }
+            reader.skipValue();
+        }
+        reader.endObject();
+        return fields;
+    }
+
+    /**
+     * The fields read from a block's data object, before the block type is known.
+     */
+    private static class BlockDataFields {
+        @Nullable
+        VideoData videoData;
+        boolean hasVideoFields;
+        @Nullable
+        String topicId;
+        boolean hasDiscussionFields;
+
+        @NonNull
+        VideoData getVideoData() {
+            if (videoData == null) {
+                videoData = new VideoData();
+            }
+            return videoData;
+        }
+
+        /**
+         * Maps the data to the subclass for the block type. Blocks which lack the fields
+         * required by their type only get the base class.
+         */
+        @NonNull
+        BlockData toBlockData(@Nullable BlockType type) {
+            if ((type == null || type == BlockType.VIDEO) && hasVideoFields) {
+                return videoData;
+            } else if ((type == null || type == BlockType.DISCUSSION) && hasDiscussionFields) {
+                final DiscussionData discussionData = new DiscussionData();
+                discussionData.topicId = topicId;
+                return discussionData;
+            }
+            return new BlockData();
+        }
+    }
+
+    @Nullable
+    private static BlockType toBlockType(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            //we force the String.toUpperCase to use English local.
+            //as it is just a mapping from english string to constants.
+            return BlockType.valueOf(value.toUpperCase(Locale.US));
+        } catch (Exception ex) {
+            logger.debug(ex.getMessage());
+            return BlockType.OTHERS;
+        }
+    }
+
+    @Nullable
+    private static List<String> readStringList(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        final List<String> list = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            list.add(nextString(reader));
+        }
+        reader.endArray();
+        return list;
+    }
+
+    @Nullable
+    private static String nextString(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static boolean nextBoolean(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return false;
+        }
+        return reader.nextBoolean();
+    }
+
+    private static long nextLong(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
         }
+        return (long) reader.nextDouble();
     }
 }
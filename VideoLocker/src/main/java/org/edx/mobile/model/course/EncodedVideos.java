@@ -1,10 +1,13 @@
 package org.edx.mobile.model.course;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.webkit.URLUtil;
 
 import com.google.gson.annotations.SerializedName;
 
+import org.edx.mobile.model.api.EncodingsModel;
+
 import java.io.Serializable;
 
 public class EncodedVideos implements Serializable {
@@ -31,6 +34,18 @@ public class EncodedVideos implements Serializable {
         return null;
     }
 
+    /**
+     * @return The mobile encoding of the given level, or null if the video doesn't have it.
+     */
+    @Nullable
+    public VideoInfo getVideoInfo(@NonNull EncodingsModel.EncodingLevel level) {
+        final VideoInfo videoInfo = level == EncodingsModel.EncodingLevel.HIGH ?
+                mobileHigh : mobileLow;
+        if (videoInfo != null && URLUtil.isNetworkUrl(videoInfo.url))
+            return videoInfo;
+        return null;
+    }
+
     @Nullable
     public VideoInfo getYoutubeVideoInfo() {
         if (youtube != null && URLUtil.isNetworkUrl(youtube.url))
@@ -0,0 +1,25 @@
+package org.edx.mobile.model.db;
+
+/**
+ * The downloaded videos of a course, as counted by the database.
+ */
+public class CourseDownloadSummary {
+    private final int videoCount;
+    private final long size;
+
+    public CourseDownloadSummary(int videoCount, long size) {
+        this.videoCount = videoCount;
+        this.size = size;
+    }
+
+    public int getVideoCount() {
+        return videoCount;
+    }
+
+    /**
+     * @return The total size of the videos in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,132 @@
+package org.edx.mobile.model.db;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.edx.mobile.model.db.DownloadEntry.DownloadedState;
+import org.edx.mobile.model.db.DownloadEntry.WatchedState;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The stored videos of a course, with their download and watched states, and the units that
+ * have been accessed. It's loaded from the database at once, so that the course outline can be
+ * shown without querying the database for every row, and is kept up to date with
+ * {@link #updateDownload(DownloadEntry)} as the downloads change.
+ */
+public class CourseOutlineState {
+    @NonNull
+    private final Map<String, DownloadEntry> downloadsByVideoId = new HashMap<>();
+    @NonNull
+    private final Set<String> accessedUnitIds;
+    /**
+     * The number of downloaded and downloading videos in each section, by
+     * {@link #getSectionKey(String, String)}.
+     */
+    @NonNull
+    private final Map<String, int[]> countsBySection = new HashMap<>();
+
+    public CourseOutlineState() {
+        this.accessedUnitIds = new HashSet<>();
+    }
+
+    public CourseOutlineState(@NonNull Collection<DownloadEntry> downloads,
+                              @NonNull Set<String> accessedUnitIds) {
+        this.accessedUnitIds = accessedUnitIds;
+        for (DownloadEntry download : downloads) {
+            updateDownload(download);
+        }
+    }
+
+    /**
+     * Replaces the stored video with the same ID.
+     */
+    public void updateDownload(@NonNull DownloadEntry download) {
+        final DownloadEntry previous = downloadsByVideoId.put(download.videoId, download);
+        if (previous != null) {
+            count(previous, -1);
+        }
+        count(download, 1);
+    }
+
+    /**
+     * Marks the video as not downloaded, the same way the database does when its download is
+     * deleted.
+     */
+    public void removeDownload(@NonNull String videoId) {
+        final DownloadEntry download = downloadsByVideoId.get(videoId);
+        if (download != null) {
+            count(download, -1);
+            download.downloaded = DownloadedState.ONLINE;
+            download.dmId = -1;
+            download.filepath = "";
+        }
+    }
+
+    private void count(@NonNull DownloadEntry download, int delta) {
+        final int index;
+        if (download.downloaded == DownloadedState.DOWNLOADED) {
+            index = 0;
+        } else if (download.downloaded == DownloadedState.DOWNLOADING) {
+            index = 1;
+        } else {
+            return;
+        }
+        final String key = getSectionKey(download.chapter, download.section);
+        int[] counts = countsBySection.get(key);
+        if (counts == null) {
+            counts = new int[2];
+            countsBySection.put(key, counts);
+        }
+        counts[index] += delta;
+    }
+
+    @NonNull
+    private static String getSectionKey(String chapter, String section) {
+        return chapter + '\n' + section;
+    }
+
+    /**
+     * @return The stored video, or null if it isn't in the database.
+     */
+    @Nullable
+    public DownloadEntry getDownload(@NonNull String videoId) {
+        return downloadsByVideoId.get(videoId);
+    }
+
+    @NonNull
+    public DownloadedState getDownloadedState(@NonNull String videoId) {
+        final DownloadEntry download = downloadsByVideoId.get(videoId);
+        if (download == null || download.downloaded == null) {
+            return DownloadedState.ONLINE;
+        }
+        return download.downloaded;
+    }
+
+    @NonNull
+    public WatchedState getWatchedState(@NonNull String videoId) {
+        final DownloadEntry download = downloadsByVideoId.get(videoId);
+        if (download == null || download.watched == null) {
+            return WatchedState.UNWATCHED;
+        }
+        return download.watched;
+    }
+
+    public boolean isUnitAccessed(@NonNull String unitId) {
+        return accessedUnitIds.contains(unitId);
+    }
+
+    public int getDownloadedVideosCount(String chapter, String section) {
+        final int[] counts = countsBySection.get(getSectionKey(chapter, section));
+        return counts == null ? 0 : counts[0];
+    }
+
+    public int getDownloadingVideosCount(String chapter, String section) {
+        final int[] counts = countsBySection.get(getSectionKey(chapter, section));
+        return counts == null ? 0 : counts[1];
+    }
+}
@@ -1,21 +1,16 @@
 package org.edx.mobile.model.db;
 
-import android.content.Context;
 import android.database.Cursor;
-import android.text.TextUtils;
 
 import com.google.inject.Inject;
 
-import org.edx.mobile.R;
 import org.edx.mobile.core.IEdxEnvironment;
 import org.edx.mobile.interfaces.SectionItemInterface;
 import org.edx.mobile.logger.Logger;
 import org.edx.mobile.model.VideoModel;
-import org.edx.mobile.model.api.EncodingsModel;
 import org.edx.mobile.model.api.TranscriptModel;
 import org.edx.mobile.model.download.NativeDownloadModel;
 import org.edx.mobile.module.db.DbStructure;
-import org.edx.mobile.module.prefs.PrefManager;
 import org.edx.mobile.util.JavaUtil;
 
 public class DownloadEntry implements SectionItemInterface, VideoModel {
@@ -236,29 +231,4 @@ public class DownloadEntry implements SectionItemInterface, VideoModel {
         size = video.getSize();
         duration = video.getDuration();
     }
-    
-    public String getBestEncodingUrl(Context context){
-
-        PrefManager prefs = new PrefManager(context, PrefManager.Pref.WIFI);
-        float kbs = prefs.getFloat(PrefManager.Key.SPEED_TEST_KBPS, 0.0f);
-        float thresholdKps = (float)context.getResources().getInteger(R.integer.threshold_kbps_for_video);
-
-        EncodingsModel.EncodingLevel level = kbs > thresholdKps ?
-                EncodingsModel.EncodingLevel.HIGH : EncodingsModel.EncodingLevel.LOW;
-
-        switch (level) {
-            case HIGH:
-                if (!TextUtils.isEmpty(url_high_quality)){
-                    return url_high_quality;
-                }
-                break;
-            case LOW:
-                if (!TextUtils.isEmpty(url_low_quality)){
-                    return url_low_quality;
-                }
-                break;
-        }
-
-        return getVideoUrl();
-    }
 }
@@ -0,0 +1,275 @@
+package org.edx.mobile.module.analytics;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.segment.analytics.Options;
+import com.segment.analytics.Properties;
+import com.segment.analytics.Traits;
+
+import org.edx.mobile.logger.Logger;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes the analytics calls off the caller's thread. The calls are put in a bounded queue
+ * without locking, and handed over in order to the Segment client on a background thread,
+ * which persists them to its own queue on disk and uploads them in batches.
+ * <p>
+ * Seek events for the same video that follow each other within {@link #COALESCE_WINDOW_MS}
+ * are coalesced into one from the first old time to the last new time, as dragging the seek
+ * bar produces them in bursts. When the queue is full, new calls are dropped.
+ */
+@Singleton
+public class BufferedSegmentTracker implements ISegmentTracker {
+    private static final Logger logger = new Logger(BufferedSegmentTracker.class.getName());
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final long COALESCE_WINDOW_MS = 1000;
+
+    @NonNull
+    private final ISegmentTracker delegate;
+    @NonNull
+    private final Handler handler;
+    private final int capacity;
+
+    @NonNull
+    private final Queue<Call> calls = new ConcurrentLinkedQueue<>();
+    @NonNull
+    private final AtomicInteger size = new AtomicInteger();
+    @NonNull
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean();
+    @NonNull
+    private final AtomicLong droppedCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong coalescedCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong flushedCount = new AtomicLong();
+
+    // The following are only accessed on the handler's thread
+    @Nullable
+    private Call heldCall;
+
+    @Inject
+    public BufferedSegmentTracker(@NonNull ISegmentTrackerImpl delegate) {
+        this(delegate, createHandler(), DEFAULT_CAPACITY);
+    }
+
+    @VisibleForTesting
+    public BufferedSegmentTracker(@NonNull ISegmentTracker delegate, @NonNull Handler handler,
+                                  int capacity) {
+        this.delegate = delegate;
+        this.handler = handler;
+        this.capacity = capacity;
+    }
+
+    @NonNull
+    private static Handler createHandler() {
+        final HandlerThread thread = new HandlerThread("Analytics",
+                Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        return new Handler(thread.getLooper());
+    }
+
+    @Override
+    public void resetIdentifyUser() {
+        enqueue(new Call(Call.RESET, null, null, null, null, null));
+    }
+
+    @Override
+    public void track(String event, Properties props) {
+        enqueue(new Call(Call.TRACK, event, null, props, null, null));
+    }
+
+    @Override
+    public void screen(String category, String name, Properties properties) {
+        enqueue(new Call(Call.SCREEN, name, category, properties, null, null));
+    }
+
+    @Override
+    public void identify(String id, Traits traits, Options options) {
+        enqueue(new Call(Call.IDENTIFY, id, null, null, traits, options));
+    }
+
+    /**
+     * @return The number of calls that were dropped because the queue was full.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return The number of calls that were merged into an earlier one.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return The number of calls that were handed over to the Segment client.
+     */
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    private void enqueue(@NonNull Call call) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            droppedCount.incrementAndGet();
+            return;
+        }
+        calls.offer(call);
+        if (isDrainScheduled.compareAndSet(false, true)) {
+            handler.post(drainRunnable);
+        }
+    }
+
+    @NonNull
+    private final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // Cleared first, so that a call that's enqueued while draining schedules another
+            isDrainScheduled.set(false);
+            Call call;
+            while ((call = calls.poll()) != null) {
+                size.decrementAndGet();
+                dispatch(call);
+            }
+        }
+    };
+
+    @NonNull
+    private final Runnable releaseRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (heldCall != null) {
+                forward(heldCall);
+                heldCall = null;
+            }
+        }
+    };
+
+    private void dispatch(@NonNull Call call) {
+        if (heldCall != null) {
+            if (heldCall.canCoalesce(call)) {
+                heldCall = heldCall.coalesce(call);
+                coalescedCount.incrementAndGet();
+                return;
+            }
+            handler.removeCallbacks(releaseRunnable);
+            forward(heldCall);
+            heldCall = null;
+        }
+        if (call.isSeek()) {
+            heldCall = call;
+            handler.postDelayed(releaseRunnable, COALESCE_WINDOW_MS);
+        } else {
+            forward(call);
+        }
+    }
+
+    private void forward(@NonNull Call call) {
+        try {
+            switch (call.type) {
+                case Call.TRACK:
+                    delegate.track(call.name, call.properties);
+                    break;
+                case Call.SCREEN:
+                    delegate.screen(call.category, call.name, call.properties);
+                    break;
+                case Call.IDENTIFY:
+                    delegate.identify(call.name, call.traits, call.options);
+                    break;
+                case Call.RESET:
+                    delegate.resetIdentifyUser();
+                    break;
+            }
+            flushedCount.incrementAndGet();
+        } catch (Exception e) {
+            logger.error(e);
+        }
+    }
+
+    private static class Call {
+        static final int TRACK = 0;
+        static final int SCREEN = 1;
+        static final int IDENTIFY = 2;
+        static final int RESET = 3;
+
+        final int type;
+        @Nullable
+        final String name;
+        @Nullable
+        final String category;
+        @Nullable
+        final Properties properties;
+        @Nullable
+        final Traits traits;
+        @Nullable
+        final Options options;
+
+        Call(int type, @Nullable String name, @Nullable String category,
+             @Nullable Properties properties, @Nullable Traits traits,
+             @Nullable Options options) {
+            this.type = type;
+            this.name = name;
+            this.category = category;
+            this.properties = properties;
+            this.traits = traits;
+            this.options = options;
+        }
+
+        boolean isSeek() {
+            return type == TRACK && ISegment.Events.SEEK_VIDEO.equals(name) &&
+                    getData() != null;
+        }
+
+        boolean canCoalesce(@NonNull Call next) {
+            if (!isSeek() || !next.isSeek()) {
+                return false;
+            }
+            final Object videoId = getData().get(ISegment.Keys.MODULE_ID);
+            return videoId != null &&
+                    videoId.equals(next.getData().get(ISegment.Keys.MODULE_ID));
+        }
+
+        /**
+         * @return The next seek, changed to start where this one did.
+         */
+        @NonNull
+        Call coalesce(@NonNull Call next) {
+            final Object oldTime = getData().get(ISegment.Keys.OLD_TIME);
+            final Map<String, Object> nextData = next.getData();
+            final Object newTime = nextData.get(ISegment.Keys.NEW_TIME);
+            nextData.put(ISegment.Keys.OLD_TIME, oldTime);
+            if (oldTime instanceof Number && newTime instanceof Number) {
+                nextData.put(ISegment.Keys.REQUESTED_SKIP_INTERVAL, new BigDecimal(
+                        ((Number) newTime).doubleValue() - ((Number) oldTime).doubleValue())
+                        .setScale(3, RoundingMode.HALF_UP).doubleValue());
+            }
+            return next;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nullable
+        Map<String, Object> getData() {
+            if (properties == null) {
+                return null;
+            }
+            final Object data = properties.get(ISegment.Keys.DATA);
+            return data instanceof Map ? (Map<String, Object>) data : null;
+        }
+    }
+}
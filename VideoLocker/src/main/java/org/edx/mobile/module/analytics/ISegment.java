@@ -111,6 +111,10 @@ public interface ISegment {
 
     Properties trackUserConnectionSpeed(String connectionType, float connectionSpeed);
 
+    Properties trackVideoEncodingSelected(String videoId, String courseId, String unitUrl,
+                                          String encoding, String reason,
+                                          float connectionSpeed, boolean isDownload);
+
     Properties certificateShared(@NonNull String courseId, @NonNull String certificateUrl, @NonNull ShareUtils.ShareType shareType);
 
     Properties courseDetailShared(@NonNull String courseId, @NonNull String aboutUrl, @NonNull ShareUtils.ShareType shareType);
@@ -162,6 +166,8 @@ public interface ISegment {
 
         String CONNECTION_TYPE = "connection_type";
         String CONNECTION_SPEED = "connection_speed";
+        String ENCODING = "encoding";
+        String ENCODING_REASON = "encoding_reason";
 
         String TYPE = "type";
         String CATEGORY = "category";
@@ -200,6 +206,7 @@ public interface ISegment {
         String BULKDOWNLOAD_SECTION = "edx.bi.video.section.bulkdownload.requested";
         String BULK_DOWNLOAD_SUBSECTION = "edx.bi.video.subsection.bulkdownload.requested";
         String VIDEO_DOWNLOADED = "edx.bi.video.downloaded";
+        String VIDEO_ENCODING_SELECTED = "edx.bi.video.encoding.selected";
         String USERLOGOUT = "edx.bi.app.user.logout";
         String USERLOGIN = "edx.bi.app.user.login";
         String APP_NAME = "edx.mobileapp.android";
@@ -301,6 +308,7 @@ public interface ISegment {
         String DISCOVER_COURSES = "Discover Courses";
         String EXPLORE_SUBJECTS = "Explore Subjects";
         String SPEED = "Connected Speed Report";
+        String VIDEO_ENCODING_SELECTED = "Video Encoding Selected";
         String SOCIAL_CERTIFICATE_SHARED = "Shared a certificate";
         String SOCIAL_COURSE_DETAIL_SHARED = "Shared a course";
         String SWITCH_OUTLINE_MODE = "Switch outline mode";
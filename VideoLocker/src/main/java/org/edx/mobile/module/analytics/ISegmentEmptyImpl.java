@@ -177,6 +177,13 @@ public class ISegmentEmptyImpl implements ISegment {
         return null;
     }
 
+    @Override
+    public Properties trackVideoEncodingSelected(String videoId, String courseId, String unitUrl,
+                                                 String encoding, String reason,
+                                                 float connectionSpeed, boolean isDownload) {
+        return null;
+    }
+
     @Override
     public Properties courseDetailShared(@NonNull String courseId, @NonNull String aboutUrl, @NonNull ShareUtils.ShareType shareType) {
         return null;
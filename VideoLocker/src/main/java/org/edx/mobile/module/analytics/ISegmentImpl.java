@@ -675,6 +675,31 @@ public class ISegmentImpl implements ISegment {
         return aEvent.properties;
     }
 
+    /**
+     * This function is used to track which encoding of a video is streamed or downloaded
+     *
+     * @param encoding        -   The chosen encoding
+     * @param reason          -   Why it was chosen
+     * @param connectionSpeed -   The measured download speed in KB/s, or 0 if unknown
+     * @param isDownload      -   Whether the video is downloaded, rather than streamed
+     * @return A {@link Properties} object populated with analytics-event info
+     */
+    @Override
+    public Properties trackVideoEncodingSelected(String videoId, String courseId, String unitUrl,
+                                                 String encoding, String reason,
+                                                 float connectionSpeed, boolean isDownload) {
+        SegmentAnalyticsEvent aEvent = getCommonProperties(videoId,
+                Values.VIDEO_ENCODING_SELECTED);
+        aEvent.setCourseContext(courseId, unitUrl,
+                isDownload ? Values.DOWNLOAD_MODULE : Values.VIDEOPLAYER);
+        aEvent.data.putValue(Keys.ENCODING, encoding);
+        aEvent.data.putValue(Keys.ENCODING_REASON, reason);
+        aEvent.data.putValue(Keys.CONNECTION_SPEED, connectionSpeed);
+
+        tracker.track(Events.VIDEO_ENCODING_SELECTED, aEvent.properties);
+        return aEvent.properties;
+    }
+
     @Override
     public Properties trackNotificationReceived(@Nullable String courseId) {
         SegmentAnalyticsEvent aEvent = new SegmentAnalyticsEvent();
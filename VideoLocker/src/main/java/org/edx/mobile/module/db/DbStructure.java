@@ -10,12 +10,23 @@ public final class DbStructure {
     public static final String NAME = "downloads.db";
     //Updated to Version 4 to add flag to indicate that video is only available for web
     //Updated to Version 5 to create a new table to record learning history for assessment
-    public static final int VERSION = 5;
+    //Updated to Version 6 to index the columns that the queries filter on
+    public static final int VERSION = 6;
 
     public static final class Table {
         public static final String DOWNLOADS = "downloads";
         public static final String ASSESSMENT = "assessment";
     }
+
+    public static final class Index {
+        public static final String DOWNLOADS_USERNAME_VIDEO_ID = "downloads_username_video_id";
+        public static final String DOWNLOADS_USERNAME_URL = "downloads_username_video_url";
+        public static final String DOWNLOADS_USERNAME_DOWNLOADED = "downloads_username_downloaded";
+        public static final String DOWNLOADS_USERNAME_EID_CHAPTER_SECTION =
+                "downloads_username_enrollment_id_chapter_section";
+        public static final String DOWNLOADS_DM_ID = "downloads_download_manager_id";
+        public static final String ASSESSMENT_USERNAME_UNIT_ID = "assessment_username_unit_id";
+    }
     
     public static final class Column {
         public static final String ID = "_id";
@@ -1,11 +1,14 @@
 package org.edx.mobile.module.db;
 
 import org.edx.mobile.model.VideoModel;
+import org.edx.mobile.model.db.CourseDownloadSummary;
+import org.edx.mobile.model.db.CourseOutlineState;
 import org.edx.mobile.model.db.DownloadEntry.DownloadedState;
 import org.edx.mobile.model.db.DownloadEntry.WatchedState;
 import org.edx.mobile.module.db.impl.DatabaseFactory;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * This interface represents a database object. All the methods that are required by UI layer
@@ -420,6 +423,38 @@ public interface IDatabase {
     List<VideoModel> getSortedDownloadsByDownloadedDateForCourseId(String courseId,
         DataCallback<List<VideoModel>> callback);
 
+    /**
+     * Returns the downloaded videos of every course in a single query, keyed by Course ID
+     * and sorted by download date, most recent first. Courses without any downloaded
+     * videos are left out.
+     *
+     * @param callback
+     * @return
+     */
+    Map<String, List<VideoModel>> getSortedDownloadsByDownloadedDateByCourse(
+        DataCallback<Map<String, List<VideoModel>>> callback);
+
+    /**
+     * Returns the count and size in bytes of the downloaded videos of every course in a
+     * single query, keyed by Course ID. Courses without any downloaded videos are left out.
+     *
+     * @param callback
+     * @return
+     */
+    Map<String, CourseDownloadSummary> getDownloadedVideoSummaryByCourse(
+        DataCallback<Map<String, CourseDownloadSummary>> callback);
+
+    /**
+     * Returns the stored videos of the course and the units accessed by the user, in a
+     * single operation.
+     *
+     * @param courseId
+     * @param callback
+     * @return
+     */
+    CourseOutlineState getCourseOutlineState(String courseId,
+        DataCallback<CourseOutlineState> callback);
+
     /**
      * This method gives the WatchedState stored in the DB for VideoID
      *
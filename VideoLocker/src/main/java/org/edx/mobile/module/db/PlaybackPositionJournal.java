@@ -0,0 +1,94 @@
+package org.edx.mobile.module.db;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.edx.mobile.logger.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the playback positions reported by the player every second, and writes them to the
+ * database in batches. The positions are written when {@link #flush()} is called, which the
+ * player does when it's paused, seeked or stopped, when another video starts being recorded,
+ * and otherwise once every {@link #DEFAULT_FLUSH_INTERVAL_MS}.
+ * <p>
+ * Only the positions go through here; the watched states are still written right away.
+ */
+@Singleton
+public class PlaybackPositionJournal {
+    private static final Logger logger = new Logger(PlaybackPositionJournal.class.getName());
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 10 * 1000;
+
+    @NonNull
+    private final IDatabase database;
+    private final long flushIntervalMillis;
+
+    // The following are guarded by this object's lock
+    private final Map<String, Integer> pendingOffsets = new LinkedHashMap<>();
+    private long firstPendingTime;
+
+    @Inject
+    public PlaybackPositionJournal(@NonNull IDatabase database) {
+        this(database, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    @VisibleForTesting
+    public PlaybackPositionJournal(@NonNull IDatabase database, long flushIntervalMillis) {
+        this.database = database;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * Records the last played offset of a video, replacing any earlier one that hasn't been
+     * written yet.
+     */
+    public synchronized void record(@NonNull String videoId, int offset) {
+        if (!pendingOffsets.isEmpty() && !pendingOffsets.containsKey(videoId)) {
+            // Another video was playing, so it's done with
+            flush();
+        }
+        final long now = SystemClock.elapsedRealtime();
+        if (pendingOffsets.isEmpty()) {
+            firstPendingTime = now;
+        }
+        pendingOffsets.put(videoId, offset);
+        if (now - firstPendingTime >= flushIntervalMillis) {
+            flush();
+        }
+    }
+
+    /**
+     * Queues the recorded offsets to be written to the database. The database runs writes
+     * that are queued together in one transaction, and before any read that's queued after
+     * them.
+     */
+    public synchronized void flush() {
+        if (pendingOffsets.isEmpty()) {
+            return;
+        }
+        // Queued while holding the lock, so that the writes of each flush stay in order
+        for (Map.Entry<String, Integer> entry : pendingOffsets.entrySet()) {
+            database.updateVideoLastPlayedOffset(entry.getKey(), entry.getValue(),
+                    updateCallback);
+        }
+        pendingOffsets.clear();
+    }
+
+    private final DataCallback<Integer> updateCallback = new DataCallback<Integer>() {
+        @Override
+        public void onResult(Integer result) {
+            logger.debug("Current Playback Position Updated");
+        }
+
+        @Override
+        public void onFail(Exception ex) {
+            logger.error(ex);
+        }
+    };
+}
@@ -52,6 +52,7 @@ class DbHelper extends SQLiteOpenHelper {
         db.execSQL(sql);
 
         createAssessmentTable(db);
+        createIndexes(db);
         
         logger.debug("Database created");
     }
@@ -67,6 +68,50 @@ class DbHelper extends SQLiteOpenHelper {
         db.execSQL(sql);
     }
 
+    /**
+     * Creates the indexes for the columns that the queries filter on. The username comes
+     * first, as nearly every query is restricted to the logged in user.
+     */
+    private void createIndexes(SQLiteDatabase db) {
+        String[] sql = new String[] {
+                "CREATE INDEX IF NOT EXISTS " + DbStructure.Index.DOWNLOADS_USERNAME_VIDEO_ID
+                        + " ON " + DbStructure.Table.DOWNLOADS + " ("
+                        + DbStructure.Column.USERNAME + ", "
+                        + DbStructure.Column.VIDEO_ID + ")",
+
+                "CREATE INDEX IF NOT EXISTS " + DbStructure.Index.DOWNLOADS_USERNAME_URL
+                        + " ON " + DbStructure.Table.DOWNLOADS + " ("
+                        + DbStructure.Column.USERNAME + ", "
+                        + DbStructure.Column.URL + ", "
+                        + DbStructure.Column.DOWNLOADED + ")",
+
+                "CREATE INDEX IF NOT EXISTS " + DbStructure.Index.DOWNLOADS_USERNAME_DOWNLOADED
+                        + " ON " + DbStructure.Table.DOWNLOADS + " ("
+                        + DbStructure.Column.USERNAME + ", "
+                        + DbStructure.Column.DOWNLOADED + ")",
+
+                "CREATE INDEX IF NOT EXISTS " + DbStructure.Index.DOWNLOADS_USERNAME_EID_CHAPTER_SECTION
+                        + " ON " + DbStructure.Table.DOWNLOADS + " ("
+                        + DbStructure.Column.USERNAME + ", "
+                        + DbStructure.Column.EID + ", "
+                        + DbStructure.Column.CHAPTER + ", "
+                        + DbStructure.Column.SECTION + ", "
+                        + DbStructure.Column.DOWNLOADED + ")",
+
+                // Some queries on this column aren't restricted to a user
+                "CREATE INDEX IF NOT EXISTS " + DbStructure.Index.DOWNLOADS_DM_ID
+                        + " ON " + DbStructure.Table.DOWNLOADS + " ("
+                        + DbStructure.Column.DM_ID + ")",
+
+                "CREATE UNIQUE INDEX IF NOT EXISTS " + DbStructure.Index.ASSESSMENT_USERNAME_UNIT_ID
+                        + " ON " + DbStructure.Table.ASSESSMENT + " ("
+                        + DbStructure.Column.ASSESSMENT_TB_USERNAME + ", "
+                        + DbStructure.Column.ASSESSMENT_TB_UNIT_ID + ")"};
+        for (String query : sql) {
+            db.execSQL(query);
+        }
+    }
+
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         try {
@@ -109,6 +154,17 @@ class DbHelper extends SQLiteOpenHelper {
                 createAssessmentTable(db);
             }
 
+            if ( oldVersion < 6 ) {
+                // keep only the latest record of each unit, so that it can be uniquely indexed
+                db.execSQL("DELETE FROM " + DbStructure.Table.ASSESSMENT
+                        + " WHERE " + DbStructure.Column.ASSESSMENT_TB_ID + " NOT IN (SELECT MAX("
+                        + DbStructure.Column.ASSESSMENT_TB_ID + ") FROM "
+                        + DbStructure.Table.ASSESSMENT + " GROUP BY "
+                        + DbStructure.Column.ASSESSMENT_TB_USERNAME + ", "
+                        + DbStructure.Column.ASSESSMENT_TB_UNIT_ID + ")");
+                createIndexes(db);
+            }
+
             logger.debug("Database upgraded from " + oldVersion + " to " + newVersion);
         }catch(Exception e){
             logger.error(e);
@@ -122,6 +178,8 @@ class DbHelper extends SQLiteOpenHelper {
     public SQLiteDatabase getDatabase() {
         if (sqliteDb == null) {
             sqliteDb = this.getWritableDatabase();
+            // Lets queries read the last committed state while a write is in progress
+            sqliteDb.enableWriteAheadLogging();
             logger.debug("Writable database handle opened");
         }
         return sqliteDb;
@@ -0,0 +1,70 @@
+package org.edx.mobile.module.db.impl;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.edx.mobile.model.db.CourseOutlineState;
+import org.edx.mobile.model.db.DownloadEntry;
+import org.edx.mobile.module.db.DatabaseModelFactory;
+import org.edx.mobile.module.db.DbStructure;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the stored videos of a course and the user's accessed units in one operation.
+ */
+class DbOperationGetCourseOutlineState extends DbOperationBase<CourseOutlineState> {
+
+    private String courseId;
+    private String username;
+
+    DbOperationGetCourseOutlineState(String courseId, String username) {
+        this.courseId = courseId;
+        this.username = username;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public CourseOutlineState execute(SQLiteDatabase db) {
+        List<DownloadEntry> downloads = new ArrayList<DownloadEntry>();
+        Cursor c = db.query(DbStructure.Table.DOWNLOADS, null,
+                DbStructure.Column.USERNAME + "=? AND " + DbStructure.Column.EID + "=?",
+                new String[]{username, courseId}, null, null, null);
+        try {
+            while (c.moveToNext()) {
+                downloads.add((DownloadEntry) DatabaseModelFactory.getModel(c));
+            }
+        } finally {
+            c.close();
+        }
+
+        Set<String> accessedUnitIds = new HashSet<String>();
+        c = db.query(DbStructure.Table.ASSESSMENT,
+                new String[]{DbStructure.Column.ASSESSMENT_TB_UNIT_ID},
+                DbStructure.Column.ASSESSMENT_TB_USERNAME + "=? AND "
+                        + DbStructure.Column.ASSESSMENT_TB_UNIT_WATCHED + "=1",
+                new String[]{username}, null, null, null);
+        try {
+            while (c.moveToNext()) {
+                accessedUnitIds.add(c.getString(0));
+            }
+        } finally {
+            c.close();
+        }
+
+        return new CourseOutlineState(downloads, accessedUnitIds);
+    }
+
+    @Override
+    public CourseOutlineState getDefaultValue() {
+        return new CourseOutlineState();
+    }
+
+}
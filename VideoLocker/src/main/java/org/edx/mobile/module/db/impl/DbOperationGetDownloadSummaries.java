@@ -0,0 +1,51 @@
+package org.edx.mobile.module.db.impl;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.edx.mobile.model.db.CourseDownloadSummary;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs a query that returns one row per course, with the course ID, the video count and the
+ * total size in that order, and maps them by course ID.
+ */
+class DbOperationGetDownloadSummaries extends DbOperationBase<Map<String, CourseDownloadSummary>> {
+
+    private String sqlQuery;
+    private String[] selectionArgs;
+
+    DbOperationGetDownloadSummaries(String sqlQuery, String[] selectionArgs) {
+        this.sqlQuery = sqlQuery;
+        this.selectionArgs = selectionArgs;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public Map<String, CourseDownloadSummary> execute(SQLiteDatabase db) {
+        Map<String, CourseDownloadSummary> summaries = new HashMap<String, CourseDownloadSummary>();
+
+        Cursor c = db.rawQuery(sqlQuery, selectionArgs);
+        try {
+            while (c.moveToNext()) {
+                summaries.put(c.getString(0), new CourseDownloadSummary(c.getInt(1), c.getLong(2)));
+            }
+        } finally {
+            c.close();
+        }
+
+        return summaries;
+    }
+
+    @Override
+    public Map<String, CourseDownloadSummary> getDefaultValue() {
+        return new HashMap<String, CourseDownloadSummary>();
+    }
+
+}
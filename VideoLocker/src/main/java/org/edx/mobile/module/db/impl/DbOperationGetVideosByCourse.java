@@ -0,0 +1,52 @@
+package org.edx.mobile.module.db.impl;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.edx.mobile.model.VideoModel;
+import org.edx.mobile.module.db.DatabaseModelFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects videos and groups them by course ID, keeping the order of the query within each
+ * course.
+ */
+class DbOperationGetVideosByCourse extends DbOperationSelect<Map<String, List<VideoModel>>> {
+
+    DbOperationGetVideosByCourse(boolean distinct, String table, String[] columns,
+            String whereClause, String[] whereArgs, String orderBy) {
+        super(distinct, table, columns, whereClause, whereArgs, orderBy);
+    }
+
+    @Override
+    public Map<String, List<VideoModel>> execute(SQLiteDatabase db) {
+        Map<String, List<VideoModel>> videosByCourse = new HashMap<String, List<VideoModel>>();
+
+        Cursor c = getCursor(db);
+        try {
+            while (c.moveToNext()) {
+                VideoModel video = DatabaseModelFactory.getModel(c);
+                List<VideoModel> videos = videosByCourse.get(video.getEnrollmentId());
+                if (videos == null) {
+                    videos = new ArrayList<VideoModel>();
+                    videosByCourse.put(video.getEnrollmentId(), videos);
+                }
+                videos.add(video);
+            }
+        } finally {
+            c.close();
+        }
+
+        return videosByCourse;
+    }
+
+    @Override
+    public Map<String, List<VideoModel>> getDefaultValue() {
+        return new HashMap<String, List<VideoModel>>();
+    }
+
+}
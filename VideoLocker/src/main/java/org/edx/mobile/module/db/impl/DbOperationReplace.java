@@ -0,0 +1,40 @@
+package org.edx.mobile.module.db.impl;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Inserts a row, replacing any existing row that has the same values in a unique index.
+ * Returns the number of rows written.
+ */
+class DbOperationReplace extends DbOperationBase<Integer> {
+
+    private String table;
+    private ContentValues values;
+
+    DbOperationReplace(String table, ContentValues values) {
+        this.table = table;
+        this.values = values;
+    }
+
+    @Override
+    public Integer execute(SQLiteDatabase db) {
+        if (table == null) {
+            throw new IllegalArgumentException("table must be provided");
+        }
+
+        if (values == null) {
+            throw new IllegalArgumentException("values must be provided");
+        }
+
+        long id = db.insertWithOnConflict(table, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+
+        return id == -1 ? 0 : 1;
+    }
+
+    @Override
+    public Integer getDefaultValue() {
+        return 0;
+    }
+
+}
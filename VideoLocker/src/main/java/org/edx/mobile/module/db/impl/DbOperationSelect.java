@@ -21,6 +21,11 @@ abstract class DbOperationSelect<T> extends DbOperationBase<T> {
         this.orderBy = orderBy;
     }
     
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     public Cursor getCursor(SQLiteDatabase db) {
         if (table == null) {
             throw new IllegalArgumentException("table must be provided");
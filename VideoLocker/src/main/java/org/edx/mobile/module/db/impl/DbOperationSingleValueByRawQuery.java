@@ -16,6 +16,11 @@ class DbOperationSingleValueByRawQuery<T> extends DbOperationBase<T> {
         this.columnType = valueType;
     }
     
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     public T execute(SQLiteDatabase db) {
         Cursor c = db.rawQuery(sqlQuery, selectionArgs);
@@ -1,46 +1,84 @@
 package org.edx.mobile.module.db.impl;
 
 import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
 
 import org.edx.mobile.logger.Logger;
+import org.edx.mobile.module.db.DataCallback;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-class IDatabaseBaseImpl implements Runnable {
+/**
+ * Runs the database operations. Operations with a callback are run in the background: those
+ * that write run in order on a single writer thread, and those that only read run on a small
+ * pool of reader threads, which write-ahead logging lets proceed alongside a write.
+ * <p>
+ * A read queued while writes are still pending runs after them on the writer thread, so that
+ * it sees their results. The writer runs all the operations queued at once in a single
+ * transaction, and only sends their results once it's committed.
+ */
+class IDatabaseBaseImpl {
     protected static final Logger logger = new Logger(IDatabaseBaseImpl.class.getName());
+    private static final int READER_COUNT = 2;
+    private static final int MAX_BATCH_SIZE = 32;
+    private static final int KEEP_ALIVE_SECONDS = 30;
+    private static final long SLOW_OPERATION_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     protected Context context;
-    private DbHelper helper;
-    private Queue<IDbOperation<?>> opQueue = new LinkedList<IDbOperation<?>>();
-    private boolean isQueueProcessing = false;
+    private final DbHelper helper;
+    private final Executor writer;
+    private final Executor readers;
+
+    // The following are guarded by writeQueue's lock
+    private final Queue<QueuedOperation> writeQueue = new LinkedList<>();
+    private boolean isWriterScheduled = false;
+
+    // The following are guarded by this object's lock
+    private int queueDepth;
+    private int maxQueueDepth;
+    private long operationCount;
+    private long batchCount;
+    private long totalWaitNanos;
+    private long totalExecutionNanos;
+    private long maxExecutionNanos;
 
     public IDatabaseBaseImpl(Context context) {
         this.context = context;
         helper = new DbHelper(context);
+        writer = createExecutor(1, "Database writer");
+        readers = createExecutor(READER_COUNT, "Database reader");
     }
 
-    @Override
-    public void run() {
-        if (isQueueProcessing) {
-            // queue is already being processed, so return
-            // this will NOT allow multiple threads to process operation queue
-            return;
-        }
+    private static Executor createExecutor(int threadCount, final String name) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threadCount, threadCount,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
 
-        do {
-            // mark queue being processed
-            isQueueProcessing = true;
-            IDbOperation<?> op = getNextQueuedOperation();
-            if (op == null) {
-                break;
-            }
-            // perform the database operation
-            execute(op);
-        } while (true);
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        return new Thread(runnable, name + " #" + count.incrementAndGet());
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
-        // mark queue not being processed
-        isQueueProcessing = false;
-        // logger.debug("All database operations completed, queue is empty");
+    private SQLiteDatabase getDatabase() {
+        synchronized (helper) {
+            return helper.getDatabase();
+        }
     }
 
     /**
@@ -50,13 +88,11 @@ class IDatabaseBaseImpl implements Runnable {
      * @param op
      * @return
      */
-    private synchronized <T extends Object> T execute(IDbOperation<?> op) {
-        // perform this database operation
-        synchronized (helper) {
-            T result = (T) op.requestExecute(helper.getDatabase());
-
-            return result;
-        }
+    private <T extends Object> T execute(IDbOperation<?> op) {
+        final long start = System.nanoTime();
+        T result = (T) op.requestExecute(getDatabase());
+        recordOperation(op, 0, System.nanoTime() - start);
+        return result;
     }
 
     /**
@@ -68,43 +104,282 @@ class IDatabaseBaseImpl implements Runnable {
      *
      * @param operation
      */
-    public synchronized <T extends Object> T enqueue(IDbOperation<?> operation) {
+    public <T extends Object> T enqueue(IDbOperation<?> operation) {
         // execute right away if this operation doesn't have a callback to send back the result
         if (operation.getCallback() == null) {
             return execute(operation);
         }
 
-        // add non-blocking operations to the queue and process in sequence 
-        synchronized (opQueue) {
-            opQueue.add(operation);
+        final QueuedOperation queued = new QueuedOperation(operation);
+        synchronized (this) {
+            queueDepth++;
+            maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
         }
+        synchronized (writeQueue) {
+            if (operation.isReadOnly() && !isWriterScheduled) {
+                readers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        executeQueued(queued);
+                    }
+                });
+                return null;
+            }
+            writeQueue.add(queued);
+            if (!isWriterScheduled) {
+                isWriterScheduled = true;
+                writer.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        processWriteQueue();
+                    }
+                });
+            }
+        }
+        return null;
+    }
 
-        // start processing the queue as we have a database operation to be processed
-        new Thread(this).start();
+    /**
+     * Runs the queued writes, along with the reads that were queued after them, until the
+     * queue is empty.
+     */
+    private void processWriteQueue() {
+        while (true) {
+            final List<QueuedOperation> batch = new ArrayList<>();
+            synchronized (writeQueue) {
+                while (batch.size() < MAX_BATCH_SIZE && !writeQueue.isEmpty()) {
+                    batch.add(writeQueue.remove());
+                }
+                if (batch.isEmpty()) {
+                    isWriterScheduled = false;
+                    return;
+                }
+            }
+            try {
+                if (batch.size() == 1) {
+                    executeQueued(batch.get(0));
+                } else {
+                    executeBatch(batch);
+                }
+            } catch (RuntimeException e) {
+                // Thrown by a callback; carry on, so that the rest of the queue isn't stuck
+                logger.error(e);
+            }
+        }
+    }
 
-        return null;
+    private void executeQueued(@NonNull QueuedOperation queued) {
+        final long start = System.nanoTime();
+        try {
+            queued.operation.requestExecute(getDatabase());
+        } finally {
+            recordQueuedOperation(queued, start - queued.enqueuedAt, System.nanoTime() - start);
+        }
     }
 
     /**
-     * Returns and removes the next operation from the operation queue.
-     *
-     * @return
+     * Runs the operations in a single transaction, which saves committing each of them
+     * separately. Their callbacks are held back until it's committed, so that the results
+     * they're sent are visible to any other thread.
      */
-    private IDbOperation<?> getNextQueuedOperation() {
-        synchronized (opQueue) {
-            if (opQueue.isEmpty()) {
-                return null;
+    private void executeBatch(@NonNull List<QueuedOperation> batch) {
+        final SQLiteDatabase db = getDatabase();
+        final List<DeferredCallback<?>> callbacks = new ArrayList<>(batch.size());
+        final long[] waitNanos = new long[batch.size()];
+        final long[] executionNanos = new long[batch.size()];
+        Exception commitException = null;
+        db.beginTransactionNonExclusive();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                final QueuedOperation queued = batch.get(i);
+                final long start = System.nanoTime();
+                callbacks.add(executeDeferred(queued.operation, db));
+                executionNanos[i] = System.nanoTime() - start;
+                waitNanos[i] = start - queued.enqueuedAt;
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            try {
+                db.endTransaction();
+            } catch (RuntimeException e) {
+                logger.error(e);
+                commitException = e;
+            }
+        }
+        synchronized (this) {
+            batchCount++;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            recordQueuedOperation(batch.get(i), waitNanos[i], executionNanos[i]);
+            try {
+                callbacks.get(i).deliver(commitException);
+            } catch (RuntimeException e) {
+                logger.error(e);
             }
+        }
+    }
+
+    private static <T> DeferredCallback<T> executeDeferred(@NonNull IDbOperation<T> operation,
+                                                           @NonNull SQLiteDatabase db) {
+        final DeferredCallback<T> deferred = new DeferredCallback<>(operation.getCallback());
+        operation.setCallback(deferred);
+        try {
+            operation.requestExecute(db);
+        } finally {
+            operation.setCallback(deferred.callback);
+        }
+        return deferred;
+    }
 
-            return opQueue.remove();
+    private void recordQueuedOperation(@NonNull QueuedOperation queued, long waitNanos,
+                                       long executionNanos) {
+        synchronized (this) {
+            queueDepth--;
         }
+        recordOperation(queued.operation, waitNanos, executionNanos);
+    }
+
+    private synchronized void recordOperation(@NonNull IDbOperation<?> operation,
+                                              long waitNanos, long executionNanos) {
+        operationCount++;
+        totalWaitNanos += waitNanos;
+        totalExecutionNanos += executionNanos;
+        maxExecutionNanos = Math.max(maxExecutionNanos, executionNanos);
+        if (executionNanos >= SLOW_OPERATION_NANOS) {
+            logger.debug(operation.getClass().getSimpleName() + " took "
+                    + TimeUnit.NANOSECONDS.toMillis(executionNanos) + " ms");
+        }
+    }
+
+    /**
+     * @return A snapshot of the latency and queue depth of the operations run so far.
+     */
+    public synchronized Metrics getMetrics() {
+        return new Metrics(queueDepth, maxQueueDepth, operationCount, batchCount,
+                totalWaitNanos, totalExecutionNanos, maxExecutionNanos);
     }
 
     /**
      * Closes this database object.
      */
     public void release() {
-        helper.close();
+        synchronized (helper) {
+            helper.close();
+        }
     }
 
+    private static class QueuedOperation {
+        @NonNull
+        final IDbOperation<?> operation;
+        final long enqueuedAt = System.nanoTime();
+
+        QueuedOperation(@NonNull IDbOperation<?> operation) {
+            this.operation = operation;
+        }
+    }
+
+    /**
+     * Holds an operation's result until its transaction has been committed.
+     */
+    private static class DeferredCallback<T> extends DataCallback<T> {
+        @NonNull
+        final DataCallback<T> callback;
+        private T result;
+        private Exception exception;
+
+        DeferredCallback(@NonNull DataCallback<T> callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onResult(T result) {
+            this.result = result;
+        }
+
+        @Override
+        public void onFail(Exception ex) {
+            this.exception = ex;
+        }
+
+        /**
+         * @param commitException The exception thrown when committing the transaction, if any.
+         */
+        void deliver(Exception commitException) {
+            if (commitException != null) {
+                callback.sendException(commitException);
+            } else if (exception != null) {
+                callback.sendException(exception);
+            } else {
+                callback.sendResult(result);
+            }
+        }
+    }
+
+    public static class Metrics {
+        private final int queueDepth;
+        private final int maxQueueDepth;
+        private final long operationCount;
+        private final long batchCount;
+        private final long totalWaitNanos;
+        private final long totalExecutionNanos;
+        private final long maxExecutionNanos;
+
+        public Metrics(int queueDepth, int maxQueueDepth, long operationCount, long batchCount,
+                       long totalWaitNanos, long totalExecutionNanos, long maxExecutionNanos) {
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.operationCount = operationCount;
+            this.batchCount = batchCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.totalExecutionNanos = totalExecutionNanos;
+            this.maxExecutionNanos = maxExecutionNanos;
+        }
+
+        /**
+         * @return The number of background operations that haven't finished yet.
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        public long getOperationCount() {
+            return operationCount;
+        }
+
+        /**
+         * @return The number of transactions that ran several queued operations at once.
+         */
+        public long getBatchCount() {
+            return batchCount;
+        }
+
+        /**
+         * @return The average time that the operations waited in the queue, which is zero for
+         * those run on the calling thread.
+         */
+        public long getAverageWaitNanos() {
+            return operationCount == 0 ? 0 : totalWaitNanos / operationCount;
+        }
+
+        public long getAverageExecutionNanos() {
+            return operationCount == 0 ? 0 : totalExecutionNanos / operationCount;
+        }
+
+        public long getMaxExecutionNanos() {
+            return maxExecutionNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "queueDepth=" + queueDepth + ", maxQueueDepth=" + maxQueueDepth
+                    + ", operations=" + operationCount + ", batches=" + batchCount
+                    + ", averageWaitNanos=" + getAverageWaitNanos()
+                    + ", averageExecutionNanos=" + getAverageExecutionNanos()
+                    + ", maxExecutionNanos=" + maxExecutionNanos;
+        }
+    }
 }
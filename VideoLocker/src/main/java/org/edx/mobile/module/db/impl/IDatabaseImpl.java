@@ -9,6 +9,8 @@ import com.google.inject.Singleton;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.edx.mobile.model.VideoModel;
+import org.edx.mobile.model.db.CourseDownloadSummary;
+import org.edx.mobile.model.db.CourseOutlineState;
 import org.edx.mobile.model.db.DownloadEntry.DownloadedState;
 import org.edx.mobile.model.db.DownloadEntry.WatchedState;
 import org.edx.mobile.module.db.DataCallback;
@@ -17,6 +19,7 @@ import org.edx.mobile.module.db.IDatabase;
 import org.edx.mobile.module.prefs.LoginPrefs;
 
 import java.util.List;
+import java.util.Map;
 
 @Singleton
 public class IDatabaseImpl extends IDatabaseBaseImpl implements IDatabase {
@@ -563,6 +566,42 @@ public class IDatabaseImpl extends IDatabaseBaseImpl implements IDatabase {
         return enqueue(op);
     }
 
+    @Override
+    public Map<String, List<VideoModel>> getSortedDownloadsByDownloadedDateByCourse(
+            DataCallback<Map<String, List<VideoModel>>> callback) {
+        DbOperationGetVideosByCourse op = new DbOperationGetVideosByCourse(false,
+                DbStructure.Table.DOWNLOADS, null,
+                DbStructure.Column.DOWNLOADED + "=? AND " + DbStructure.Column.USERNAME + "=?",
+                new String[]{String.valueOf(DownloadedState.DOWNLOADED.ordinal()), username()},
+                DbStructure.Column.DOWNLOADED_ON + " DESC");
+        op.setCallback(callback);
+        return enqueue(op);
+    }
+
+    @Override
+    public Map<String, CourseDownloadSummary> getDownloadedVideoSummaryByCourse(
+            DataCallback<Map<String, CourseDownloadSummary>> callback) {
+        String sqlQuery = "SELECT " + DbStructure.Column.EID + ", COUNT(DISTINCT "
+                + DbStructure.Column.VIDEO_ID + "), SUM(" + DbStructure.Column.SIZE + ") FROM "
+                + DbStructure.Table.DOWNLOADS + " WHERE "
+                + DbStructure.Column.USERNAME + "=? AND "
+                + DbStructure.Column.DOWNLOADED + "=? GROUP BY "
+                + DbStructure.Column.EID;
+        DbOperationGetDownloadSummaries op = new DbOperationGetDownloadSummaries(sqlQuery,
+                new String[]{username(), String.valueOf(DownloadedState.DOWNLOADED.ordinal())});
+        op.setCallback(callback);
+        return enqueue(op);
+    }
+
+    @Override
+    public CourseOutlineState getCourseOutlineState(String courseId,
+            DataCallback<CourseOutlineState> callback) {
+        DbOperationGetCourseOutlineState op = new DbOperationGetCourseOutlineState(courseId,
+                username());
+        op.setCallback(callback);
+        return enqueue(op);
+    }
+
     @Override
     public VideoModel getIVideoModelByVideoUrl(String videoUrl,
                                                final DataCallback<VideoModel> callback) {
@@ -760,12 +799,12 @@ public class IDatabaseImpl extends IDatabaseBaseImpl implements IDatabase {
     public synchronized Integer updateAccess(DataCallback<Integer> callback, String unitId,
                                              boolean visited) {
         ContentValues values = new ContentValues();
+        values.put(DbStructure.Column.ASSESSMENT_TB_USERNAME, username());
+        values.put(DbStructure.Column.ASSESSMENT_TB_UNIT_ID, unitId);
         values.put(DbStructure.Column.ASSESSMENT_TB_UNIT_WATCHED, visited);
 
-        DbOperationUpdate op = new DbOperationUpdate(DbStructure.Table.ASSESSMENT, values,
-                DbStructure.Column.ASSESSMENT_TB_UNIT_ID + "=? AND " +
-                        DbStructure.Column.ASSESSMENT_TB_USERNAME + "=?",
-                new String[]{unitId, username()});
+        // The unique index on the username and unit makes this an insert or update
+        DbOperationReplace op = new DbOperationReplace(DbStructure.Table.ASSESSMENT, values);
         op.setCallback(callback);
         return enqueue(op);
     }
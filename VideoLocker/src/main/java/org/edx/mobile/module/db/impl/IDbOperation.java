@@ -30,4 +30,11 @@ interface IDbOperation<T> {
      * @return
      */
     DataCallback<T> getCallback();
+
+    /**
+     * Returns true if this operation doesn't modify the database, so that it may run
+     * alongside other operations.
+     * @return
+     */
+    boolean isReadOnly();
 }
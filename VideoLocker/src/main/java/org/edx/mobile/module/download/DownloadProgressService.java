@@ -0,0 +1,186 @@
+package org.edx.mobile.module.download;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import android.text.format.DateUtils;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.edx.mobile.logger.Logger;
+import org.edx.mobile.model.VideoModel;
+import org.edx.mobile.model.download.NativeDownloadModel;
+import org.edx.mobile.module.db.IDatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the progress of the ongoing downloads for all the screens that show it. While there is
+ * at least one subscriber, the ongoing downloads are read from the database and looked up in
+ * DownloadManager in a single query once every {@link #POLL_INTERVAL_MS}, and the resulting
+ * {@link DownloadProgressSnapshot} is sent to every subscriber. Nothing is polled while there
+ * aren't any.
+ * <p>
+ * This must be subscribed to and unsubscribed from on the main thread, which is also where the
+ * snapshots are sent.
+ */
+@Singleton
+public class DownloadProgressService {
+    private static final Logger logger = new Logger(DownloadProgressService.class.getName());
+    public static final long POLL_INTERVAL_MS = DateUtils.SECOND_IN_MILLIS;
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    public interface Listener {
+        void onDownloadProgress(@NonNull DownloadProgressSnapshot snapshot);
+    }
+
+    @NonNull
+    private final IDatabase database;
+    @NonNull
+    private final IDownloadManager downloadManager;
+    @NonNull
+    private final Executor executor;
+    @NonNull
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    // The following are only accessed on the main thread
+    @NonNull
+    private final Set<Listener> listeners = new LinkedHashSet<>();
+    private DownloadProgressSnapshot lastSnapshot;
+    private boolean isPollScheduled;
+    private boolean isPollRunning;
+
+    @Inject
+    public DownloadProgressService(@NonNull IDatabase database,
+                                   @NonNull IDownloadManager downloadManager) {
+        this(database, downloadManager, createExecutor());
+    }
+
+    @VisibleForTesting
+    public DownloadProgressService(@NonNull IDatabase database,
+                                   @NonNull IDownloadManager downloadManager,
+                                   @NonNull Executor executor) {
+        this.database = database;
+        this.downloadManager = downloadManager;
+        this.executor = executor;
+    }
+
+    private static Executor createExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        return new Thread(runnable, "Download progress");
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Starts sending the progress to the listener, beginning with the last snapshot if it's still
+     * being polled, and starts polling if it isn't already.
+     */
+    public void subscribe(@NonNull Listener listener) {
+        if (!listeners.add(listener)) {
+            return;
+        }
+        if (lastSnapshot != null) {
+            listener.onDownloadProgress(lastSnapshot);
+        }
+        if (!isPollScheduled && !isPollRunning) {
+            poll();
+        }
+    }
+
+    /**
+     * Stops sending the progress to the listener. Polling stops with the last one.
+     */
+    public void unsubscribe(@NonNull Listener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty()) {
+            // It'll be out of date by the next subscription
+            lastSnapshot = null;
+            if (isPollScheduled) {
+                handler.removeCallbacks(pollRunnable);
+                isPollScheduled = false;
+            }
+        }
+    }
+
+    private final Runnable pollRunnable = new Runnable() {
+        @Override
+        public void run() {
+            isPollScheduled = false;
+            poll();
+        }
+    };
+
+    private void poll() {
+        isPollRunning = true;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DownloadProgressSnapshot snapshot = querySnapshot();
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        publish(snapshot);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return The progress of the ongoing downloads, or null if it couldn't be read.
+     */
+    private DownloadProgressSnapshot querySnapshot() {
+        try {
+            List<VideoModel> ongoingDownloads = database.getListOfOngoingDownloads(null);
+            if (ongoingDownloads == null) {
+                ongoingDownloads = Collections.emptyList();
+            }
+            final long[] dmids = new long[ongoingDownloads.size()];
+            for (int i = 0; i < dmids.length; i++) {
+                dmids[i] = ongoingDownloads.get(i).getDmId();
+            }
+            final List<NativeDownloadModel> nativeDownloads = dmids.length == 0
+                    ? new ArrayList<NativeDownloadModel>()
+                    : downloadManager.getDownloads(dmids);
+            return new DownloadProgressSnapshot(ongoingDownloads, nativeDownloads);
+        } catch (Exception e) {
+            logger.error(e);
+            return null;
+        }
+    }
+
+    private void publish(DownloadProgressSnapshot snapshot) {
+        isPollRunning = false;
+        if (snapshot != null) {
+            lastSnapshot = snapshot;
+            // Copied, as a listener may unsubscribe when it's sent the snapshot
+            for (Listener listener : new ArrayList<>(listeners)) {
+                listener.onDownloadProgress(snapshot);
+            }
+        }
+        if (listeners.isEmpty()) {
+            lastSnapshot = null;
+        } else {
+            isPollScheduled = true;
+            handler.postDelayed(pollRunnable, POLL_INTERVAL_MS);
+        }
+    }
+}
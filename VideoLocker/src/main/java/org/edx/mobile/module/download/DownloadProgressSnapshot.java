@@ -0,0 +1,67 @@
+package org.edx.mobile.module.download;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.edx.mobile.model.VideoModel;
+import org.edx.mobile.model.download.NativeDownloadModel;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The progress of the ongoing downloads at one point in time, as published by
+ * {@link DownloadProgressService}. A snapshot is shared by all the subscribers, so neither it
+ * nor the models in it should be modified.
+ */
+public class DownloadProgressSnapshot {
+    @NonNull
+    private final List<VideoModel> ongoingDownloads;
+    @NonNull
+    private final Map<Long, NativeDownloadModel> nativeDownloads;
+    private final int averageProgress;
+
+    public DownloadProgressSnapshot(@NonNull List<VideoModel> ongoingDownloads,
+                                    @NonNull List<NativeDownloadModel> nativeDownloads) {
+        this.ongoingDownloads = Collections.unmodifiableList(ongoingDownloads);
+        final Map<Long, NativeDownloadModel> nativeDownloadsById = new HashMap<>();
+        float aggrPercent = 0;
+        for (NativeDownloadModel download : nativeDownloads) {
+            nativeDownloadsById.put(download.dmid, download);
+            aggrPercent += download.getPercentDownloaded();
+        }
+        this.nativeDownloads = Collections.unmodifiableMap(nativeDownloadsById);
+        this.averageProgress = nativeDownloads.isEmpty() ? 0
+                : (int) (aggrPercent / nativeDownloads.size());
+    }
+
+    /**
+     * @return The videos that are being downloaded, in the order they were stored.
+     */
+    @NonNull
+    public List<VideoModel> getOngoingDownloads() {
+        return ongoingDownloads;
+    }
+
+    /**
+     * @return The state of the download in DownloadManager, or null if it wasn't found there.
+     */
+    @Nullable
+    public NativeDownloadModel getNativeDownload(long dmid) {
+        return nativeDownloads.get(dmid);
+    }
+
+    public boolean isAnyVideoDownloading() {
+        return !ongoingDownloads.isEmpty();
+    }
+
+    /**
+     * @return The average percentage downloaded of the ongoing downloads, or 0 if there
+     * aren't any.
+     */
+    public int getAverageProgress() {
+        return averageProgress;
+    }
+}
@@ -3,6 +3,7 @@ package org.edx.mobile.module.download;
 import org.edx.mobile.model.download.NativeDownloadModel;
 
 import java.io.File;
+import java.util.List;
 
 public interface IDownloadManager {
 
@@ -13,6 +14,14 @@ public interface IDownloadManager {
      * @return
      */
     NativeDownloadModel getDownload(long dmid);
+
+    /**
+     * Returns the downloads identified by given ids, using a single query.
+     * The downloads that aren't found are left out.
+     * @param dmids
+     * @return
+     */
+    List<NativeDownloadModel> getDownloads(long[] dmids);
     
     /**
      * Add a new download for the given URL and returns dmid.
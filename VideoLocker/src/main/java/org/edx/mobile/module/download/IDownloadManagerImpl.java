@@ -16,6 +16,8 @@ import org.edx.mobile.model.download.NativeDownloadModel;
 import org.edx.mobile.util.Sha1Util;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 @Singleton
 public class IDownloadManagerImpl implements IDownloadManager {
@@ -31,43 +33,50 @@ public class IDownloadManagerImpl implements IDownloadManager {
     }
 
     @Override
-    public synchronized  NativeDownloadModel getDownload(long dmid) {
+    public NativeDownloadModel getDownload(long dmid) {
+        final List<NativeDownloadModel> downloads = getDownloads(new long[]{dmid});
+        return downloads.isEmpty() ? null : downloads.get(0);
+    }
+
+    /**
+     * DownloadManager is safe to query from any thread, so the queries aren't synchronized;
+     * several screens can read the progress at once without waiting for each other.
+     */
+    @Override
+    public List<NativeDownloadModel> getDownloads(long[] dmids) {
+        final List<NativeDownloadModel> downloads = new ArrayList<>(dmids.length);
         //Need to check first if the download manager service is enabled
-        if(!isDownloadManagerEnabled())
-            return null;
+        if (dmids.length == 0 || !isDownloadManagerEnabled())
+            return downloads;
 
         try {
             Query query = new Query();
-            query.setFilterById(dmid);
+            query.setFilterById(dmids);
 
             Cursor c = dm.query(query);
-            if (c.moveToFirst()) {
-                long downloaded = c
-                        .getLong(c
-                                .getColumnIndex(DownloadManager.COLUMN_BYTES_DOWNLOADED_SO_FAR));
-                long size = c.getLong(c
-                        .getColumnIndex(DownloadManager.COLUMN_TOTAL_SIZE_BYTES));
-                String filepath = c.getString(c
-                        .getColumnIndex(DownloadManager.COLUMN_LOCAL_FILENAME));
-                int status = c.getInt(c
-                        .getColumnIndex(DownloadManager.COLUMN_STATUS));
-
+            try {
+                final int idColumn = c.getColumnIndex(DownloadManager.COLUMN_ID);
+                final int downloadedColumn = c
+                        .getColumnIndex(DownloadManager.COLUMN_BYTES_DOWNLOADED_SO_FAR);
+                final int sizeColumn = c.getColumnIndex(DownloadManager.COLUMN_TOTAL_SIZE_BYTES);
+                final int filepathColumn = c.getColumnIndex(DownloadManager.COLUMN_LOCAL_FILENAME);
+                final int statusColumn = c.getColumnIndex(DownloadManager.COLUMN_STATUS);
+                while (c.moveToNext()) {
+                    NativeDownloadModel ndm = new NativeDownloadModel();
+                    ndm.dmid = c.getLong(idColumn);
+                    ndm.downloaded = c.getLong(downloadedColumn);
+                    ndm.size = c.getLong(sizeColumn);
+                    ndm.filepath = c.getString(filepathColumn);
+                    ndm.status = c.getInt(statusColumn);
+                    downloads.add(ndm);
+                }
+            } finally {
                 c.close();
-                
-                NativeDownloadModel ndm = new NativeDownloadModel();
-                ndm.dmid = dmid;
-                ndm.downloaded = downloaded;
-                ndm.size = size;
-                ndm.filepath = filepath;
-                ndm.status = status;
-                
-                return ndm;
             }
-            c.close();
         } catch(Exception e) {
             logger.error(e);
         }
-        return null;
+        return downloads;
     }
 
     @Override
@@ -123,48 +132,25 @@ public class IDownloadManagerImpl implements IDownloadManager {
     }
 
     @Override
-    public synchronized int getProgressForDownload(long dmid) {
+    public int getProgressForDownload(long dmid) {
         return getAverageProgressForDownloads(new long[] {dmid});
     }
 
     @Override
-    public synchronized int getAverageProgressForDownloads(long[] dmids) {
-        //Need to check first if the download manager service is enabled
-        if(!isDownloadManagerEnabled())
+    public int getAverageProgressForDownloads(long[] dmids) {
+        final List<NativeDownloadModel> downloads = getDownloads(dmids);
+        if (downloads.isEmpty()) {
             return 0;
-
-        Query query = new Query();
-        query.setFilterById(dmids);
-        try {
-            Cursor c = dm.query(query);
-            if (c.moveToFirst()) {
-                int count = c.getCount();
-                float aggrPercent = 0;
-                do {
-                    long downloaded = c
-                        .getLong(c
-                            .getColumnIndex(DownloadManager.COLUMN_BYTES_DOWNLOADED_SO_FAR));
-                    long size = c.getLong(c
-                        .getColumnIndex(DownloadManager.COLUMN_TOTAL_SIZE_BYTES));
-
-                    aggrPercent += (100f * downloaded / size);
-                } while (c.moveToNext());
-
-                c.close();
-
-                int average = (int) (aggrPercent / count);
-                return average;
-            }
-            c.close();
-        }catch (Exception ex){
-            logger.debug(ex.getMessage());
         }
-        
-        return 0;
+        float aggrPercent = 0;
+        for (NativeDownloadModel download : downloads) {
+            aggrPercent += (100f * download.downloaded / download.size);
+        }
+        return (int) (aggrPercent / downloads.size());
     }
 
     @Override
-    public synchronized boolean isDownloadComplete(long dmid) {
+    public boolean isDownloadComplete(long dmid) {
         //Need to check first if the download manager service is enabled
         if(!isDownloadManagerEnabled())
             return false;
@@ -186,7 +172,7 @@ public class IDownloadManagerImpl implements IDownloadManager {
     }
 
     @Override
-    public synchronized boolean isDownloadManagerEnabled(){
+    public boolean isDownloadManagerEnabled(){
         if(context==null){
             return false;
         }
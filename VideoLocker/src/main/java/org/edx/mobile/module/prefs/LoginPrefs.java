@@ -40,15 +40,20 @@ public class LoginPrefs {
     public void storeAuthTokenResponse(@NonNull AuthResponse response, @NonNull AuthBackend backend) {
         pref.put(PrefManager.Key.AUTH_JSON, gson.toJson(response));
         pref.put(PrefManager.Key.SEGMENT_KEY_BACKEND, segmentKeyFromAuthBackend(backend));
+        // The tokens must survive the app being killed right after logging in
+        pref.flush();
     }
 
     public void clearAuthTokenResponse() {
         pref.put(PrefManager.Key.AUTH_JSON, null);
         pref.put(PrefManager.Key.SEGMENT_KEY_BACKEND, null);
+        pref.flush();
     }
 
     public void storeRefreshTokenResponse(@NonNull AuthResponse refreshTokenResponse) {
         pref.put(PrefManager.Key.AUTH_JSON, gson.toJson(refreshTokenResponse));
+        // The old refresh token may no longer be valid, so the new one must not be lost
+        pref.flush();
     }
 
     public void storeUserProfile(@NonNull ProfileModel res) {
@@ -61,12 +66,14 @@ public class LoginPrefs {
         setSubtitleLanguage(null);
         pref.put(PrefManager.Key.PROFILE_JSON, null);
         pref.put(PrefManager.Key.AUTH_JSON, null);
+        pref.flush();
         EdxCookieManager.getSharedInstance().clearWebWiewCookie(MainApplication.instance());
     }
 
     public void saveSocialLoginToken(@NonNull String accessToken, @NonNull String backend) {
         pref.put(PrefManager.Key.AUTH_TOKEN_SOCIAL, accessToken);
         pref.put(PrefManager.Key.AUTH_TOKEN_BACKEND, backend);
+        pref.flush();
     }
 
     public void clearSocialLoginToken() {
@@ -1,7 +1,7 @@
 package org.edx.mobile.module.prefs;
 
 import android.content.Context;
-import android.content.SharedPreferences.Editor;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.google.gson.Gson;
@@ -16,6 +16,9 @@ import org.edx.mobile.user.ProfileImage;
 import org.edx.mobile.util.DateUtil;
 import org.edx.mobile.util.Sha1Util;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * This is a Utility for reading and writing to shared preferences.
  * This class also contains the constants for the preference names and the keys.
@@ -25,6 +28,7 @@ public class PrefManager {
 
     private Context context;
     private String prefName;
+    private PrefStore store;
     private static final Logger logger = new Logger(PrefManager.class.getName());
 
     //FIXME - we should use MAApplication's context to clean up
@@ -37,6 +41,26 @@ public class PrefManager {
         this.prefName = prefName;
     }
 
+    /**
+     * @return The process-wide store of this preference file, which the values are put in
+     * memory and written back to disk in the background by.
+     */
+    @NonNull
+    private PrefStore getStore() {
+        if (store == null) {
+            store = PrefStore.getInstance(context, prefName);
+        }
+        return store;
+    }
+
+    /**
+     * Writes the values that were put to disk, and returns when they're there. This is only
+     * needed for the values that must survive the process being killed right away.
+     */
+    public void flush() {
+        getStore().flush();
+    }
+
     /**
      * Puts given key-value pair to the Shared Preferences.
      *
@@ -44,8 +68,7 @@ public class PrefManager {
      * @param value - String
      */
     public void put(String key, String value) {
-        Editor edit = context.getSharedPreferences(prefName, Context.MODE_PRIVATE).edit();
-        edit.putString(key, value).commit();
+        getStore().putString(key, value);
     }
 
     /**
@@ -55,8 +78,7 @@ public class PrefManager {
      * @param value - boolean
      */
     public void put(String key, boolean value) {
-        Editor edit = context.getSharedPreferences(prefName, Context.MODE_PRIVATE).edit();
-        edit.putBoolean(key, value).commit();
+        getStore().putBoolean(key, value);
     }
 
     /**
@@ -66,8 +88,7 @@ public class PrefManager {
      * @param value - long
      */
     public void put(String key, long value) {
-        Editor edit = context.getSharedPreferences(prefName, Context.MODE_PRIVATE).edit();
-        edit.putLong(key, value).commit();
+        getStore().putLong(key, value);
     }
 
     /**
@@ -77,8 +98,7 @@ public class PrefManager {
      * @param value - float
      */
     public void put(String key, float value) {
-        Editor edit = context.getSharedPreferences(prefName, Context.MODE_PRIVATE).edit();
-        edit.putFloat(key, value).commit();
+        getStore().putFloat(key, value);
     }
 
     /**
@@ -89,8 +109,7 @@ public class PrefManager {
      */
     public String getString(String key) {
         if (context != null) {
-            return context.getSharedPreferences(prefName, Context.MODE_PRIVATE)
-                    .getString(key, null);
+            return getStore().getString(key, null);
         }
         return null;
     }
@@ -104,8 +123,7 @@ public class PrefManager {
      */
     public boolean getBoolean(String key, boolean defaultValue) {
         if (context != null) {
-            return context.getSharedPreferences(prefName, Context.MODE_PRIVATE)
-                    .getBoolean(key, defaultValue);
+            return getStore().getBoolean(key, defaultValue);
         }
         return defaultValue;
     }
@@ -118,8 +136,7 @@ public class PrefManager {
      */
     public long getLong(String key) {
         if (context != null) {
-            return context.getSharedPreferences(prefName, Context.MODE_PRIVATE)
-                    .getLong(key, -1);
+            return getStore().getLong(key, -1);
         }
         return -1;
     }
@@ -131,8 +148,7 @@ public class PrefManager {
      * @return float
      */
     public float getFloat(String key) {
-        return context.getSharedPreferences(prefName, Context.MODE_PRIVATE)
-                .getFloat(key, -1);
+        return getStore().getFloat(key, -1);
     }
 
     /**
@@ -144,8 +160,7 @@ public class PrefManager {
      */
     public float getFloat(String key, float defaultValue) {
         if (context != null) {
-            return context.getSharedPreferences(prefName, Context.MODE_PRIVATE)
-                    .getFloat(key, defaultValue);
+            return getStore().getFloat(key, defaultValue);
         }
         return defaultValue;
     }
@@ -206,6 +221,7 @@ public class PrefManager {
         put(PrefManager.Key.AUTH_TOKEN_SOCIAL, null);
         put(PrefManager.Key.AUTH_TOKEN_BACKEND, null);
         put(PrefManager.Key.AUTH_TOKEN_SOCIAL_COOKIE, null);
+        flush();
         //assessment webview related session_id
         EdxCookieManager.getSharedInstance().clearWebWiewCookie(MainApplication.instance());
     }
@@ -226,11 +242,11 @@ public class PrefManager {
      * @param lastAccessedFlag
      */
     public void putLastAccessedSubsection(String subsectionId, boolean lastAccessedFlag) {
-        Editor edit = context.getSharedPreferences(prefName, Context.MODE_PRIVATE).edit();
-        edit.putString(PrefManager.Key.LASTACCESSED_MODULE_ID, subsectionId);
-        edit.putString(PrefManager.Key.LAST_ACCESS_MODIFICATION_TIME, DateUtil.getModificationDate());
-        edit.putBoolean(PrefManager.Key.LASTACCESSED_SYNCED_FLAG, lastAccessedFlag);
-        edit.commit();
+        final Map<String, Object> values = new HashMap<>();
+        values.put(PrefManager.Key.LASTACCESSED_MODULE_ID, subsectionId);
+        values.put(PrefManager.Key.LAST_ACCESS_MODIFICATION_TIME, DateUtil.getModificationDate());
+        values.put(PrefManager.Key.LASTACCESSED_SYNCED_FLAG, lastAccessedFlag);
+        getStore().putAll(values);
     }
 
     /**
@@ -239,8 +255,7 @@ public class PrefManager {
      * @return
      */
     public boolean isSyncedLastAccessedSubsection() {
-        return context.getSharedPreferences(prefName, Context.MODE_PRIVATE)
-                .getBoolean(PrefManager.Key.LASTACCESSED_SYNCED_FLAG, true);
+        return getStore().getBoolean(PrefManager.Key.LASTACCESSED_SYNCED_FLAG, true);
     }
 
 
@@ -250,8 +265,7 @@ public class PrefManager {
      * @return
      */
     public String getLastAccessedSubsectionId() {
-        return context.getSharedPreferences(prefName, Context.MODE_PRIVATE)
-                .getString(PrefManager.Key.LASTACCESSED_MODULE_ID, null);
+        return getStore().getString(PrefManager.Key.LASTACCESSED_MODULE_ID, null);
     }
 
     /**
@@ -0,0 +1,253 @@
+package org.edx.mobile.module.prefs;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import org.edx.mobile.logger.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-back store over a preference file. There is one store per file in the process, which
+ * holds the values that were put but not yet written, and writes them in batches on a background
+ * thread, so that putting a value doesn't touch the disk on the caller's thread.
+ * <p>
+ * The values that must survive the process being killed right after they're put, like the
+ * login tokens, should be followed by a call to {@link #flush()}.
+ */
+public class PrefStore {
+    private static final Logger logger = new Logger(PrefStore.class.getName());
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Stands for a value that was removed, as the pending values can't hold null.
+     */
+    private static final Object REMOVED = new Object();
+
+    // The following are guarded by the class lock
+    private static Context storesContext;
+    private static final Map<String, PrefStore> stores = new HashMap<>();
+    private static Executor sharedExecutor;
+
+    @NonNull
+    public static synchronized PrefStore getInstance(@NonNull Context context,
+                                                     @NonNull String prefName) {
+        final Context applicationContext = context.getApplicationContext();
+        if (storesContext != applicationContext) {
+            // Another application, which only happens between test runs
+            storesContext = applicationContext;
+            stores.clear();
+        }
+        PrefStore store = stores.get(prefName);
+        if (store == null) {
+            if (sharedExecutor == null) {
+                sharedExecutor = createExecutor();
+            }
+            store = new PrefStore(applicationContext.getSharedPreferences(prefName,
+                    Context.MODE_PRIVATE), sharedExecutor);
+            stores.put(prefName, store);
+        }
+        return store;
+    }
+
+    /**
+     * Writes all the pending values of all the stores, and returns when they're on disk.
+     */
+    public static void flushAll() {
+        final PrefStore[] allStores;
+        synchronized (PrefStore.class) {
+            allStores = stores.values().toArray(new PrefStore[stores.size()]);
+        }
+        for (PrefStore store : allStores) {
+            store.flush();
+        }
+    }
+
+    @NonNull
+    private static Executor createExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        return new Thread(runnable, "Preference writer");
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @NonNull
+    private final SharedPreferences preferences;
+    @NonNull
+    private final Executor executor;
+    /**
+     * Held while the values are written, so that the writes happen in order.
+     */
+    @NonNull
+    private final Object writeLock = new Object();
+
+    // The following are guarded by this object's lock
+    @NonNull
+    private Map<String, Object> pendingValues = new HashMap<>();
+    /**
+     * The values that are being written, which are read from here until the preferences have
+     * taken them.
+     */
+    @Nullable
+    private Map<String, Object> writingValues;
+    private boolean isWriteScheduled;
+
+    @VisibleForTesting
+    public PrefStore(@NonNull SharedPreferences preferences, @NonNull Executor executor) {
+        this.preferences = preferences;
+        this.executor = executor;
+    }
+
+    public void putString(@NonNull String key, @Nullable String value) {
+        put(key, value);
+    }
+
+    public void putBoolean(@NonNull String key, boolean value) {
+        put(key, value);
+    }
+
+    public void putLong(@NonNull String key, long value) {
+        put(key, value);
+    }
+
+    public void putFloat(@NonNull String key, float value) {
+        put(key, value);
+    }
+
+    /**
+     * Puts the values together, so that they're written in the same batch. A null value removes
+     * its key.
+     */
+    public synchronized void putAll(@NonNull Map<String, ?> values) {
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            pendingValues.put(entry.getKey(),
+                    entry.getValue() == null ? REMOVED : entry.getValue());
+        }
+        scheduleWrite();
+    }
+
+    private synchronized void put(@NonNull String key, @Nullable Object value) {
+        pendingValues.put(key, value == null ? REMOVED : value);
+        scheduleWrite();
+    }
+
+    private void scheduleWrite() {
+        if (!isWriteScheduled) {
+            isWriteScheduled = true;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    write(true);
+                }
+            });
+        }
+    }
+
+    @Nullable
+    public String getString(@NonNull String key, @Nullable String defaultValue) {
+        final Object value = getPendingValue(key);
+        if (value == null) {
+            return preferences.getString(key, defaultValue);
+        }
+        return value == REMOVED ? defaultValue : (String) value;
+    }
+
+    public boolean getBoolean(@NonNull String key, boolean defaultValue) {
+        final Object value = getPendingValue(key);
+        if (value == null) {
+            return preferences.getBoolean(key, defaultValue);
+        }
+        return value == REMOVED ? defaultValue : (Boolean) value;
+    }
+
+    public long getLong(@NonNull String key, long defaultValue) {
+        final Object value = getPendingValue(key);
+        if (value == null) {
+            return preferences.getLong(key, defaultValue);
+        }
+        return value == REMOVED ? defaultValue : (Long) value;
+    }
+
+    public float getFloat(@NonNull String key, float defaultValue) {
+        final Object value = getPendingValue(key);
+        if (value == null) {
+            return preferences.getFloat(key, defaultValue);
+        }
+        return value == REMOVED ? defaultValue : (Float) value;
+    }
+
+    /**
+     * @return The value that hasn't been written yet, {@link #REMOVED} if the key was removed,
+     * or null if the preferences are up to date.
+     */
+    @Nullable
+    private synchronized Object getPendingValue(@NonNull String key) {
+        final Object value = pendingValues.get(key);
+        if (value == null && writingValues != null) {
+            return writingValues.get(key);
+        }
+        return value;
+    }
+
+    /**
+     * Writes the pending values on the caller's thread, and returns when they're on disk along
+     * with any that were being written in the background.
+     */
+    public void flush() {
+        write(false);
+    }
+
+    private void write(boolean isScheduled) {
+        synchronized (writeLock) {
+            final Map<String, Object> values;
+            synchronized (this) {
+                if (isScheduled) {
+                    isWriteScheduled = false;
+                }
+                if (pendingValues.isEmpty()) {
+                    return;
+                }
+                values = pendingValues;
+                writingValues = values;
+                pendingValues = new HashMap<>();
+            }
+            final SharedPreferences.Editor editor = preferences.edit();
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                final String key = entry.getKey();
+                final Object value = entry.getValue();
+                if (value == REMOVED) {
+                    editor.remove(key);
+                } else if (value instanceof String) {
+                    editor.putString(key, (String) value);
+                } else if (value instanceof Boolean) {
+                    editor.putBoolean(key, (Boolean) value);
+                } else if (value instanceof Long) {
+                    editor.putLong(key, (Long) value);
+                } else if (value instanceof Float) {
+                    editor.putFloat(key, (Float) value);
+                }
+            }
+            if (!editor.commit()) {
+                logger.warn("Failed to write " + values.size() + " preferences");
+            }
+            synchronized (this) {
+                writingValues = null;
+            }
+        }
+    }
+}
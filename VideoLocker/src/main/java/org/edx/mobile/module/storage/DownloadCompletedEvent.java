@@ -1,4 +1,22 @@
 package org.edx.mobile.module.storage;
 
+import android.support.annotation.NonNull;
+
+import org.edx.mobile.model.db.DownloadEntry;
+
 public class DownloadCompletedEvent {
+    @NonNull
+    private final DownloadEntry entry;
+
+    public DownloadCompletedEvent(@NonNull DownloadEntry entry) {
+        this.entry = entry;
+    }
+
+    /**
+     * @return The video as it's been stored on completing the download.
+     */
+    @NonNull
+    public DownloadEntry getEntry() {
+        return entry;
+    }
 }
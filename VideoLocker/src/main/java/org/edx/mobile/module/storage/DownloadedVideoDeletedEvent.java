@@ -1,4 +1,19 @@
 package org.edx.mobile.module.storage;
 
+import android.support.annotation.NonNull;
+
+import org.edx.mobile.model.VideoModel;
+
 public class DownloadedVideoDeletedEvent {
+    @NonNull
+    private final VideoModel model;
+
+    public DownloadedVideoDeletedEvent(@NonNull VideoModel model) {
+        this.model = model;
+    }
+
+    @NonNull
+    public VideoModel getModel() {
+        return model;
+    }
 }
@@ -0,0 +1,137 @@
+package org.edx.mobile.module.storage;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.edx.mobile.interfaces.SectionItemInterface;
+import org.edx.mobile.model.VideoModel;
+import org.edx.mobile.model.api.ChapterModel;
+import org.edx.mobile.model.api.SectionEntry;
+import org.edx.mobile.model.api.SectionItemModel;
+import org.edx.mobile.model.api.VideoResponseModel;
+import org.edx.mobile.model.course.CourseComponent;
+import org.edx.mobile.model.course.IBlock;
+import org.edx.mobile.model.course.VideoBlockModel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Arranges the downloaded videos of a course into the flat list of chapters, sections and
+ * videos shown by the video lists. The downloads are indexed by video ID, so the course is
+ * walked only once.
+ */
+public class DownloadedVideoOrganizer {
+    @NonNull
+    private final Map<String, VideoModel> downloadsById;
+
+    public DownloadedVideoOrganizer(@NonNull List<? extends VideoModel> downloads) {
+        downloadsById = new HashMap<>(downloads.size() * 2);
+        for (VideoModel download : downloads) {
+            if (download.getVideoId() != null) {
+                downloadsById.put(toKey(download.getVideoId()), download);
+            }
+        }
+    }
+
+    /**
+     * The video IDs have always been matched ignoring case.
+     */
+    @NonNull
+    private static String toKey(@NonNull String videoId) {
+        return videoId.toLowerCase(Locale.ENGLISH);
+    }
+
+    public boolean isEmpty() {
+        return downloadsById.isEmpty();
+    }
+
+    /**
+     * @return The download of the given video, or null if it's not downloaded.
+     */
+    @Nullable
+    public VideoModel getDownload(@Nullable String videoId) {
+        return videoId == null ? null : downloadsById.get(toKey(videoId));
+    }
+
+    /**
+     * @return The downloaded videos in course order, each chapter and section followed by
+     * the downloaded videos in it. Chapters and sections without any are left out.
+     */
+    @NonNull
+    public ArrayList<SectionItemInterface> organize(@NonNull CourseComponent course) {
+        final ArrayList<SectionItemInterface> list = new ArrayList<>();
+        for (IBlock chapter : course.getChildren()) {
+            boolean chapterAdded = false;
+            for (IBlock section : chapter.getChildren()) {
+                boolean sectionAdded = false;
+                for (VideoBlockModel video : ((CourseComponent) section).getVideos()) {
+                    final VideoModel download = getDownload(video.getId());
+                    if (download == null) {
+                        continue;
+                    }
+                    if (!chapterAdded) {
+                        list.add(createChapter(chapter.getDisplayName()));
+                        chapterAdded = true;
+                    }
+                    if (!sectionAdded) {
+                        list.add(createSection(section.getDisplayName()));
+                        sectionAdded = true;
+                    }
+                    list.add((SectionItemInterface) download);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Same as {@link #organize(CourseComponent)}, for a course that is only available in the
+     * legacy hierarchy.
+     */
+    @NonNull
+    public ArrayList<SectionItemInterface> organize(
+            @NonNull Map<String, SectionEntry> courseHierarchy) {
+        final ArrayList<SectionItemInterface> list = new ArrayList<>();
+        for (Map.Entry<String, SectionEntry> chapterEntry : courseHierarchy.entrySet()) {
+            boolean chapterAdded = false;
+            for (Map.Entry<String, ArrayList<VideoResponseModel>> sectionEntry :
+                    chapterEntry.getValue().sections.entrySet()) {
+                boolean sectionAdded = false;
+                for (VideoResponseModel video : sectionEntry.getValue()) {
+                    final VideoModel download = getDownload(video.getSummary().getId());
+                    if (download == null) {
+                        continue;
+                    }
+                    if (!chapterAdded) {
+                        list.add(createChapter(chapterEntry.getKey()));
+                        chapterAdded = true;
+                    }
+                    if (!sectionAdded) {
+                        list.add(createSection(sectionEntry.getKey()));
+                        sectionAdded = true;
+                    }
+                    list.add((SectionItemInterface) download);
+                }
+            }
+        }
+        return list;
+    }
+
+    @NonNull
+    private static ChapterModel createChapter(String name) {
+        final ChapterModel chapter = new ChapterModel();
+        chapter.name = name;
+        return chapter;
+    }
+
+    @NonNull
+    private static SectionItemModel createSection(String name) {
+        final SectionItemModel section = new SectionItemModel();
+        section.name = name;
+        return section;
+    }
+}
@@ -13,13 +13,12 @@ import org.edx.mobile.http.HttpException;
 import org.edx.mobile.interfaces.SectionItemInterface;
 import org.edx.mobile.logger.Logger;
 import org.edx.mobile.model.VideoModel;
-import org.edx.mobile.model.api.ChapterModel;
 import org.edx.mobile.model.api.EnrolledCoursesResponse;
 import org.edx.mobile.model.api.ProfileModel;
-import org.edx.mobile.model.api.SectionEntry;
-import org.edx.mobile.model.api.SectionItemModel;
 import org.edx.mobile.model.api.VideoResponseModel;
+import org.edx.mobile.model.course.CourseComponent;
 import org.edx.mobile.model.course.VideoBlockModel;
+import org.edx.mobile.model.db.CourseDownloadSummary;
 import org.edx.mobile.model.db.DownloadEntry;
 import org.edx.mobile.model.download.NativeDownloadModel;
 import org.edx.mobile.module.db.DataCallback;
@@ -29,8 +28,9 @@ import org.edx.mobile.module.db.impl.DatabaseFactory;
 import org.edx.mobile.module.download.IDownloadManager;
 import org.edx.mobile.module.prefs.LoginPrefs;
 import org.edx.mobile.module.prefs.UserPrefs;
+import org.edx.mobile.services.CourseManager;
 import org.edx.mobile.services.ServiceManager;
-import org.edx.mobile.user.UserAPI;
+import org.edx.mobile.user.EnrollmentRepository;
 import org.edx.mobile.util.Config;
 import org.edx.mobile.util.NetworkUtil;
 
@@ -39,7 +39,6 @@ import java.io.FileInputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import de.greenrobot.event.EventBus;
 
@@ -60,7 +59,9 @@ public class Storage implements IStorage {
     private LoginPrefs loginPrefs;
     @Inject
     ServiceManager serviceManager;
-    @Inject UserAPI api;
+    @Inject
+    CourseManager courseManager;
+    @Inject EnrollmentRepository enrollmentRepository;
 
     private final Logger logger = new Logger(getClass().getName());
 
@@ -134,7 +135,7 @@ public class Storage implements IStorage {
 
         // anyways, we mark the video as DELETED
         int videosDeleted = db.deleteVideoByVideoId(model, null);
-        EventBus.getDefault().post(new DownloadedVideoDeletedEvent());
+        EventBus.getDefault().post(new DownloadedVideoDeletedEvent(model));
         return videosDeleted;
     }
 
@@ -276,14 +277,19 @@ public class Storage implements IStorage {
         String username = getUsername();
 
         if (username != null) {
-            for(EnrolledCoursesResponse enrolledCoursesResponse : api.getUserEnrolledCourses(username, true)){
-                int videoCount = db.getDownloadedVideoCountByCourse(
-                        enrolledCoursesResponse.getCourse().getId(),null);
-                if(videoCount>0){
-                    enrolledCoursesResponse.videoCount = videoCount;
-                    enrolledCoursesResponse.size = db.getDownloadedVideosSizeByCourse(
-                            enrolledCoursesResponse.getCourse().getId(),null);
-                    downloadedCourseList.add(enrolledCoursesResponse);
+            // Counted for all the courses at once, rather than with two queries per course
+            Map<String, CourseDownloadSummary> summaries =
+                    db.getDownloadedVideoSummaryByCourse(null);
+            for(EnrolledCoursesResponse enrolledCoursesResponse : enrollmentRepository.getEnrolledCourses(username)){
+                CourseDownloadSummary summary = summaries.get(
+                        enrolledCoursesResponse.getCourse().getId());
+                if(summary != null && summary.getVideoCount()>0){
+                    // Counted on a copy, as the courses of the repository are shared
+                    EnrolledCoursesResponse downloadedCourse =
+                            new EnrolledCoursesResponse(enrolledCoursesResponse);
+                    downloadedCourse.videoCount = summary.getVideoCount();
+                    downloadedCourse.size = summary.getSize();
+                    downloadedCourseList.add(downloadedCourse);
                 }
             }
         }
@@ -309,10 +315,11 @@ public class Storage implements IStorage {
 
         String username = getUsername();
         if (username != null) {
-            for (final EnrolledCoursesResponse course : api.getUserEnrolledCourses(username, true)) {
+            Map<String, List<VideoModel>> videosByCourse =
+                    db.getSortedDownloadsByDownloadedDateByCourse(null);
+            for (final EnrolledCoursesResponse course : enrollmentRepository.getEnrolledCourses(username)) {
                 // add all videos to the list for this course
-                List<VideoModel> videos = db.getSortedDownloadsByDownloadedDateForCourseId(
-                        course.getCourse().getId(), null);
+                List<VideoModel> videos = videosByCourse.get(course.getCourse().getId());
 
                 // ArrayList<IVideoModel> videos = new ArrayList<IVideoModel>();
                 if (videos != null && videos.size() > 0) {
@@ -376,44 +383,13 @@ public class Storage implements IStorage {
         }
 
         try {
-            Map<String, SectionEntry> courseHeirarchyMap =
-                serviceManager.getCourseHierarchy(courseId);
-
-            // iterate chapters
-            for (Entry<String, SectionEntry> chapterentry : courseHeirarchyMap.entrySet()) {
-                boolean chapterAddedFlag=false;
-                // iterate lectures
-                for (Entry<String, ArrayList<VideoResponseModel>> lectureEntry : 
-                    chapterentry.getValue().sections.entrySet()) {
-                    boolean lectureAddedFlag=false;
-                    // iterate videos 
-                    for (VideoResponseModel v : lectureEntry.getValue()) {
-                        for(VideoModel de : downloadList){
-                            // identify the video
-                            if (de.getVideoId().equalsIgnoreCase(v.getSummary().getId())) {
-                                // add this chapter to the list
-                                if(!chapterAddedFlag){
-                                    ChapterModel chModel = new ChapterModel();
-                                    chModel.name = chapterentry.getKey();
-                                    list.add(chModel);
-                                    chapterAddedFlag = true;
-                                }
-                                if(!lectureAddedFlag){
-                                    SectionItemModel lectureModel = new SectionItemModel();
-                                    lectureModel.name = lectureEntry.getKey();
-                                    list.add(lectureModel);
-                                    lectureAddedFlag = true;
-                                }
-
-                                // add section below this chapter
-                                list.add((DownloadEntry)de);
-                                break;
-                            }   // If condition for videoId
-                        }       //for loop for downloadedvideos for CourseId
-                    }           // for loop for VRM
-                }               //  For loop for lectures
-            }                   // For loop for Chapters
-            return list;
+            DownloadedVideoOrganizer organizer = new DownloadedVideoOrganizer(downloadList);
+            CourseComponent course = courseManager.getCourseByCourseId(courseId);
+            if (course != null) {
+                return organizer.organize(course);
+            }
+            // the course was cached in the old data model
+            return organizer.organize(serviceManager.getCourseHierarchy(courseId));
         } catch (Exception e) {
             logger.error(e);
         }
@@ -453,7 +429,7 @@ public class Storage implements IStorage {
                     }
                     db.updateDownloadCompleteInfoByDmId(dmId, e, null);
                     callback.sendResult(e);
-                    EventBus.getDefault().post(new DownloadCompletedEvent());
+                    EventBus.getDefault().post(new DownloadCompletedEvent(e));
                 }
 
             } else {
@@ -0,0 +1,299 @@
+package org.edx.mobile.player;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+
+import subtitleFile.Caption;
+import subtitleFile.TimedTextObject;
+
+/**
+ * Array-backed index over the captions of a transcript, built once per
+ * {@link TimedTextObject}.
+ * <p>
+ * Lookups are answered with a binary search over the sorted start times, and a cursor
+ * remembers the last position so that sequential lookups during normal playback are O(1).
+ * The cursor is only a hint, but it isn't synchronized, so instances are meant to be queried
+ * from the UI thread only.
+ */
+public class CaptionTimeline {
+    /**
+     * Returned by {@link #indexAt(long)} when no caption is displayed at a position.
+     */
+    public static final int NO_CAPTION = -1;
+
+    /**
+     * Returned by {@link #getNextChangeMs(long)} when the displayed caption will not change
+     * for the rest of the video.
+     */
+    public static final long NO_CHANGE = Long.MAX_VALUE;
+
+    private static final String LINE_BREAK_SUFFIX = "<br />";
+
+    /**
+     * Identifies the binary format written by {@link #writeTo(DataOutputStream)}, and needs to
+     * be changed whenever that format changes.
+     */
+    private static final int BINARY_FORMAT_VERSION = 1;
+
+    /**
+     * Rough per-object overhead of the VM, used for estimating the memory footprint.
+     */
+    private static final int OBJECT_OVERHEAD_BYTES = 16;
+
+    @NonNull
+    private final int[] starts;
+    @NonNull
+    private final int[] ends;
+    /**
+     * The running maximum of {@link #ends}, which lets overlapping captions be resolved
+     * with a binary search as well.
+     */
+    @NonNull
+    private final int[] maxEnds;
+    @NonNull
+    private final String[] texts;
+
+    private final int estimatedByteCount;
+
+    /**
+     * Index of the last caption starting at or before the last looked up position.
+     */
+    private int cursor = NO_CAPTION;
+
+    /**
+     * @param starts Caption start times in milliseconds, sorted in ascending order.
+     * @param ends   Caption end times in milliseconds.
+     * @param texts  Caption texts.
+     */
+    public CaptionTimeline(@NonNull int[] starts, @NonNull int[] ends, @NonNull String[] texts) {
+        if (starts.length != ends.length || starts.length != texts.length) {
+            throw new IllegalArgumentException("Caption arrays must be of the same length");
+        }
+        this.starts = starts;
+        this.ends = ends;
+        this.texts = texts;
+        this.maxEnds = new int[ends.length];
+        int maxEnd = Integer.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            if (i > 0 && starts[i] < starts[i - 1]) {
+                throw new IllegalArgumentException("Caption start times must be sorted");
+            }
+            maxEnd = Math.max(maxEnd, ends[i]);
+            maxEnds[i] = maxEnd;
+        }
+        int byteCount = OBJECT_OVERHEAD_BYTES + 4 * (OBJECT_OVERHEAD_BYTES + 4 * starts.length);
+        for (String text : texts) {
+            byteCount += 2 * OBJECT_OVERHEAD_BYTES + 2 * text.length();
+        }
+        this.estimatedByteCount = byteCount;
+    }
+
+    /**
+     * Builds the index from a parsed transcript, whose captions are already ordered by
+     * their start time.
+     */
+    @NonNull
+    public static CaptionTimeline fromTimedText(@NonNull TimedTextObject timedText) {
+        final Collection<Caption> captions = timedText.captions.values();
+        final int size = captions.size();
+        final int[] starts = new int[size];
+        final int[] ends = new int[size];
+        final String[] texts = new String[size];
+        int i = 0;
+        for (Caption caption : captions) {
+            starts[i] = caption.start.getMseconds();
+            ends[i] = caption.end.getMseconds();
+            texts[i] = stripTrailingLineBreak(caption.content);
+            i++;
+        }
+        return new CaptionTimeline(starts, ends, texts);
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo(DataOutputStream)}.
+     *
+     * @throws IOException If the data is truncated, or was written in another format version.
+     */
+    @NonNull
+    public static CaptionTimeline readFrom(@NonNull DataInputStream in) throws IOException {
+        final int version = in.readInt();
+        if (version != BINARY_FORMAT_VERSION) {
+            throw new IOException("Unsupported caption format version " + version);
+        }
+        final int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Invalid caption count " + size);
+        }
+        final int[] starts = new int[size];
+        final int[] ends = new int[size];
+        final String[] texts = new String[size];
+        for (int i = 0; i < size; i++) {
+            starts[i] = in.readInt();
+            ends[i] = in.readInt();
+            texts[i] = in.readUTF();
+        }
+        try {
+            return new CaptionTimeline(starts, ends, texts);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Writes the index in a compact binary form, which can be read back with
+     * {@link #readFrom(DataInputStream)} without parsing the transcript again.
+     */
+    public void writeTo(@NonNull DataOutputStream out) throws IOException {
+        out.writeInt(BINARY_FORMAT_VERSION);
+        out.writeInt(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            out.writeInt(starts[i]);
+            out.writeInt(ends[i]);
+            out.writeUTF(texts[i]);
+        }
+    }
+
+    /**
+     * Caption content produced by the SRT parser ends with a line break tag, which
+     * shouldn't be displayed.
+     */
+    @NonNull
+    private static String stripTrailingLineBreak(@Nullable String content) {
+        if (content == null) {
+            return "";
+        }
+        if (content.endsWith(LINE_BREAK_SUFFIX)) {
+            return content.substring(0, content.length() - LINE_BREAK_SUFFIX.length());
+        }
+        return content;
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * @return An estimate of the memory held by this index, in bytes.
+     */
+    public int getEstimatedByteCount() {
+        return estimatedByteCount;
+    }
+
+    public int getStartMs(int index) {
+        return starts[index];
+    }
+
+    public int getEndMs(int index) {
+        return ends[index];
+    }
+
+    @NonNull
+    public String getText(int index) {
+        return texts[index];
+    }
+
+    /**
+     * Finds the caption to display at the given position. When captions overlap, the one
+     * which starts first is returned.
+     *
+     * @param positionMs The playback position in milliseconds.
+     * @return The index of the caption, or {@link #NO_CAPTION} if none covers the position.
+     */
+    public int indexAt(long positionMs) {
+        final int last = seek(positionMs);
+        if (last == NO_CAPTION || maxEnds[last] < positionMs) {
+            return NO_CAPTION;
+        }
+        if (ends[last] >= positionMs && (last == 0 || maxEnds[last - 1] < positionMs)) {
+            // The common case of non-overlapping captions
+            return last;
+        }
+        // Some earlier caption is still showing; find the first one that covers the position
+        int first = lowerBound(maxEnds, last, positionMs);
+        for (int i = first; i <= last; i++) {
+            if (ends[i] >= positionMs) {
+                return i;
+            }
+        }
+        return NO_CAPTION;
+    }
+
+    /**
+     * @param positionMs The playback position in milliseconds.
+     * @return The earliest position after the given one at which the displayed caption may
+     * change, or {@link #NO_CHANGE} if it never does.
+     */
+    public long getNextChangeMs(long positionMs) {
+        final int current = indexAt(positionMs);
+        if (current != NO_CAPTION) {
+            return ends[current] + 1L;
+        }
+        final int next = cursor + 1;
+        return next < starts.length ? starts[next] : NO_CHANGE;
+    }
+
+    /**
+     * Moves the cursor to the last caption starting at or before the given position.
+     */
+    private int seek(long positionMs) {
+        int index = cursor;
+        if (!isCursorAt(index, positionMs)) {
+            if (isCursorAt(index + 1, positionMs)) {
+                // Playback moved on to the next caption
+                index++;
+            } else {
+                index = upperBound(starts, positionMs) - 1;
+            }
+            cursor = index;
+        }
+        return index;
+    }
+
+    private boolean isCursorAt(int index, long positionMs) {
+        if (index < NO_CAPTION || index >= starts.length) {
+            return false;
+        }
+        return (index == NO_CAPTION || starts[index] <= positionMs)
+                && (index + 1 == starts.length || starts[index + 1] > positionMs);
+    }
+
+    /**
+     * @return The index of the first element greater than the value.
+     */
+    private static int upperBound(@NonNull int[] array, long value) {
+        int low = 0;
+        int high = array.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (array[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return The index of the first element within the first {@code length} elements that
+     * is greater than or equal to the value.
+     */
+    private static int lowerBound(@NonNull int[] array, int length, long value) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (array[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -14,6 +14,7 @@ import android.media.AudioManager;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.app.DialogFragment;
 import android.util.TypedValue;
@@ -44,8 +45,10 @@ import org.edx.mobile.logger.Logger;
 import org.edx.mobile.model.VideoModel;
 import org.edx.mobile.model.api.TranscriptModel;
 import org.edx.mobile.model.db.DownloadEntry;
+import org.edx.mobile.module.db.PlaybackPositionJournal;
 import org.edx.mobile.module.facebook.IUiLifecycleHelper;
 import org.edx.mobile.module.prefs.LoginPrefs;
+import org.edx.mobile.services.VideoEncodingSelector;
 import org.edx.mobile.util.AppConstants;
 import org.edx.mobile.util.BrowserUtil;
 import org.edx.mobile.util.DeviceSettingUtil;
@@ -53,20 +56,17 @@ import org.edx.mobile.util.ListUtil;
 import org.edx.mobile.util.NetworkUtil;
 import org.edx.mobile.util.OrientationDetector;
 import org.edx.mobile.util.UiUtil;
+import org.edx.mobile.util.observer.AsyncCallableUtils;
+import org.edx.mobile.util.observer.Observer;
 import org.edx.mobile.view.adapters.ClosedCaptionAdapter;
 import org.edx.mobile.view.dialog.CCLanguageDialogFragment;
 import org.edx.mobile.view.dialog.IListDialogCallback;
 
-import java.io.InputStream;
 import java.io.Serializable;
-import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-
-import subtitleFile.Caption;
-import subtitleFile.FormatSRT;
-import subtitleFile.TimedTextObject;
+import java.util.concurrent.Callable;
 
 @SuppressLint("WrongViewCast")
 @SuppressWarnings("serial")
@@ -88,6 +88,11 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
     private static final int MSG_TYPE_TICK = 2014;
     private static final int DELAY_TIME_MS = 1000;
     private static final int UNFREEZE_DELAY_MS = 300;
+    private static final int SUBTITLE_MIN_DELAY_MS = 20;
+    private static final int SUBTITLE_IDLE_DELAY_MS = 250;
+    private static final int SUBTITLE_LAYOUT_DELAY_MS = 250;
+    private static final int SUBTITLE_MAX_DELAY_MS = 1000;
+    private static final int CAPTION_NOT_DISPLAYED = -2;
 
     @Inject
     IEdxEnvironment environment;
@@ -108,14 +113,24 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
     private CCLanguageDialogFragment ccFragment;
     private PopupWindow settingPopup;
     private PopupWindow cc_popup;
-    private LinkedHashMap<String, TimedTextObject> srtList;
+    private LinkedHashMap<String, CaptionTimeline> srtList;
     private LinkedHashMap<String, String> langList;
-    private TimedTextObject srt;
+    private CaptionTimeline srt;
+    private int displayedCaptionIndex = CAPTION_NOT_DISPLAYED;
+    private int displayedCaptionLayout;
     private LayoutInflater layoutInflater;
     @Inject
     private TranscriptManager transcriptManager;
+    @Inject
+    private PlaybackPositionJournal positionJournal;
+    @Inject
+    private VideoEncodingSelector encodingSelector;
     private TranscriptModel transcript;
     private DownloadEntry videoEntry;
+    /**
+     * The path that was last passed to the player, or null if it was restored.
+     */
+    private String videoPath;
     private Object touchExplorationStateChangeListener;
 
     private EnumSet<VideoNotPlayMessageType> curMessageTypes =  EnumSet.noneOf(VideoNotPlayMessageType.class);
@@ -355,6 +370,7 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
     public void handleOnResume() {
         uiHelper.onResume();
         setupController();
+        encodingSelector.addListener(encodingListener);
 
         if (curMessageTypes.isEmpty()) {
             // display progress until playback actually starts
@@ -386,6 +402,7 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
 
     public void handleOnPause(){
         uiHelper.onPause();
+        encodingSelector.removeListener(encodingListener);
 
         try{
             orientationDetector.stop();
@@ -507,6 +524,7 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
         if(video!=null){
             this.videoEntry = video;
         }
+        this.videoPath = path;
 
         if (trModel != null)
         {
@@ -549,6 +567,32 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
         }
     }
 
+    private final VideoEncodingSelector.Listener encodingListener =
+            new VideoEncodingSelector.Listener() {
+        @Override
+        public void onStreamingConditionsChanged() {
+            reselectEncoding();
+        }
+    };
+
+    /**
+     * Switches the video that is being streamed to another encoding, from the current position,
+     * if the conditions call for it.
+     */
+    private void reselectEncoding() {
+        if (player == null || !isPrepared || player.isPlayingLocally() || videoEntry == null
+                || videoPath == null || !videoPath.startsWith("http")) {
+            return;
+        }
+        final String url = encodingSelector.selectForStreaming(videoEntry, videoPath).getUrl();
+        if (url == null || url.equals(videoPath)) {
+            return;
+        }
+        logger.debug("Switching encoding to " + url);
+        playOrPrepare(url, player.getCurrentPosition(), videoEntry.getTitle(), transcript,
+                videoEntry, !player.isPlaying());
+    }
+
     private void setupController() {
         if (null == player) {
             return;
@@ -630,6 +674,10 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
 
         try{
             if(player!=null){
+                if (callback != null && player.getCurrentPosition() > 0) {
+                    callback.saveCurrentPlaybackPosition(player.getCurrentPosition());
+                }
+                positionJournal.flush();
                 double current_time = player.getCurrentPosition()/AppConstants.MILLISECONDS_PER_SECOND ;
                 environment.getSegment().trackVideoPause(videoEntry.videoId, current_time,
                         videoEntry.eid, videoEntry.lmsUrl);
@@ -838,6 +886,8 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
         if (callback != null) {
             // mark offset as zero, so that playback will resume from start next time
             callback.saveCurrentPlaybackPosition(0);
+            // written ahead of the watched state
+            positionJournal.flush();
             callback.onPlaybackComplete();
         }
         hideCCPopUp();
@@ -1104,34 +1154,27 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
     }
 
     /**
-     * This runnable handles the displaying of
-     * Subtitles on the screen per 100 mili seconds
+     * This runnable handles the displaying of Subtitles on the screen, and reschedules
+     * itself for the next time the displayed caption may change
      */
     private Runnable subtitleProcessesor = new Runnable() {
         @Override
         public void run() {
             try{
-                //This has been reset so that previous cc will not be displayed
-                resetClosedCaptioning();
+                long delay = SUBTITLE_IDLE_DELAY_MS;
                 if (player != null && (player.isPlaying() || player.isPaused())) {
                     int currentPos = player.getCurrentPosition();
                     if(srt!=null){
-                        Collection<Caption> subtitles = srt.captions.values();
-                        for (Caption caption : subtitles) {
-                            int startMillis = caption.start.getMseconds();
-                            int endMillis = caption.end.getMseconds();
-                            if (currentPos >= startMillis && currentPos <= endMillis) {
-                                setClosedCaptionData(caption);
-                                break;
-                            } else if (currentPos > endMillis) {
-                                setClosedCaptionData(null);
-                            }
+                        int captionIndex = srt.indexAt(currentPos);
+                        displayClosedCaption(captionIndex);
+                        if (player.isPlaying()) {
+                            delay = getSubtitleUpdateDelay(currentPos, captionIndex);
                         }
                     }else{
-                        setClosedCaptionData(null);
+                        displayClosedCaption(CaptionTimeline.NO_CAPTION);
                     }
                 }
-                subtitleDisplayHandler.postDelayed(this, 100);
+                subtitleDisplayHandler.postDelayed(this, delay);
             }catch(Exception e){
                 logger.error(e);
             }
@@ -1139,49 +1182,122 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
     };
 
     /**
-     * This runnable is used the fetch the Subtitle in TimedTextObject
+     * Computes the delay until the displayed caption may change. While a caption is
+     * displayed, the delay is capped so that its margins follow the player controller.
+     */
+    private long getSubtitleUpdateDelay(int currentPos, int captionIndex) {
+        final long maxDelay = captionIndex == CaptionTimeline.NO_CAPTION ?
+                SUBTITLE_MAX_DELAY_MS : SUBTITLE_LAYOUT_DELAY_MS;
+        final long nextChange = srt.getNextChangeMs(currentPos);
+        if (nextChange == CaptionTimeline.NO_CHANGE) {
+            return maxDelay;
+        }
+        return Math.max(SUBTITLE_MIN_DELAY_MS, Math.min(nextChange - currentPos, maxDelay));
+    }
+
+    /**
+     * Displays the caption at the given index of the current transcript, unless it is
+     * already displayed with the same layout
+     */
+    private void displayClosedCaption(int captionIndex) {
+        int layout = getClosedCaptionLayout();
+        if (captionIndex == displayedCaptionIndex && layout == displayedCaptionLayout) {
+            return;
+        }
+        if (captionIndex == CaptionTimeline.NO_CAPTION) {
+            setClosedCaptionData(null);
+        } else {
+            setClosedCaptionData(srt.getText(captionIndex));
+        }
+        displayedCaptionIndex = captionIndex;
+        displayedCaptionLayout = layout;
+    }
+
+    /**
+     * @return A key for the player state which the closed caption margins depend on
+     */
+    private int getClosedCaptionLayout() {
+        if (player == null) {
+            return 0;
+        }
+        int layout = player.isFullScreen() ? 1 : 0;
+        if (player.getController() != null && player.getController().isShown()) {
+            layout |= 2;
+        }
+        return layout;
+    }
+
+    /**
+     * Reschedules the subtitle display callback to run immediately, e.g. after a seek
+     */
+    private void refreshSubtitleDisplay() {
+        if (subtitleDisplayHandler != null && srt != null) {
+            subtitleDisplayHandler.removeCallbacks(subtitleProcessesor);
+            subtitleDisplayHandler.post(subtitleProcessesor);
+        }
+    }
+
+    /**
+     * This runnable is used to fetch the parsed Subtitles on a background thread
      */
     private Runnable subtitleFetchProcessesor = new Runnable()
     {
         public void run()
         {
-            if(srtList!=null){
-                srtList = null;
+            final Handler fetchHandler = subtitleFetchHandler;
+            final TranscriptModel transcriptModel = transcript;
+            final Activity activity = getActivity();
+            if (fetchHandler == null || transcriptModel == null || activity == null) {
+                return;
             }
-
-            srtList = new LinkedHashMap<>();
-            try
-            {
-                LinkedHashMap<String, InputStream> localHashMap = transcriptManager
-                        .fetchTranscriptsForVideo(transcript,getActivity());
-
-                if (localHashMap != null){
-                    for(String thisKey : localHashMap.keySet()){
-                        InputStream localInputStream = localHashMap.get(thisKey);
-                        if (localInputStream != null)
-                        {
-                            TimedTextObject localTimedTextObject =
-                                    new FormatSRT().parseFile("temp.srt", localInputStream);
-                            srtList.put(thisKey, localTimedTextObject);
-                            localInputStream.close();
+            final Context context = activity.getApplicationContext();
+            AsyncCallableUtils.observe(new Callable<LinkedHashMap<String, CaptionTimeline>>() {
+                @Override
+                public LinkedHashMap<String, CaptionTimeline> call() {
+                    return transcriptManager.fetchCaptionsForVideo(transcriptModel, context);
+                }
+            }, new Observer<LinkedHashMap<String, CaptionTimeline>>() {
+                @Override
+                public void onData(@NonNull final LinkedHashMap<String, CaptionTimeline> data) {
+                    fetchHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            onSubtitlesFetched(fetchHandler, data);
                         }
-                    }
-
-                    if ((srtList == null) || (srtList.size() == 0)) {
-                        subtitleFetchHandler.postDelayed(subtitleFetchProcessesor, 100);
-                    }else{
-                        displaySrtData();
-                    }
-                }else{
-                    subtitleFetchHandler.postDelayed(subtitleFetchProcessesor, DELAY_TIME_MS);
+                    });
                 }
-            }catch (Exception localException) {
-                logger.error(localException);
-            }
 
+                @Override
+                public void onError(@NonNull Throwable error) {
+                    logger.error(error);
+                }
+            });
         }
     };
 
+    /**
+     * Displays the fetched Subtitles, and retries while the selected language
+     * is still being downloaded
+     */
+    private void onSubtitlesFetched(Handler fetchHandler,
+                                    LinkedHashMap<String, CaptionTimeline> captionsList) {
+        // Ignore the results of a fetch that has been cancelled in the meantime
+        if (fetchHandler != subtitleFetchHandler) {
+            return;
+        }
+        if (!captionsList.isEmpty()) {
+            srtList = captionsList;
+            displaySrtData();
+        }
+        final String languageSubtitle = getSubtitleLanguage();
+        final LinkedHashMap<String, String> languageList = getLanguageList();
+        if (languageSubtitle != null && languageList != null
+                && languageList.containsKey(languageSubtitle)
+                && !captionsList.containsKey(languageSubtitle)) {
+            subtitleFetchHandler.postDelayed(subtitleFetchProcessesor, DELAY_TIME_MS);
+        }
+    }
+
     /**
      * Handler initialized for fetching Subtitles
      */
@@ -1208,7 +1324,7 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
     /**
      * This function sets the closed caption data on the TextView
      */
-    private void setClosedCaptionData(Caption text){
+    private void setClosedCaptionData(String text){
         try{
             RelativeLayout subTitlesLayout = (RelativeLayout) getActivity().findViewById(R.id.txtSubtitles);
             TextView subTitlesTv = (TextView) getActivity().findViewById(R.id.txtSubtitles_tv);
@@ -1241,16 +1357,10 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
                     subTitlesTv.setPadding(margin_ten_dp, (int)UiUtil.getParamsInDP(getResources(),2),
                             margin_ten_dp,(int)UiUtil.getParamsInDP(getResources(),2) );
                     subTitlesTv.setText("");
-                    //This has been done because text.content contains <br />
-                    //in the end of each message
-                    String temp = text.content;
-                    if(temp.endsWith("<br />")){
-                        temp = temp.substring(0, temp.length()-6);
-                    }
-                    if(temp.length()==0){
+                    if(text.length()==0){
                         subTitlesTv.setVisibility(View.GONE);
                     }else{
-                        subTitlesTv.setText(temp);
+                        subTitlesTv.setText(text);
                         subTitlesTv.setVisibility(View.VISIBLE);
                     }
                 }else{
@@ -1266,6 +1376,7 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
      * Hide the Closed Captioning TextView
      */
     private void hideClosedCaptioning(){
+        displayedCaptionIndex = CAPTION_NOT_DISPLAYED;
         try{
             TextView subTitlesTv = (TextView) getActivity().findViewById(R.id.txtSubtitles_tv);
             if(subTitlesTv!=null){
@@ -1280,6 +1391,7 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
      * This resets the Closed Captioning to blank/empty
      */
     private void resetClosedCaptioning(){
+        displayedCaptionIndex = CAPTION_NOT_DISPLAYED;
         try{
             TextView subTitlesTv = (TextView) getActivity().findViewById(R.id.txtSubtitles_tv);
             if(subTitlesTv!=null){
@@ -1760,6 +1872,12 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
 
     private void setSubtitleLanguage(@Nullable String language) {
         loginPrefs.setSubtitleLanguage(language);
+        // Only the preferred languages are downloaded up front
+        if (language != null && transcript != null
+                && (srtList == null || !srtList.containsKey(language))) {
+            transcriptManager.downloadTranscript(transcript, language);
+            fetchSubtitlesTask();
+        }
     }
 
     @Override
@@ -1770,10 +1888,12 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
                 callback.saveCurrentPlaybackPosition((int) newPosition);
                 logger.debug("Current position saved: " + newPosition);
             }
+            positionJournal.flush();
 
             if(isRewindClicked){
                 resetClosedCaptioning();
             }
+            refreshSubtitleDisplay();
             environment.getSegment().trackVideoSeek(videoEntry.videoId,
                     lastPostion/AppConstants.MILLISECONDS_PER_SECOND,
                     newPosition/AppConstants.MILLISECONDS_PER_SECOND,
@@ -1834,6 +1954,7 @@ public class PlayerFragment extends BaseFragment implements IPlayerListener, Ser
                     callback.saveCurrentPlaybackPosition(pos);
                 }
             }
+            positionJournal.flush();
 
             player.freeze();
         }
@@ -2,14 +2,24 @@ package org.edx.mobile.player;
 
 import android.content.Context;
 import android.os.Environment;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.util.LruCache;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
 import org.edx.mobile.R;
 import org.edx.mobile.model.api.TranscriptModel;
+import org.edx.mobile.module.prefs.LoginPrefs;
+import org.edx.mobile.services.ServiceManager;
 import org.edx.mobile.util.Sha1Util;
-import org.edx.mobile.util.TranscriptDownloader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -18,19 +28,63 @@ import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
 import org.edx.mobile.logger.Logger;
 import org.edx.mobile.util.IOUtils;
 
+import subtitleFile.FormatSRT;
+
 @Singleton
 public class TranscriptManager {
 
+    /**
+     * Memory budget of the parsed transcript cache, in bytes
+     */
+    private static final int CAPTION_CACHE_SIZE_BYTES = 2 * 1024 * 1024;
+
+    /**
+     * Extension of the pre-parsed transcript files, which are stored next to the raw SRT files
+     */
+    private static final String PARSED_FILE_EXTENSION = ".captions";
+
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    private final LruCache<String, CaptionTimeline> captionCache =
+            new LruCache<String, CaptionTimeline>(CAPTION_CACHE_SIZE_BYTES) {
+                @Override
+                protected int sizeOf(String url, CaptionTimeline captions) {
+                    return captions.getEstimatedByteCount();
+                }
+            };
+
+    private final TranscriptPrefetcher prefetcher = new TranscriptPrefetcher() {
+        @Override
+        protected long fetch(@NonNull String url) throws Exception {
+            String response = serviceManager.downloadTranscript(url);
+            put(url, response);
+            // The length of the string counts UTF-16 chars rather than bytes
+            return response.getBytes(Charset.forName("UTF-8")).length;
+        }
+    };
+
+    @Inject
+    private ServiceManager serviceManager;
+
     private File transcriptFolder;
     private Context context;
+    private final LoginPrefs loginPrefs;
     private final Logger logger = new Logger(getClass().getName());
 
     @Inject
-    public TranscriptManager(Context context) {
+    public TranscriptManager(Context context, LoginPrefs loginPrefs) {
+        this.loginPrefs = loginPrefs;
         try{
             this.context = context;
             File android = new File(Environment.getExternalStorageDirectory(), "Android");
@@ -73,9 +127,21 @@ public class TranscriptManager {
             IOException {
         String hash = Sha1Util.SHA1(url);
         File file = new File(transcriptFolder, hash);
-        FileOutputStream out = new FileOutputStream(file);
-        out.write(response.getBytes());
-        out.close();
+        // Write to a temporary file first, so that a partially written transcript never gets parsed
+        File tempFile = new File(transcriptFolder, hash + TEMP_FILE_EXTENSION);
+        FileOutputStream out = new FileOutputStream(tempFile);
+        try {
+            out.write(response.getBytes());
+        } finally {
+            out.close();
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Unable to save transcript " + file);
+        }
+        // Any previously parsed form of this transcript is now stale
+        new File(transcriptFolder, hash + PARSED_FILE_EXTENSION).delete();
+        captionCache.remove(url);
     }
 
 
@@ -133,47 +199,29 @@ public class TranscriptManager {
 
 
     /**
-     * This function is used to handle downloading of SRT files and saving them
+     * This function is used to queue the download of an SRT file, unless it has already been
+     * saved or is being downloaded
      * @param downloadLink
      * @throws NoSuchAlgorithmException
      * @throws UnsupportedEncodingException
      */
-    public void startTranscriptDownload(final String downloadLink) 
+    public void startTranscriptDownload(final String downloadLink)
             throws NoSuchAlgorithmException, UnsupportedEncodingException{
-        //Uri target = Uri.fromFile(new File(transcriptFolder, Sha1Util.SHA1(downloadLink)));
         if(downloadLink==null){
             return;
         }
 
         //If file is not present in the Folder, then start downloading
         if(!has(downloadLink)) {
-            TranscriptDownloader td = new TranscriptDownloader(context, downloadLink) {
-                
-                @Override
-                public void onDownloadComplete(String response) {
-                    try {
-                        put(downloadLink, response);
-                    } catch (NoSuchAlgorithmException e) {
-                        logger.error(e);
-                    } catch (UnsupportedEncodingException e) {
-                        logger.error(e);
-                    } catch (IOException e) {
-                        logger.error(e);
-                    }
-                }
-                
-                @Override
-                public void handle(Exception ex) {
-                    logger.error(ex);
-                }
-            };
-            Thread th = new Thread(td);
-            th.start();
+            prefetcher.enqueue(downloadLink);
         }
     }
 
     /**
-     * This function starts downloading all the srt files in a Transcript model
+     * This function starts downloading the srt files of a Transcript model, in the
+     * languages the user is likely to select: the selected subtitle language and the
+     * language of the device. Other languages are downloaded on demand through
+     * {@link #downloadTranscript(TranscriptModel, String)}.
      * @param transcript
      */
     public void downloadTranscriptsForVideo(TranscriptModel transcript){
@@ -181,110 +229,194 @@ public class TranscriptManager {
             return;
         }
 
-        if(transcript.chineseUrl!=null){
+        LinkedHashMap<String, String> urls = getTranscriptUrls(transcript, context);
+        Set<String> languages = new LinkedHashSet<>();
+        String subtitleLanguage = loginPrefs.getSubtitleLanguage();
+        if (subtitleLanguage != null) {
+            languages.add(subtitleLanguage);
+        }
+        languages.add(Locale.getDefault().getLanguage());
+
+        List<String> downloadLinks = new ArrayList<>();
+        for (String language : languages) {
+            String url = urls.get(language);
             try {
-                startTranscriptDownload(transcript.chineseUrl);
+                if (url != null && !has(url)) {
+                    downloadLinks.add(url);
+                }
             } catch (NoSuchAlgorithmException e) {
                 logger.error(e);
             } catch (UnsupportedEncodingException e) {
                 logger.error(e);
             }
         }
+        prefetcher.enqueueAll(downloadLinks);
+    }
+
+    /**
+     * This function starts downloading the srt file of a Transcript model in one language
+     * @param transcript
+     * @param language - The language code of the srt file
+     */
+    public void downloadTranscript(@NonNull TranscriptModel transcript, @NonNull String language){
+        try {
+            startTranscriptDownload(getTranscriptUrls(transcript, context).get(language));
+        } catch (NoSuchAlgorithmException e) {
+            logger.error(e);
+        } catch (UnsupportedEncodingException e) {
+            logger.error(e);
+        }
+    }
+
+    /**
+     * @return The queue depth and throughput of the transcript downloads
+     */
+    @NonNull
+    public TranscriptPrefetcher.Metrics getDownloadMetrics() {
+        return prefetcher.getMetrics();
+    }
+
+    /**
+     * This function is used to get the links of all language Transcripts of a particular Video
+     * @param transcript - This model contains links of the srt files
+     * @return The links of the srt files, keyed by their language codes
+     */
+    @NonNull
+    public LinkedHashMap<String, String> getTranscriptUrls(@NonNull TranscriptModel transcript,
+                                                           @NonNull Context context) {
+        LinkedHashMap<String, String> urls = new LinkedHashMap<>();
+        if(transcript.chineseUrl!=null){
+            urls.put(context.getString(R.string.cc_chinese_code), transcript.chineseUrl);
+        }
         if(transcript.englishUrl!=null){
-            try {
-                startTranscriptDownload(transcript.englishUrl);
-            } catch (NoSuchAlgorithmException e) {
-                logger.error(e);
-            } catch (UnsupportedEncodingException e) {
-                logger.error(e);
-            }
+            urls.put(context.getString(R.string.cc_english_code), transcript.englishUrl);
         }
         if(transcript.frenchUrl!=null){
-            try {
-                startTranscriptDownload(transcript.frenchUrl);
-            } catch (NoSuchAlgorithmException e) {
-                logger.error(e);
-            } catch (UnsupportedEncodingException e) {
-                logger.error(e);
-            }
+            urls.put(context.getString(R.string.cc_french_code), transcript.frenchUrl);
         }
         if(transcript.germanUrl!=null){
-            try {
-                startTranscriptDownload(transcript.germanUrl);
-            } catch (NoSuchAlgorithmException e) {
-                logger.error(e);
-            } catch (UnsupportedEncodingException e) {
-                logger.error(e);
-            }
+            urls.put(context.getString(R.string.cc_german_code), transcript.germanUrl);
         }
         if(transcript.portugueseUrl!=null){
-            try {
-                startTranscriptDownload(transcript.portugueseUrl);
-            } catch (NoSuchAlgorithmException e) {
-                logger.error(e);
-            } catch (UnsupportedEncodingException e) {
-                logger.error(e);
-            }
+            urls.put(context.getString(R.string.cc_portugal_code), transcript.portugueseUrl);
         }
         if(transcript.spanishUrl!=null){
-            try {
-                startTranscriptDownload(transcript.spanishUrl);
-            } catch (NoSuchAlgorithmException e) {
-                logger.error(e);
-            } catch (UnsupportedEncodingException e) {
-                logger.error(e);
-            }
+            urls.put(context.getString(R.string.cc_spanish_code), transcript.spanishUrl);
         }
+        return urls;
     }
 
-
     /**
-     * This function is used to fetch all language Transcripts of a particular Video in strings
+     * This function is used to fetch all downloaded language Transcripts of a particular Video,
+     * parsed into captions. It does disk I/O, and must not be called on the main thread.
      * @param transcript - This model contains links of the srt files
-     * @return ArrayList<String> which is the list of srt response strings
+     * @return The parsed captions keyed by their language codes, which is empty if none of the
+     * srt files have been downloaded yet
      */
-    public LinkedHashMap<String, InputStream> fetchTranscriptsForVideo(
-                TranscriptModel transcript, Context context){
-
-        LinkedHashMap<String, InputStream> transcriptList = new LinkedHashMap<String, InputStream>();
-        try{
-            if(transcript.chineseUrl!=null){
-                transcriptList.put(context.getString(R.string.cc_chinese_code), 
-                        fetchTranscriptResponse(transcript.chineseUrl));
+    @WorkerThread
+    @NonNull
+    public LinkedHashMap<String, CaptionTimeline> fetchCaptionsForVideo(
+            @NonNull TranscriptModel transcript, @NonNull Context context) {
+        LinkedHashMap<String, CaptionTimeline> captionsList = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : getTranscriptUrls(transcript, context).entrySet()) {
+            CaptionTimeline captions = getCaptions(entry.getValue());
+            if (captions != null) {
+                captionsList.put(entry.getKey(), captions);
             }
+        }
+        return captionsList;
+    }
 
-            if(transcript.englishUrl!=null){
-                transcriptList.put(context.getString(R.string.cc_english_code), 
-                        fetchTranscriptResponse(transcript.englishUrl));
-            }
+    /**
+     * This function is used to get the parsed captions of a downloaded srt file. Parsed
+     * transcripts are kept in memory and persisted next to the srt files, so that each
+     * transcript only ever gets parsed once. It does disk I/O, and must not be called on
+     * the main thread.
+     * @param url - URL of the srt
+     * @return The parsed captions, or null if the srt file hasn't been downloaded yet
+     */
+    @WorkerThread
+    @Nullable
+    public CaptionTimeline getCaptions(@Nullable String url) {
+        if(url==null){
+            return null;
+        }
 
-            if(transcript.frenchUrl!=null){
-                transcriptList.put(context.getString(R.string.cc_french_code), 
-                        fetchTranscriptResponse(transcript.frenchUrl));
-            }
-            
-            if(transcript.germanUrl!=null){
-                transcriptList.put(context.getString(R.string.cc_german_code), 
-                        fetchTranscriptResponse(transcript.germanUrl));
+        CaptionTimeline captions = captionCache.get(url);
+        if (captions != null) {
+            return captions;
+        }
+        try {
+            String hash = Sha1Util.SHA1(url);
+            File parsedFile = new File(transcriptFolder, hash + PARSED_FILE_EXTENSION);
+            captions = readParsedCaptions(parsedFile);
+            if (captions == null) {
+                File file = new File(transcriptFolder, hash);
+                if (!file.exists()) {
+                    // not downloaded yet
+                    return null;
+                }
+                captions = parseCaptions(file);
+                writeParsedCaptions(captions, parsedFile);
             }
+            captionCache.put(url, captions);
+            return captions;
+        } catch (Exception e) {
+            logger.error(e);
+        }
+        return null;
+    }
 
-            if(transcript.portugueseUrl!=null){
-                transcriptList.put(context.getString(R.string.cc_portugal_code), 
-                        fetchTranscriptResponse(transcript.portugueseUrl));
-            }
+    @NonNull
+    private CaptionTimeline parseCaptions(@NonNull File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return CaptionTimeline.fromTimedText(new FormatSRT().parseFile(file.getName(), in));
+        } finally {
+            in.close();
+        }
+    }
 
-            if(transcript.spanishUrl!=null){
-                transcriptList.put(context.getString(R.string.cc_spanish_code), 
-                        fetchTranscriptResponse(transcript.spanishUrl));
+    @Nullable
+    private CaptionTimeline readParsedCaptions(@NonNull File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file)));
+            try {
+                return CaptionTimeline.readFrom(in);
+            } finally {
+                in.close();
             }
-            
-            return transcriptList;
-        }catch(Exception e){
+        } catch (IOException e) {
+            // Corrupt or outdated, so it will be parsed again from the srt file
             logger.error(e);
+            file.delete();
         }
         return null;
     }
 
+    private void writeParsedCaptions(@NonNull CaptionTimeline captions, @NonNull File file) {
+        File tempFile = new File(file.getPath() + TEMP_FILE_EXTENSION);
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)));
+            try {
+                captions.writeTo(out);
+            } finally {
+                out.close();
+            }
+            if (!tempFile.renameTo(file)) {
+                tempFile.delete();
+            }
+        } catch (IOException e) {
+            logger.error(e);
+            tempFile.delete();
+        }
+    }
+
     /**
      * This function is used to get string as response for the contents of a file
      * @param url - URL of the srt
@@ -0,0 +1,270 @@
+package org.edx.mobile.player;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import org.edx.mobile.logger.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Downloads transcripts in the background on a bounded pool of threads.
+ * <p>
+ * Besides the overall limit, at most {@link #MAX_DOWNLOADS_PER_HOST} downloads run against
+ * the same host at a time, and the rest wait in a queue per host. A URL which is already
+ * queued or being downloaded is not enqueued again.
+ */
+public abstract class TranscriptPrefetcher {
+    public static final int MAX_CONCURRENT_DOWNLOADS = 4;
+    public static final int MAX_DOWNLOADS_PER_HOST = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final Logger logger = new Logger(getClass().getName());
+
+    @NonNull
+    private final ExecutorService executor;
+
+    // The following are guarded by this object's lock
+    private final Map<String, Queue<String>> pendingUrlsByHost = new HashMap<>();
+    private final Map<String, Integer> activeCountByHost = new HashMap<>();
+    private final Set<String> inFlightUrls = new HashSet<>();
+    private int queueDepth;
+    private int activeCount;
+    private long completedCount;
+    private long failedCount;
+    private long dedupedCount;
+    private long downloadedBytes;
+    private long downloadTimeMs;
+
+    public TranscriptPrefetcher() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_CONCURRENT_DOWNLOADS, MAX_CONCURRENT_DOWNLOADS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        return new Thread(runnable,
+                                "TranscriptPrefetcher #" + count.incrementAndGet());
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.executor = executor;
+    }
+
+    /**
+     * Downloads and stores a transcript. Called on one of the prefetcher's threads.
+     *
+     * @param url The URL of the transcript.
+     * @return The number of bytes downloaded.
+     */
+    @WorkerThread
+    protected abstract long fetch(@NonNull String url) throws Exception;
+
+    /**
+     * Queues a transcript for download, unless it's already queued or being downloaded.
+     *
+     * @return true if the URL was queued.
+     */
+    public synchronized boolean enqueue(@NonNull String url) {
+        if (!inFlightUrls.add(url)) {
+            dedupedCount++;
+            return false;
+        }
+        final String host = getHost(url);
+        Queue<String> pendingUrls = pendingUrlsByHost.get(host);
+        if (pendingUrls == null) {
+            pendingUrls = new ArrayDeque<>();
+            pendingUrlsByHost.put(host, pendingUrls);
+        }
+        pendingUrls.add(url);
+        queueDepth++;
+        dispatch(host);
+        return true;
+    }
+
+    /**
+     * Queues several transcripts for download at once.
+     *
+     * @return The number of URLs which were queued.
+     */
+    public synchronized int enqueueAll(@NonNull Collection<String> urls) {
+        int count = 0;
+        for (String url : urls) {
+            if (enqueue(url)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return true if the URL is either queued or being downloaded.
+     */
+    public synchronized boolean isInFlight(@NonNull String url) {
+        return inFlightUrls.contains(url);
+    }
+
+    @NonNull
+    public synchronized Metrics getMetrics() {
+        return new Metrics(queueDepth, activeCount, completedCount, failedCount, dedupedCount,
+                downloadedBytes, downloadTimeMs);
+    }
+
+    /**
+     * Starts as many of the host's pending downloads as its limit allows.
+     */
+    private void dispatch(@NonNull final String host) {
+        final Queue<String> pendingUrls = pendingUrlsByHost.get(host);
+        int active = getActiveCount(host);
+        while (active < MAX_DOWNLOADS_PER_HOST && pendingUrls != null && !pendingUrls.isEmpty()) {
+            final String url = pendingUrls.remove();
+            queueDepth--;
+            active++;
+            activeCount++;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    download(host, url);
+                }
+            });
+        }
+        if (active > 0) {
+            activeCountByHost.put(host, active);
+        }
+        if (pendingUrls != null && pendingUrls.isEmpty()) {
+            pendingUrlsByHost.remove(host);
+        }
+    }
+
+    private void download(@NonNull String host, @NonNull String url) {
+        final long startTime = System.currentTimeMillis();
+        long bytes = 0;
+        boolean succeeded = false;
+        try {
+            bytes = fetch(url);
+            succeeded = true;
+        } catch (Exception e) {
+            logger.error(e);
+        }
+        final long elapsedTime = System.currentTimeMillis() - startTime;
+        synchronized (this) {
+            inFlightUrls.remove(url);
+            activeCount--;
+            final int active = getActiveCount(host) - 1;
+            if (active > 0) {
+                activeCountByHost.put(host, active);
+            } else {
+                activeCountByHost.remove(host);
+            }
+            if (succeeded) {
+                completedCount++;
+                downloadedBytes += bytes;
+                downloadTimeMs += elapsedTime;
+            } else {
+                failedCount++;
+            }
+            logger.debug("Transcript " + (succeeded ? "downloaded" : "failed") + " in "
+                    + elapsedTime + "ms, " + getMetrics());
+            dispatch(host);
+        }
+    }
+
+    private int getActiveCount(@NonNull String host) {
+        final Integer active = activeCountByHost.get(host);
+        return active == null ? 0 : active;
+    }
+
+    @NonNull
+    private static String getHost(@NonNull String url) {
+        final HttpUrl httpUrl = HttpUrl.parse(url);
+        return httpUrl == null ? "" : httpUrl.host();
+    }
+
+    /**
+     * A snapshot of the prefetcher's state and throughput.
+     */
+    public static class Metrics {
+        private final int queueDepth;
+        private final int activeCount;
+        private final long completedCount;
+        private final long failedCount;
+        private final long dedupedCount;
+        private final long downloadedBytes;
+        private final long downloadTimeMs;
+
+        public Metrics(int queueDepth, int activeCount, long completedCount, long failedCount,
+                       long dedupedCount, long downloadedBytes, long downloadTimeMs) {
+            this.queueDepth = queueDepth;
+            this.activeCount = activeCount;
+            this.completedCount = completedCount;
+            this.failedCount = failedCount;
+            this.dedupedCount = dedupedCount;
+            this.downloadedBytes = downloadedBytes;
+            this.downloadTimeMs = downloadTimeMs;
+        }
+
+        /**
+         * @return The number of downloads waiting for a thread.
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * @return The number of downloads in progress.
+         */
+        public int getActiveCount() {
+            return activeCount;
+        }
+
+        public long getCompletedCount() {
+            return completedCount;
+        }
+
+        public long getFailedCount() {
+            return failedCount;
+        }
+
+        /**
+         * @return The number of times a URL wasn't enqueued because it already was in flight.
+         */
+        public long getDedupedCount() {
+            return dedupedCount;
+        }
+
+        public long getDownloadedBytes() {
+            return downloadedBytes;
+        }
+
+        /**
+         * @return The average throughput of the completed downloads, in bytes per second.
+         */
+        public long getThroughputBytesPerSecond() {
+            return downloadTimeMs == 0 ? 0 : downloadedBytes * 1000 / downloadTimeMs;
+        }
+
+        @Override
+        public String toString() {
+            return "queueDepth=" + queueDepth + ", active=" + activeCount
+                    + ", completed=" + completedCount + ", failed=" + failedCount
+                    + ", deduped=" + dedupedCount
+                    + ", throughput=" + getThroughputBytesPerSecond() + "B/s";
+        }
+    }
+}
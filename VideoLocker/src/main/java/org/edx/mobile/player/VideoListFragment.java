@@ -25,6 +25,7 @@ import org.edx.mobile.model.api.EnrolledCoursesResponse;
 import org.edx.mobile.model.api.VideoResponseModel;
 import org.edx.mobile.model.db.DownloadEntry;
 import org.edx.mobile.module.db.DataCallback;
+import org.edx.mobile.module.db.PlaybackPositionJournal;
 import org.edx.mobile.module.prefs.LoginPrefs;
 import org.edx.mobile.module.prefs.PrefManager;
 import org.edx.mobile.task.CircularProgressTask;
@@ -67,6 +68,9 @@ public class VideoListFragment extends BaseFragment {
     @Inject
     protected IEdxEnvironment environment;
 
+    @Inject
+    PlaybackPositionJournal positionJournal;
+
     private final Logger logger = new Logger(getClass().getName());
 
     @Inject
@@ -473,9 +477,7 @@ public class VideoListFragment extends BaseFragment {
         try {
             DownloadEntry v = videoModel;
             if (v != null) {
-                // mark this as partially watches, as playing has started
-                environment.getDatabase().updateVideoLastPlayedOffset(v.videoId, offset,
-                        setCurrentPositionCallback);
+                positionJournal.record(v.videoId, offset);
             }
         } catch (Exception ex) {
             logger.error(ex);
@@ -887,16 +889,4 @@ public class VideoListFragment extends BaseFragment {
             logger.error(ex);
         }
     };
-
-    private DataCallback<Integer> setCurrentPositionCallback = new DataCallback<Integer>() {
-        @Override
-        public void onResult(Integer result) {
-            logger.debug("Current Playback Position Updated");
-        }
-
-        @Override
-        public void onFail(Exception ex) {
-            logger.error(ex);
-        }
-    };
 }
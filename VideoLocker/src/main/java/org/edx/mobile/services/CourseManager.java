@@ -1,10 +1,14 @@
 package org.edx.mobile.services;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
 import android.util.LruCache;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
+import org.edx.mobile.base.MainApplication;
 import org.edx.mobile.interfaces.SectionItemInterface;
 import org.edx.mobile.logger.Logger;
 import org.edx.mobile.model.Filter;
@@ -16,6 +20,7 @@ import org.edx.mobile.model.api.VideoResponseModel;
 import org.edx.mobile.model.course.BlockModel;
 import org.edx.mobile.model.course.BlockType;
 import org.edx.mobile.model.course.CourseComponent;
+import org.edx.mobile.model.course.CourseSnapshot;
 import org.edx.mobile.model.course.CourseStructureV1Model;
 import org.edx.mobile.model.course.DiscussionBlockModel;
 import org.edx.mobile.model.course.DiscussionData;
@@ -25,8 +30,21 @@ import org.edx.mobile.model.course.IBlock;
 import org.edx.mobile.model.course.VideoBlockModel;
 import org.edx.mobile.model.course.VideoData;
 import org.edx.mobile.model.course.VideoInfo;
+import org.edx.mobile.util.Sha1Util;
+import org.edx.mobile.util.observer.AsyncCallableUtils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,41 +57,258 @@ import java.util.Map;
 public class CourseManager {
     protected final Logger logger = new Logger(getClass().getName());
 
-    private LruCache<String, CourseComponent> cachedComponent;
+    /**
+     * Upper bound of the memory used by the cached course trees.
+     */
+    private static final int MAX_CACHE_SIZE_BYTES = 8 * 1024 * 1024;
+    private static final String SNAPSHOT_FOLDER_NAME = "course-snapshots";
+
+    // Rough per-object costs used to estimate the size of a course tree
+    private static final int COMPONENT_OVERHEAD_BYTES = 160;
+    private static final int VIDEO_DATA_OVERHEAD_BYTES = 160;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final LruCache<String, CachedCourse> cachedComponent;
+
+    @NonNull
+    private final File snapshotFolder;
 
+    // The following is guarded by this object's lock
+    /**
+     * Incremented whenever the course structures may have been replaced, so that a course tree
+     * which was being built from an older version isn't kept in memory.
+     */
+    private int generation;
 
     @Inject
     ServiceManager serviceManager;
 
     public CourseManager(){
-        cachedComponent = new LruCache<>(1);
+        // Leave most of the heap to the rest of the app on low memory devices
+        final int cacheSize = (int) Math.min(MAX_CACHE_SIZE_BYTES,
+                Runtime.getRuntime().maxMemory() / 16);
+        cachedComponent = new LruCache<String, CachedCourse>(cacheSize) {
+            @Override
+            protected int sizeOf(String courseId, CachedCourse cachedCourse) {
+                return cachedCourse.byteCount;
+            }
+        };
+        snapshotFolder = new File(MainApplication.instance().getCacheDir(), SNAPSHOT_FOLDER_NAME);
     }
 
+    /**
+     * Returns the normalized course tree. It's served from memory once it has been loaded,
+     * otherwise from the binary snapshot on disk, and only built from the cached JSON response
+     * if the snapshot isn't up to date. The version of the course structure is only checked on
+     * disk when the tree isn't in memory, or after a fetch through {@link #revalidateCourse}.
+     */
     public CourseComponent getCourseByCourseId(String courseId){
-        CourseComponent component = cachedComponent.get(courseId);
-        if ( component != null )
-            return component;
+        CachedCourse cachedCourse = cachedComponent.get(courseId);
+        if (cachedCourse != null) {
+            return cachedCourse.component;
+        }
+        final int startGeneration;
+        synchronized (this) {
+            startGeneration = generation;
+        }
+        String version = getCourseStructureVersion(courseId);
+        if (version == null) {
+            // Nothing to build the course from
+            return null;
+        }
+
+        final File snapshotFile = getSnapshotFile(courseId);
+        CourseComponent component = readSnapshot(snapshotFile, version);
+        if (component == null) {
+            try {
+                component = serviceManager.getCourseStructureFromCache(courseId);
+            } catch (Exception e) {
+                logger.error(e);
+            }
+            if (component == null) {
+                return null;
+            }
+            writeSnapshotAsync(new CourseSnapshot(component, version), snapshotFile);
+        }
+        synchronized (this) {
+            // Otherwise the course structure may have been replaced while it was being read
+            if (generation == startGeneration) {
+                cachedComponent.put(courseId, new CachedCourse(component, version));
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Checks the version of the cached course structure on disk again, after it may have been
+     * replaced by a fetch, and drops the course tree from memory if it's out of date.
+     */
+    public void revalidateCourse(String courseId) {
+        synchronized (this) {
+            generation++;
+        }
+        CachedCourse cachedCourse = cachedComponent.get(courseId);
+        if (cachedCourse != null &&
+                !cachedCourse.version.equals(getCourseStructureVersion(courseId))) {
+            cachedComponent.remove(courseId);
+        }
+    }
+
+    @Nullable
+    private String getCourseStructureVersion(String courseId) {
         try {
-            component = serviceManager.getCourseStructureFromCache(courseId);
-            cachedComponent.put(courseId,component);
+            return serviceManager.getCourseStructureVersion(courseId);
         } catch (Exception e) {
-           logger.error(e);
+            logger.error(e);
+            return null;
         }
-        return component;
     }
 
-    public CourseComponent getComponentById(String courseId, final String componentId){
+    public CourseComponent getComponentById(String courseId, String componentId){
         CourseComponent courseComponent = getCourseByCourseId(courseId);
         if ( courseComponent == null )
             return null;
-        return courseComponent.find(new Filter<CourseComponent>() {
+        return courseComponent.getComponentById(componentId);
+    }
+
+    @NonNull
+    private File getSnapshotFile(@NonNull String courseId) {
+        String name;
+        try {
+            name = Sha1Util.SHA1(courseId);
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            // Course ids contain characters which aren't safe in file names
+            name = courseId.replaceAll("[^A-Za-z0-9._-]", "_");
+        }
+        return new File(snapshotFolder, name);
+    }
+
+    /**
+     * @return The course from the snapshot, or null if there is no snapshot of the given version.
+     */
+    @Nullable
+    private CourseComponent readSnapshot(@NonNull File file, @NonNull String version) {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file)));
+            try {
+                CourseSnapshot snapshot = CourseSnapshot.readFrom(in);
+                if (version.equals(snapshot.getVersion())) {
+                    return snapshot.getCourse();
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            // Corrupt or in an outdated format, so it will be rebuilt from the JSON response
+            logger.error(e);
+            file.delete();
+        }
+        return null;
+    }
+
+    /**
+     * Writes the snapshot on a background thread, through a temporary file so that a partially
+     * written snapshot is never read.
+     */
+    private void writeSnapshotAsync(@NonNull final CourseSnapshot snapshot,
+                                    @NonNull final File file) {
+        AsyncCallableUtils.EXECUTOR.execute(new Runnable() {
             @Override
-            public boolean apply(CourseComponent courseComponent) {
-                return componentId.equals(courseComponent.getId());
+            public void run() {
+                File tempFile = null;
+                try {
+                    if (!snapshotFolder.exists()) {
+                        snapshotFolder.mkdirs();
+                    }
+                    tempFile = File.createTempFile(file.getName() + "-", ".tmp", snapshotFolder);
+                    DataOutputStream out = new DataOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(tempFile)));
+                    try {
+                        snapshot.writeTo(out);
+                    } finally {
+                        out.close();
+                    }
+                    if (!tempFile.renameTo(file)) {
+                        tempFile.delete();
+                    }
+                } catch (IOException e) {
+                    logger.error(e);
+                    if (tempFile != null) {
+                        tempFile.delete();
+                    }
+                }
             }
         });
     }
 
+    /**
+     * A course tree in the memory cache, along with the version of the course structure it
+     * was built from.
+     */
+    private static class CachedCourse {
+        @NonNull
+        final CourseComponent component;
+        @NonNull
+        final String version;
+        final int byteCount;
+
+        CachedCourse(@NonNull CourseComponent component, @NonNull String version) {
+            this.component = component;
+            this.version = version;
+            this.byteCount = estimateByteCount(component);
+        }
+    }
+
+    /**
+     * Estimates the memory used by a course tree, from the number of objects and the length
+     * of the strings in it.
+     */
+    @VisibleForTesting
+    static int estimateByteCount(@NonNull CourseComponent component) {
+        int byteCount = COMPONENT_OVERHEAD_BYTES
+                + estimateByteCount(component.getId())
+                + estimateByteCount(component.getInternalName())
+                + estimateByteCount(component.getBlockUrl())
+                + estimateByteCount(component.getWebUrl())
+                + estimateByteCount(component.getFormat());
+        if (component instanceof VideoBlockModel) {
+            final VideoData data = ((VideoBlockModel) component).getData();
+            byteCount += VIDEO_DATA_OVERHEAD_BYTES;
+            if (data.transcripts != null) {
+                byteCount += estimateByteCount(data.transcripts.englishUrl)
+                        + estimateByteCount(data.transcripts.spanishUrl)
+                        + estimateByteCount(data.transcripts.germanUrl)
+                        + estimateByteCount(data.transcripts.portugueseUrl)
+                        + estimateByteCount(data.transcripts.chineseUrl)
+                        + estimateByteCount(data.transcripts.frenchUrl);
+            }
+            if (data.encodedVideos != null) {
+                byteCount += estimateByteCount(data.encodedVideos.fallback)
+                        + estimateByteCount(data.encodedVideos.mobileHigh)
+                        + estimateByteCount(data.encodedVideos.mobileLow)
+                        + estimateByteCount(data.encodedVideos.youtube);
+            }
+        } else if (component instanceof DiscussionBlockModel) {
+            byteCount += estimateByteCount(((DiscussionBlockModel) component).getData().topicId);
+        }
+        for (IBlock child : component.getChildren()) {
+            byteCount += estimateByteCount((CourseComponent) child);
+        }
+        return byteCount;
+    }
+
+    private static int estimateByteCount(@Nullable VideoInfo videoInfo) {
+        return videoInfo == null ? 0 : STRING_OVERHEAD_BYTES + estimateByteCount(videoInfo.url);
+    }
+
+    private static int estimateByteCount(@Nullable String value) {
+        return value == null ? 0 : STRING_OVERHEAD_BYTES + value.length() * 2;
+    }
+
     /**
      * Mapping from raw data structure from getCourseStructure() API
      * @param courseStructureV1Model
@@ -232,35 +467,25 @@ public class CourseManager {
 
     public static VideoResponseModel getVideoById(CourseComponent courseComponent, String videoId)
         throws Exception {
-        for(HasDownloadEntry item : courseComponent.getVideos()) {
-            VideoBlockModel model = (VideoBlockModel)item;
-            if (model.getId().equals(videoId))
-                return mappingVideoResponseModelFrom((VideoBlockModel) item);
-        }
+        CourseComponent component = courseComponent.getComponentById(videoId);
+        if (component instanceof VideoBlockModel)
+            return mappingVideoResponseModelFrom((VideoBlockModel) component);
         return null;
     }
 
     /**
-     *
-     * @param courseComponent
-     * @param subsectionId
-     * @return
+     * @return The first video of the subsection, mapped to the legacy model, or null if the
+     * subsection doesn't exist or has no videos of its own.
      */
     public static VideoResponseModel getSubsectionById(CourseComponent courseComponent, String subsectionId){
-        ////TODO - we may use a generic filter to fetch the data?
-        Map<String, SectionEntry> map = mappingCourseHierarchyFrom(courseComponent);
-        for (Map.Entry<String, SectionEntry> chapterentry : map.entrySet()) {
-            // iterate lectures
-            for (Map.Entry<String, ArrayList<VideoResponseModel>> entry :
-                chapterentry.getValue().sections.entrySet()) {
-                // iterate videos
-                for (VideoResponseModel v : entry.getValue()) {
-                    // identify the subsection (module) if id matches
-                    IPathNode node = v.getSection();
-                    if (node != null  && subsectionId.equals(node.getId())) {
-                        return v;
-                    }
-                }
+        CourseComponent subsection = courseComponent.getComponentById(subsectionId);
+        if (subsection == null)
+            return null;
+        for (VideoBlockModel video : subsection.getVideos()) {
+            // The video's section is its closest section or sequential ancestor
+            IPathNode node = video.getAncestor(EnumSet.of(BlockType.SECTION, BlockType.SEQUENTIAL));
+            if (subsection.equals(node)) {
+                return mappingVideoResponseModelFrom(video);
             }
         }
         return null;
@@ -25,6 +25,9 @@ import okhttp3.Call;
 import okhttp3.Callback;
 import okhttp3.Request;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
 import roboguice.service.RoboService;
 
 /**
@@ -111,7 +114,7 @@ public class DownloadSpeedService extends RoboService {
                 .url(file.getUrl())
                 .build();
 
-            apiManager.createSpeedTestClient().newCall(request).enqueue(new Callback() {
+            apiManager.getSpeedTestClient().newCall(request).enqueue(new Callback() {
                 @Override
                 public void onFailure(Call call, IOException throwable) {
                     logger.error(throwable);
@@ -121,16 +124,30 @@ public class DownloadSpeedService extends RoboService {
 
                 @Override
                 public void onResponse(Call call, Response response) throws IOException {
-                    if (!response.isSuccessful()) {
-                        logger.debug("Download Speed Test Failed");
-                    } else {
-                        long length = response.body().string().length();
-                        double seconds = (System.nanoTime() - startTime) / NS_PER_SEC;
-                        if( seconds != 0 ) {
-                            final float downloadSpeedKps = (float) ((length / seconds) / 1024);
-                            setCurrentDownloadSpeed(downloadSpeedKps);
-                            reportDownloadSpeed(downloadSpeedKps);
+                    final ResponseBody body = response.body();
+                    try {
+                        if (!response.isSuccessful()) {
+                            logger.debug("Download Speed Test Failed");
+                        } else {
+                            // Stream the body rather than holding it in memory, as only its
+                            // length matters. The throughput estimator samples it on the way.
+                            final BufferedSource source = body.source();
+                            final Buffer buffer = new Buffer();
+                            long length = 0;
+                            long read;
+                            while ((read = source.read(buffer, BLOCK_SIZE)) != -1) {
+                                length += read;
+                                buffer.clear();
+                            }
+                            double seconds = (double) (System.nanoTime() - startTime) / NS_PER_SEC;
+                            if( seconds != 0 ) {
+                                final float downloadSpeedKps = (float) ((length / seconds) / 1024);
+                                setCurrentDownloadSpeed(downloadSpeedKps);
+                                reportDownloadSpeed(downloadSpeedKps);
+                            }
                         }
+                    } finally {
+                        body.close();
                     }
                 }
             });
@@ -1,6 +1,7 @@
 package org.edx.mobile.services;
 
 import android.net.Uri;
+import android.support.annotation.Nullable;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -29,6 +30,7 @@ import org.edx.mobile.module.prefs.LoginPrefs;
 import org.edx.mobile.module.registration.model.RegistrationDescription;
 import org.edx.mobile.util.Config;
 
+import java.io.InputStream;
 import java.net.HttpCookie;
 import java.util.List;
 import java.util.Map;
@@ -59,7 +61,7 @@ public class ServiceManager {
     LoginPrefs loginPrefs;
 
     public ServiceManager() {
-        cacheManager = new CacheManager(MainApplication.instance());
+        cacheManager = CacheManager.getInstance(MainApplication.instance());
     }
 
     private HttpRequestEndPoint getEndPointCourseStructure(final String courseId) {
@@ -90,6 +92,14 @@ public class ServiceManager {
         };
     }
 
+    /**
+     * @return The version of the cached course structure, or null if it's not cached.
+     */
+    @Nullable
+    public String getCourseStructureVersion(final String courseId) throws Exception {
+        return cacheManager.getVersion(getEndPointCourseStructure(courseId).getCacheKey());
+    }
+
     public CourseComponent getCourseStructureFromCache(final String courseId) throws Exception {
         return getCourseStructure(courseId, OkHttpUtil.REQUEST_CACHE_TYPE.ONLY_CACHE);
     }
@@ -104,6 +114,13 @@ public class ServiceManager {
                 return (CourseComponent) CourseManager.normalizeCourseStructure(model, courseId);
             }
 
+            @Override
+            public CourseComponent fromStream(InputStream in) throws Exception {
+                // Parsed straight from the cache file, without reading it into a String
+                CourseStructureV1Model model = new CourseStructureJsonHandler().processInput(in);
+                return (CourseComponent) CourseManager.normalizeCourseStructure(model, courseId);
+            }
+
             @Override
             public HttpManager.HttpResult invokeHttpCall() throws Exception {
                 return api.getCourseStructure(this);
@@ -0,0 +1,727 @@
+package org.edx.mobile.services;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
+import android.text.format.DateUtils;
+import android.webkit.CookieManager;
+import android.webkit.MimeTypeMap;
+import android.webkit.WebResourceResponse;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.edx.mobile.http.OkHttpUtil;
+import org.edx.mobile.logger.Logger;
+import org.edx.mobile.model.course.BlockType;
+import org.edx.mobile.model.course.CourseComponent;
+import org.edx.mobile.model.course.HtmlBlockModel;
+import org.edx.mobile.module.prefs.LoginPrefs;
+import org.edx.mobile.util.Sha1Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Stores the pages of HTML units and their static assets, so that units which were visited or
+ * prefetched are shown without loading them from the network again, even while offline.
+ * <p>
+ * A unit's page is stored by its block ID, and the scripts, stylesheets, images and fonts that
+ * it loads from the same host are stored by URL, so that units share them. They are served to
+ * the WebView through {@link #intercept(String, String, String)}. A page that is served from the
+ * cache is revalidated in the background at most once every {@link #REVALIDATION_INTERVAL_MS},
+ * with a conditional request when the server gave it a validator, and the listeners are told if
+ * it has changed. The least recently used files are evicted once they exceed the byte budget.
+ * <p>
+ * The pages can contain the user's own data, so the cache is {@link #clear() cleared} on logout.
+ */
+@Singleton
+public class UnitContentCache {
+    @VisibleForTesting
+    static final String CACHE_FOLDER_NAME = "unit-content";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+    private static final String PAGE_KEY_PREFIX = "block:";
+    /**
+     * Written at the start of each file, so that files in an older format are discarded.
+     */
+    private static final int FORMAT_VERSION = 2;
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Byte budget of the whole cache.
+     */
+    public static final long MAX_SIZE_BYTES = 20 * 1024 * 1024; // 20 MiB
+    public static final long REVALIDATION_INTERVAL_MS = 5 * DateUtils.MINUTE_IN_MILLIS;
+
+    private static final Set<String> ASSET_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "js", "css", "png", "jpg", "jpeg", "gif", "svg", "woff", "woff2", "ttf", "eot"));
+    private static final Pattern ASSET_LINK_PATTERN = Pattern.compile(
+            "(?:src|href)\\s*=\\s*[\"']([^\"'#]+)[\"']", Pattern.CASE_INSENSITIVE);
+
+    public interface Listener {
+        /**
+         * Called on the main thread when a page that was served from the cache has changed.
+         */
+        void onUnitContentChanged(@NonNull String blockId);
+    }
+
+    private final Logger logger = new Logger(getClass().getName());
+
+    @NonNull
+    private final File cacheFolder;
+    private final long maxSize;
+    @NonNull
+    private final OkHttpClient client;
+    @NonNull
+    private final LoginPrefs loginPrefs;
+    @NonNull
+    private final Executor executor;
+    @NonNull
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    // The following are only accessed on the main thread
+    @NonNull
+    private final Set<Listener> listeners = new LinkedHashSet<>();
+
+    // The following are guarded by this object's lock
+    /**
+     * Sizes of the cached files by name, in access order, loaded on first use.
+     */
+    private LinkedHashMap<String, Long> entries;
+    private long size;
+    /**
+     * The last time that each page was fetched, by block ID.
+     */
+    @NonNull
+    private final Map<String, Long> fetchTimesByBlockId = new HashMap<>();
+    /**
+     * The URLs that are queued or being fetched in the background.
+     */
+    @NonNull
+    private final Set<String> pendingUrls = new HashSet<>();
+    /**
+     * Incremented when the cache is cleared, so that the fetches that were in progress don't
+     * store their responses afterwards.
+     */
+    private int generation;
+
+    @Inject
+    public UnitContentCache(@NonNull Context context, @NonNull LoginPrefs loginPrefs) {
+        // The pages are stored here instead of in the HTTP cache
+        this(new File(context.getCacheDir(), CACHE_FOLDER_NAME), MAX_SIZE_BYTES,
+                OkHttpUtil.getClient(context).newBuilder().cache(null).build(),
+                loginPrefs, createExecutor());
+    }
+
+    @VisibleForTesting
+    public UnitContentCache(@NonNull File cacheFolder, long maxSize,
+                            @NonNull OkHttpClient client, @NonNull LoginPrefs loginPrefs,
+                            @NonNull Executor executor) {
+        this.cacheFolder = cacheFolder;
+        this.maxSize = maxSize;
+        this.client = client;
+        this.loginPrefs = loginPrefs;
+        this.executor = executor;
+        if (!cacheFolder.exists()) {
+            cacheFolder.mkdirs();
+        }
+    }
+
+    private static Executor createExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        return new Thread(runnable, "Unit content cache");
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @return True if the unit's page can be stored. Only static HTML units are, as the state of
+     * the other ones, e.g. of problems, changes as they are used.
+     */
+    public static boolean isCacheable(@NonNull CourseComponent unit) {
+        return unit instanceof HtmlBlockModel && unit.getType() == BlockType.HTML
+                && unit.getBlockUrl() != null;
+    }
+
+    @MainThread
+    public void addListener(@NonNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    @MainThread
+    public void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Deletes all the stored pages and assets. They stop being served right away, and the files
+     * are deleted on the background thread, so this can be called from the main thread.
+     */
+    public void clear() {
+        synchronized (this) {
+            generation++;
+            // Nothing is served from the old files from now on, so they can be deleted in the
+            // background rather than on the calling thread
+            entries = new LinkedHashMap<>(16, 0.75f, true);
+            size = 0;
+            fetchTimesByBlockId.clear();
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final File[] files = cacheFolder.listFiles();
+                if (files == null) {
+                    return;
+                }
+                for (File file : files) {
+                    final String name = file.getName();
+                    if (file.isDirectory() || name.indexOf('.') >= 0) {
+                        // Temporary files are deleted by the writes that own them
+                        continue;
+                    }
+                    synchronized (UnitContentCache.this) {
+                        // Unless it was stored again since the cache was cleared
+                        if (!entries.containsKey(name)) {
+                            file.delete();
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return True if the page of the unit is stored.
+     */
+    public boolean hasPage(@NonNull String blockId) {
+        return has(getPageKey(blockId));
+    }
+
+    /**
+     * Serves a request of the WebView that shows a unit from the cache, and stores its response
+     * if it's the unit's page or one of its assets and it isn't already. Called on the WebView's
+     * background thread.
+     *
+     * @param blockId The ID of the unit.
+     * @param pageUrl The URL of the unit's page.
+     * @param url     The requested URL.
+     * @return The response, or null if the WebView should load it by itself.
+     */
+    @WorkerThread
+    @Nullable
+    public WebResourceResponse intercept(@NonNull String blockId, @NonNull String pageUrl,
+                                         @NonNull String url) {
+        final boolean isPage = url.equals(pageUrl);
+        if (!isPage && !isAsset(pageUrl, url)) {
+            return null;
+        }
+        final String key = isPage ? getPageKey(blockId) : url;
+        Entry entry = read(key);
+        if (entry != null) {
+            if (isPage) {
+                revalidate(blockId, pageUrl);
+            }
+            return entry.toResponse();
+        }
+        final int fetchGeneration;
+        synchronized (this) {
+            fetchGeneration = generation;
+            if (isPage) {
+                fetchTimesByBlockId.put(blockId, now());
+            }
+        }
+        try {
+            entry = fetch(url, isPage, null);
+        } catch (IOException e) {
+            // Most likely offline, so leave the error to the WebView
+            logger.debug("Failed to fetch " + url + ": " + e);
+            return null;
+        }
+        if (entry == null) {
+            return null;
+        }
+        write(key, entry, fetchGeneration);
+        return entry.toResponse();
+    }
+
+    /**
+     * Fetches and stores the page of a unit if it isn't stored yet, along with its assets, in the
+     * background.
+     *
+     * @param blockId The ID of the unit, which must be {@link #isCacheable(CourseComponent)
+     *                cacheable}.
+     * @param pageUrl The URL of the unit's page.
+     */
+    public void prefetch(@NonNull final String blockId, @NonNull final String pageUrl) {
+        if (hasPage(blockId)) {
+            return;
+        }
+        synchronized (this) {
+            if (!pendingUrls.add(pageUrl)) {
+                return;
+            }
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (!hasPage(blockId)) {
+                        fetchPage(blockId, pageUrl);
+                    }
+                } finally {
+                    synchronized (UnitContentCache.this) {
+                        pendingUrls.remove(pageUrl);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Fetches the page in the background if it wasn't fetched in the last
+     * {@link #REVALIDATION_INTERVAL_MS}, and tells the listeners if it has changed.
+     */
+    private void revalidate(@NonNull final String blockId, @NonNull final String pageUrl) {
+        synchronized (this) {
+            final Long fetchTime = fetchTimesByBlockId.get(blockId);
+            final long now = now();
+            if (fetchTime != null && now - fetchTime < REVALIDATION_INTERVAL_MS
+                    || !pendingUrls.add(pageUrl)) {
+                return;
+            }
+            fetchTimesByBlockId.put(blockId, now);
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final boolean isChanged;
+                try {
+                    isChanged = fetchPage(blockId, pageUrl);
+                } finally {
+                    synchronized (UnitContentCache.this) {
+                        pendingUrls.remove(pageUrl);
+                    }
+                }
+                if (isChanged) {
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            for (Listener listener : listeners) {
+                                listener.onUnitContentChanged(blockId);
+                            }
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Fetches and stores a page, and the assets that it links to which aren't stored yet. If the
+     * page is already stored, it's only fetched again if the server says it has been modified.
+     *
+     * @return True if the page was stored and differs from the one that was stored before.
+     */
+    @WorkerThread
+    private boolean fetchPage(@NonNull String blockId, @NonNull String pageUrl) {
+        final String key = getPageKey(blockId);
+        final Entry oldEntry = read(key);
+        final int fetchGeneration;
+        synchronized (this) {
+            fetchGeneration = generation;
+        }
+        final Entry entry;
+        try {
+            entry = fetch(pageUrl, true, oldEntry);
+        } catch (IOException e) {
+            logger.debug("Failed to fetch " + pageUrl + ": " + e);
+            return false;
+        }
+        synchronized (this) {
+            fetchTimesByBlockId.put(blockId, now());
+        }
+        if (entry == null) {
+            return false;
+        }
+        // The stored entry is returned as is if the page wasn't modified
+        final boolean isChanged = oldEntry != null && entry != oldEntry
+                && !Arrays.equals(oldEntry.body, entry.body);
+        if (entry != oldEntry) {
+            // Also stores the new validators of an unchanged page
+            write(key, entry, fetchGeneration);
+        }
+
+        final HttpUrl baseUrl = HttpUrl.parse(pageUrl);
+        final Matcher matcher = ASSET_LINK_PATTERN.matcher(entry.getText());
+        while (matcher.find()) {
+            final HttpUrl assetUrl = baseUrl.resolve(matcher.group(1));
+            if (assetUrl == null) {
+                continue;
+            }
+            final String url = assetUrl.toString();
+            if (!isAsset(pageUrl, url) || has(url)) {
+                continue;
+            }
+            try {
+                final Entry asset = fetch(url, false, null);
+                if (asset != null) {
+                    write(url, asset, fetchGeneration);
+                }
+            } catch (IOException e) {
+                logger.debug("Failed to fetch " + url + ": " + e);
+            }
+        }
+        return isChanged;
+    }
+
+    /**
+     * Fetches a URL with the WebView's cookies, and hands over the cookies that the server sets
+     * to the WebView.
+     *
+     * @param isPage Whether it's the page of a unit, which is fetched with the same authorization
+     *               header as the WebView loads it with.
+     * @param cached The stored response, whose validators make the request conditional.
+     * @return The response, the stored response if it wasn't modified, or null if it shouldn't be
+     * stored.
+     */
+    @WorkerThread
+    @Nullable
+    private Entry fetch(@NonNull String url, boolean isPage, @Nullable Entry cached)
+            throws IOException {
+        final CookieManager cookieManager = CookieManager.getInstance();
+        final Request.Builder builder = new Request.Builder().url(url);
+        final String cookie = cookieManager.getCookie(url);
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
+        }
+        if (isPage) {
+            final String token = loginPrefs.getAuthorizationHeader();
+            if (token != null) {
+                builder.header("Authorization", token);
+            }
+        }
+        if (cached != null) {
+            if (cached.etag != null) {
+                builder.header("If-None-Match", cached.etag);
+            }
+            if (cached.lastModified != null) {
+                builder.header("If-Modified-Since", cached.lastModified);
+            }
+        }
+        final Request request = builder.build();
+        final Response response = client.newCall(request).execute();
+        final ResponseBody body = response.body();
+        try {
+            for (String setCookie : response.headers("Set-Cookie")) {
+                cookieManager.setCookie(url, setCookie);
+            }
+            if (cached != null && response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return cached;
+            }
+            // Nor errors, nor redirects e.g. to the login page are stored in place of the content
+            if (response.code() != HttpURLConnection.HTTP_OK
+                    || !response.request().url().equals(request.url())) {
+                return null;
+            }
+            final MediaType contentType = body.contentType();
+            final String mimeType;
+            String encoding = null;
+            if (contentType != null) {
+                mimeType = contentType.type() + "/" + contentType.subtype();
+                if (contentType.charset() != null) {
+                    encoding = contentType.charset().name();
+                }
+            } else if (isPage) {
+                mimeType = "text/html";
+            } else {
+                mimeType = MimeTypeMap.getSingleton().getMimeTypeFromExtension(
+                        getExtension(request.url()));
+            }
+            return new Entry(mimeType, encoding, response.header("ETag"),
+                    response.header("Last-Modified"), body.bytes());
+        } finally {
+            body.close();
+        }
+    }
+
+    private static boolean isAsset(@NonNull String pageUrl, @NonNull String url) {
+        final HttpUrl page = HttpUrl.parse(pageUrl);
+        final HttpUrl asset = HttpUrl.parse(url);
+        return page != null && asset != null && page.host().equals(asset.host())
+                && ASSET_EXTENSIONS.contains(getExtension(asset));
+    }
+
+    @NonNull
+    private static String getExtension(@NonNull HttpUrl url) {
+        final List<String> segments = url.pathSegments();
+        final String name = segments.get(segments.size() - 1);
+        final int index = name.lastIndexOf('.');
+        return index < 0 ? "" : name.substring(index + 1).toLowerCase(Locale.ENGLISH);
+    }
+
+    @NonNull
+    private static String getPageKey(@NonNull String blockId) {
+        return PAGE_KEY_PREFIX + blockId;
+    }
+
+    @NonNull
+    private static String getFileName(@NonNull String key) {
+        try {
+            return Sha1Util.SHA1(key);
+        } catch (Exception e) {
+            // SHA-1 and UTF-8 are always available
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean has(@NonNull String key) {
+        final String name = getFileName(key);
+        synchronized (this) {
+            return getEntries().containsKey(name);
+        }
+    }
+
+    @Nullable
+    private Entry read(@NonNull String key) {
+        final String name = getFileName(key);
+        synchronized (this) {
+            // Also marks the entry as the most recently used one
+            if (getEntries().get(name) == null) {
+                return null;
+            }
+        }
+        try {
+            final DataInputStream in = new DataInputStream(
+                    new FileInputStream(new File(cacheFolder, name)));
+            try {
+                if (in.readInt() == FORMAT_VERSION) {
+                    final String mimeType = in.readUTF();
+                    final String encoding = in.readUTF();
+                    final String etag = in.readUTF();
+                    final String lastModified = in.readUTF();
+                    final byte[] body = new byte[in.readInt()];
+                    in.readFully(body);
+                    return new Entry(emptyToNull(mimeType), emptyToNull(encoding),
+                            emptyToNull(etag), emptyToNull(lastModified), body);
+                }
+            } finally {
+                in.close();
+            }
+            // Stored in an older format
+            new File(cacheFolder, name).delete();
+            remove(name);
+        } catch (FileNotFoundException e) {
+            // Evicted since the index was checked
+            remove(name);
+        } catch (IOException e) {
+            logger.error(e);
+        }
+        return null;
+    }
+
+    private synchronized void remove(@NonNull String name) {
+        final Long oldSize = getEntries().remove(name);
+        if (oldSize != null) {
+            size -= oldSize;
+        }
+    }
+
+    @Nullable
+    private static String emptyToNull(@NonNull String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Stores an entry, unless the cache was cleared since the given generation.
+     */
+    private void write(@NonNull String key, @NonNull Entry entry, int fetchGeneration) {
+        if (entry.body.length > maxSize) {
+            return;
+        }
+        final String name = getFileName(key);
+        final File file = new File(cacheFolder, name);
+        synchronized (this) {
+            // Loading the index deletes temporary files, so it mustn't happen during the write
+            getEntries();
+        }
+        try {
+            // Write to a temporary file first, so that a partially written entry is never read
+            final File tempFile = File.createTempFile(name, TEMP_FILE_EXTENSION, cacheFolder);
+            try {
+                final DataOutputStream out = new DataOutputStream(new FileOutputStream(tempFile));
+                try {
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeUTF(entry.mimeType == null ? "" : entry.mimeType);
+                    out.writeUTF(entry.encoding == null ? "" : entry.encoding);
+                    out.writeUTF(entry.etag == null ? "" : entry.etag);
+                    out.writeUTF(entry.lastModified == null ? "" : entry.lastModified);
+                    out.writeInt(entry.body.length);
+                    out.write(entry.body);
+                } finally {
+                    out.close();
+                }
+                synchronized (this) {
+                    if (fetchGeneration != generation) {
+                        return;
+                    }
+                    if (!tempFile.renameTo(file)) {
+                        throw new IOException("Failed to rename " + tempFile + " to " + file);
+                    }
+                    final Long oldSize = entries.remove(name);
+                    if (oldSize != null) {
+                        size -= oldSize;
+                    }
+                    final long newSize = file.length();
+                    entries.put(name, newSize);
+                    size += newSize;
+                    trimToSize();
+                }
+            } finally {
+                tempFile.delete();
+            }
+        } catch (IOException e) {
+            logger.error(e);
+        }
+    }
+
+    /**
+     * Loads the index of the cached files on first use, oldest first.
+     */
+    @NonNull
+    private LinkedHashMap<String, Long> getEntries() {
+        if (entries != null) {
+            return entries;
+        }
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+        size = 0;
+        File[] files = cacheFolder.listFiles();
+        if (files == null) {
+            files = new File[0];
+        }
+        // Read each timestamp once, as they take a system call each
+        final Map<File, Long> lastModifiedByFile = new HashMap<>();
+        for (File file : files) {
+            lastModifiedByFile.put(file, file.lastModified());
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                final long lhsTime = lastModifiedByFile.get(lhs);
+                final long rhsTime = lastModifiedByFile.get(rhs);
+                return lhsTime < rhsTime ? -1 : (lhsTime == rhsTime ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (file.isDirectory()) {
+                continue;
+            }
+            if (file.getName().indexOf('.') >= 0) {
+                // Left over by an interrupted write
+                file.delete();
+                continue;
+            }
+            final long fileSize = file.length();
+            entries.put(file.getName(), fileSize);
+            size += fileSize;
+        }
+        trimToSize();
+        return entries;
+    }
+
+    @VisibleForTesting
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Evicts the least recently used files until the cache fits into the budget.
+     */
+    private void trimToSize() {
+        final Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            final Map.Entry<String, Long> entry = iterator.next();
+            new File(cacheFolder, entry.getKey()).delete();
+            size -= entry.getValue();
+            iterator.remove();
+        }
+    }
+
+    private static class Entry {
+        @Nullable
+        final String mimeType;
+        @Nullable
+        final String encoding;
+        @Nullable
+        final String etag;
+        @Nullable
+        final String lastModified;
+        @NonNull
+        final byte[] body;
+
+        Entry(@Nullable String mimeType, @Nullable String encoding, @Nullable String etag,
+              @Nullable String lastModified, @NonNull byte[] body) {
+            this.mimeType = mimeType;
+            this.encoding = encoding;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+
+        @NonNull
+        String getText() {
+            try {
+                return new String(body, encoding == null ? "UTF-8" : encoding);
+            } catch (IOException e) {
+                return new String(body);
+            }
+        }
+
+        @NonNull
+        WebResourceResponse toResponse() {
+            return new WebResourceResponse(mimeType, encoding, new ByteArrayInputStream(body));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.edx.mobile.services;
 
+import android.support.annotation.NonNull;
 import android.support.v4.app.DialogFragment;
 import android.support.v4.app.FragmentActivity;
 
@@ -9,7 +10,9 @@ import com.google.inject.Singleton;
 import org.edx.mobile.R;
 import org.edx.mobile.base.BaseFragmentActivity;
 import org.edx.mobile.logger.Logger;
+import org.edx.mobile.model.course.EncodedVideos;
 import org.edx.mobile.model.course.HasDownloadEntry;
+import org.edx.mobile.model.course.VideoBlockModel;
 import org.edx.mobile.model.db.DownloadEntry;
 import org.edx.mobile.module.analytics.ISegment;
 import org.edx.mobile.module.storage.IStorage;
@@ -51,6 +54,9 @@ public class VideoDownloadHelper {
     @Inject
     ISegment segment;
 
+    @Inject
+    VideoEncodingSelector encodingSelector;
+
 
     public void downloadVideos(final List<? extends HasDownloadEntry> model, final FragmentActivity activity,
                                final DownloadManagerCallback callback) {
@@ -89,6 +95,9 @@ public class VideoDownloadHelper {
                     || de.isVideoForWebOnly) {
                 continue;
             } else {
+                if (v instanceof VideoBlockModel) {
+                    selectEncoding(de, ((VideoBlockModel) v).getData().encodedVideos);
+                }
                 downloadSize = downloadSize
                         + de.getSize();
                 downloadList.add(de);
@@ -132,12 +141,24 @@ public class VideoDownloadHelper {
         downloadFragment.setCancelable(false);
     }
 
-    public void downloadVideo(DownloadEntry downloadEntry, final FragmentActivity activity, final DownloadManagerCallback callback) {
+    public void downloadVideo(DownloadEntry downloadEntry, EncodedVideos encodedVideos, final FragmentActivity activity, final DownloadManagerCallback callback) {
+        selectEncoding(downloadEntry, encodedVideos);
         List<DownloadEntry> downloadEntries = new ArrayList<>();
         downloadEntries.add(downloadEntry);
         startDownload(downloadEntries, 1, activity, callback);
     }
 
+    /**
+     * Chooses the encoding of a video that's about to be downloaded, so that it's the same
+     * whether the video is downloaded on its own or along with its section.
+     */
+    private void selectEncoding(@NonNull DownloadEntry de, @NonNull EncodedVideos encodedVideos) {
+        // Only an entry that isn't stored yet can have its encoding chosen
+        if (de.id == 0) {
+            encodingSelector.selectForDownload(de, encodedVideos);
+        }
+    }
+
     private void startDownload(List<DownloadEntry> downloadList,
                                int noOfDownloads, final FragmentActivity activity, final DownloadManagerCallback callback) {
         if (downloadList.isEmpty())
@@ -0,0 +1,350 @@
+package org.edx.mobile.services;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.v4.net.ConnectivityManagerCompat;
+import android.text.TextUtils;
+import android.util.DisplayMetrics;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.edx.mobile.R;
+import org.edx.mobile.event.NetworkConnectivityChangeEvent;
+import org.edx.mobile.http.OkHttpUtil;
+import org.edx.mobile.http.ThroughputEstimator;
+import org.edx.mobile.model.api.EncodingsModel.EncodingLevel;
+import org.edx.mobile.model.course.EncodedVideos;
+import org.edx.mobile.model.course.VideoInfo;
+import org.edx.mobile.model.db.DownloadEntry;
+import org.edx.mobile.module.analytics.ISegment;
+import org.edx.mobile.module.prefs.PrefManager;
+import org.edx.mobile.util.MemoryUtil;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import de.greenrobot.event.EventBus;
+
+/**
+ * Chooses which encoding of a video is streamed or downloaded, from the estimated download
+ * speed, the type of the connection, the size of the screen and the free storage.
+ * <p>
+ * The high encoding is only chosen on unmetered networks, and for screens that are large
+ * enough to show the difference. To be streamed, the estimated speed must also be above
+ * the threshold, and to be downloaded, at least {@link #LOW_STORAGE_RESERVE_BYTES} must remain
+ * free afterwards. Each decision is reported to analytics.
+ * <p>
+ * While a video is streamed, the listeners are told whenever the estimated speed or the
+ * connection changes significantly, so that the choice can be made again. The speed must then
+ * clear the threshold by a margin for the encoding to be switched, so that it doesn't flip back
+ * and forth around the threshold.
+ */
+@Singleton
+public class VideoEncodingSelector {
+    /**
+     * The smallest longer side of a screen, in pixels, that the high encoding is chosen for.
+     */
+    public static final int HIGH_ENCODING_MIN_SCREEN_PX = 960;
+    /**
+     * The storage that must remain free after a video is downloaded in the high encoding.
+     */
+    public static final long LOW_STORAGE_RESERVE_BYTES = MemoryUtil.GB;
+    /**
+     * How far above the threshold the speed must be to switch from the low to the high encoding
+     * while streaming, and how far below it to switch back.
+     */
+    private static final float SWITCH_UP_FACTOR = 1.5f;
+    private static final float SWITCH_DOWN_FACTOR = 0.75f;
+
+    public enum Reason {
+        ONLY_ENCODING,
+        METERED_NETWORK,
+        SMALL_SCREEN,
+        LOW_STORAGE,
+        UNMEASURED_SPEED,
+        LOW_SPEED,
+        HIGH_SPEED,
+        UNMETERED_NETWORK
+    }
+
+    public interface Listener {
+        /**
+         * Called on the main thread when the estimated speed or the connection has changed.
+         */
+        void onStreamingConditionsChanged();
+    }
+
+    /**
+     * The inputs of a decision.
+     */
+    public static class Conditions {
+        /**
+         * The estimated download speed in KB/s, or 0 if it's unknown.
+         */
+        public final float kbps;
+        public final boolean isMetered;
+        public final boolean isLargeScreen;
+        public final long freeBytes;
+
+        public Conditions(float kbps, boolean isMetered, boolean isLargeScreen, long freeBytes) {
+            this.kbps = kbps;
+            this.isMetered = isMetered;
+            this.isLargeScreen = isLargeScreen;
+            this.freeBytes = freeBytes;
+        }
+    }
+
+    public static class Decision {
+        @NonNull
+        private final EncodingLevel level;
+        @NonNull
+        private final Reason reason;
+        @Nullable
+        private final String url;
+        private final long fileSize;
+        private final float kbps;
+
+        public Decision(@NonNull EncodingLevel level, @NonNull Reason reason,
+                        @Nullable String url, long fileSize, float kbps) {
+            this.level = level;
+            this.reason = reason;
+            this.url = url;
+            this.fileSize = fileSize;
+            this.kbps = kbps;
+        }
+
+        @NonNull
+        public EncodingLevel getLevel() {
+            return level;
+        }
+
+        @NonNull
+        public Reason getReason() {
+            return reason;
+        }
+
+        /**
+         * @return The URL of the chosen encoding, or null if the video doesn't have any.
+         */
+        @Nullable
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * @return The size of the chosen encoding in bytes, or 0 if it's unknown.
+         */
+        public long getFileSize() {
+            return fileSize;
+        }
+
+        /**
+         * @return The estimated download speed in KB/s that the decision was based on.
+         */
+        public float getKbps() {
+            return kbps;
+        }
+
+        @Override
+        public String toString() {
+            return level + " (" + reason + ", " + kbps + " KB/s)";
+        }
+    }
+
+    @NonNull
+    private final Context context;
+    @NonNull
+    private final ISegment segment;
+    private final float thresholdKbps;
+    @NonNull
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    @NonNull
+    private final Runnable notifyListenersRunnable = new Runnable() {
+        @Override
+        public void run() {
+            notifyListeners();
+        }
+    };
+    @NonNull
+    private final ThroughputEstimator.Listener throughputListener =
+            new ThroughputEstimator.Listener() {
+                @Override
+                public void onThroughputChanged(float kbps) {
+                    // Called on the thread that read the response, so hop to the main thread
+                    handler.removeCallbacks(notifyListenersRunnable);
+                    handler.post(notifyListenersRunnable);
+                }
+            };
+
+    // The following are only accessed on the main thread
+    @NonNull
+    private final Set<Listener> listeners = new LinkedHashSet<>();
+
+    @Inject
+    public VideoEncodingSelector(@NonNull Context context, @NonNull ISegment segment) {
+        this.context = context.getApplicationContext();
+        this.segment = segment;
+        thresholdKbps = context.getResources().getInteger(R.integer.threshold_kbps_for_video);
+    }
+
+    /**
+     * Starts telling the listener when the conditions for streaming change.
+     */
+    @MainThread
+    public void addListener(@NonNull Listener listener) {
+        if (listeners.add(listener) && listeners.size() == 1) {
+            OkHttpUtil.THROUGHPUT_ESTIMATOR.addListener(throughputListener);
+            EventBus.getDefault().register(this);
+        }
+    }
+
+    @MainThread
+    public void removeListener(@NonNull Listener listener) {
+        if (listeners.remove(listener) && listeners.isEmpty()) {
+            OkHttpUtil.THROUGHPUT_ESTIMATOR.removeListener(throughputListener);
+            handler.removeCallbacks(notifyListenersRunnable);
+            EventBus.getDefault().unregister(this);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public void onEventMainThread(NetworkConnectivityChangeEvent event) {
+        notifyListeners();
+    }
+
+    private void notifyListeners() {
+        for (Listener listener : listeners.toArray(new Listener[listeners.size()])) {
+            listener.onStreamingConditionsChanged();
+        }
+    }
+
+    /**
+     * @return The current conditions, where the free storage is only measured if it's needed.
+     */
+    @NonNull
+    private Conditions getConditions(boolean isDownload) {
+        float kbps = OkHttpUtil.THROUGHPUT_ESTIMATOR.getKbps();
+        if (kbps == 0) {
+            // Nothing was downloaded lately, so fall back to the last speed test
+            kbps = new PrefManager(context, PrefManager.Pref.WIFI)
+                    .getFloat(PrefManager.Key.SPEED_TEST_KBPS, 0.0f);
+        }
+        final ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        final DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        return new Conditions(kbps,
+                ConnectivityManagerCompat.isActiveNetworkMetered(connectivityManager),
+                Math.max(metrics.widthPixels, metrics.heightPixels) >= HIGH_ENCODING_MIN_SCREEN_PX,
+                isDownload ? MemoryUtil.getAvailableExternalMemory(context) : 0);
+    }
+
+    /**
+     * Chooses the encoding to stream the video in.
+     *
+     * @param currentUrl The URL that is being streamed, if the choice is made again during
+     *                   playback, or null.
+     */
+    @NonNull
+    public Decision selectForStreaming(@NonNull DownloadEntry video, @Nullable String currentUrl) {
+        final Decision decision = decideStreaming(video, currentUrl, getConditions(false),
+                thresholdKbps);
+        if (decision.getUrl() != null && !decision.getUrl().equals(currentUrl)) {
+            segment.trackVideoEncodingSelected(video.videoId, video.eid, video.lmsUrl,
+                    decision.getLevel().name(), decision.getReason().name(), decision.getKbps(),
+                    false);
+        }
+        return decision;
+    }
+
+    /**
+     * Chooses the encoding to download the video in, and sets its URL and size on the entry.
+     * This must only be done before the entry is stored, as its URL identifies its download.
+     */
+    public void selectForDownload(@NonNull DownloadEntry video, @NonNull EncodedVideos videos) {
+        final Decision decision = decideDownload(videos, getConditions(true));
+        if (decision.getUrl() == null) {
+            return;
+        }
+        video.url = decision.getUrl();
+        video.size = decision.getFileSize();
+        segment.trackVideoEncodingSelected(video.videoId, video.eid, video.lmsUrl,
+                decision.getLevel().name(), decision.getReason().name(), decision.getKbps(),
+                true);
+    }
+
+    @VisibleForTesting
+    @NonNull
+    public static Decision decideStreaming(@NonNull DownloadEntry video,
+                                           @Nullable String currentUrl,
+                                           @NonNull Conditions conditions,
+                                           float thresholdKbps) {
+        final String highUrl = TextUtils.isEmpty(video.url_high_quality) ?
+                null : video.url_high_quality;
+        final String lowUrl = TextUtils.isEmpty(video.url_low_quality) ?
+                null : video.url_low_quality;
+        final float kbps = conditions.kbps;
+        if (highUrl == null || lowUrl == null) {
+            if (highUrl != null) {
+                return new Decision(EncodingLevel.HIGH, Reason.ONLY_ENCODING, highUrl, 0, kbps);
+            }
+            return new Decision(EncodingLevel.LOW, Reason.ONLY_ENCODING,
+                    lowUrl != null ? lowUrl : video.getVideoUrl(), 0, kbps);
+        }
+        if (conditions.isMetered) {
+            return new Decision(EncodingLevel.LOW, Reason.METERED_NETWORK, lowUrl, 0, kbps);
+        }
+        if (!conditions.isLargeScreen) {
+            return new Decision(EncodingLevel.LOW, Reason.SMALL_SCREEN, lowUrl, 0, kbps);
+        }
+        if (kbps <= 0) {
+            return new Decision(EncodingLevel.LOW, Reason.UNMEASURED_SPEED, lowUrl, 0, kbps);
+        }
+        float threshold = thresholdKbps;
+        if (highUrl.equals(currentUrl)) {
+            threshold *= SWITCH_DOWN_FACTOR;
+        } else if (lowUrl.equals(currentUrl)) {
+            threshold *= SWITCH_UP_FACTOR;
+        }
+        if (kbps > threshold) {
+            return new Decision(EncodingLevel.HIGH, Reason.HIGH_SPEED, highUrl, 0, kbps);
+        }
+        return new Decision(EncodingLevel.LOW, Reason.LOW_SPEED, lowUrl, 0, kbps);
+    }
+
+    @VisibleForTesting
+    @NonNull
+    public static Decision decideDownload(@NonNull EncodedVideos videos,
+                                          @NonNull Conditions conditions) {
+        final VideoInfo high = videos.getVideoInfo(EncodingLevel.HIGH);
+        final VideoInfo low = videos.getVideoInfo(EncodingLevel.LOW);
+        final float kbps = conditions.kbps;
+        if (high == null || low == null) {
+            if (high != null) {
+                return new Decision(EncodingLevel.HIGH, Reason.ONLY_ENCODING,
+                        high.url, high.fileSize, kbps);
+            }
+            final VideoInfo only = low != null ? low : videos.getPreferredVideoInfo();
+            return new Decision(EncodingLevel.LOW, Reason.ONLY_ENCODING,
+                    only == null ? null : only.url, only == null ? 0 : only.fileSize, kbps);
+        }
+        final Reason reason;
+        if (conditions.isMetered) {
+            reason = Reason.METERED_NETWORK;
+        } else if (!conditions.isLargeScreen) {
+            reason = Reason.SMALL_SCREEN;
+        } else if (conditions.freeBytes - high.fileSize < LOW_STORAGE_RESERVE_BYTES) {
+            reason = Reason.LOW_STORAGE;
+        } else {
+            return new Decision(EncodingLevel.HIGH, Reason.UNMETERED_NETWORK,
+                    high.url, high.fileSize, kbps);
+        }
+        return new Decision(EncodingLevel.LOW, reason, low.url, low.fileSize, kbps);
+    }
+}
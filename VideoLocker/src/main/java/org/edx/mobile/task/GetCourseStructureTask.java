@@ -3,10 +3,13 @@ package org.edx.mobile.task;
 import android.content.Context;
 import android.support.annotation.NonNull;
 
+import com.google.inject.Inject;
+
 import org.edx.mobile.base.MainApplication;
 import org.edx.mobile.http.OkHttpUtil;
 import org.edx.mobile.model.course.CourseComponent;
 import org.edx.mobile.module.prefs.PrefManager;
+import org.edx.mobile.services.CourseManager;
 
 import java.util.Date;
 
@@ -16,6 +19,9 @@ Task<CourseComponent> {
     @NonNull
     String courseId;
 
+    @Inject
+    CourseManager courseManager;
+
     public GetCourseStructureTask(@NonNull Context context, @NonNull String courseId) {
         super(context);
         this.courseId = courseId;
@@ -31,6 +37,11 @@ Task<CourseComponent> {
             useCacheType =  OkHttpUtil.REQUEST_CACHE_TYPE.IGNORE_CACHE;;
             prefManager.setLastCourseStructureFetch(courseId, curTime);
         }
-        return environment.getServiceManager().getCourseStructure(courseId, useCacheType);
+        try {
+            return environment.getServiceManager().getCourseStructure(courseId, useCacheType);
+        } finally {
+            // The cached course structure may have been replaced by the fetch
+            courseManager.revalidateCourse(courseId);
+        }
     }
 }
@@ -93,6 +93,12 @@ public class CropUtil {
         }
     }
 
+    /**
+     * Decodes the region of the image, scaled down to the output size and rotated upright. The
+     * region is decoded at the coarsest power-of-two sampling that still covers the output size,
+     * and then scaled and rotated in one transform, so that the full resolution of large photos
+     * is never held in memory.
+     */
     public static Bitmap decodeRegionCrop(@NonNull Context context, @NonNull Uri sourceUri, Rect rect, int outWidth, int outHeight, int rotation) throws IOException, OutOfMemoryError {
         Bitmap croppedImage;
         final InputStream is = context.getContentResolver().openInputStream(sourceUri);
@@ -114,17 +120,37 @@ public class CropUtil {
                 rect = new Rect((int) adjusted.left, (int) adjusted.top, (int) adjusted.right, (int) adjusted.bottom);
             }
 
+            // The output size in the orientation of the source
+            final boolean isSideways = rotation % 180 != 0;
+            final int sourceOutWidth = isSideways ? outHeight : outWidth;
+            final int sourceOutHeight = isSideways ? outWidth : outHeight;
+
             try {
-                croppedImage = decoder.decodeRegion(rect, new BitmapFactory.Options());
-                if (rect.width() > outWidth || rect.height() > outHeight) {
-                    Matrix matrix = new Matrix();
-                    matrix.postScale((float) outWidth / rect.width(), (float) outHeight / rect.height());
-                    croppedImage = Bitmap.createBitmap(croppedImage, 0, 0, croppedImage.getWidth(), croppedImage.getHeight(), matrix, true);
-                }
+                final BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inSampleSize = calculateInSampleSize(rect.width(), rect.height(),
+                        sourceOutWidth, sourceOutHeight);
+                croppedImage = decoder.decodeRegion(rect, options);
             } catch (IllegalArgumentException e) {
                 // Rethrow with some extra information
                 throw new IllegalArgumentException("Rectangle " + rect + " is outside of the image ("
                         + width + "," + height + "," + rotation + ")", e);
+            } finally {
+                decoder.recycle();
+            }
+
+            Matrix matrix = new Matrix();
+            if (rect.width() > sourceOutWidth || rect.height() > sourceOutHeight) {
+                matrix.postScale((float) sourceOutWidth / croppedImage.getWidth(),
+                        (float) sourceOutHeight / croppedImage.getHeight());
+            }
+            matrix.postRotate(rotation);
+            if (!matrix.isIdentity()) {
+                final Bitmap transformed = Bitmap.createBitmap(croppedImage, 0, 0,
+                        croppedImage.getWidth(), croppedImage.getHeight(), matrix, true);
+                if (transformed != croppedImage) {
+                    croppedImage.recycle();
+                }
+                croppedImage = transformed;
             }
         } finally {
             is.close();
@@ -132,6 +158,22 @@ public class CropUtil {
         return croppedImage;
     }
 
+    /**
+     * @return The largest power of two that the region can be sampled down by, while still
+     * being at least as large as the output.
+     */
+    public static int calculateInSampleSize(int width, int height, int outWidth, int outHeight) {
+        int inSampleSize = 1;
+        while (width / (inSampleSize * 2) >= outWidth && height / (inSampleSize * 2) >= outHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * Crops the image into a JPEG file, with its pixels rotated upright rather than its
+     * orientation recorded in EXIF, as not every viewer of the uploaded photo honours it.
+     */
     public static void crop(@NonNull Context context, @NonNull Uri uri, @NonNull Rect cropRect, int width, int height, @NonNull File file) throws IOException {
         int rotation = getOrientationFromContentResolver(context, uri);
         if (0 == rotation) {
@@ -148,11 +190,6 @@ public class CropUtil {
         } finally {
             croppedImage.recycle();
         }
-
-        CropUtil.setExifOrientation(
-                rotation,
-                file
-        );
     }
 
     public static int getOrientationFromUri(@NonNull String path) {
@@ -0,0 +1,332 @@
+package org.edx.mobile.user;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.text.format.DateUtils;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.edx.mobile.http.HttpException;
+import org.edx.mobile.logger.Logger;
+import org.edx.mobile.model.api.EnrolledCoursesResponse;
+import org.edx.mobile.util.observer.AsyncCallableUtils;
+import org.edx.mobile.util.observer.BasicObservable;
+import org.edx.mobile.util.observer.MainThreadObservable;
+import org.edx.mobile.util.observer.Observable;
+import org.edx.mobile.util.observer.Observer;
+import org.edx.mobile.util.observer.Subscription;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Holds the enrolled courses of the logged in user in memory, along with an index by course
+ * id, so that they're only read from the cache and parsed once rather than by every caller.
+ * <p>
+ * Once the courses are older than {@link #STALE_AFTER_MS}, they're still returned, but are
+ * fetched again in the background. The subscribers of {@link #getObservable()} are told of the
+ * courses whenever they're loaded or fetched.
+ * <p>
+ * The courses are shared by all the callers, so they mustn't be modified.
+ */
+@Singleton
+public class EnrollmentRepository {
+    private static final Logger logger = new Logger(EnrollmentRepository.class.getName());
+    public static final long STALE_AFTER_MS = 5 * DateUtils.MINUTE_IN_MILLIS;
+
+    @NonNull
+    private final UserAPI api;
+    @NonNull
+    private final BasicObservable<List<EnrolledCoursesResponse>> observable =
+            new BasicObservable<>();
+    @NonNull
+    private final Observable<List<EnrolledCoursesResponse>> mainThreadObservable =
+            new MainThreadObservable<>(new Observable<List<EnrolledCoursesResponse>>() {
+                @NonNull
+                @Override
+                public Subscription subscribe(
+                        @NonNull Observer<List<EnrolledCoursesResponse>> observer) {
+                    // The observable is only touched while holding the lock, as it's told of
+                    // the courses from background threads
+                    synchronized (EnrollmentRepository.this) {
+                        if (enrollments != null) {
+                            observer.onData(enrollments.courses);
+                        }
+                        final Subscription subscription = observable.subscribe(observer);
+                        return new Subscription() {
+                            @Override
+                            public void unsubscribe() {
+                                synchronized (EnrollmentRepository.this) {
+                                    subscription.unsubscribe();
+                                }
+                            }
+                        };
+                    }
+                }
+            });
+
+    // The following are guarded by this object's lock
+    @Nullable
+    private Enrollments enrollments;
+    @Nullable
+    private PendingLoad pendingLoad;
+    private boolean isRevalidating;
+    /**
+     * Incremented by {@link #clear()}, so that the courses which were being fetched for the
+     * previous user aren't published afterwards.
+     */
+    private int generation;
+
+    @Inject
+    public EnrollmentRepository(@NonNull UserAPI api) {
+        this.api = api;
+    }
+
+    /**
+     * @return The observable of the enrolled courses, which tells its subscribers on the main
+     * thread, and repeats the last courses to new subscribers.
+     */
+    @NonNull
+    public Observable<List<EnrolledCoursesResponse>> getObservable() {
+        return mainThreadObservable;
+    }
+
+    /**
+     * @return The enrolled courses of the user from memory, or else from the cache, or else from
+     * the server.
+     */
+    @NonNull
+    public List<EnrolledCoursesResponse> getEnrolledCourses(@NonNull String username)
+            throws HttpException {
+        return getEnrollments(username).courses;
+    }
+
+    /**
+     * @return The enrolled course with the given id, or null if the user isn't enrolled in it.
+     */
+    @Nullable
+    public EnrolledCoursesResponse getCourseById(@NonNull String username,
+                                                 @NonNull String courseId)
+            throws HttpException {
+        return getEnrollments(username).coursesById.get(courseId);
+    }
+
+    /**
+     * Fetches the enrolled courses from the server, and falls back to the cache if it can't be
+     * reached.
+     */
+    @NonNull
+    public List<EnrolledCoursesResponse> refresh(@NonNull String username) throws HttpException {
+        final int startGeneration;
+        synchronized (this) {
+            startGeneration = generation;
+        }
+        return fetch(username, startGeneration);
+    }
+
+    @NonNull
+    private List<EnrolledCoursesResponse> fetch(@NonNull String username, int fetchGeneration)
+            throws HttpException {
+        final List<EnrolledCoursesResponse> courses = api.getUserEnrolledCourses(username, false);
+        update(username, courses, fetchGeneration);
+        return courses;
+    }
+
+    @NonNull
+    private Enrollments getEnrollments(@NonNull String username) throws HttpException {
+        final Enrollments current;
+        final PendingLoad load;
+        final boolean isLoader;
+        synchronized (this) {
+            if (enrollments == null || !enrollments.username.equals(username)) {
+                // Concurrent callers wait for the same load, which is done outside of the lock
+                // so that subscribing on the main thread isn't blocked by it
+                isLoader = pendingLoad == null || !pendingLoad.username.equals(username);
+                if (isLoader) {
+                    pendingLoad = new PendingLoad(username, generation);
+                }
+                load = pendingLoad;
+                current = null;
+            } else {
+                current = enrollments;
+                if (isRevalidating || now() - current.loadedTime < STALE_AFTER_MS) {
+                    return current;
+                }
+                isRevalidating = true;
+                load = null;
+                isLoader = false;
+            }
+        }
+        if (load == null) {
+            revalidate(username, current);
+            return current;
+        }
+        if (isLoader) {
+            try {
+                load.task.run();
+            } finally {
+                synchronized (this) {
+                    if (pendingLoad == load) {
+                        pendingLoad = null;
+                    }
+                }
+            }
+        }
+        return load.getEnrollments();
+    }
+
+    private void revalidate(@NonNull final String username, @NonNull final Enrollments current) {
+        AsyncCallableUtils.observe(new Callable<List<EnrolledCoursesResponse>>() {
+            @Override
+            public List<EnrolledCoursesResponse> call() throws Exception {
+                // Of the generation of the stale courses, so that it's dropped if they're
+                // cleared before it even starts
+                return fetch(username, current.generation);
+            }
+        }, new Observer<List<EnrolledCoursesResponse>>() {
+            @Override
+            public void onData(@NonNull List<EnrolledCoursesResponse> data) {
+                finishRevalidation(current);
+            }
+
+            @Override
+            public void onError(@NonNull Throwable error) {
+                // Keep serving the stale courses, and try again on the next call
+                logger.error(error);
+                finishRevalidation(current);
+            }
+        });
+    }
+
+    private synchronized void finishRevalidation(@NonNull Enrollments revalidated) {
+        // Unless the courses were cleared meanwhile, in which case the flag is already reset
+        if (generation == revalidated.generation) {
+            isRevalidating = false;
+        }
+    }
+
+    /**
+     * Publishes the courses, unless they were cleared since they started to be fetched.
+     */
+    private void update(@NonNull String username,
+                        @NonNull List<EnrolledCoursesResponse> courses, int fetchGeneration) {
+        final Enrollments updated = new Enrollments(username, courses, now(), fetchGeneration);
+        synchronized (this) {
+            if (generation == fetchGeneration) {
+                enrollments = updated;
+                observable.sendData(updated.courses);
+            }
+        }
+    }
+
+    /**
+     * Forgets the courses, so that the next user to log in doesn't see them. The loads and
+     * fetches that are still in progress don't publish their courses.
+     */
+    public synchronized void clear() {
+        enrollments = null;
+        pendingLoad = null;
+        isRevalidating = false;
+        generation++;
+    }
+
+    @VisibleForTesting
+    protected long now() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    private static class Enrollments {
+        @NonNull
+        final String username;
+        @NonNull
+        final List<EnrolledCoursesResponse> courses;
+        @NonNull
+        final Map<String, EnrolledCoursesResponse> coursesById;
+        final long loadedTime;
+        final int generation;
+
+        Enrollments(@NonNull String username, @NonNull List<EnrolledCoursesResponse> courses,
+                    long loadedTime, int generation) {
+            this.username = username;
+            this.courses = Collections.unmodifiableList(new ArrayList<>(courses));
+            this.coursesById = new HashMap<>(courses.size());
+            for (EnrolledCoursesResponse course : courses) {
+                coursesById.put(course.getCourse().getId(), course);
+            }
+            this.loadedTime = loadedTime;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * The first load of the courses of a user, which is run by the caller that starts it, and
+     * waited for by the others.
+     */
+    private class PendingLoad implements Callable<Enrollments> {
+        @NonNull
+        final String username;
+        final int loadGeneration;
+        @NonNull
+        final FutureTask<Enrollments> task = new FutureTask<>(this);
+
+        PendingLoad(@NonNull String username, int loadGeneration) {
+            this.username = username;
+            this.loadGeneration = loadGeneration;
+        }
+
+        @Override
+        public Enrollments call() throws HttpException {
+            final Enrollments loaded = new Enrollments(username,
+                    api.getUserEnrolledCourses(username, true), now(), loadGeneration);
+            synchronized (EnrollmentRepository.this) {
+                // Unless they were cleared meanwhile, in which case they're only returned to
+                // the callers that were waiting for them
+                if (generation == loadGeneration) {
+                    enrollments = loaded;
+                    observable.sendData(loaded.courses);
+                }
+            }
+            return loaded;
+        }
+
+        @NonNull
+        Enrollments getEnrollments() throws HttpException {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return task.get();
+                    } catch (InterruptedException e) {
+                        // The load is run by another caller, which will finish it
+                        interrupted = true;
+                    }
+                }
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof HttpException) {
+                    throw (HttpException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new HttpException(cause);
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
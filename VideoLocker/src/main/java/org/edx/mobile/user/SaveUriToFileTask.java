@@ -10,6 +10,7 @@ import android.text.TextUtils;
 
 import org.edx.mobile.task.Task;
 import org.edx.mobile.util.IOUtils;
+import org.edx.mobile.util.images.TemporaryImageFiles;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -40,7 +41,7 @@ public abstract class SaveUriToFileTask extends
         }
 
         // URI does not point to a file; Download/copy it to a temporary file.
-        final File outputFile = new File(context.getExternalCacheDir(), "cropped-image" + System.currentTimeMillis() + ".jpg");
+        final File outputFile = TemporaryImageFiles.create(context, "picked-image");
         final InputStream inputStream = context.getContentResolver().openInputStream(uri);
         try {
             final FileOutputStream fileOutputStream = new FileOutputStream(outputFile);
@@ -10,6 +10,7 @@ import com.google.inject.Inject;
 
 import org.edx.mobile.task.Task;
 import org.edx.mobile.third_party.crop.CropUtil;
+import org.edx.mobile.util.images.TemporaryImageFiles;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -40,7 +41,7 @@ public abstract class SetAccountImageTask extends
 
 
     public Void call() throws Exception {
-        final File cropped = new File(context.getExternalCacheDir(), "cropped-image" + System.currentTimeMillis() + ".jpg");
+        final File cropped = TemporaryImageFiles.create(context, "cropped-image");
         CropUtil.crop(getContext(), uri, cropRect, 500, 500, cropped);
         userAPI.setProfileImage(username, cropped);
         return null;
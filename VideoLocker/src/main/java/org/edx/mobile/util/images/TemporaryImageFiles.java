@@ -0,0 +1,54 @@
+package org.edx.mobile.util.images;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.text.format.DateUtils;
+
+import java.io.File;
+
+/**
+ * Creates the temporary image files of the profile photo flow, which are only needed until the
+ * photo has been cropped, uploaded and shown. They're kept in a folder of their own, where the
+ * ones older than {@link #MAX_AGE_MS} are deleted whenever a new one is created.
+ */
+public class TemporaryImageFiles {
+    public static final long MAX_AGE_MS = DateUtils.DAY_IN_MILLIS;
+    private static final String FOLDER_NAME = "images";
+    /**
+     * The prefix of the files that used to be created at the root of the cache folder.
+     */
+    private static final String LEGACY_PREFIX = "cropped-image";
+
+    /**
+     * @return A new file in the folder, which is created if needed.
+     */
+    @NonNull
+    public static synchronized File create(@NonNull Context context, @NonNull String prefix) {
+        final File cacheDir = getCacheDir(context);
+        final File folder = new File(cacheDir, FOLDER_NAME);
+        folder.mkdirs();
+        final long now = System.currentTimeMillis();
+        deleteOlderThan(folder, null, now - MAX_AGE_MS);
+        deleteOlderThan(cacheDir, LEGACY_PREFIX, now - MAX_AGE_MS);
+        return new File(folder, prefix + now + ".jpg");
+    }
+
+    @NonNull
+    private static File getCacheDir(@NonNull Context context) {
+        final File externalCacheDir = context.getExternalCacheDir();
+        return externalCacheDir != null ? externalCacheDir : context.getCacheDir();
+    }
+
+    private static void deleteOlderThan(@NonNull File folder, String prefix, long time) {
+        final File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isFile() && file.lastModified() < time &&
+                    (prefix == null || file.getName().startsWith(prefix))) {
+                file.delete();
+            }
+        }
+    }
+}
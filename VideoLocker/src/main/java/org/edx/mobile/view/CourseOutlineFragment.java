@@ -26,8 +26,10 @@ import org.edx.mobile.model.api.EnrolledCoursesResponse;
 import org.edx.mobile.model.course.BlockPath;
 import org.edx.mobile.model.course.CourseComponent;
 import org.edx.mobile.model.course.HasDownloadEntry;
+import org.edx.mobile.model.course.VideoBlockModel;
 import org.edx.mobile.model.db.DownloadEntry;
 import org.edx.mobile.module.storage.DownloadCompletedEvent;
+import org.edx.mobile.module.storage.DownloadedVideoDeletedEvent;
 import org.edx.mobile.services.CourseManager;
 import org.edx.mobile.services.VideoDownloadHelper;
 import org.edx.mobile.util.NetworkUtil;
@@ -115,7 +117,8 @@ public class CourseOutlineFragment extends BaseFragment {
         if ( adapter != null ){
             boolean listRebuilt = adapter.checkModeChange();
             if ( !listRebuilt ){
-                adapter.notifyDataSetChanged();
+                // The videos may have been watched or downloaded in the meantime
+                adapter.reloadState();
             }
         }
     }
@@ -173,7 +176,7 @@ public class CourseOutlineFragment extends BaseFragment {
         if (adapter == null) {
             // creating adapter just once
             adapter = new CourseOutlineAdapter(getActivity(), environment.getConfig(),
-                    environment.getDatabase(), environment.getStorage(),
+                    environment.getDatabase(),
                     new CourseOutlineAdapter.DownloadListener() {
                         @Override
                         public void download(List<? extends HasDownloadEntry> models) {
@@ -185,10 +188,11 @@ public class CourseOutlineFragment extends BaseFragment {
                         }
 
                         @Override
-                        public void download(DownloadEntry videoData) {
+                        public void download(VideoBlockModel block, DownloadEntry videoData) {
                             CourseOutlineActivity activity = (CourseOutlineActivity) getActivity();
                             if (NetworkUtil.verifyDownloadPossible(activity)) {
-                                downloadManager.downloadVideo(videoData, activity, activity);
+                                downloadManager.downloadVideo(videoData,
+                                        block.getData().encodedVideos, activity, activity);
                             }
                         }
 
@@ -284,6 +288,11 @@ public class CourseOutlineFragment extends BaseFragment {
 
     @SuppressWarnings("unused")
     public void onEventMainThread(DownloadCompletedEvent e) {
-        adapter.notifyDataSetChanged();
+        adapter.onDownloadUpdated(e.getEntry());
+    }
+
+    @SuppressWarnings("unused")
+    public void onEventMainThread(DownloadedVideoDeletedEvent e) {
+        adapter.onDownloadDeleted(e.getModel().getVideoId());
     }
 }
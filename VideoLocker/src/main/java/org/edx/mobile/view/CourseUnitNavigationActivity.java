@@ -3,7 +3,9 @@ package org.edx.mobile.view;
 import android.content.Context;
 import android.content.Intent;
 import android.content.res.Configuration;
+import android.net.ConnectivityManager;
 import android.os.Bundle;
+import android.support.v4.net.ConnectivityManagerCompat;
 import android.support.v4.view.ViewPager;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -21,7 +23,9 @@ import org.edx.mobile.model.course.CourseComponent;
 import org.edx.mobile.module.analytics.ISegment;
 import org.edx.mobile.module.prefs.LoginPrefs;
 import org.edx.mobile.module.prefs.PrefManager;
+import org.edx.mobile.services.UnitContentCache;
 import org.edx.mobile.services.ViewPagerDownloadManager;
+import org.edx.mobile.util.NetworkUtil;
 import org.edx.mobile.view.adapters.CourseUnitPagerAdapter;
 import org.edx.mobile.view.common.PageViewStateCallback;
 import org.edx.mobile.view.custom.DisableableViewPager;
@@ -60,6 +64,9 @@ public class CourseUnitNavigationActivity extends CourseBaseActivity implements
     @Inject
     LoginPrefs loginPrefs;
 
+    @Inject
+    UnitContentCache unitContentCache;
+
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         RelativeLayout insertPoint = (RelativeLayout)findViewById(R.id.fragment_container);
@@ -225,6 +232,32 @@ public class CourseUnitNavigationActivity extends CourseBaseActivity implements
             // we have reached the start and previous button is disabled
             mPreviousUnitLbl.setVisibility(View.GONE);
         }
+
+        prefetchNextUnits(curIndex);
+    }
+
+    /**
+     * Prefetches the pages of the units that follow the given one in its subsection, so that
+     * swiping to them doesn't wait for the network. This is only done on unmetered networks.
+     */
+    private void prefetchNextUnits(int curIndex) {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (!NetworkUtil.isConnected(this) ||
+                ConnectivityManagerCompat.isActiveNetworkMetered(connectivityManager)) {
+            return;
+        }
+        String currentSubsectionId = unitList.get(curIndex).getParent().getId();
+        int prefetchCount = getResources().getInteger(R.integer.unit_prefetch_count);
+        for (int i = curIndex + 1; i < unitList.size() && i <= curIndex + prefetchCount; i++) {
+            CourseComponent unit = unitList.get(i);
+            if (!currentSubsectionId.equals(unit.getParent().getId())) {
+                break;
+            }
+            if (UnitContentCache.isCacheable(unit)) {
+                unitContentCache.prefetch(unit.getId(), unit.getBlockUrl());
+            }
+        }
     }
 
     private void updateDataModel(){
@@ -14,6 +14,8 @@ import android.view.ViewGroup;
 import android.widget.LinearLayout;
 import android.widget.Toast;
 
+import com.google.inject.Inject;
+
 import org.edx.mobile.R;
 import org.edx.mobile.base.BaseFragmentActivity;
 import org.edx.mobile.logger.Logger;
@@ -23,9 +25,11 @@ import org.edx.mobile.model.api.TranscriptModel;
 import org.edx.mobile.model.course.VideoBlockModel;
 import org.edx.mobile.model.db.DownloadEntry;
 import org.edx.mobile.module.db.DataCallback;
+import org.edx.mobile.module.db.PlaybackPositionJournal;
 import org.edx.mobile.module.db.impl.DatabaseFactory;
 import org.edx.mobile.player.IPlayerEventCallback;
 import org.edx.mobile.player.PlayerFragment;
+import org.edx.mobile.services.VideoEncodingSelector;
 import org.edx.mobile.services.ViewPagerDownloadManager;
 import org.edx.mobile.util.AppConstants;
 import org.edx.mobile.util.MediaConsentUtils;
@@ -58,6 +62,12 @@ public class CourseUnitVideoFragment extends CourseUnitFragment
     private final static String HAS_PREV_UNIT_ID = "has_prev_unit";
     private boolean hasPreviousUnit;
 
+    @Inject
+    PlaybackPositionJournal positionJournal;
+
+    @Inject
+    VideoEncodingSelector encodingSelector;
+
     /**
      * Create a new instance of fragment
      */
@@ -361,7 +371,7 @@ public class CourseUnitVideoFragment extends CourseUnitFragment
             // not available on local, so play online
             logger.warn("Local file path not available");
 
-            filepath = video.getBestEncodingUrl(getActivity());
+            filepath = encodingSelector.selectForStreaming(video, null).getUrl();
         }
         return filepath;
     }
@@ -485,9 +495,7 @@ public class CourseUnitVideoFragment extends CourseUnitFragment
         try {
             DownloadEntry v = videoModel;
             if (v != null) {
-                // mark this as partially watches, as playing has started
-                DatabaseFactory.getInstance( DatabaseFactory.TYPE_DATABASE_NATIVE ).updateVideoLastPlayedOffset(v.videoId, offset,
-                    setCurrentPositionCallback);
+                positionJournal.record(v.videoId, offset);
             }
         } catch (Exception ex) {
             logger.error(ex);
@@ -557,18 +565,6 @@ public class CourseUnitVideoFragment extends CourseUnitFragment
         }
     };
 
-    private DataCallback<Integer> setCurrentPositionCallback = new DataCallback<Integer>() {
-        @Override
-        public void onResult(Integer result) {
-            logger.debug("Current Playback Position Updated");
-        }
-
-        @Override
-        public void onFail(Exception ex) {
-            logger.error(ex);
-        }
-    };
-
     private void updateUIForOrientation() {
         //TODO - should we use load different layout file?
         if (getResources().getConfiguration().orientation == Configuration.ORIENTATION_LANDSCAPE) {
@@ -30,6 +30,7 @@ import org.edx.mobile.model.course.HtmlBlockModel;
 import org.edx.mobile.module.prefs.LoginPrefs;
 import org.edx.mobile.module.prefs.PrefManager;
 import org.edx.mobile.services.EdxCookieManager;
+import org.edx.mobile.services.UnitContentCache;
 import org.edx.mobile.services.ViewPagerDownloadManager;
 import org.edx.mobile.util.NetworkUtil;
 import org.edx.mobile.view.custom.URLInterceptorWebViewClient;
@@ -61,6 +62,18 @@ public class CourseUnitWebViewFragment extends CourseUnitFragment {
     @Inject
     private LoginPrefs loginPrefs;
 
+    @Inject
+    private UnitContentCache unitContentCache;
+
+    private final UnitContentCache.Listener unitContentListener = new UnitContentCache.Listener() {
+        @Override
+        public void onUnitContentChanged(@NonNull String blockId) {
+            if (unit != null && unit.getId().equals(blockId) && getUserVisibleHint()) {
+                tryToLoadWebView(true);
+            }
+        }
+    };
+
     public static CourseUnitWebViewFragment newInstance(HtmlBlockModel unit) {
         CourseUnitWebViewFragment f = new CourseUnitWebViewFragment();
 
@@ -83,12 +96,24 @@ public class CourseUnitWebViewFragment extends CourseUnitFragment {
         super.onActivityCreated(savedInstanceState);
         //should we recover here?
 
-        webView.clearCache(true);
+        // The pages of HTML units are cached by UnitContentCache instead of being reloaded
+        unitContentCache.addListener(unitContentListener);
         webView.getSettings().setJavaScriptEnabled(true);
         URLInterceptorWebViewClient client =
                 new URLInterceptorWebViewClient(getActivity(), webView) {
                     private boolean didReceiveError = false;
 
+                    @Override
+                    @SuppressWarnings("deprecation")
+                    public WebResourceResponse shouldInterceptRequest(WebView view, String url) {
+                        WebResourceResponse response = super.shouldInterceptRequest(view, url);
+                        if (response == null && isCacheable()) {
+                            response = unitContentCache.intercept(unit.getId(),
+                                    unit.getBlockUrl(), url);
+                        }
+                        return response;
+                    }
+
                     @Override
                     public void onReceivedError(WebView view, int errorCode,
                                                 String description, String failingUrl) {
@@ -171,6 +196,7 @@ public class CourseUnitWebViewFragment extends CourseUnitFragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        unitContentCache.removeListener(unitContentListener);
         if (EventBus.getDefault().isRegistered(this)) {
             EventBus.getDefault().unregister(this);
         }
@@ -242,7 +268,8 @@ public class CourseUnitWebViewFragment extends CourseUnitFragment {
             EventBus.getDefault().register(this);
         }
 
-        if (!NetworkUtil.isConnected(getContext())) {
+        final boolean isConnected = NetworkUtil.isConnected(getContext());
+        if (!isConnected && !(isCacheable() && unitContentCache.hasPage(unit.getId()))) {
             showErrorMessage(R.string.reset_no_network_message, FontAwesomeIcons.fa_wifi);
             return;
         }
@@ -259,7 +286,7 @@ public class CourseUnitWebViewFragment extends CourseUnitFragment {
             // Requery the session cookie if unavailable or expired if we are on
             // an API level lesser than Marshmallow (which provides HTTP error
             // codes in the error callback for WebViewClient).
-            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M &&
+            if (isConnected && Build.VERSION.SDK_INT < Build.VERSION_CODES.M &&
                     EdxCookieManager.getSharedInstance().isSessionCookieMissingOrExpired()) {
                 EdxCookieManager.getSharedInstance().tryToRefreshSessionCookie();
             } else {
@@ -268,6 +295,10 @@ public class CourseUnitWebViewFragment extends CourseUnitFragment {
         }
     }
 
+    private boolean isCacheable() {
+        return unit != null && UnitContentCache.isCacheable(unit);
+    }
+
     @Override
     public void run() {
         if (this.isRemoving() || this.isDetached()) {
@@ -2,21 +2,21 @@ package org.edx.mobile.view;
 
 import android.app.DownloadManager;
 import android.os.Bundle;
-import android.os.Handler;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.view.View;
 import android.widget.ListView;
 
+import com.google.inject.Inject;
+
 import org.edx.mobile.R;
 import org.edx.mobile.base.BaseFragmentActivity;
 import org.edx.mobile.model.VideoModel;
 import org.edx.mobile.model.db.DownloadEntry;
 import org.edx.mobile.model.download.NativeDownloadModel;
 import org.edx.mobile.module.analytics.ISegment;
-import org.edx.mobile.module.db.DataCallback;
-import org.edx.mobile.module.db.IDbCallback;
-import org.edx.mobile.module.db.ObservableDataCallback;
+import org.edx.mobile.module.download.DownloadProgressService;
+import org.edx.mobile.module.download.DownloadProgressSnapshot;
 import org.edx.mobile.view.adapters.DownloadEntryAdapter;
 
 import java.util.ArrayList;
@@ -24,19 +24,14 @@ import java.util.List;
 
 public class DownloadListActivity extends BaseFragmentActivity {
 
-    public static int REFRESH_INTERVAL_IN_MILLISECONDS = 3000;
-
     @Nullable
     private DownloadEntryAdapter adapter;
 
     @Nullable
     private View offlineBar;
 
-    @NonNull
-    private final Handler handler = new Handler();
-
-    @NonNull
-    private final ObservableDataCallback<List<DownloadEntryAdapter.Item>> observable = new ObservableDataCallback<>();
+    @Inject
+    private DownloadProgressService downloadProgressService;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -69,38 +64,13 @@ public class DownloadListActivity extends BaseFragmentActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        observable.setObserver(new IDbCallback<List<DownloadEntryAdapter.Item>>() {
-            @Override
-            public void sendResult(List<DownloadEntryAdapter.Item> result) {
-                if (result != null) {
-                    adapter.setItems(result);
-                }
-                fetchOngoingDownloadsAfterDelay();
-            }
-
-            @Override
-            public void sendException(Exception ex) {
-                logger.error(ex);
-                fetchOngoingDownloadsAfterDelay();
-            }
-
-            private void fetchOngoingDownloadsAfterDelay() {
-                handler.postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        fetchOngoingDownloads();
-                    }
-                }, REFRESH_INTERVAL_IN_MILLISECONDS);
-            }
-        });
-        fetchOngoingDownloads();
+        downloadProgressService.subscribe(downloadProgressListener);
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-        observable.setObserver(null);
-        handler.removeCallbacksAndMessages(null);
+        downloadProgressService.unsubscribe(downloadProgressListener);
     }
 
     @Override
@@ -117,27 +87,23 @@ public class DownloadListActivity extends BaseFragmentActivity {
         offlineBar.setVisibility(View.GONE);
     }
 
-    private void fetchOngoingDownloads() {
-        environment.getDatabase().getListOfOngoingDownloads(new DataCallback<List<VideoModel>>(false) {
-            @Override
-            public void onResult(List<VideoModel> result) {
-                final List<DownloadEntryAdapter.Item> downloadItems = new ArrayList<>(result.size());
-                for (VideoModel model : result) {
-                    final DownloadEntry downloadEntry = (DownloadEntry) model;
-                    final NativeDownloadModel nativeModel = environment.getStorage().getNativeDownload(downloadEntry.dmId);
-                    if (null != nativeModel) {
-                        downloadItems.add(new DownloadItem(downloadEntry, nativeModel));
-                    }
+    private final DownloadProgressService.Listener downloadProgressListener =
+            new DownloadProgressService.Listener() {
+        @Override
+        public void onDownloadProgress(@NonNull DownloadProgressSnapshot snapshot) {
+            final List<VideoModel> ongoingDownloads = snapshot.getOngoingDownloads();
+            final List<DownloadEntryAdapter.Item> downloadItems = new ArrayList<>(ongoingDownloads.size());
+            for (VideoModel model : ongoingDownloads) {
+                final DownloadEntry downloadEntry = (DownloadEntry) model;
+                final NativeDownloadModel nativeModel = snapshot.getNativeDownload(downloadEntry.dmId);
+                if (null != nativeModel) {
+                    downloadItems.add(new DownloadItem(downloadEntry, nativeModel));
                 }
-                observable.sendResult(downloadItems);
             }
-
-            @Override
-            public void onFail(Exception ex) {
-                observable.sendException(ex);
-            }
-        });
-    }
+            assert adapter != null;
+            adapter.setItems(downloadItems);
+        }
+    };
 
     private static class DownloadItem implements DownloadEntryAdapter.Item {
 
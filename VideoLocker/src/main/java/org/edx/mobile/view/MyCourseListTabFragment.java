@@ -1,6 +1,7 @@
 package org.edx.mobile.view;
 
 import android.os.Bundle;
+import android.support.annotation.NonNull;
 import android.support.v4.content.Loader;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -16,6 +17,9 @@ import org.edx.mobile.loader.CoursesAsyncLoader;
 import org.edx.mobile.model.api.EnrolledCoursesResponse;
 import org.edx.mobile.module.analytics.ISegment;
 import org.edx.mobile.module.prefs.LoginPrefs;
+import org.edx.mobile.user.EnrollmentRepository;
+import org.edx.mobile.util.observer.Observer;
+import org.edx.mobile.util.observer.Subscription;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -34,11 +38,30 @@ public class MyCourseListTabFragment extends CourseListTabFragment {
     @Inject
     LoginPrefs loginPrefs;
 
+    @Inject
+    EnrollmentRepository enrollmentRepository;
+
+    private Subscription enrollmentSubscription;
+
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         environment.getSegment().trackScreenView(ISegment.Screens.MY_COURSES);
         EventBus.getDefault().register(this);
+        // Show the courses as soon as they're known, and again when they're fetched in the background
+        enrollmentSubscription = enrollmentRepository.getObservable().subscribe(
+                new Observer<List<EnrolledCoursesResponse>>() {
+                    @Override
+                    public void onData(@NonNull List<EnrolledCoursesResponse> courses) {
+                        adapter.setItems(new ArrayList<>(courses));
+                        adapter.notifyDataSetChanged();
+                    }
+
+                    @Override
+                    public void onError(@NonNull Throwable error) {
+                        logger.error(error);
+                    }
+                });
     }
 
     @Override
@@ -140,5 +163,6 @@ public class MyCourseListTabFragment extends CourseListTabFragment {
     public void onDestroy() {
         super.onDestroy();
         EventBus.getDefault().unregister(this);
+        enrollmentSubscription.unsubscribe();
     }
 }
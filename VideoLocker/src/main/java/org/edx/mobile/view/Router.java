@@ -22,6 +22,8 @@ import org.edx.mobile.model.api.EnrolledCoursesResponse;
 import org.edx.mobile.module.analytics.ISegment;
 import org.edx.mobile.module.notification.NotificationDelegate;
 import org.edx.mobile.profiles.UserProfileActivity;
+import org.edx.mobile.services.UnitContentCache;
+import org.edx.mobile.user.EnrollmentRepository;
 import org.edx.mobile.util.Config;
 import org.edx.mobile.view.dialog.WebViewDialogActivity;
 import org.edx.mobile.view.my_videos.MyVideosActivity;
@@ -47,6 +49,12 @@ public class Router {
     @Inject
     Config config;
 
+    @Inject
+    EnrollmentRepository enrollmentRepository;
+
+    @Inject
+    UnitContentCache unitContentCache;
+
     public void showDownloads(Activity sourceActivity) {
         Intent downloadIntent = new Intent(sourceActivity, DownloadListActivity.class);
         sourceActivity.startActivity(downloadIntent);
@@ -257,6 +265,8 @@ public class Router {
      */
     public void forceLogout(Context context, ISegment segment, NotificationDelegate delegate) {
         MainApplication.getEnvironment(context).getLoginPrefs().clear();
+        enrollmentRepository.clear();
+        unitContentCache.clear();
 
         EventBus.getDefault().post(new LogoutEvent());
 
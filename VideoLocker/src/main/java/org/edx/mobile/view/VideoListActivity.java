@@ -12,6 +12,8 @@ import android.view.MenuItem;
 import android.view.View;
 import android.view.WindowManager;
 
+import com.google.inject.Inject;
+
 import org.edx.mobile.R;
 import org.edx.mobile.base.BaseVideosDownloadStateActivity;
 import org.edx.mobile.model.api.TranscriptModel;
@@ -20,6 +22,7 @@ import org.edx.mobile.player.IPlayerEventCallback;
 import org.edx.mobile.player.PlayerFragment;
 import org.edx.mobile.player.VideoListFragment;
 import org.edx.mobile.player.VideoListFragment.VideoListCallback;
+import org.edx.mobile.services.VideoEncodingSelector;
 import org.edx.mobile.util.AppConstants;
 import org.edx.mobile.util.CheckboxDrawableUtil;
 import org.edx.mobile.util.NetworkUtil;
@@ -36,6 +39,9 @@ public class VideoListActivity extends BaseVideosDownloadStateActivity
     private final Handler playHandler = new Handler();
     private Runnable playPending;
 
+    @Inject
+    private VideoEncodingSelector encodingSelector;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -227,7 +233,7 @@ public class VideoListActivity extends BaseVideosDownloadStateActivity
                 // not available on local, so play online
                 logger.warn("Local file path not available");
 
-                filepath = video.getBestEncodingUrl(this);
+                filepath = encodingSelector.selectForStreaming(video, null).getUrl();
             }
 
             playerFragment.play(filepath, video.lastPlayedOffset,
@@ -17,6 +17,7 @@ import com.joanzapata.iconify.IconDrawable;
 import com.joanzapata.iconify.fonts.FontAwesomeIcons;
 
 import org.edx.mobile.R;
+import org.edx.mobile.discussion.DiscussionBodyRenderer;
 import org.edx.mobile.discussion.DiscussionComment;
 import org.edx.mobile.discussion.DiscussionTextUtils;
 import org.edx.mobile.discussion.DiscussionThread;
@@ -51,6 +52,9 @@ public class CourseDiscussionResponsesAdapter extends RecyclerView.Adapter imple
     @Inject
     private Config config;
 
+    @Inject
+    private DiscussionBodyRenderer bodyRenderer;
+
     @NonNull
     private final Context context;
 
@@ -146,7 +150,7 @@ public class CourseDiscussionResponsesAdapter extends RecyclerView.Adapter imple
 
         holder.threadTitleTextView.setText(discussionThread.getTitle());
 
-        holder.threadBodyTextView.setText(DiscussionTextUtils.parseHtml(discussionThread.getRenderedBody()));
+        holder.threadBodyTextView.setText(bodyRenderer.getBody(discussionThread));
 
         String groupName = discussionThread.getGroupName();
         if (groupName == null) {
@@ -275,7 +279,7 @@ public class CourseDiscussionResponsesAdapter extends RecyclerView.Adapter imple
             holder.responseAnswerAuthorTextView.setVisibility(View.GONE);
         }
 
-        holder.responseCommentBodyTextView.setText(DiscussionTextUtils.parseHtml(comment.getRenderedBody()));
+        holder.responseCommentBodyTextView.setText(bodyRenderer.getBody(comment));
 
         if (discussionThread.isClosed() && comment.getChildCount() == 0) {
             holder.addCommentLayout.setEnabled(false);
@@ -2,6 +2,7 @@ package org.edx.mobile.view.adapters;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.view.ViewCompat;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -24,11 +25,12 @@ import org.edx.mobile.model.course.DiscussionBlockModel;
 import org.edx.mobile.model.course.HasDownloadEntry;
 import org.edx.mobile.model.course.IBlock;
 import org.edx.mobile.model.course.VideoBlockModel;
+import org.edx.mobile.model.db.CourseOutlineState;
 import org.edx.mobile.model.db.DownloadEntry;
 import org.edx.mobile.module.db.DataCallback;
+import org.edx.mobile.module.db.DatabaseModelFactory;
 import org.edx.mobile.module.db.IDatabase;
 import org.edx.mobile.module.prefs.PrefManager;
-import org.edx.mobile.module.storage.IStorage;
 import org.edx.mobile.util.Config;
 
 import java.util.ArrayList;
@@ -44,7 +46,7 @@ public class CourseOutlineAdapter extends BaseAdapter {
     public interface DownloadListener {
         void download(List<? extends HasDownloadEntry> models);
 
-        void download(DownloadEntry videoData);
+        void download(VideoBlockModel block, DownloadEntry videoData);
 
         void viewDownloadsStatus();
     }
@@ -54,7 +56,8 @@ public class CourseOutlineAdapter extends BaseAdapter {
     private List<SectionRow> mData;
 
     private IDatabase dbStore;
-    private IStorage storage;
+    @NonNull
+    private CourseOutlineState outlineState = new CourseOutlineState();
     private DownloadListener mDownloadListener;
     private Context context;
     private Config config;
@@ -62,12 +65,11 @@ public class CourseOutlineAdapter extends BaseAdapter {
     private boolean currentVideoMode;
     private int numOfTotalUnits;
 
-    public CourseOutlineAdapter(Context context, Config config, IDatabase dbStore, IStorage storage,
+    public CourseOutlineAdapter(Context context, Config config, IDatabase dbStore,
                                 DownloadListener listener) {
         this.context = context;
         this.config = config;
         this.dbStore = dbStore;
-        this.storage = storage;
         this.mDownloadListener = listener;
         mInflater = (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
         mData = new ArrayList();
@@ -160,6 +162,10 @@ public class CourseOutlineAdapter extends BaseAdapter {
         this.numOfTotalUnits = 0;
         mData.clear();
         if (rootComponent != null) {
+            // Loaded up front, so that the rows can be shown without querying the database
+            final CourseOutlineState state = dbStore.getCourseOutlineState(
+                    rootComponent.getCourseId(), null);
+            outlineState = state == null ? new CourseOutlineState() : state;
             PrefManager.UserPrefManager userPrefManager = new PrefManager.UserPrefManager(MainApplication.instance());
             currentVideoMode = userPrefManager.isUserPrefVideoModel();
             List<IBlock> children = rootComponent.getChildren();
@@ -193,6 +199,50 @@ public class CourseOutlineAdapter extends BaseAdapter {
             setData(this.rootComponent);
     }
 
+    /**
+     * Reloads the download and watched states in the background, for when they may have been
+     * changed elsewhere, and shows them once they're loaded.
+     */
+    public void reloadState() {
+        if (rootComponent == null) {
+            return;
+        }
+        final CourseComponent component = rootComponent;
+        dbStore.getCourseOutlineState(component.getCourseId(),
+                new DataCallback<CourseOutlineState>(true) {
+                    @Override
+                    public void onResult(CourseOutlineState state) {
+                        if (state != null && component == rootComponent) {
+                            outlineState = state;
+                            notifyDataSetChanged();
+                        }
+                    }
+
+                    @Override
+                    public void onFail(Exception ex) {
+                        logger.error(ex);
+                    }
+                });
+    }
+
+    /**
+     * Shows the new state of a video of the course, as it's been stored.
+     */
+    public void onDownloadUpdated(@NonNull DownloadEntry download) {
+        if (rootComponent != null && rootComponent.getCourseId().equals(download.eid)) {
+            outlineState.updateDownload(download);
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Shows a video as no longer downloaded.
+     */
+    public void onDownloadDeleted(@NonNull String videoId) {
+        outlineState.removeDownload(videoId);
+        notifyDataSetChanged();
+    }
+
     public View getRowView(int position, View convertView) {
         final SectionRow row = this.getItem(position);
         final SectionRow nextRow = this.getItem(position + 1);
@@ -237,9 +287,10 @@ public class CourseOutlineAdapter extends BaseAdapter {
         viewHolder.rowTitle.setText(unit.getDisplayName());
 
         if (row.component instanceof VideoBlockModel) {
-            final DownloadEntry videoData = ((VideoBlockModel) row.component).getDownloadEntry(storage);
+            final VideoBlockModel block = (VideoBlockModel) row.component;
+            final DownloadEntry videoData = getDownloadEntry(block);
             if (null != videoData) {
-                updateUIForVideo(viewHolder, videoData);
+                updateUIForVideo(viewHolder, block, videoData);
                 return;
             }
         }
@@ -263,24 +314,32 @@ public class CourseOutlineAdapter extends BaseAdapter {
     }
 
     private void checkAccessStatus(final ViewHolder viewHolder, final CourseComponent unit) {
-        dbStore.isUnitAccessed(new DataCallback<Boolean>(true) {
-            @Override
-            public void onResult(Boolean accessed) {
-                if (accessed) {
-                    viewHolder.rowType.setIconColorResource(R.color.edx_grayscale_neutral_base);
-                } else {
-                    viewHolder.rowType.setIconColorResource(R.color.edx_brand_primary_base);
-                }
-            }
+        if (outlineState.isUnitAccessed(unit.getId())) {
+            viewHolder.rowType.setIconColorResource(R.color.edx_grayscale_neutral_base);
+        } else {
+            viewHolder.rowType.setIconColorResource(R.color.edx_brand_primary_base);
+        }
+    }
 
-            @Override
-            public void onFail(Exception ex) {
-                logger.error(ex);
-            }
-        }, unit.getId());
+    /**
+     * @return The stored video, or a new one for the block if it isn't stored, or null if the
+     * block has no video that can be played in the app.
+     */
+    @Nullable
+    private DownloadEntry getDownloadEntry(@NonNull VideoBlockModel block) {
+        if (block.getData().encodedVideos.getPreferredVideoInfo() == null) {
+            return null;
+        }
+        final DownloadEntry stored = outlineState.getDownload(block.getId());
+        if (stored != null) {
+            return stored;
+        }
+        return (DownloadEntry) DatabaseModelFactory.getModel(block.getData(), block);
     }
 
-    private void updateUIForVideo(@NonNull final ViewHolder viewHolder, @NonNull final DownloadEntry videoData) {
+    private void updateUIForVideo(@NonNull final ViewHolder viewHolder,
+                                  @NonNull final VideoBlockModel block,
+                                  @NonNull final DownloadEntry videoData) {
         viewHolder.rowType.setIcon(FontAwesomeIcons.fa_film);
         viewHolder.numOfVideoAndDownloadArea.setVisibility(View.VISIBLE);
         viewHolder.bulkDownload.setVisibility(View.VISIBLE);
@@ -289,60 +348,39 @@ public class CourseOutlineAdapter extends BaseAdapter {
         viewHolder.rowSubtitle.setVisibility(View.VISIBLE);
         viewHolder.rowSubtitle.setText(videoData.getDurationReadable());
 
-        dbStore.getWatchedStateForVideoId(videoData.videoId,
-                new DataCallback<DownloadEntry.WatchedState>(true) {
-                    @Override
-                    public void onResult(DownloadEntry.WatchedState result) {
-                        if (result != null && result == DownloadEntry.WatchedState.WATCHED) {
-                            viewHolder.rowType.setIconColorResource(R.color.edx_grayscale_neutral_base);
-                        } else {
-                            viewHolder.rowType.setIconColorResource(R.color.edx_brand_primary_base);
-                        }
-                    }
-
-                    @Override
-                    public void onFail(Exception ex) {
-                        logger.error(ex);
-                    }
-                });
+        if (outlineState.getWatchedState(videoData.videoId) == DownloadEntry.WatchedState.WATCHED) {
+            viewHolder.rowType.setIconColorResource(R.color.edx_grayscale_neutral_base);
+        } else {
+            viewHolder.rowType.setIconColorResource(R.color.edx_brand_primary_base);
+        }
 
         if (videoData.isVideoForWebOnly()) {
             viewHolder.numOfVideoAndDownloadArea.setVisibility(View.GONE);
         } else {
             viewHolder.numOfVideoAndDownloadArea.setVisibility(View.VISIBLE);
-            dbStore.getDownloadedStateForVideoId(videoData.videoId,
-                    new DataCallback<DownloadEntry.DownloadedState>(true) {
-                        @Override
-                        public void onResult(DownloadEntry.DownloadedState state) {
-                            if (state == null || state == DownloadEntry.DownloadedState.ONLINE) {
-                                // not yet downloaded
-                                setRowStateOnDownload(viewHolder, DownloadEntry.DownloadedState.ONLINE,
-                                        new View.OnClickListener() {
-                                            @Override
-                                            public void onClick(View v) {
-                                                mDownloadListener.download(videoData);
-                                            }
-                                        });
-                            } else if (state == DownloadEntry.DownloadedState.DOWNLOADING) {
-                                // may be download in progress
-                                setRowStateOnDownload(viewHolder, DownloadEntry.DownloadedState.DOWNLOADING,
-                                        new View.OnClickListener() {
-                                            @Override
-                                            public void onClick(View v) {
-                                                mDownloadListener.viewDownloadsStatus();
-                                            }
-                                        });
-                            } else if (state == DownloadEntry.DownloadedState.DOWNLOADED) {
-                                setRowStateOnDownload(viewHolder, DownloadEntry.DownloadedState.DOWNLOADED, null);
+            final DownloadEntry.DownloadedState state =
+                    outlineState.getDownloadedState(videoData.videoId);
+            if (state == DownloadEntry.DownloadedState.DOWNLOADING) {
+                // may be download in progress
+                setRowStateOnDownload(viewHolder, DownloadEntry.DownloadedState.DOWNLOADING,
+                        new View.OnClickListener() {
+                            @Override
+                            public void onClick(View v) {
+                                mDownloadListener.viewDownloadsStatus();
                             }
-                        }
-
-                        @Override
-                        public void onFail(Exception ex) {
-                            logger.error(ex);
-                            viewHolder.bulkDownload.setVisibility(View.VISIBLE);
-                        }
-                    });
+                        });
+            } else if (state == DownloadEntry.DownloadedState.DOWNLOADED) {
+                setRowStateOnDownload(viewHolder, DownloadEntry.DownloadedState.DOWNLOADED, null);
+            } else {
+                // not yet downloaded
+                setRowStateOnDownload(viewHolder, DownloadEntry.DownloadedState.ONLINE,
+                        new View.OnClickListener() {
+                            @Override
+                            public void onClick(View v) {
+                                mDownloadListener.download(block, videoData);
+                            }
+                        });
+            }
         }
 
     }
@@ -350,7 +388,6 @@ public class CourseOutlineAdapter extends BaseAdapter {
     private void getRowViewForContainer(ViewHolder holder,
                                         final SectionRow row) {
         final CourseComponent component = row.component;
-        String courseId = component.getCourseId();
         BlockPath path = component.getPath();
         //FIXME - we should add a new column in database - pathinfo.
         //then do the string match to get the record
@@ -376,14 +413,13 @@ public class CourseOutlineAdapter extends BaseAdapter {
             holder.noOfVideos.setVisibility(View.VISIBLE);
             holder.noOfVideos.setText("" + totalDownloadableVideos);
 
-            Integer downloadedCount = dbStore.getDownloadedVideosCountForSection(courseId,
-                    chapterId, sequentialId, null);
+            int downloadedCount = outlineState.getDownloadedVideosCount(chapterId, sequentialId);
 
             if (downloadedCount == totalDownloadableVideos) {
                 holder.noOfVideos.setVisibility(View.VISIBLE);
                 setRowStateOnDownload(holder, DownloadEntry.DownloadedState.DOWNLOADED, null);
-            } else if (dbStore.getDownloadingVideosCountForSection(courseId, chapterId,
-                    sequentialId, null) + downloadedCount == totalDownloadableVideos) {
+            } else if (outlineState.getDownloadingVideosCount(chapterId, sequentialId)
+                    + downloadedCount == totalDownloadableVideos) {
                 holder.noOfVideos.setVisibility(View.GONE);
                 setRowStateOnDownload(holder, DownloadEntry.DownloadedState.DOWNLOADING,
                         new View.OnClickListener() {
@@ -30,12 +30,14 @@ import org.edx.mobile.model.api.VideoResponseModel;
 import org.edx.mobile.model.db.DownloadEntry;
 import org.edx.mobile.module.analytics.ISegment;
 import org.edx.mobile.module.db.DataCallback;
+import org.edx.mobile.module.db.PlaybackPositionJournal;
 import org.edx.mobile.module.prefs.LoginPrefs;
 import org.edx.mobile.module.prefs.PrefManager;
 import org.edx.mobile.module.storage.DownloadCompletedEvent;
 import org.edx.mobile.module.storage.DownloadedVideoDeletedEvent;
 import org.edx.mobile.player.IPlayerEventCallback;
 import org.edx.mobile.player.PlayerFragment;
+import org.edx.mobile.services.VideoEncodingSelector;
 import org.edx.mobile.task.GetRecentDownloadedVideosTask;
 import org.edx.mobile.util.AppConstants;
 import org.edx.mobile.util.CheckboxDrawableUtil;
@@ -72,6 +74,12 @@ public class MyRecentVideosFragment extends BaseFragment implements IPlayerEvent
     @Inject
     protected IEdxEnvironment environment;
 
+    @Inject
+    PlaybackPositionJournal positionJournal;
+
+    @Inject
+    VideoEncodingSelector encodingSelector;
+
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -331,7 +339,7 @@ public class MyRecentVideosFragment extends BaseFragment implements IPlayerEvent
         if (filepath == null || filepath.length() <= 0) {
             // not available on local, so play online
             logger.warn("Local file path not available");
-            filepath = videoModel.getBestEncodingUrl(context);
+            filepath = encodingSelector.selectForStreaming(videoModel, null).getUrl();
         }
 
         playerFragment.play(filepath, videoModel.lastPlayedOffset,
@@ -535,11 +543,8 @@ public class MyRecentVideosFragment extends BaseFragment implements IPlayerEvent
     public void saveCurrentPlaybackPosition(int offset) {
         DownloadEntry v = videoModel;
         if (v != null) {
-            // mark this as partially watches, as playing has started
-            environment.getDatabase().updateVideoLastPlayedOffset(v.videoId, offset,
-                    setCurrentPositionCallback);
+            positionJournal.record(v.videoId, offset);
         }
-        notifyAdapter();
     }
 
     @Override
@@ -693,18 +698,6 @@ public class MyRecentVideosFragment extends BaseFragment implements IPlayerEvent
         }
     };
 
-    private DataCallback<Integer> setCurrentPositionCallback = new DataCallback<Integer>() {
-        @Override
-        public void onResult(Integer result) {
-            logger.debug("Current Playback Position Updated");
-        }
-
-        @Override
-        public void onFail(Exception ex) {
-            logger.error(ex);
-        }
-    };
-
     public void onEventMainThread(DownloadCompletedEvent e) {
         addToRecentAdapter();
     }
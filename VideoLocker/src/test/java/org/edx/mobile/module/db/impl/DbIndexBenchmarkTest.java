@@ -0,0 +1,175 @@
+package org.edx.mobile.module.db.impl;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.edx.mobile.module.db.DbStructure;
+import org.edx.mobile.test.BaseTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the latency of the common download queries on 10k rows with and without the
+ * indexes created in version 6 of the schema.
+ */
+public class DbIndexBenchmarkTest extends BaseTest {
+    private static final int ROW_COUNT = 10000;
+    private static final int REPEAT_COUNT = 50;
+
+    private static final String[][] QUERIES = new String[][] {
+            {DbStructure.Column.VIDEO_ID + "=? AND " + DbStructure.Column.USERNAME + "=?",
+                    "video-5000", "user-0"},
+            {DbStructure.Column.URL + "=? AND " + DbStructure.Column.DOWNLOADED + "!=? AND "
+                    + DbStructure.Column.USERNAME + "=?",
+                    "http://fake/video-5000", "0", "user-0"},
+            {DbStructure.Column.DM_ID + "=? AND " + DbStructure.Column.DOWNLOADED + "!=?",
+                    "5000", "0"},
+            {DbStructure.Column.EID + "=? AND " + DbStructure.Column.DOWNLOADED + "=? AND "
+                    + DbStructure.Column.USERNAME + "=?",
+                    "course-0", "1", "user-0"},
+            {DbStructure.Column.SECTION + "=? AND " + DbStructure.Column.CHAPTER + "=? AND "
+                    + DbStructure.Column.EID + "=? AND " + DbStructure.Column.DOWNLOADED
+                    + "=? AND " + DbStructure.Column.USERNAME + "=?",
+                    "section-0", "chapter-0", "course-0", "1", "user-0"},
+            {DbStructure.Column.DOWNLOADED + "=? AND " + DbStructure.Column.USERNAME + "=?",
+                    "1", "user-0"},
+    };
+
+    private DbHelper helper;
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() throws Exception {
+        helper = new DbHelper(RuntimeEnvironment.application);
+        db = helper.getDatabase();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < ROW_COUNT; i++) {
+                ContentValues values = new ContentValues();
+                values.put(DbStructure.Column.USERNAME, "user-" + (i % 10));
+                values.put(DbStructure.Column.VIDEO_ID, "video-" + i);
+                values.put(DbStructure.Column.TITLE, "title " + i);
+                values.put(DbStructure.Column.URL, "http://fake/video-" + i);
+                values.put(DbStructure.Column.DM_ID, i);
+                values.put(DbStructure.Column.DOWNLOADED, i % 3);
+                values.put(DbStructure.Column.EID, "course-" + (i % 20));
+                values.put(DbStructure.Column.CHAPTER, "chapter-" + (i % 5));
+                values.put(DbStructure.Column.SECTION, "section-" + (i % 10));
+                db.insert(DbStructure.Table.DOWNLOADS, null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+    }
+
+    @Test
+    public void testQueriesUseIndexes() {
+        for (String[] query : QUERIES) {
+            String plan = getQueryPlan(query);
+            assertTrue("No index used for " + query[0] + ": " + plan, plan.contains("INDEX"));
+        }
+    }
+
+    @Test
+    public void testAssessmentUniqueIndex() {
+        ContentValues values = new ContentValues();
+        values.put(DbStructure.Column.ASSESSMENT_TB_USERNAME, "user-0");
+        values.put(DbStructure.Column.ASSESSMENT_TB_UNIT_ID, "unit");
+        values.put(DbStructure.Column.ASSESSMENT_TB_UNIT_WATCHED, false);
+        new DbOperationReplace(DbStructure.Table.ASSESSMENT, values).execute(db);
+        values.put(DbStructure.Column.ASSESSMENT_TB_UNIT_WATCHED, true);
+        new DbOperationReplace(DbStructure.Table.ASSESSMENT, values).execute(db);
+
+        Cursor c = db.rawQuery("SELECT " + DbStructure.Column.ASSESSMENT_TB_UNIT_WATCHED
+                + " FROM " + DbStructure.Table.ASSESSMENT, null);
+        try {
+            assertEquals(1, c.getCount());
+            c.moveToFirst();
+            assertEquals(1, c.getInt(0));
+        } finally {
+            c.close();
+        }
+    }
+
+    @Test
+    public void testBenchmark() {
+        long[] indexedNanos = timeQueries();
+
+        String[] indexes = new String[] {
+                DbStructure.Index.DOWNLOADS_USERNAME_VIDEO_ID,
+                DbStructure.Index.DOWNLOADS_USERNAME_URL,
+                DbStructure.Index.DOWNLOADS_USERNAME_DOWNLOADED,
+                DbStructure.Index.DOWNLOADS_USERNAME_EID_CHAPTER_SECTION,
+                DbStructure.Index.DOWNLOADS_DM_ID};
+        for (String index : indexes) {
+            db.execSQL("DROP INDEX " + index);
+        }
+        long[] scanNanos = timeQueries();
+
+        for (int i = 0; i < QUERIES.length; i++) {
+            System.out.println(String.format("%s: %.3f ms without indexes, %.3f ms with indexes",
+                    QUERIES[i][0], scanNanos[i] / 1e6 / REPEAT_COUNT,
+                    indexedNanos[i] / 1e6 / REPEAT_COUNT));
+        }
+    }
+
+    private long[] timeQueries() {
+        long[] nanos = new long[QUERIES.length];
+        for (int i = 0; i < QUERIES.length; i++) {
+            String[] args = getArgs(QUERIES[i]);
+            // Warm up
+            runQuery(QUERIES[i][0], args);
+            long start = System.nanoTime();
+            for (int j = 0; j < REPEAT_COUNT; j++) {
+                runQuery(QUERIES[i][0], args);
+            }
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    private void runQuery(String selection, String[] args) {
+        Cursor c = db.query(DbStructure.Table.DOWNLOADS, null, selection, args,
+                null, null, null);
+        try {
+            while (c.moveToNext()) {
+                c.getString(c.getColumnIndex(DbStructure.Column.VIDEO_ID));
+            }
+        } finally {
+            c.close();
+        }
+    }
+
+    private String getQueryPlan(String[] query) {
+        Cursor c = db.rawQuery("EXPLAIN QUERY PLAN SELECT * FROM " + DbStructure.Table.DOWNLOADS
+                + " WHERE " + query[0], getArgs(query));
+        try {
+            StringBuilder plan = new StringBuilder();
+            int detailIndex = c.getColumnIndex("detail");
+            while (c.moveToNext()) {
+                plan.append(c.getString(detailIndex)).append('\n');
+            }
+            return plan.toString();
+        } finally {
+            c.close();
+        }
+    }
+
+    private static String[] getArgs(String[] query) {
+        String[] args = new String[query.length - 1];
+        System.arraycopy(query, 1, args, 0, args.length);
+        return args;
+    }
+}
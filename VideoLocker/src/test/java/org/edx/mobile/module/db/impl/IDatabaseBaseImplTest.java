@@ -0,0 +1,103 @@
+package org.edx.mobile.module.db.impl;
+
+import android.content.ContentValues;
+
+import org.edx.mobile.module.db.DataCallback;
+import org.edx.mobile.module.db.DbStructure;
+import org.edx.mobile.test.BaseTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IDatabaseBaseImplTest extends BaseTest {
+    private static final int OPERATION_COUNT = 100;
+
+    private IDatabaseBaseImpl db;
+
+    @Before
+    public void setUp() {
+        db = new IDatabaseBaseImpl(RuntimeEnvironment.application);
+    }
+
+    @After
+    public void tearDown() {
+        db.release();
+    }
+
+    @Test
+    public void testReadsSeeEarlierWrites() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(OPERATION_COUNT);
+        final int[] counts = new int[OPERATION_COUNT];
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            final int index = i;
+            DbOperationInsert insert = new DbOperationInsert(DbStructure.Table.DOWNLOADS,
+                    createValues(i));
+            insert.setCallback(new DataCallback<Long>() {
+                @Override
+                public void onResult(Long result) {
+                }
+
+                @Override
+                public void onFail(Exception ex) {
+                }
+            });
+            db.enqueue(insert);
+
+            DbOperationGetCount count = new DbOperationGetCount(false,
+                    DbStructure.Table.DOWNLOADS, null, null, null, null);
+            count.setCallback(new DataCallback<Integer>() {
+                @Override
+                public void onResult(Integer result) {
+                    counts[index] = result;
+                    latch.countDown();
+                }
+
+                @Override
+                public void onFail(Exception ex) {
+                    latch.countDown();
+                }
+            });
+            db.enqueue(count);
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        // Each read ran after the write queued before it
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            assertTrue(counts[i] >= i + 1);
+        }
+
+        // The metrics are recorded just after the callbacks are sent
+        IDatabaseBaseImpl.Metrics metrics = db.getMetrics();
+        for (int i = 0; i < 100 && metrics.getQueueDepth() > 0; i++) {
+            Thread.sleep(10);
+            metrics = db.getMetrics();
+        }
+        assertEquals(0, metrics.getQueueDepth());
+        assertEquals(2 * OPERATION_COUNT, metrics.getOperationCount());
+        assertTrue(metrics.getMaxQueueDepth() >= 1);
+    }
+
+    @Test
+    public void testBlockingOperations() {
+        Long id = db.enqueue(new DbOperationInsert(DbStructure.Table.DOWNLOADS, createValues(0)));
+        assertTrue(id > 0);
+        Integer count = db.enqueue(new DbOperationGetCount(false, DbStructure.Table.DOWNLOADS,
+                null, null, null, null));
+        assertEquals(1, (int) count);
+        assertEquals(2, db.getMetrics().getOperationCount());
+    }
+
+    private static ContentValues createValues(int i) {
+        ContentValues values = new ContentValues();
+        values.put(DbStructure.Column.USERNAME, "user");
+        values.put(DbStructure.Column.VIDEO_ID, "video-" + i);
+        return values;
+    }
+}
@@ -0,0 +1,111 @@
+package org.edx.mobile.test;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.segment.analytics.Properties;
+
+import org.edx.mobile.module.analytics.BufferedSegmentTracker;
+import org.edx.mobile.module.analytics.ISegment;
+import org.edx.mobile.module.analytics.ISegmentTracker;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.robolectric.shadows.ShadowApplication;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.Scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BufferedSegmentTrackerTest extends BaseTest {
+    private ISegmentTracker delegate;
+    private BufferedSegmentTracker tracker;
+
+    @Before
+    public void setUp() {
+        delegate = mock(ISegmentTracker.class);
+        tracker = new BufferedSegmentTracker(delegate, new Handler(Looper.getMainLooper()), 4);
+    }
+
+    @Test
+    public void testCallsAreForwardedInOrder() {
+        Properties screenProperties = new Properties();
+        Properties trackProperties = new Properties();
+        tracker.screen("", "Screen", screenProperties);
+        tracker.track("Event", trackProperties);
+        tracker.resetIdentifyUser();
+
+        InOrder order = inOrder(delegate);
+        order.verify(delegate).screen("", "Screen", screenProperties);
+        order.verify(delegate).track("Event", trackProperties);
+        order.verify(delegate).resetIdentifyUser();
+        assertEquals(3, tracker.getFlushedCount());
+    }
+
+    @Test
+    public void testSeeksAreCoalesced() {
+        tracker.track(ISegment.Events.SEEK_VIDEO, createSeek("video1", 10, 20));
+        tracker.track(ISegment.Events.SEEK_VIDEO, createSeek("video1", 20, 25));
+        tracker.track(ISegment.Events.SEEK_VIDEO, createSeek("video1", 25, 40));
+        verify(delegate, never()).track(any(String.class), any(Properties.class));
+
+        ShadowLooper.idleMainLooper(BufferedSegmentTracker.COALESCE_WINDOW_MS);
+        ArgumentCaptor<Properties> captor = ArgumentCaptor.forClass(Properties.class);
+        verify(delegate).track(eq(ISegment.Events.SEEK_VIDEO), captor.capture());
+        Properties data = (Properties) captor.getValue().get(ISegment.Keys.DATA);
+        assertEquals(10.0, data.get(ISegment.Keys.OLD_TIME));
+        assertEquals(40.0, data.get(ISegment.Keys.NEW_TIME));
+        assertEquals(30.0, data.get(ISegment.Keys.REQUESTED_SKIP_INTERVAL));
+        assertEquals(2, tracker.getCoalescedCount());
+        assertEquals(1, tracker.getFlushedCount());
+    }
+
+    @Test
+    public void testOtherCallsReleaseHeldSeek() {
+        Properties seek = createSeek("video1", 10, 20);
+        Properties otherSeek = createSeek("video2", 0, 5);
+        Properties pause = new Properties();
+        tracker.track(ISegment.Events.SEEK_VIDEO, seek);
+        tracker.track(ISegment.Events.SEEK_VIDEO, otherSeek);
+        tracker.track(ISegment.Events.PAUSED_VIDEO, pause);
+
+        InOrder order = inOrder(delegate);
+        order.verify(delegate).track(ISegment.Events.SEEK_VIDEO, seek);
+        order.verify(delegate).track(ISegment.Events.SEEK_VIDEO, otherSeek);
+        order.verify(delegate).track(ISegment.Events.PAUSED_VIDEO, pause);
+        assertEquals(0, tracker.getCoalescedCount());
+    }
+
+    @Test
+    public void testCallsAreDroppedWhenFull() {
+        Scheduler scheduler = ShadowApplication.getInstance().getForegroundThreadScheduler();
+        scheduler.pause();
+        for (int i = 0; i < 6; i++) {
+            tracker.track("Event", new Properties());
+        }
+        scheduler.unPause();
+
+        verify(delegate, times(4)).track(eq("Event"), any(Properties.class));
+        assertEquals(2, tracker.getDroppedCount());
+        assertEquals(4, tracker.getFlushedCount());
+    }
+
+    private static Properties createSeek(String videoId, double oldTime, double newTime) {
+        Properties data = new Properties();
+        data.putValue(ISegment.Keys.MODULE_ID, videoId);
+        data.putValue(ISegment.Keys.OLD_TIME, oldTime);
+        data.putValue(ISegment.Keys.NEW_TIME, newTime);
+        data.putValue(ISegment.Keys.REQUESTED_SKIP_INTERVAL, newTime - oldTime);
+        Properties properties = new Properties();
+        properties.putValue(ISegment.Keys.DATA, data);
+        return properties;
+    }
+}
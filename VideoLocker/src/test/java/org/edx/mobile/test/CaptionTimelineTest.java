@@ -0,0 +1,193 @@
+package org.edx.mobile.test;
+
+import org.edx.mobile.player.CaptionTimeline;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import subtitleFile.Caption;
+import subtitleFile.FormatSRT;
+import subtitleFile.TimedTextObject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CaptionTimelineTest {
+
+    private static final int BENCHMARK_CUE_COUNT = 5000;
+    private static final int TICK_MS = 100;
+
+    @Test
+    public void testIndexAt() throws Exception {
+        CaptionTimeline timeline = new CaptionTimeline(
+                new int[]{1000, 3000, 5000},
+                new int[]{2000, 4000, 6000},
+                new String[]{"one", "two", "three"});
+
+        assertEquals(CaptionTimeline.NO_CAPTION, timeline.indexAt(0));
+        assertEquals(0, timeline.indexAt(1000));
+        assertEquals(0, timeline.indexAt(2000));
+        assertEquals(CaptionTimeline.NO_CAPTION, timeline.indexAt(2500));
+        assertEquals(1, timeline.indexAt(3500));
+        assertEquals(2, timeline.indexAt(6000));
+        assertEquals(CaptionTimeline.NO_CAPTION, timeline.indexAt(7000));
+        // Seeking backwards
+        assertEquals(0, timeline.indexAt(1500));
+        assertEquals("one", timeline.getText(0));
+    }
+
+    @Test
+    public void testOverlappingCaptions() throws Exception {
+        CaptionTimeline timeline = new CaptionTimeline(
+                new int[]{1000, 1500, 2500},
+                new int[]{5000, 2000, 3000},
+                new String[]{"long", "short", "later"});
+
+        assertEquals(0, timeline.indexAt(1800));
+        assertEquals(0, timeline.indexAt(2700));
+        assertEquals(0, timeline.indexAt(5000));
+        assertEquals(CaptionTimeline.NO_CAPTION, timeline.indexAt(5001));
+    }
+
+    @Test
+    public void testNextChange() throws Exception {
+        CaptionTimeline timeline = new CaptionTimeline(
+                new int[]{1000, 3000},
+                new int[]{2000, 4000},
+                new String[]{"one", "two"});
+
+        assertEquals(1000, timeline.getNextChangeMs(0));
+        assertEquals(2001, timeline.getNextChangeMs(1500));
+        assertEquals(3000, timeline.getNextChangeMs(2500));
+        assertEquals(CaptionTimeline.NO_CHANGE, timeline.getNextChangeMs(4500));
+    }
+
+    @Test
+    public void testFromTimedText() throws Exception {
+        TimedTextObject srt = parse(generateSrt(3));
+        CaptionTimeline timeline = CaptionTimeline.fromTimedText(srt);
+
+        assertEquals(3, timeline.size());
+        assertEquals(1000, timeline.getStartMs(1));
+        assertEquals(1800, timeline.getEndMs(1));
+        assertEquals("Caption 2", timeline.getText(1));
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws Exception {
+        CaptionTimeline timeline = CaptionTimeline.fromTimedText(parse(generateSrt(100)));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        timeline.writeTo(new DataOutputStream(bytes));
+
+        CaptionTimeline copy = CaptionTimeline.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(timeline.size(), copy.size());
+        assertEquals(timeline.getEstimatedByteCount(), copy.getEstimatedByteCount());
+        for (int i = 0; i < timeline.size(); i++) {
+            assertEquals(timeline.getStartMs(i), copy.getStartMs(i));
+            assertEquals(timeline.getEndMs(i), copy.getEndMs(i));
+            assertEquals(timeline.getText(i), copy.getText(i));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadTruncatedBinary() throws Exception {
+        CaptionTimeline timeline = CaptionTimeline.fromTimedText(parse(generateSrt(10)));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        timeline.writeTo(new DataOutputStream(bytes));
+        byte[] truncated = new byte[bytes.size() / 2];
+        System.arraycopy(bytes.toByteArray(), 0, truncated, 0, truncated.length);
+
+        CaptionTimeline.readFrom(new DataInputStream(new ByteArrayInputStream(truncated)));
+    }
+
+    /**
+     * Compares the timeline against the linear scan it replaces, ticking through a synthetic
+     * transcript the way the player does during playback, and reports the per-tick cost.
+     */
+    @Test
+    public void testTickCostAgainstLinearScan() throws Exception {
+        TimedTextObject srt = parse(generateSrt(BENCHMARK_CUE_COUNT));
+        CaptionTimeline timeline = CaptionTimeline.fromTimedText(srt);
+        int durationMs = timeline.getEndMs(timeline.size() - 1) + TICK_MS;
+        int ticks = durationMs / TICK_MS;
+
+        long linearStart = System.nanoTime();
+        int linearMatches = 0;
+        for (int pos = 0; pos < durationMs; pos += TICK_MS) {
+            if (linearScan(srt, pos) != null) {
+                linearMatches++;
+            }
+        }
+        long linearNanos = System.nanoTime() - linearStart;
+
+        long indexedStart = System.nanoTime();
+        int indexedMatches = 0;
+        for (int pos = 0; pos < durationMs; pos += TICK_MS) {
+            if (timeline.indexAt(pos) != CaptionTimeline.NO_CAPTION) {
+                indexedMatches++;
+            }
+        }
+        long indexedNanos = System.nanoTime() - indexedStart;
+
+        assertEquals(linearMatches, indexedMatches);
+        System.out.println(String.format("%d cues, %d ticks: linear scan %d ns/tick, " +
+                        "timeline %d ns/tick", BENCHMARK_CUE_COUNT, ticks,
+                linearNanos / ticks, indexedNanos / ticks));
+
+        // Random seeks must agree with the linear scan as well
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            int pos = random.nextInt(durationMs);
+            Caption expected = linearScan(srt, pos);
+            int index = timeline.indexAt(pos);
+            if (expected == null) {
+                assertEquals(CaptionTimeline.NO_CAPTION, index);
+            } else {
+                assertTrue(index != CaptionTimeline.NO_CAPTION);
+                assertEquals(expected.start.getMseconds(), timeline.getStartMs(index));
+            }
+        }
+    }
+
+    /**
+     * The lookup previously done by PlayerFragment on every tick.
+     */
+    private static Caption linearScan(TimedTextObject srt, int currentPos) {
+        for (Caption caption : srt.captions.values()) {
+            if (currentPos >= caption.start.getMseconds()
+                    && currentPos <= caption.end.getMseconds()) {
+                return caption;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Generates a transcript with a 800 ms cue every second, followed by a 200 ms gap.
+     */
+    private static String generateSrt(int cueCount) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < cueCount; i++) {
+            builder.append(i + 1).append('\n')
+                    .append(formatTime(i * 1000)).append(" --> ")
+                    .append(formatTime(i * 1000 + 800)).append('\n')
+                    .append("Caption ").append(i + 1).append("\n\n");
+        }
+        return builder.toString();
+    }
+
+    private static String formatTime(int millis) {
+        return String.format("%02d:%02d:%02d,%03d", millis / 3600000, millis / 60000 % 60,
+                millis / 1000 % 60, millis % 1000);
+    }
+
+    private static TimedTextObject parse(String srt) throws Exception {
+        return new FormatSRT().parseFile("test.srt", new ByteArrayInputStream(srt.getBytes("UTF-8")));
+    }
+}
@@ -4,6 +4,8 @@ import org.edx.mobile.model.Filter;
 import org.edx.mobile.model.course.BlockModel;
 import org.edx.mobile.model.course.BlockType;
 import org.edx.mobile.model.course.CourseComponent;
+import org.edx.mobile.model.course.DiscussionBlockModel;
+import org.edx.mobile.model.course.HtmlBlockModel;
 import org.edx.mobile.model.course.VideoBlockModel;
 import org.junit.Before;
 import org.junit.Test;
@@ -149,6 +151,53 @@ public class CourseComponentTest {
 
     }
 
+    @Test
+    public void testGetComponentById() throws Exception {
+        assertTrue("getComponentById failed", course.getComponentById(course.getId()) == course);
+        assertTrue("getComponentById failed", course.getComponentById(unit3.getId()) == unit3);
+        assertTrue("getComponentById failed", chapter1.getComponentById(unit1.getId()) == unit1);
+        // Only the subtree is searched
+        assertTrue("getComponentById failed", chapter1.getComponentById(unit3.getId()) == null);
+        assertTrue("getComponentById failed", course.getComponentById("missing") == null);
+    }
+
+    @Test
+    public void testIndexUpdatedWithTree() throws Exception {
+        assertTrue("getVideos failed", course.getVideos().size() == 2);
+
+        BlockModel bm = Mockito.mock(BlockModel.class);
+        bm.type = BlockType.VIDEO;
+        bm.id = UUID.randomUUID().toString();
+        CourseComponent unit5 = new VideoBlockModel(bm, vertical2);
+
+        assertTrue("getVideos failed", course.getVideos().size() == 3);
+        assertTrue("getComponentById failed", course.getComponentById(unit5.getId()) == unit5);
+
+        String oldId = unit5.getId();
+        unit5.setId(UUID.randomUUID().toString());
+        assertTrue("getComponentById failed", course.getComponentById(oldId) == null);
+        assertTrue("getComponentById failed", course.getComponentById(unit5.getId()) == unit5);
+    }
+
+    @Test
+    public void testGetDiscussionAndHtmlBlocks() throws Exception {
+        BlockModel bm = Mockito.mock(BlockModel.class);
+        bm.type = BlockType.DISCUSSION;
+        bm.id = UUID.randomUUID().toString();
+        CourseComponent discussion = new DiscussionBlockModel(bm, vertical1);
+        bm = Mockito.mock(BlockModel.class);
+        bm.type = BlockType.PROBLEM;
+        bm.id = UUID.randomUUID().toString();
+        CourseComponent problem = new HtmlBlockModel(bm, vertical2);
+
+        assertTrue("getDiscussionBlocks failed", course.getDiscussionBlocks().size() == 1);
+        assertTrue("getDiscussionBlocks failed", course.getDiscussionBlocks().get(0) == discussion);
+        assertTrue("getDiscussionBlocks failed", chapter2.getDiscussionBlocks().isEmpty());
+        assertTrue("getHtmlBlocks failed", course.getHtmlBlocks().size() == 1);
+        assertTrue("getHtmlBlocks failed", chapter2.getHtmlBlocks().get(0) == problem);
+        assertTrue("getHtmlBlocks failed", chapter1.getHtmlBlocks().isEmpty());
+    }
+
     @Test
     public void testIisLastChild() throws Exception {
         assertTrue("isLastChild failed", unit1.isLastChild() == false);
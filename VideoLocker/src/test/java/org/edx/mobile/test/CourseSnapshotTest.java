@@ -0,0 +1,92 @@
+package org.edx.mobile.test;
+
+import org.edx.mobile.model.course.CourseComponent;
+import org.edx.mobile.model.course.CourseSnapshot;
+import org.edx.mobile.model.course.CourseStructureJsonHandler;
+import org.edx.mobile.model.course.CourseStructureV1Model;
+import org.edx.mobile.model.course.DiscussionBlockModel;
+import org.edx.mobile.model.course.HtmlBlockModel;
+import org.edx.mobile.model.course.IBlock;
+import org.edx.mobile.model.course.VideoBlockModel;
+import org.edx.mobile.services.CourseManager;
+import org.edx.mobile.test.util.MockDataUtil;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class CourseSnapshotTest extends BaseTest {
+
+    private static final String COURSE_ID = "edX/DemoX/Demo_Course";
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        CourseComponent course = getCourse();
+        CourseSnapshot copy = roundTrip(new CourseSnapshot(course, "v1"));
+
+        assertEquals("v1", copy.getVersion());
+        assertEquals(COURSE_ID, copy.getCourse().getCourseId());
+        assertSameComponent(course, copy.getCourse());
+        assertEquals(course.getVideos().size(), copy.getCourse().getVideos().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadTruncatedSnapshot() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new CourseSnapshot(getCourse(), "v1").writeTo(new DataOutputStream(bytes));
+        byte[] truncated = new byte[bytes.size() / 2];
+        System.arraycopy(bytes.toByteArray(), 0, truncated, 0, truncated.length);
+
+        CourseSnapshot.readFrom(new DataInputStream(new ByteArrayInputStream(truncated)));
+    }
+
+    private static CourseComponent getCourse() throws Exception {
+        CourseStructureV1Model model = new CourseStructureJsonHandler().processInput(
+                MockDataUtil.getMockResponse("get_course_structure"));
+        return (CourseComponent) CourseManager.normalizeCourseStructure(model, COURSE_ID);
+    }
+
+    private static CourseSnapshot roundTrip(CourseSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        snapshot.writeTo(new DataOutputStream(bytes));
+        return CourseSnapshot.readFrom(new DataInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static void assertSameComponent(CourseComponent expected, CourseComponent actual) {
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getInternalName(), actual.getInternalName());
+        assertEquals(expected.isGraded(), actual.isGraded());
+        assertEquals(expected.isMultiDevice(), actual.isMultiDevice());
+        assertEquals(expected.getBlockUrl(), actual.getBlockUrl());
+        assertEquals(expected.getWebUrl(), actual.getWebUrl());
+        assertEquals(expected.getFormat(), actual.getFormat());
+        assertEquals(expected.getBlockCount().videoCount, actual.getBlockCount().videoCount);
+        if (expected instanceof VideoBlockModel) {
+            assertEquals(((VideoBlockModel) expected).getData(),
+                    ((VideoBlockModel) actual).getData());
+        } else if (expected instanceof DiscussionBlockModel) {
+            assertEquals(((DiscussionBlockModel) expected).getData(),
+                    ((DiscussionBlockModel) actual).getData());
+        } else if (expected instanceof HtmlBlockModel) {
+            Object expectedData = ((HtmlBlockModel) expected).getData();
+            Object actualData = ((HtmlBlockModel) actual).getData();
+            assertEquals(expectedData == null ? null : expectedData.getClass(),
+                    actualData == null ? null : actualData.getClass());
+        }
+        assertEquals(expected.getChildren().size(), actual.getChildren().size());
+        for (int i = 0; i < expected.getChildren().size(); i++) {
+            IBlock child = actual.getChildren().get(i);
+            assertEquals(actual, child.getParent());
+            assertSameComponent((CourseComponent) expected.getChildren().get(i),
+                    (CourseComponent) child);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package org.edx.mobile.test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.reflect.TypeToken;
+
+import org.edx.mobile.http.cache.CacheManager;
+import org.edx.mobile.model.course.BlockData;
+import org.edx.mobile.model.course.BlockList;
+import org.edx.mobile.model.course.BlockModel;
+import org.edx.mobile.model.course.BlockType;
+import org.edx.mobile.model.course.CourseStructureJsonHandler;
+import org.edx.mobile.model.course.CourseStructureV1Model;
+import org.edx.mobile.model.course.DiscussionData;
+import org.edx.mobile.model.course.VideoData;
+import org.edx.mobile.test.util.MockDataUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CourseStructureJsonHandlerTest extends BaseTest {
+
+    /**
+     * Number of copies of the recorded course blocks in the large fixture
+     */
+    private static final int FIXTURE_COPIES = 20;
+    private static final int WARM_UP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+    private static final String CACHE_KEY = "http://example.com/api/courses/v1/blocks/";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMatchesTreeParser() throws Exception {
+        String json = MockDataUtil.getMockResponse("get_course_structure");
+        assertSameModel(parseWithTree(json), new CourseStructureJsonHandler().processInput(json));
+    }
+
+    @Test
+    public void testDataBeforeAndAfterType() throws Exception {
+        String json = "{\"root\":\"a\",\"blocks\":{" +
+                "\"a\":{\"id\":\"a\",\"student_view_data\":{\"topic_id\":\"t\"},\"type\":\"discussion\"}," +
+                "\"b\":{\"id\":\"b\",\"type\":\"video\",\"student_view_data\":" +
+                "{\"duration\":12.5,\"only_on_web\":true,\"transcripts\":{\"en\":\"url\"}}}," +
+                "\"c\":{\"id\":\"c\",\"type\":\"video\",\"student_view_data\":{}}," +
+                "\"d\":{\"id\":\"d\",\"type\":\"html\",\"student_view_data\":{\"topic_id\":\"t\"}}}}";
+        CourseStructureV1Model model = new CourseStructureJsonHandler().processInput(json);
+
+        assertEquals("t", ((DiscussionData) model.getBlockById("a").data).topicId);
+        VideoData videoData = (VideoData) model.getBlockById("b").data;
+        assertEquals(12, videoData.duration);
+        assertEquals("url", videoData.transcripts.englishUrl);
+        assertEquals(BlockData.class, model.getBlockById("c").data.getClass());
+        assertEquals(BlockData.class, model.getBlockById("d").data.getClass());
+    }
+
+    @Test
+    public void testEmptyInput() throws Exception {
+        assertNull(new CourseStructureJsonHandler().processInput((String) null));
+        assertNull(new CourseStructureJsonHandler().processInput(""));
+    }
+
+    /**
+     * Compares the time and allocations of the streaming parser against the Gson tree parser
+     * it replaces, on a large course made of copies of the recorded course structure. Both read
+     * the response from the cache file, as ServiceManager does.
+     */
+    @Test
+    public void testBenchmarkAgainstTreeParser() throws Exception {
+        String json = createLargeFixture(MockDataUtil.getMockResponse("get_course_structure"));
+        byte[] bytes = json.getBytes("UTF-8");
+        CacheManager cacheManager = new CacheManager(temporaryFolder.newFolder("http-cache"),
+                CacheManager.MAX_SIZE_BYTES, CacheManager.OKHTTP_MAX_SIZE_BYTES);
+        cacheManager.put(CACHE_KEY, new ByteArrayInputStream(bytes));
+        CourseStructureV1Model expected = parseWithTree(json);
+        CourseStructureV1Model actual = parseFromCache(cacheManager);
+        assertSameModel(expected, actual);
+
+        long[] treeStats = new long[2];
+        long[] streamingStats = new long[2];
+        for (int i = 0; i < WARM_UP_RUNS + MEASURED_RUNS; i++) {
+            boolean measured = i >= WARM_UP_RUNS;
+
+            long allocated = getAllocatedBytes();
+            long start = System.nanoTime();
+            // The previous path read the whole response into a String first
+            parseWithTree(cacheManager.get(CACHE_KEY));
+            if (measured) {
+                treeStats[0] += System.nanoTime() - start;
+                treeStats[1] += getAllocatedBytes() - allocated;
+            }
+
+            allocated = getAllocatedBytes();
+            start = System.nanoTime();
+            parseFromCache(cacheManager);
+            if (measured) {
+                streamingStats[0] += System.nanoTime() - start;
+                streamingStats[1] += getAllocatedBytes() - allocated;
+            }
+        }
+        System.out.println(String.format(Locale.US,
+                "%d blocks, %d KB: tree parser %d ms / %d KB allocated, " +
+                        "streaming parser %d ms / %d KB allocated",
+                actual.blockData.size(), bytes.length / 1024,
+                treeStats[0] / MEASURED_RUNS / 1000000, treeStats[1] / MEASURED_RUNS / 1024,
+                streamingStats[0] / MEASURED_RUNS / 1000000,
+                streamingStats[1] / MEASURED_RUNS / 1024));
+    }
+
+    private static CourseStructureV1Model parseFromCache(CacheManager cacheManager)
+            throws Exception {
+        InputStream in = cacheManager.getInputStream(CACHE_KEY);
+        try {
+            return new CourseStructureJsonHandler().processInput(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return The bytes allocated by the current thread so far, or 0 if the VM can't tell.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Creates a course with copies of all of the recorded blocks, under a single root.
+     */
+    private static String createLargeFixture(String recordedJson) {
+        JsonObject recorded = new JsonParser().parse(recordedJson).getAsJsonObject();
+        String root = recorded.get("root").getAsString();
+        JsonObject recordedBlocks = recorded.getAsJsonObject("blocks");
+        JsonObject rootBlock = recordedBlocks.getAsJsonObject(root);
+
+        JsonObject blocks = new JsonObject();
+        JsonArray rootDescendants = new JsonArray();
+        for (int copy = 0; copy < FIXTURE_COPIES; copy++) {
+            String prefix = "block@" + copy + "-";
+            for (Map.Entry<String, JsonElement> entry : recordedBlocks.entrySet()) {
+                if (entry.getKey().equals(root)) {
+                    continue;
+                }
+                // Round-trip through a String to get a deep copy, renaming the block ids
+                String blockJson = entry.getValue().toString().replace("block@", prefix);
+                blocks.add(entry.getKey().replace("block@", prefix), new JsonParser().parse(blockJson));
+            }
+            for (JsonElement child : rootBlock.getAsJsonArray("descendants")) {
+                rootDescendants.add(new JsonPrimitive(child.getAsString().replace("block@", prefix)));
+            }
+        }
+        JsonObject newRoot = new JsonParser().parse(rootBlock.toString()).getAsJsonObject();
+        newRoot.add("descendants", rootDescendants);
+        blocks.add(root, newRoot);
+
+        JsonObject course = new JsonObject();
+        course.addProperty("root", root);
+        course.add("blocks", blocks);
+        return course.toString();
+    }
+
+    private static void assertSameModel(CourseStructureV1Model expected,
+                                        CourseStructureV1Model actual) {
+        assertEquals(expected.root, actual.root);
+        assertEquals(expected.blockData.size(), actual.blockData.size());
+        for (Map.Entry<String, BlockModel> entry : expected.blockData.entrySet()) {
+            BlockModel expectedBlock = entry.getValue();
+            BlockModel actualBlock = actual.getBlockById(entry.getKey());
+            assertNotNull(actualBlock);
+            assertEquals(expectedBlock.id, actualBlock.id);
+            assertEquals(expectedBlock.type, actualBlock.type);
+            assertEquals(expectedBlock.displayName, actualBlock.displayName);
+            assertEquals(expectedBlock.graded, actualBlock.graded);
+            assertEquals(expectedBlock.studentViewMultiDevice, actualBlock.studentViewMultiDevice);
+            assertEquals(expectedBlock.studentViewUrl, actualBlock.studentViewUrl);
+            assertEquals(expectedBlock.lmsWebUrl, actualBlock.lmsWebUrl);
+            assertEquals(expectedBlock.format, actualBlock.format);
+            assertEquals(expectedBlock.descendants, actualBlock.descendants);
+            if (expectedBlock.blockCounts == null) {
+                assertNull(actualBlock.blockCounts);
+            } else {
+                assertEquals(expectedBlock.blockCounts.videoCount, actualBlock.blockCounts.videoCount);
+            }
+            if (expectedBlock.data == null) {
+                assertNull(actualBlock.data);
+            } else if (expectedBlock.data instanceof VideoData || expectedBlock.data instanceof DiscussionData) {
+                assertEquals(expectedBlock.data, actualBlock.data);
+            } else {
+                assertEquals(expectedBlock.data.getClass(), actualBlock.data.getClass());
+            }
+        }
+    }
+
+    /**
+     * The Gson tree based parsing which CourseStructureJsonHandler used before streaming.
+     */
+    private static CourseStructureV1Model parseWithTree(String json) {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(BlockData.class, new JsonDeserializer<BlockData>() {
+                    @Override
+                    public BlockData deserialize(JsonElement json, Type typeOfT,
+                                                 JsonDeserializationContext context) throws JsonParseException {
+                        JsonObject jsonObject = json.getAsJsonObject();
+                        if (jsonObject.has("encoded_videos") || jsonObject.has("transcripts")) {
+                            return context.deserialize(jsonObject, VideoData.class);
+                        } else if (jsonObject.has("topic_id")) {
+                            return context.deserialize(jsonObject, DiscussionData.class);
+                        }
+                        return new BlockData();
+                    }
+                })
+                .registerTypeAdapter(BlockType.class, new JsonDeserializer<BlockType>() {
+                    @Override
+                    public BlockType deserialize(JsonElement json, Type typeOfT,
+                                                 JsonDeserializationContext context) throws JsonParseException {
+                        try {
+                            return BlockType.valueOf(json.getAsString().toUpperCase(Locale.US));
+                        } catch (Exception ex) {
+                            return BlockType.OTHERS;
+                        }
+                    }
+                })
+                .registerTypeAdapter(BlockList.class, new JsonDeserializer<BlockList>() {
+                    @Override
+                    public BlockList deserialize(JsonElement json, Type typeOfT,
+                                                 JsonDeserializationContext context) throws JsonParseException {
+                        Type mapType = new TypeToken<Map<String, BlockModel>>() {}.getType();
+                        Map<String, BlockModel> map = context.deserialize(json.getAsJsonObject(), mapType);
+                        return new BlockList(map);
+                    }
+                }).create();
+        return gson.fromJson(json, CourseStructureV1Model.class);
+    }
+}
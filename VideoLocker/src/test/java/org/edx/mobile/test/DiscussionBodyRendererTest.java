@@ -0,0 +1,68 @@
+package org.edx.mobile.test;
+
+import android.text.Spanned;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.edx.mobile.discussion.DiscussionBodyRenderer;
+import org.edx.mobile.discussion.DiscussionComment;
+import org.edx.mobile.discussion.DiscussionThread;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DiscussionBodyRendererTest extends BaseTest {
+    private final Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd").create();
+    private DiscussionBodyRenderer renderer;
+
+    @Before
+    public void setUp() {
+        renderer = new DiscussionBodyRenderer();
+    }
+
+    @Test
+    public void testPrerenderedBodyIsReused() {
+        DiscussionComment comment = createComment("comment1", "2016-01-01", "<p>Hello</p>");
+        renderer.prerenderComments(Collections.singletonList(comment));
+
+        CharSequence body = renderer.getBody(comment);
+        assertEquals("Hello", body.toString());
+        assertTrue(body instanceof Spanned);
+        assertSame(body, renderer.getBody(comment));
+    }
+
+    @Test
+    public void testBodyIsCachedByIdentifierAndUpdateDate() {
+        CharSequence body = renderer.getBody(
+                createComment("comment1", "2016-01-01", "<p>Hello</p>"));
+        // The same version of the comment isn't rendered again
+        assertSame(body, renderer.getBody(
+                createComment("comment1", "2016-01-01", "<p>Hello</p>")));
+        // An edited comment is
+        assertEquals("Edited", renderer.getBody(
+                createComment("comment1", "2016-01-02", "<p>Edited</p>")).toString());
+        // Another comment has its own body
+        assertEquals("Other", renderer.getBody(
+                createComment("comment2", "2016-01-01", "<p>Other</p>")).toString());
+    }
+
+    @Test
+    public void testThreadBodyIsRendered() {
+        DiscussionThread thread = gson.fromJson("{\"id\": \"thread1\", " +
+                "\"updatedAt\": \"2016-01-01\", \"renderedBody\": \"<b>Bold</b>\"}",
+                DiscussionThread.class);
+        renderer.prerenderThreads(Collections.singletonList(thread));
+        assertEquals("Bold", renderer.getBody(thread).toString());
+    }
+
+    private DiscussionComment createComment(String id, String updatedAt, String renderedBody) {
+        return gson.fromJson("{\"id\": \"" + id + "\", \"updatedAt\": \"" + updatedAt + "\", " +
+                "\"renderedBody\": \"" + renderedBody + "\"}", DiscussionComment.class);
+    }
+}
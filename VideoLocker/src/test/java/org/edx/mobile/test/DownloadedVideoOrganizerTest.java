@@ -0,0 +1,103 @@
+package org.edx.mobile.test;
+
+import org.edx.mobile.interfaces.SectionItemInterface;
+import org.edx.mobile.model.api.ChapterModel;
+import org.edx.mobile.model.api.SectionEntry;
+import org.edx.mobile.model.api.SectionItemModel;
+import org.edx.mobile.model.course.CourseComponent;
+import org.edx.mobile.model.course.CourseStructureJsonHandler;
+import org.edx.mobile.model.course.CourseStructureV1Model;
+import org.edx.mobile.model.course.VideoBlockModel;
+import org.edx.mobile.model.db.DownloadEntry;
+import org.edx.mobile.module.storage.DownloadedVideoOrganizer;
+import org.edx.mobile.services.CourseManager;
+import org.edx.mobile.test.util.MockDataUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DownloadedVideoOrganizerTest extends BaseTest {
+
+    private static final String COURSE_ID = "edX/DemoX/Demo_Course";
+
+    @Test
+    public void testOrganize() throws Exception {
+        CourseComponent course = getCourse();
+        List<VideoBlockModel> videos = course.getVideos();
+        assertTrue(videos.size() > 1);
+        VideoBlockModel first = videos.get(0);
+        VideoBlockModel last = videos.get(videos.size() - 1);
+
+        List<DownloadEntry> downloads = new ArrayList<>();
+        // Listed out of order, and the IDs are matched ignoring case
+        downloads.add(createDownload(last.getId()));
+        downloads.add(createDownload(first.getId().toUpperCase()));
+        downloads.add(createDownload("not-in-course"));
+        DownloadedVideoOrganizer organizer = new DownloadedVideoOrganizer(downloads);
+
+        ArrayList<SectionItemInterface> list = organizer.organize(course);
+
+        List<DownloadEntry> organized = new ArrayList<>();
+        for (SectionItemInterface item : list) {
+            if (item instanceof DownloadEntry) {
+                organized.add((DownloadEntry) item);
+            }
+        }
+        assertEquals(2, organized.size());
+        assertSame(downloads.get(1), organized.get(0));
+        assertSame(downloads.get(0), organized.get(1));
+
+        List<CourseComponent> path = first.getPath().getPath();
+        assertEquals(path.get(1).getDisplayName(), ((ChapterModel) list.get(0)).name);
+        assertEquals(path.get(2).getDisplayName(), ((SectionItemModel) list.get(1)).name);
+        assertSame(downloads.get(1), list.get(2));
+    }
+
+    @Test
+    public void testOrganizeLegacyHierarchy() throws Exception {
+        CourseComponent course = getCourse();
+        VideoBlockModel video = course.getVideos().get(0);
+        DownloadEntry download = createDownload(video.getId());
+        DownloadedVideoOrganizer organizer =
+                new DownloadedVideoOrganizer(Collections.singletonList(download));
+
+        Map<String, SectionEntry> hierarchy = CourseManager.mappingCourseHierarchyFrom(course);
+        ArrayList<SectionItemInterface> list = organizer.organize(hierarchy);
+
+        assertEquals(3, list.size());
+        assertTrue(list.get(0) instanceof ChapterModel);
+        assertTrue(list.get(1) instanceof SectionItemModel);
+        assertSame(download, list.get(2));
+    }
+
+    @Test
+    public void testGetDownload() {
+        DownloadEntry download = createDownload("Video-ID");
+        DownloadedVideoOrganizer organizer =
+                new DownloadedVideoOrganizer(Collections.singletonList(download));
+
+        assertSame(download, organizer.getDownload("video-id"));
+        assertEquals(null, organizer.getDownload("other"));
+        assertEquals(null, organizer.getDownload(null));
+        assertTrue(new DownloadedVideoOrganizer(new ArrayList<DownloadEntry>()).isEmpty());
+    }
+
+    private static DownloadEntry createDownload(String videoId) {
+        DownloadEntry download = new DownloadEntry();
+        download.videoId = videoId;
+        return download;
+    }
+
+    private static CourseComponent getCourse() throws Exception {
+        CourseStructureV1Model model = new CourseStructureJsonHandler().processInput(
+                MockDataUtil.getMockResponse("get_course_structure"));
+        return (CourseComponent) CourseManager.normalizeCourseStructure(model, COURSE_ID);
+    }
+}
@@ -0,0 +1,213 @@
+package org.edx.mobile.test;
+
+import android.support.annotation.NonNull;
+
+import org.edx.mobile.http.HttpConnectivityException;
+import org.edx.mobile.model.api.CourseEntry;
+import org.edx.mobile.model.api.EnrolledCoursesResponse;
+import org.edx.mobile.user.EnrollmentRepository;
+import org.edx.mobile.user.UserAPI;
+import org.edx.mobile.util.observer.Observer;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EnrollmentRepositoryTest extends BaseTest {
+    private static final String USERNAME = "user";
+
+    private UserAPI api;
+    private TestRepository repository;
+    private List<List<EnrolledCoursesResponse>> notifications;
+
+    @Before
+    public void setUp() {
+        api = mock(UserAPI.class);
+        repository = new TestRepository(api);
+        notifications = new ArrayList<>();
+        repository.getObservable().subscribe(new Observer<List<EnrolledCoursesResponse>>() {
+            @Override
+            public void onData(@NonNull List<EnrolledCoursesResponse> data) {
+                notifications.add(data);
+            }
+
+            @Override
+            public void onError(@NonNull Throwable error) {
+            }
+        });
+    }
+
+    @Test
+    public void testCoursesAreLoadedOnce() throws Exception {
+        EnrolledCoursesResponse course1 = createCourse("course1");
+        EnrolledCoursesResponse course2 = createCourse("course2");
+        when(api.getUserEnrolledCourses(USERNAME, true)).thenReturn(Arrays.asList(course1, course2));
+
+        assertEquals(2, repository.getEnrolledCourses(USERNAME).size());
+        assertSame(course2, repository.getCourseById(USERNAME, "course2"));
+        assertNull(repository.getCourseById(USERNAME, "course3"));
+        verify(api, times(1)).getUserEnrolledCourses(USERNAME, true);
+        assertEquals(1, notifications.size());
+    }
+
+    @Test
+    public void testStaleCoursesAreRevalidated() throws Exception {
+        EnrolledCoursesResponse cached = createCourse("course1");
+        EnrolledCoursesResponse fetched = createCourse("course2");
+        when(api.getUserEnrolledCourses(USERNAME, true)).thenReturn(Collections.singletonList(cached));
+        when(api.getUserEnrolledCourses(USERNAME, false)).thenReturn(Collections.singletonList(fetched));
+        repository.getEnrolledCourses(USERNAME);
+
+        repository.time += EnrollmentRepository.STALE_AFTER_MS;
+        // The stale courses are returned while they're fetched again
+        assertSame(cached, repository.getEnrolledCourses(USERNAME).get(0));
+        verify(api).getUserEnrolledCourses(USERNAME, false);
+        assertSame(fetched, repository.getCourseById(USERNAME, "course2"));
+        assertEquals(2, notifications.size());
+        assertSame(fetched, notifications.get(1).get(0));
+    }
+
+    @Test
+    public void testFailedRevalidationKeepsStaleCourses() throws Exception {
+        EnrolledCoursesResponse cached = createCourse("course1");
+        when(api.getUserEnrolledCourses(USERNAME, true)).thenReturn(Collections.singletonList(cached));
+        when(api.getUserEnrolledCourses(USERNAME, false)).thenThrow(
+                new HttpConnectivityException(new Exception()));
+        repository.getEnrolledCourses(USERNAME);
+
+        repository.time += EnrollmentRepository.STALE_AFTER_MS;
+        assertSame(cached, repository.getCourseById(USERNAME, "course1"));
+        assertSame(cached, repository.getCourseById(USERNAME, "course1"));
+        // Tried again on each call, as the courses are still stale
+        verify(api, times(2)).getUserEnrolledCourses(USERNAME, false);
+        assertEquals(1, notifications.size());
+    }
+
+    @Test
+    public void testOtherUserIsLoadedAgain() throws Exception {
+        when(api.getUserEnrolledCourses(USERNAME, true)).thenReturn(
+                Collections.singletonList(createCourse("course1")));
+        when(api.getUserEnrolledCourses("other", true)).thenReturn(
+                Collections.<EnrolledCoursesResponse>emptyList());
+        repository.getEnrolledCourses(USERNAME);
+        assertEquals(0, repository.getEnrolledCourses("other").size());
+        assertNull(repository.getCourseById("other", "course1"));
+    }
+
+    @Test
+    public void testNewSubscribersAreToldOfLoadedCourses() throws Exception {
+        when(api.getUserEnrolledCourses(USERNAME, true)).thenReturn(
+                Collections.singletonList(createCourse("course1")));
+        repository.getEnrolledCourses(USERNAME);
+
+        List<List<EnrolledCoursesResponse>> lateNotifications = subscribe();
+        assertEquals(1, lateNotifications.size());
+        assertEquals(1, lateNotifications.get(0).size());
+    }
+
+    @Test
+    public void testClearForgetsCourses() throws Exception {
+        when(api.getUserEnrolledCourses(USERNAME, true)).thenReturn(
+                Collections.singletonList(createCourse("course1")));
+        repository.getEnrolledCourses(USERNAME);
+
+        repository.clear();
+        assertEquals(0, subscribe().size());
+        repository.getEnrolledCourses(USERNAME);
+        verify(api, times(2)).getUserEnrolledCourses(USERNAME, true);
+    }
+
+    @Test
+    public void testClearDropsRevalidation() throws Exception {
+        EnrolledCoursesResponse cached = createCourse("course1");
+        when(api.getUserEnrolledCourses(USERNAME, true)).thenReturn(Collections.singletonList(cached));
+        when(api.getUserEnrolledCourses(USERNAME, false)).thenAnswer(
+                new Answer<List<EnrolledCoursesResponse>>() {
+                    @Override
+                    public List<EnrolledCoursesResponse> answer(InvocationOnMock invocation) {
+                        // Logged out while the courses were being fetched
+                        repository.clear();
+                        return Collections.singletonList(createCourse("course2"));
+                    }
+                });
+        repository.getEnrolledCourses(USERNAME);
+
+        repository.time += EnrollmentRepository.STALE_AFTER_MS;
+        repository.getEnrolledCourses(USERNAME);
+        assertEquals(1, notifications.size());
+        assertEquals(0, subscribe().size());
+
+        // The next courses are revalidated in turn
+        repository.getEnrolledCourses(USERNAME);
+        repository.time += EnrollmentRepository.STALE_AFTER_MS;
+        repository.getEnrolledCourses(USERNAME);
+        verify(api, times(2)).getUserEnrolledCourses(USERNAME, false);
+    }
+
+    @Test
+    public void testClearDropsLoad() throws Exception {
+        final EnrolledCoursesResponse cached = createCourse("course1");
+        when(api.getUserEnrolledCourses(USERNAME, true)).thenAnswer(
+                new Answer<List<EnrolledCoursesResponse>>() {
+                    @Override
+                    public List<EnrolledCoursesResponse> answer(InvocationOnMock invocation) {
+                        repository.clear();
+                        return Collections.singletonList(cached);
+                    }
+                });
+
+        // Still returned to the caller, but not kept or published
+        assertSame(cached, repository.getEnrolledCourses(USERNAME).get(0));
+        assertEquals(0, notifications.size());
+        assertEquals(0, subscribe().size());
+    }
+
+    private List<List<EnrolledCoursesResponse>> subscribe() {
+        final List<List<EnrolledCoursesResponse>> received = new ArrayList<>();
+        repository.getObservable().subscribe(new Observer<List<EnrolledCoursesResponse>>() {
+            @Override
+            public void onData(@NonNull List<EnrolledCoursesResponse> data) {
+                received.add(data);
+            }
+
+            @Override
+            public void onError(@NonNull Throwable error) {
+            }
+        });
+        return received;
+    }
+
+    private static EnrolledCoursesResponse createCourse(String courseId) {
+        CourseEntry entry = new CourseEntry();
+        entry.setId(courseId);
+        EnrolledCoursesResponse course = new EnrolledCoursesResponse();
+        course.setCourse(entry);
+        return course;
+    }
+
+    private static class TestRepository extends EnrollmentRepository {
+        long time = 1000;
+
+        TestRepository(@NonNull UserAPI api) {
+            super(api);
+        }
+
+        @Override
+        protected long now() {
+            return time;
+        }
+    }
+}
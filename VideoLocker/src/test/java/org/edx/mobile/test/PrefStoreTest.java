@@ -0,0 +1,121 @@
+package org.edx.mobile.test;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.support.annotation.NonNull;
+
+import org.edx.mobile.module.prefs.PrefStore;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PrefStoreTest extends BaseTest {
+    private SharedPreferences preferences;
+    private List<Runnable> queuedWrites;
+    private PrefStore store;
+
+    @Before
+    public void setUp() {
+        preferences = RuntimeEnvironment.application.getSharedPreferences("test_prefs",
+                Context.MODE_PRIVATE);
+        preferences.edit().clear().commit();
+        queuedWrites = new ArrayList<>();
+        store = new PrefStore(preferences, new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                queuedWrites.add(command);
+            }
+        });
+    }
+
+    @Test
+    public void testValuesAreReadBeforeTheyAreWritten() {
+        store.putString("string", "value");
+        store.putBoolean("boolean", true);
+        store.putLong("long", 42L);
+        store.putFloat("float", 1.5f);
+
+        assertEquals("value", store.getString("string", null));
+        assertTrue(store.getBoolean("boolean", false));
+        assertEquals(42L, store.getLong("long", -1));
+        assertEquals(1.5f, store.getFloat("float", -1), 0);
+        assertFalse(preferences.contains("string"));
+    }
+
+    @Test
+    public void testPutsAreWrittenInOneBatch() {
+        store.putString("string", "value");
+        store.putLong("long", 42L);
+        assertEquals(1, queuedWrites.size());
+
+        runQueuedWrites();
+        assertEquals("value", preferences.getString("string", null));
+        assertEquals(42L, preferences.getLong("long", -1));
+
+        // A later put schedules another write
+        store.putString("string", "other");
+        assertEquals(1, queuedWrites.size());
+    }
+
+    @Test
+    public void testNullRemovesValue() {
+        preferences.edit().putString("string", "value").commit();
+        store.putString("string", null);
+        assertNull(store.getString("string", null));
+        assertEquals("default", store.getString("string", "default"));
+
+        runQueuedWrites();
+        assertFalse(preferences.contains("string"));
+    }
+
+    @Test
+    public void testFlushWritesOnCallersThread() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("string", "value");
+        values.put("boolean", true);
+        store.putAll(values);
+
+        store.flush();
+        assertEquals("value", preferences.getString("string", null));
+        assertTrue(preferences.getBoolean("boolean", false));
+
+        // The write that was already queued finds nothing left to do, and doesn't stop later
+        // puts from being written
+        store.putLong("long", 42L);
+        runQueuedWrites();
+        assertEquals(42L, preferences.getLong("long", -1));
+    }
+
+    private void runQueuedWrites() {
+        List<Runnable> writes = new ArrayList<>(queuedWrites);
+        queuedWrites.clear();
+        for (Runnable write : writes) {
+            write.run();
+        }
+    }
+
+    @Test
+    public void testFlushAllWritesEveryStore() {
+        PrefStore first = PrefStore.getInstance(RuntimeEnvironment.application, "test_prefs_first");
+        PrefStore second = PrefStore.getInstance(RuntimeEnvironment.application, "test_prefs_second");
+        first.putString("string", "first");
+        second.putString("string", "second");
+
+        PrefStore.flushAll();
+        assertEquals("first", RuntimeEnvironment.application.getSharedPreferences(
+                "test_prefs_first", Context.MODE_PRIVATE).getString("string", null));
+        assertEquals("second", RuntimeEnvironment.application.getSharedPreferences(
+                "test_prefs_second", Context.MODE_PRIVATE).getString("string", null));
+    }
+}
@@ -0,0 +1,42 @@
+package org.edx.mobile.test;
+
+import android.content.Context;
+
+import org.edx.mobile.third_party.crop.CropUtil;
+import org.edx.mobile.util.images.TemporaryImageFiles;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProfileImageCropTest extends BaseTest {
+    @Test
+    public void testInSampleSizeCoversOutput() {
+        // A 16 MP photo cropped to a square of its shorter side
+        assertEquals(4, CropUtil.calculateInSampleSize(3456, 3456, 500, 500));
+        assertEquals(2, CropUtil.calculateInSampleSize(1000, 1000, 500, 500));
+        assertEquals(1, CropUtil.calculateInSampleSize(999, 999, 500, 500));
+        assertEquals(1, CropUtil.calculateInSampleSize(300, 300, 500, 500));
+        // Limited by the shorter side
+        assertEquals(2, CropUtil.calculateInSampleSize(4000, 1000, 500, 500));
+    }
+
+    @Test
+    public void testOldTemporaryFilesAreDeleted() throws Exception {
+        Context context = RuntimeEnvironment.application;
+        File first = TemporaryImageFiles.create(context, "cropped-image");
+        assertTrue(first.createNewFile());
+        first.setLastModified(System.currentTimeMillis() - 2 * TemporaryImageFiles.MAX_AGE_MS);
+        File recent = TemporaryImageFiles.create(context, "picked-image");
+        assertTrue(recent.createNewFile());
+
+        File next = TemporaryImageFiles.create(context, "cropped-image");
+        assertFalse(first.exists());
+        assertTrue(recent.exists());
+        assertEquals(recent.getParentFile(), next.getParentFile());
+    }
+}
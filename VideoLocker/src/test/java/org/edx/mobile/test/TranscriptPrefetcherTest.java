@@ -0,0 +1,97 @@
+package org.edx.mobile.test;
+
+import android.support.annotation.NonNull;
+
+import org.edx.mobile.player.TranscriptPrefetcher;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TranscriptPrefetcherTest extends BaseTest {
+
+    private static final String HOST_A = "https://a.example.com/transcript/";
+    private static final String HOST_B = "https://b.example.com/transcript/";
+
+    /**
+     * Blocks every download until released, and records the peak concurrency per host.
+     */
+    private static class BlockingPrefetcher extends TranscriptPrefetcher {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch finished;
+        final Map<String, Integer> activeByHost = new HashMap<>();
+        final Map<String, Integer> peakByHost = new HashMap<>();
+
+        BlockingPrefetcher(int expectedDownloads) {
+            finished = new CountDownLatch(expectedDownloads);
+        }
+
+        @Override
+        protected long fetch(@NonNull String url) throws Exception {
+            final String host = url.substring(0, url.indexOf(".example.com"));
+            synchronized (this) {
+                final Integer active = activeByHost.get(host);
+                final int count = active == null ? 1 : active + 1;
+                activeByHost.put(host, count);
+                final Integer peak = peakByHost.get(host);
+                peakByHost.put(host, peak == null ? count : Math.max(peak, count));
+            }
+            try {
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+                return 100;
+            } finally {
+                synchronized (this) {
+                    activeByHost.put(host, activeByHost.get(host) - 1);
+                }
+                finished.countDown();
+            }
+        }
+    }
+
+    @Test
+    public void testLimitsDownloadsPerHost() throws Exception {
+        BlockingPrefetcher prefetcher = new BlockingPrefetcher(6);
+        int queued = prefetcher.enqueueAll(Arrays.asList(HOST_A + "en", HOST_A + "fr",
+                HOST_A + "de", HOST_A + "es", HOST_B + "en", HOST_B + "fr"));
+        assertEquals(6, queued);
+
+        TranscriptPrefetcher.Metrics metrics = prefetcher.getMetrics();
+        assertEquals(4, metrics.getActiveCount());
+        assertEquals(2, metrics.getQueueDepth());
+
+        prefetcher.release.countDown();
+        assertTrue(prefetcher.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(TranscriptPrefetcher.MAX_DOWNLOADS_PER_HOST,
+                (int) prefetcher.peakByHost.get("https://a"));
+        assertEquals(TranscriptPrefetcher.MAX_DOWNLOADS_PER_HOST,
+                (int) prefetcher.peakByHost.get("https://b"));
+    }
+
+    @Test
+    public void testDedupesInFlightUrls() throws Exception {
+        BlockingPrefetcher prefetcher = new BlockingPrefetcher(1);
+        assertTrue(prefetcher.enqueue(HOST_A + "en"));
+        assertFalse(prefetcher.enqueue(HOST_A + "en"));
+        assertTrue(prefetcher.isInFlight(HOST_A + "en"));
+        assertEquals(1, prefetcher.getMetrics().getDedupedCount());
+
+        prefetcher.release.countDown();
+        assertTrue(prefetcher.finished.await(5, TimeUnit.SECONDS));
+        // The completion is recorded right after the download returns
+        for (int i = 0; i < 50 && prefetcher.isInFlight(HOST_A + "en"); i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(prefetcher.isInFlight(HOST_A + "en"));
+        TranscriptPrefetcher.Metrics metrics = prefetcher.getMetrics();
+        assertEquals(1, metrics.getCompletedCount());
+        assertEquals(100, metrics.getDownloadedBytes());
+        assertEquals(0, metrics.getQueueDepth());
+    }
+}
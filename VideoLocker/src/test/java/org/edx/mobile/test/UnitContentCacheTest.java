@@ -0,0 +1,190 @@
+package org.edx.mobile.test;
+
+import android.support.annotation.NonNull;
+import android.webkit.WebResourceResponse;
+
+import org.edx.mobile.module.prefs.LoginPrefs;
+import org.edx.mobile.services.UnitContentCache;
+import org.edx.mobile.util.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UnitContentCacheTest extends BaseTest {
+    private static final String BLOCK_ID = "block-v1:edX+DemoX+Demo_Course+type@html+block@intro";
+    private static final String PAGE = "<html><head>"
+            + "<link rel=\"stylesheet\" href=\"/static/unit.css\">"
+            + "<script src=\"https://cdn.example.com/lib.js\"></script>"
+            + "</head><body>Welcome</body></html>";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private File cacheFolder;
+    private UnitContentCache cache;
+    private String pageUrl;
+    private long time = 1000;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        pageUrl = server.url("/xblock/" + BLOCK_ID).toString();
+        LoginPrefs loginPrefs = mock(LoginPrefs.class);
+        when(loginPrefs.getAuthorizationHeader()).thenReturn("Bearer token");
+        cacheFolder = temporaryFolder.newFolder("unit-content");
+        cache = new UnitContentCache(cacheFolder, 1024 * 1024,
+                new OkHttpClient(), loginPrefs, new Executor() {
+                    @Override
+                    public void execute(@NonNull Runnable command) {
+                        command.run();
+                    }
+                }) {
+            @Override
+            protected long now() {
+                return time;
+            }
+        };
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void testPrefetchedUnitIsServedOffline() throws Exception {
+        server.enqueue(new MockResponse().setBody(PAGE)
+                .setHeader("Content-Type", "text/html; charset=utf-8"));
+        server.enqueue(new MockResponse().setBody("body {}")
+                .setHeader("Content-Type", "text/css"));
+        assertFalse(cache.hasPage(BLOCK_ID));
+
+        cache.prefetch(BLOCK_ID, pageUrl);
+        assertTrue(cache.hasPage(BLOCK_ID));
+        // The page, and the asset on the same host, but not the one on the CDN
+        assertEquals(2, server.getRequestCount());
+        assertEquals("Bearer token", server.takeRequest().getHeader("Authorization"));
+        assertNull(server.takeRequest().getHeader("Authorization"));
+        server.shutdown();
+
+        WebResourceResponse page = cache.intercept(BLOCK_ID, pageUrl, pageUrl);
+        assertNotNull(page);
+        assertEquals("text/html", page.getMimeType());
+        assertEquals("UTF-8", page.getEncoding());
+        assertEquals(PAGE, IOUtils.toString(page.getData(), Charset.forName("UTF-8")));
+
+        WebResourceResponse asset = cache.intercept(BLOCK_ID, pageUrl,
+                server.url("/static/unit.css").toString());
+        assertNotNull(asset);
+        assertEquals("text/css", asset.getMimeType());
+        assertEquals("body {}", IOUtils.toString(asset.getData(), Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void testErrorsAreNotStored() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(403));
+        assertNull(cache.intercept(BLOCK_ID, pageUrl, pageUrl));
+        assertFalse(cache.hasPage(BLOCK_ID));
+    }
+
+    @Test
+    public void testOtherRequestsAreNotIntercepted() throws Exception {
+        assertNull(cache.intercept(BLOCK_ID, pageUrl, server.url("/courses/").toString()));
+        assertNull(cache.intercept(BLOCK_ID, pageUrl, "https://cdn.example.com/lib.js"));
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void testUnmodifiedPageIsRevalidatedConditionally() throws Exception {
+        prefetchPage(new MockResponse().setBody(PAGE).setHeader("ETag", "\"v1\""));
+        final List<String> changedBlockIds = listenForChanges();
+
+        time += UnitContentCache.REVALIDATION_INTERVAL_MS;
+        server.enqueue(new MockResponse().setResponseCode(304));
+        WebResourceResponse page = cache.intercept(BLOCK_ID, pageUrl, pageUrl);
+        assertNotNull(page);
+        assertEquals(PAGE, IOUtils.toString(page.getData(), Charset.forName("UTF-8")));
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals(pageUrl, request.getRequestUrl().toString());
+        assertEquals("\"v1\"", request.getHeader("If-None-Match"));
+        assertTrue(changedBlockIds.isEmpty());
+        assertTrue(cache.hasPage(BLOCK_ID));
+    }
+
+    @Test
+    public void testModifiedPageIsStoredAndReported() throws Exception {
+        prefetchPage(new MockResponse().setBody(PAGE)
+                .setHeader("Last-Modified", "Mon, 01 Aug 2016 00:00:00 GMT"));
+        final List<String> changedBlockIds = listenForChanges();
+
+        time += UnitContentCache.REVALIDATION_INTERVAL_MS;
+        server.enqueue(new MockResponse().setBody("<html>Updated</html>"));
+        cache.intercept(BLOCK_ID, pageUrl, pageUrl);
+        assertEquals("Mon, 01 Aug 2016 00:00:00 GMT",
+                server.takeRequest().getHeader("If-Modified-Since"));
+        assertEquals(1, changedBlockIds.size());
+        assertEquals(BLOCK_ID, changedBlockIds.get(0));
+
+        WebResourceResponse page = cache.intercept(BLOCK_ID, pageUrl, pageUrl);
+        assertNotNull(page);
+        assertEquals("<html>Updated</html>",
+                IOUtils.toString(page.getData(), Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void testClearRemovesPages() throws Exception {
+        prefetchPage(new MockResponse().setBody(PAGE));
+        cache.clear();
+        assertFalse(cache.hasPage(BLOCK_ID));
+        // Deleted on the cache's executor, which runs right away here
+        assertEquals(0, cacheFolder.list().length);
+    }
+
+    /**
+     * Prefetches the page along with its stylesheet, and skips the requests that were made.
+     */
+    private void prefetchPage(MockResponse pageResponse) throws Exception {
+        server.enqueue(pageResponse.setHeader("Content-Type", "text/html; charset=utf-8"));
+        server.enqueue(new MockResponse().setBody("body {}")
+                .setHeader("Content-Type", "text/css"));
+        cache.prefetch(BLOCK_ID, pageUrl);
+        assertTrue(cache.hasPage(BLOCK_ID));
+        server.takeRequest();
+        server.takeRequest();
+    }
+
+    private List<String> listenForChanges() {
+        final List<String> changedBlockIds = new ArrayList<>();
+        cache.addListener(new UnitContentCache.Listener() {
+            @Override
+            public void onUnitContentChanged(@NonNull String blockId) {
+                changedBlockIds.add(blockId);
+            }
+        });
+        return changedBlockIds;
+    }
+}
@@ -0,0 +1,137 @@
+package org.edx.mobile.test;
+
+import org.edx.mobile.model.api.EncodingsModel.EncodingLevel;
+import org.edx.mobile.model.course.EncodedVideos;
+import org.edx.mobile.model.course.VideoInfo;
+import org.edx.mobile.model.db.DownloadEntry;
+import org.edx.mobile.services.VideoEncodingSelector;
+import org.edx.mobile.services.VideoEncodingSelector.Conditions;
+import org.edx.mobile.services.VideoEncodingSelector.Decision;
+import org.edx.mobile.services.VideoEncodingSelector.Reason;
+import org.edx.mobile.util.MemoryUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class VideoEncodingSelectorTest extends BaseTest {
+    private static final String HIGH_URL = "https://example.com/video_high.mp4";
+    private static final String LOW_URL = "https://example.com/video_low.mp4";
+    private static final String FALLBACK_URL = "https://example.com/video.mp4";
+    private static final float THRESHOLD_KBPS = 100;
+
+    @Test
+    public void testStreamingOnFastUnmeteredNetwork() {
+        Decision decision = VideoEncodingSelector.decideStreaming(createVideo(), null,
+                new Conditions(200, false, true, 0), THRESHOLD_KBPS);
+        assertEquals(EncodingLevel.HIGH, decision.getLevel());
+        assertEquals(Reason.HIGH_SPEED, decision.getReason());
+        assertEquals(HIGH_URL, decision.getUrl());
+    }
+
+    @Test
+    public void testStreamingPrefersLowEncoding() {
+        DownloadEntry video = createVideo();
+        assertLow(Reason.METERED_NETWORK, VideoEncodingSelector.decideStreaming(video, null,
+                new Conditions(200, true, true, 0), THRESHOLD_KBPS));
+        assertLow(Reason.SMALL_SCREEN, VideoEncodingSelector.decideStreaming(video, null,
+                new Conditions(200, false, false, 0), THRESHOLD_KBPS));
+        assertLow(Reason.UNMEASURED_SPEED, VideoEncodingSelector.decideStreaming(video, null,
+                new Conditions(0, false, true, 0), THRESHOLD_KBPS));
+        assertLow(Reason.LOW_SPEED, VideoEncodingSelector.decideStreaming(video, null,
+                new Conditions(50, false, true, 0), THRESHOLD_KBPS));
+    }
+
+    @Test
+    public void testStreamingSwitchesOnlyPastMargin() {
+        DownloadEntry video = createVideo();
+        Conditions slightlyFaster = new Conditions(120, false, true, 0);
+        // Just above the threshold isn't enough to switch up while streaming the low encoding
+        assertEquals(LOW_URL, VideoEncodingSelector.decideStreaming(video, LOW_URL,
+                slightlyFaster, THRESHOLD_KBPS).getUrl());
+        assertEquals(HIGH_URL, VideoEncodingSelector.decideStreaming(video, null,
+                slightlyFaster, THRESHOLD_KBPS).getUrl());
+
+        Conditions slightlySlower = new Conditions(90, false, true, 0);
+        // Nor just below it to switch back down
+        assertEquals(HIGH_URL, VideoEncodingSelector.decideStreaming(video, HIGH_URL,
+                slightlySlower, THRESHOLD_KBPS).getUrl());
+        assertEquals(LOW_URL, VideoEncodingSelector.decideStreaming(video, HIGH_URL,
+                new Conditions(50, false, true, 0), THRESHOLD_KBPS).getUrl());
+    }
+
+    @Test
+    public void testStreamingSingleEncoding() {
+        DownloadEntry video = createVideo();
+        video.url_low_quality = null;
+        Decision decision = VideoEncodingSelector.decideStreaming(video, null,
+                new Conditions(0, true, false, 0), THRESHOLD_KBPS);
+        assertEquals(Reason.ONLY_ENCODING, decision.getReason());
+        assertEquals(HIGH_URL, decision.getUrl());
+
+        video.url_high_quality = null;
+        assertEquals(FALLBACK_URL, VideoEncodingSelector.decideStreaming(video, null,
+                new Conditions(200, false, true, 0), THRESHOLD_KBPS).getUrl());
+    }
+
+    @Test
+    public void testDownload() {
+        EncodedVideos videos = createEncodedVideos();
+        Decision decision = VideoEncodingSelector.decideDownload(videos,
+                new Conditions(0, false, true, 4 * MemoryUtil.GB));
+        assertEquals(EncodingLevel.HIGH, decision.getLevel());
+        assertEquals(HIGH_URL, decision.getUrl());
+        assertEquals(videos.mobileHigh.fileSize, decision.getFileSize());
+
+        assertLow(Reason.METERED_NETWORK, VideoEncodingSelector.decideDownload(videos,
+                new Conditions(0, true, true, 4 * MemoryUtil.GB)));
+        assertLow(Reason.SMALL_SCREEN, VideoEncodingSelector.decideDownload(videos,
+                new Conditions(0, false, false, 4 * MemoryUtil.GB)));
+        assertLow(Reason.LOW_STORAGE, VideoEncodingSelector.decideDownload(videos,
+                new Conditions(0, false, true, MemoryUtil.GB)));
+    }
+
+    @Test
+    public void testDownloadWithoutMobileEncodings() {
+        EncodedVideos videos = createEncodedVideos();
+        videos.mobileHigh = null;
+        videos.mobileLow = null;
+        Decision decision = VideoEncodingSelector.decideDownload(videos,
+                new Conditions(0, false, true, 4 * MemoryUtil.GB));
+        assertEquals(Reason.ONLY_ENCODING, decision.getReason());
+        assertEquals(FALLBACK_URL, decision.getUrl());
+
+        videos.fallback = null;
+        assertNull(VideoEncodingSelector.decideDownload(videos,
+                new Conditions(0, false, true, 4 * MemoryUtil.GB)).getUrl());
+    }
+
+    private static void assertLow(Reason reason, Decision decision) {
+        assertEquals(EncodingLevel.LOW, decision.getLevel());
+        assertEquals(reason, decision.getReason());
+        assertEquals(LOW_URL, decision.getUrl());
+    }
+
+    private static DownloadEntry createVideo() {
+        DownloadEntry video = new DownloadEntry();
+        video.url = FALLBACK_URL;
+        video.url_high_quality = HIGH_URL;
+        video.url_low_quality = LOW_URL;
+        return video;
+    }
+
+    private static EncodedVideos createEncodedVideos() {
+        EncodedVideos videos = new EncodedVideos();
+        videos.mobileHigh = createVideoInfo(HIGH_URL, 200 * 1024 * 1024);
+        videos.mobileLow = createVideoInfo(LOW_URL, 50 * 1024 * 1024);
+        videos.fallback = createVideoInfo(FALLBACK_URL, 400 * 1024 * 1024);
+        return videos;
+    }
+
+    private static VideoInfo createVideoInfo(String url, long fileSize) {
+        VideoInfo info = new VideoInfo();
+        info.url = url;
+        info.fileSize = fileSize;
+        return info;
+    }
+}
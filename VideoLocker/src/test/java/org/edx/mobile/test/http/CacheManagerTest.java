@@ -0,0 +1,127 @@
+package org.edx.mobile.test.http;
+
+import org.edx.mobile.http.cache.CacheManager;
+import org.edx.mobile.test.BaseTest;
+import org.edx.mobile.util.IOUtils;
+import org.edx.mobile.util.Sha1Util;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CacheManagerTest extends BaseTest {
+    private static final int RESPONSE_SIZE = 100;
+    private static final long MAX_SIZE = 3 * RESPONSE_SIZE;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File cacheFolder;
+    private CacheManager cacheManager;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheFolder = temporaryFolder.newFolder("http-cache");
+        cacheManager = new CacheManager(cacheFolder, MAX_SIZE, 1024);
+    }
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        assertNull(cacheManager.get("http://example.com/a"));
+        assertNull(cacheManager.getVersion("http://example.com/a"));
+
+        cacheManager.put("http://example.com/a", response('a'));
+        assertTrue(cacheManager.has("http://example.com/a"));
+        assertEquals(response('a'), cacheManager.get("http://example.com/a"));
+        assertNotNull(cacheManager.getVersion("http://example.com/a"));
+
+        cacheManager.put("http://example.com/a", response('b'));
+        assertEquals(response('b'), cacheManager.get("http://example.com/a"));
+
+        CacheManager.Stats stats = cacheManager.getStats();
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(2, stats.getPutCount());
+        assertEquals(RESPONSE_SIZE, stats.getSize());
+    }
+
+    @Test
+    public void testPutAndGetStream() throws Exception {
+        assertNull(cacheManager.getInputStream("http://example.com/a"));
+
+        cacheManager.put("http://example.com/a",
+                new ByteArrayInputStream(response('a').getBytes()));
+        InputStream in = cacheManager.getInputStream("http://example.com/a");
+        assertNotNull(in);
+        try {
+            // The opened response can still be read after it's replaced
+            cacheManager.put("http://example.com/a", response('b'));
+            assertEquals(response('a'), IOUtils.toString(in, Charset.defaultCharset()));
+        } finally {
+            in.close();
+        }
+        assertEquals(response('b'), cacheManager.get("http://example.com/a"));
+
+        CacheManager.Stats stats = cacheManager.getStats();
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(2, stats.getPutCount());
+        assertEquals(RESPONSE_SIZE, stats.getSize());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        cacheManager.put("http://example.com/a", response('a'));
+        cacheManager.put("http://example.com/b", response('b'));
+        cacheManager.put("http://example.com/c", response('c'));
+        // Makes "b" the least recently used response
+        cacheManager.get("http://example.com/a");
+
+        cacheManager.put("http://example.com/d", response('d'));
+
+        assertFalse(cacheManager.has("http://example.com/b"));
+        assertFalse(new File(cacheFolder, Sha1Util.SHA1("http://example.com/b")).exists());
+        assertTrue(cacheManager.has("http://example.com/a"));
+        assertTrue(cacheManager.has("http://example.com/c"));
+        assertTrue(cacheManager.has("http://example.com/d"));
+
+        CacheManager.Stats stats = cacheManager.getStats();
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(MAX_SIZE, stats.getSize());
+    }
+
+    @Test
+    public void testExistingFilesIndexed() throws Exception {
+        cacheManager.put("http://example.com/a", response('a'));
+        File stray = new File(cacheFolder, "0123.tmp");
+        FileOutputStream out = new FileOutputStream(stray);
+        out.write(1);
+        out.close();
+
+        CacheManager reopened = new CacheManager(cacheFolder, MAX_SIZE, 1024);
+        assertEquals(response('a'), reopened.get("http://example.com/a"));
+        assertEquals(RESPONSE_SIZE, reopened.getStats().getSize());
+        // Left over by an interrupted write
+        assertFalse(stray.exists());
+    }
+
+    private static String response(char c) {
+        StringBuilder builder = new StringBuilder(RESPONSE_SIZE);
+        for (int i = 0; i < RESPONSE_SIZE; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
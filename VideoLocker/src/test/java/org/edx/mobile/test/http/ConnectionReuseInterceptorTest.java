@@ -0,0 +1,77 @@
+package org.edx.mobile.test.http;
+
+import org.edx.mobile.http.ConnectionReuseInterceptor;
+import org.edx.mobile.test.util.OkHttpTestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConnectionReuseInterceptorTest {
+    private MockWebServer server;
+    private ConnectionReuseInterceptor interceptor;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        interceptor = new ConnectionReuseInterceptor();
+        OkHttpClient.Builder builder = OkHttpTestUtil.defaultClient().newBuilder();
+        builder.networkInterceptors().add(interceptor);
+        client = builder.build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void testCountsReusedConnections() throws Exception {
+        final List<Boolean> reports = new ArrayList<>();
+        interceptor.setListener(new ConnectionReuseInterceptor.Listener() {
+            @Override
+            public void onConnectionUsed(String host, boolean reused) {
+                reports.add(reused);
+            }
+        });
+        assertEquals(0, interceptor.getReuseRate(), 0);
+
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setBody("body"));
+            client.newCall(new Request.Builder().url(server.url("/")).build())
+                    .execute().body().close();
+        }
+
+        assertEquals(3, interceptor.getRequestCount());
+        assertEquals(2, interceptor.getReusedCount());
+        assertEquals(2f / 3, interceptor.getReuseRate(), 0.001);
+        assertEquals(3, reports.size());
+        assertEquals(false, reports.get(0));
+        assertEquals(true, reports.get(2));
+    }
+
+    @Test
+    public void testDerivedClientsShareConnections() throws Exception {
+        OkHttpClient derived = client.newBuilder().build();
+
+        server.enqueue(new MockResponse().setBody("body"));
+        client.newCall(new Request.Builder().url(server.url("/")).build())
+                .execute().body().close();
+        server.enqueue(new MockResponse().setBody("body"));
+        derived.newCall(new Request.Builder().url(server.url("/")).build())
+                .execute().body().close();
+
+        assertEquals(1, interceptor.getReusedCount());
+    }
+}
@@ -0,0 +1,110 @@
+package org.edx.mobile.test.http;
+
+import org.edx.mobile.http.ThroughputEstimator;
+import org.edx.mobile.http.ThroughputInterceptor;
+import org.edx.mobile.test.BaseTest;
+import org.edx.mobile.test.util.OkHttpTestUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThroughputEstimatorTest extends BaseTest {
+    private static final long KB = 1024;
+    private static final long SECOND_NS = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testEstimateIsWeightedByBytes() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        assertEquals(0, estimator.getKbps(0), 0);
+
+        // 100 KB in 1s, then 900 KB in 3s, is 1000 KB in 4s rather than the mean of the rates
+        estimator.addSample(100 * KB, SECOND_NS, 0);
+        estimator.addSample(900 * KB, 3 * SECOND_NS, 0);
+        assertEquals(250, estimator.getKbps(0), 0.01);
+    }
+
+    @Test
+    public void testSmallSamplesAreIgnored() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        estimator.addSample(ThroughputEstimator.MIN_SAMPLE_BYTES - 1, 1000, 0);
+        estimator.addSample(100 * KB, 0, 0);
+        assertEquals(0, estimator.getSampleCount());
+        assertEquals(0, estimator.getKbps(0), 0);
+    }
+
+    @Test
+    public void testWindow() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        estimator.addSample(100 * KB, SECOND_NS, 0);
+        estimator.addSample(500 * KB, SECOND_NS, ThroughputEstimator.WINDOW_MS / 2);
+        assertEquals(300, estimator.getKbps(ThroughputEstimator.WINDOW_MS / 2), 0.01);
+        // The first sample leaves the window
+        assertEquals(500, estimator.getKbps(ThroughputEstimator.WINDOW_MS + 1), 0.01);
+        assertEquals(1, estimator.getSampleCount());
+        // And so does the second
+        assertEquals(0, estimator.getKbps(2 * ThroughputEstimator.WINDOW_MS), 0);
+
+        for (int i = 0; i < ThroughputEstimator.MAX_SAMPLES + 5; i++) {
+            estimator.addSample(100 * KB, SECOND_NS, 3 * ThroughputEstimator.WINDOW_MS);
+        }
+        assertEquals(ThroughputEstimator.MAX_SAMPLES, estimator.getSampleCount());
+    }
+
+    @Test
+    public void testListenersAreToldOfSignificantChanges() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        final List<Float> changes = new ArrayList<>();
+        estimator.addListener(new ThroughputEstimator.Listener() {
+            @Override
+            public void onThroughputChanged(float kbps) {
+                changes.add(kbps);
+            }
+        });
+
+        estimator.addSample(100 * KB, SECOND_NS, 0);
+        // 110 KB/s is within the margin of the 100 KB/s that was reported
+        estimator.addSample(120 * KB, SECOND_NS, 0);
+        // 230 KB/s isn't
+        estimator.addSample(470 * KB, SECOND_NS, 0);
+
+        assertEquals(2, changes.size());
+        assertEquals(100, changes.get(0), 0.01);
+        assertEquals(230, changes.get(1), 0.01);
+    }
+
+    @Test
+    public void testInterceptorSamplesResponseBodies() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+        try {
+            ThroughputEstimator estimator = new ThroughputEstimator();
+            OkHttpClient.Builder builder = OkHttpTestUtil.defaultClient().newBuilder();
+            builder.networkInterceptors().add(new ThroughputInterceptor(estimator));
+            OkHttpClient client = builder.build();
+
+            final int length = (int) (4 * ThroughputInterceptor.SAMPLE_BYTES);
+            server.enqueue(new MockResponse().setBody(new Buffer().write(new byte[length]))
+                    .throttleBody(64 * KB, 10, TimeUnit.MILLISECONDS));
+            ResponseBody body = client.newCall(new Request.Builder().url(server.url("/")).build())
+                    .execute().body();
+            assertEquals(length, body.bytes().length);
+
+            assertTrue(estimator.getSampleCount() >= 1);
+            assertTrue(estimator.getKbps() > 0);
+        } finally {
+            server.shutdown();
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.google.inject.Injector;
 
 import org.edx.mobile.model.VideoModel;
 import org.edx.mobile.model.api.ProfileModel;
+import org.edx.mobile.model.db.CourseDownloadSummary;
+import org.edx.mobile.model.db.CourseOutlineState;
 import org.edx.mobile.model.db.DownloadEntry;
 import org.edx.mobile.model.db.DownloadEntry.DownloadedState;
 import org.edx.mobile.model.db.DownloadEntry.WatchedState;
@@ -16,6 +18,7 @@ import org.junit.Test;
 import org.robolectric.RuntimeEnvironment;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -1786,6 +1789,107 @@ public class DbTests extends BaseTestCase {
         lock();
     }
 
+    @Test
+    public void testGetDownloadedVideoSummaryByCourse() throws Exception {
+        db.clearDataByUser(username);
+        assertTrue(db.getDownloadedVideoSummaryByCourse(null).isEmpty());
+
+        for (int i = 0; i < 3; i++) {
+            DownloadEntry de = getDummyVideoModel();
+            de.videoId = "videoId-" + i;
+            de.eid = i < 2 ? "course-a" : "course-b";
+            de.downloaded = DownloadedState.DOWNLOADED;
+            db.addVideoData(de, null);
+        }
+        DownloadEntry downloading = getDummyVideoModel();
+        downloading.eid = "course-c";
+        db.addVideoData(downloading, null);
+
+        Map<String, CourseDownloadSummary> summaries = db.getDownloadedVideoSummaryByCourse(null);
+        assertEquals(2, summaries.size());
+        assertEquals(2, summaries.get("course-a").getVideoCount());
+        assertEquals(2 * 1024, summaries.get("course-a").getSize());
+        assertEquals(1, summaries.get("course-b").getVideoCount());
+        assertFalse(summaries.containsKey("course-c"));
+    }
+
+    @Test
+    public void testGetSortedDownloadsByDownloadedDateByCourse() throws Exception {
+        db.clearDataByUser(username);
+        for (int i = 0; i < 3; i++) {
+            DownloadEntry de = getDummyVideoModel();
+            de.videoId = "videoId-" + i;
+            de.eid = i < 2 ? "course-a" : "course-b";
+            de.downloaded = DownloadedState.DOWNLOADED;
+            de.dmId = 1000 + i;
+            de.downloadedOn = 1000 + i;
+            db.addVideoData(de, null);
+            db.updateDownloadCompleteInfoByDmId(de.dmId, de, null);
+        }
+
+        Map<String, List<VideoModel>> videosByCourse =
+                db.getSortedDownloadsByDownloadedDateByCourse(null);
+        assertEquals(2, videosByCourse.size());
+        List<VideoModel> videos = videosByCourse.get("course-a");
+        assertEquals(2, videos.size());
+        // most recent first
+        assertEquals("videoId-1", videos.get(0).getVideoId());
+        assertEquals("videoId-0", videos.get(1).getVideoId());
+        assertEquals(1, videosByCourse.get("course-b").size());
+    }
+
+    @Test
+    public void testGetCourseOutlineState() throws Exception {
+        db.clearDataByUser(username);
+        DownloadEntry downloaded = getDummyVideoModel();
+        downloaded.videoId = "videoId-downloaded";
+        downloaded.downloaded = DownloadedState.DOWNLOADED;
+        downloaded.watched = WatchedState.WATCHED;
+        db.addVideoData(downloaded, null);
+        DownloadEntry downloading = getDummyVideoModel();
+        downloading.videoId = "videoId-downloading";
+        db.addVideoData(downloading, null);
+        DownloadEntry otherCourse = getDummyVideoModel();
+        otherCourse.videoId = "videoId-other";
+        otherCourse.eid = "other_eid";
+        db.addVideoData(otherCourse, null);
+        String unitId = "unitId-" + System.currentTimeMillis();
+        db.updateAccess(null, unitId, true);
+
+        CourseOutlineState state = db.getCourseOutlineState("fake_eid", null);
+        assertNotNull(state.getDownload("videoId-downloaded"));
+        assertNull(state.getDownload("videoId-other"));
+        assertEquals(DownloadedState.DOWNLOADED, state.getDownloadedState("videoId-downloaded"));
+        assertEquals(DownloadedState.ONLINE, state.getDownloadedState("videoId-other"));
+        assertEquals(WatchedState.WATCHED, state.getWatchedState("videoId-downloaded"));
+        assertEquals(WatchedState.UNWATCHED, state.getWatchedState("videoId-downloading"));
+        assertTrue(state.isUnitAccessed(unitId));
+        assertFalse(state.isUnitAccessed("unitId-unknown"));
+        assertEquals(1, state.getDownloadedVideosCount("fake_chapter", "fake_section"));
+        assertEquals(1, state.getDownloadingVideosCount("fake_chapter", "fake_section"));
+
+        // Kept up to date without the database
+        downloading.downloaded = DownloadedState.DOWNLOADED;
+        state.updateDownload(downloading);
+        assertEquals(2, state.getDownloadedVideosCount("fake_chapter", "fake_section"));
+        assertEquals(0, state.getDownloadingVideosCount("fake_chapter", "fake_section"));
+        state.removeDownload("videoId-downloaded");
+        assertEquals(DownloadedState.ONLINE, state.getDownloadedState("videoId-downloaded"));
+        assertEquals(1, state.getDownloadedVideosCount("fake_chapter", "fake_section"));
+    }
+
+    @Test
+    public void testUpdateAccess() throws Exception {
+        String unitId = "unitId-" + System.currentTimeMillis();
+        assertFalse(db.isUnitAccessed(null, unitId));
+
+        assertEquals(Integer.valueOf(1), db.updateAccess(null, unitId, true));
+        assertTrue(db.isUnitAccessed(null, unitId));
+
+        assertEquals(Integer.valueOf(1), db.updateAccess(null, unitId, false));
+        assertFalse(db.isUnitAccessed(null, unitId));
+    }
+
     private void lock() throws InterruptedException {
         synchronized (lock) {
             lock.wait(1000); // in milliseconds
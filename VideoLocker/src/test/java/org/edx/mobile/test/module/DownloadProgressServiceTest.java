@@ -0,0 +1,144 @@
+package org.edx.mobile.test.module;
+
+import android.support.annotation.NonNull;
+
+import org.edx.mobile.model.VideoModel;
+import org.edx.mobile.model.db.DownloadEntry;
+import org.edx.mobile.model.download.NativeDownloadModel;
+import org.edx.mobile.module.db.DataCallback;
+import org.edx.mobile.module.db.IDatabase;
+import org.edx.mobile.module.download.DownloadProgressService;
+import org.edx.mobile.module.download.DownloadProgressSnapshot;
+import org.edx.mobile.module.download.IDownloadManager;
+import org.edx.mobile.test.BaseTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DownloadProgressServiceTest extends BaseTest {
+    private IDatabase database;
+    private IDownloadManager downloadManager;
+    private DownloadProgressService service;
+
+    @Before
+    public void setUp() {
+        database = mock(IDatabase.class);
+        downloadManager = mock(IDownloadManager.class);
+        List<VideoModel> ongoingDownloads = new ArrayList<>();
+        ongoingDownloads.add(createDownload(1));
+        ongoingDownloads.add(createDownload(2));
+        when(database.getListOfOngoingDownloads((DataCallback<List<VideoModel>>) isNull()))
+                .thenReturn(ongoingDownloads);
+        when(downloadManager.getDownloads(any(long[].class))).thenReturn(Arrays.asList(
+                createNativeDownload(1, 25, 100), createNativeDownload(2, 75, 100)));
+        service = new DownloadProgressService(database, downloadManager, new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                command.run();
+            }
+        });
+    }
+
+    @Test
+    public void testSnapshot() {
+        RecordingListener listener = new RecordingListener();
+        service.subscribe(listener);
+
+        assertEquals(1, listener.snapshots.size());
+        DownloadProgressSnapshot snapshot = listener.snapshots.get(0);
+        assertTrue(snapshot.isAnyVideoDownloading());
+        assertEquals(2, snapshot.getOngoingDownloads().size());
+        assertEquals(50, snapshot.getAverageProgress());
+        assertEquals(75, snapshot.getNativeDownload(2).downloaded);
+        assertNull(snapshot.getNativeDownload(3));
+        service.unsubscribe(listener);
+    }
+
+    @Test
+    public void testSubscribersShareOneQuery() {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        service.subscribe(first);
+        service.subscribe(second);
+        // The second subscriber is sent the snapshot that was just polled
+        assertSame(first.snapshots.get(0), second.snapshots.get(0));
+        verify(downloadManager, times(1)).getDownloads(any(long[].class));
+
+        ShadowLooper.idleMainLooper(DownloadProgressService.POLL_INTERVAL_MS);
+        verify(downloadManager, times(2)).getDownloads(any(long[].class));
+        assertEquals(2, first.snapshots.size());
+        assertEquals(2, second.snapshots.size());
+        assertSame(first.snapshots.get(1), second.snapshots.get(1));
+
+        service.unsubscribe(first);
+        service.unsubscribe(second);
+    }
+
+    @Test
+    public void testNoPollingWithoutSubscribers() {
+        RecordingListener listener = new RecordingListener();
+        service.subscribe(listener);
+        service.unsubscribe(listener);
+
+        ShadowLooper.idleMainLooper(10 * DownloadProgressService.POLL_INTERVAL_MS);
+        verify(database, times(1)).getListOfOngoingDownloads(
+                (DataCallback<List<VideoModel>>) isNull());
+        assertEquals(1, listener.snapshots.size());
+    }
+
+    @Test
+    public void testNoDownloads() {
+        when(database.getListOfOngoingDownloads((DataCallback<List<VideoModel>>) isNull()))
+                .thenReturn(new ArrayList<VideoModel>());
+        RecordingListener listener = new RecordingListener();
+        service.subscribe(listener);
+
+        DownloadProgressSnapshot snapshot = listener.snapshots.get(0);
+        assertFalse(snapshot.isAnyVideoDownloading());
+        assertEquals(0, snapshot.getAverageProgress());
+        // DownloadManager isn't queried for nothing
+        verify(downloadManager, times(0)).getDownloads(any(long[].class));
+        service.unsubscribe(listener);
+    }
+
+    private static DownloadEntry createDownload(long dmId) {
+        DownloadEntry download = new DownloadEntry();
+        download.dmId = dmId;
+        return download;
+    }
+
+    private static NativeDownloadModel createNativeDownload(long dmid, long downloaded,
+                                                            long size) {
+        NativeDownloadModel download = new NativeDownloadModel();
+        download.dmid = dmid;
+        download.downloaded = downloaded;
+        download.size = size;
+        return download;
+    }
+
+    private static class RecordingListener implements DownloadProgressService.Listener {
+        final List<DownloadProgressSnapshot> snapshots = new ArrayList<>();
+
+        @Override
+        public void onDownloadProgress(@NonNull DownloadProgressSnapshot snapshot) {
+            snapshots.add(snapshot);
+        }
+    }
+}
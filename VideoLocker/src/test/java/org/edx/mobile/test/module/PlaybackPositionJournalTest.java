@@ -0,0 +1,73 @@
+package org.edx.mobile.test.module;
+
+import org.edx.mobile.module.db.DataCallback;
+import org.edx.mobile.module.db.IDatabase;
+import org.edx.mobile.module.db.PlaybackPositionJournal;
+import org.edx.mobile.test.BaseTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class PlaybackPositionJournalTest extends BaseTest {
+    private IDatabase database;
+
+    @Before
+    public void setUp() {
+        database = mock(IDatabase.class);
+    }
+
+    @Test
+    public void testTicksAreCoalesced() {
+        PlaybackPositionJournal journal = new PlaybackPositionJournal(database, Long.MAX_VALUE);
+        for (int offset = 1000; offset <= 60000; offset += 1000) {
+            journal.record("video", offset);
+        }
+        verify(database, never()).updateVideoLastPlayedOffset(anyString(), anyInt(),
+                any(DataCallback.class));
+
+        journal.flush();
+        verify(database).updateVideoLastPlayedOffset(eq("video"), eq(60000),
+                any(DataCallback.class));
+
+        // Nothing left to write
+        journal.flush();
+        verifyNoMoreInteractions(database);
+    }
+
+    @Test
+    public void testAnotherVideoFlushes() {
+        PlaybackPositionJournal journal = new PlaybackPositionJournal(database, Long.MAX_VALUE);
+        journal.record("first", 1000);
+        journal.record("first", 2000);
+        journal.record("second", 3000);
+        verify(database).updateVideoLastPlayedOffset(eq("first"), eq(2000),
+                any(DataCallback.class));
+        verifyNoMoreInteractions(database);
+
+        journal.flush();
+        verify(database).updateVideoLastPlayedOffset(eq("second"), eq(3000),
+                any(DataCallback.class));
+    }
+
+    @Test
+    public void testFlushInterval() {
+        PlaybackPositionJournal journal = new PlaybackPositionJournal(database, 0);
+        journal.record("video", 1000);
+        journal.record("video", 0);
+        InOrder order = inOrder(database);
+        order.verify(database).updateVideoLastPlayedOffset(eq("video"), eq(1000),
+                any(DataCallback.class));
+        order.verify(database).updateVideoLastPlayedOffset(eq("video"), eq(0),
+                any(DataCallback.class));
+    }
+}
@@ -3,6 +3,7 @@ package com.joanzapata.iconify;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.ColorFilter;
@@ -28,6 +29,7 @@ import android.util.LayoutDirection;
 import android.util.StateSet;
 import android.util.TypedValue;
 import android.view.View;
+import com.joanzapata.iconify.internal.IconBitmapCache;
 
 import static android.os.Build.VERSION.SDK_INT;
 import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR1;
@@ -46,6 +48,10 @@ import static android.view.View.LAYOUT_DIRECTION_RTL;
  * If you don't set the size of the drawable, it will use the size
  * that is given to him. Note that in an ActionBar, if you don't
  * set the size explicitly it uses 0, so please use actionBarSize().
+ * <p>
+ * If the bitmap cache is enabled with {@link Iconify#setBitmapCacheSize(int)},
+ * icons that aren't animated are drawn from a bitmap that's only
+ * rendered once for each icon, size, color and style.
  */
 public final class IconDrawable extends Drawable implements Animatable {
     private static final int DEFAULT_COLOR = Color.BLACK;
@@ -85,6 +91,8 @@ public final class IconDrawable extends Drawable implements Animatable {
     private float centerX, centerY;
     @Nullable
     private Runnable invalidateRunnable;
+    @Nullable
+    private Bitmap bitmap;
 
     @CheckResult
     @NonNull
@@ -196,6 +204,7 @@ public final class IconDrawable extends Drawable implements Animatable {
             paint.getTextBounds(text, 0, 1, TEMP_DRAW_BOUNDS);
             iconState.width = TEMP_DRAW_BOUNDS.width();
         }
+        bitmap = null;
         return this;
     }
 
@@ -220,6 +229,7 @@ public final class IconDrawable extends Drawable implements Animatable {
             iconState.colorStateList = colorStateList;
             color = iconState.colorStateList.getColorForState(StateSet.WILD_CARD, DEFAULT_COLOR);
             paint.setColor(color);
+            bitmap = null;
             invalidateSelf();
         }
         return this;
@@ -309,6 +319,7 @@ public final class IconDrawable extends Drawable implements Animatable {
                 bounds.top + (height - drawBounds.height()) / 2 - drawBounds.bottom);
         centerX = bounds.exactCenterX();
         centerY = bounds.exactCenterY();
+        bitmap = null;
     }
 
     @Override
@@ -366,10 +377,42 @@ public final class IconDrawable extends Drawable implements Animatable {
                 invalidateSelf();
             }
         }
-        canvas.drawText(text, centerX, drawBounds.bottom, paint);
+        if (iconState.spinning || !drawCachedBitmap(canvas)) {
+            canvas.drawText(text, centerX, drawBounds.bottom, paint);
+        }
         canvas.restore();
     }
 
+    // Draws the icon from the bitmap cache if it's enabled, rendering it first if needed.
+    @CheckResult
+    private boolean drawCachedBitmap(@NonNull Canvas canvas) {
+        if (!IconBitmapCache.isEnabled()) return false;
+        final Rect bounds = getBounds();
+        final int width = bounds.width();
+        final int height = bounds.height();
+        if (width <= 0 || height <= 0) return false;
+        if (bitmap == null) {
+            // The bitmap is rendered opaque, as the alpha and the color
+            // filters are applied by the paint when it's drawn.
+            final int opaqueColor = color | 0xFF000000;
+            final IconBitmapCache.Key key = new IconBitmapCache.Key(
+                    iconState.icon, width, height, opaqueColor, iconState.style);
+            bitmap = IconBitmapCache.get(key);
+            if (bitmap == null) {
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+                final TextPaint bitmapPaint = new TextPaint(paint);
+                bitmapPaint.setColorFilter(null);
+                bitmapPaint.setColor(opaqueColor);
+                final Canvas bitmapCanvas = new Canvas(bitmap);
+                bitmapCanvas.translate(-bounds.left, -bounds.top);
+                bitmapCanvas.drawText(text, centerX, drawBounds.bottom, bitmapPaint);
+                IconBitmapCache.put(key, bitmap);
+            }
+        }
+        canvas.drawBitmap(bitmap, bounds.left, bounds.top, paint);
+        return true;
+    }
+
     @Override
     @CheckResult
     public boolean isStateful() {
@@ -386,6 +429,7 @@ public final class IconDrawable extends Drawable implements Animatable {
             color = newColor;
             paint.setColor(color);
             setModulatedAlpha();
+            bitmap = null;
             changed = true;
         }
 
@@ -511,6 +555,7 @@ public final class IconDrawable extends Drawable implements Animatable {
         if (style != iconState.style) {
             iconState.style = style;
             paint.setStyle(style);
+            bitmap = null;
             invalidateSelf();
         }
     }
@@ -1,21 +1,28 @@
 package com.joanzapata.iconify;
 
 import android.support.annotation.CheckResult;
+import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.Size;
 import android.widget.TextView;
+import com.joanzapata.iconify.internal.IconBitmapCache;
 import com.joanzapata.iconify.internal.IconFontDescriptorWrapper;
 import com.joanzapata.iconify.internal.ParsingUtil;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Iconify {
 
     /** List of icon font descriptors */
     private static List<IconFontDescriptorWrapper> iconFontDescriptors = new ArrayList<IconFontDescriptorWrapper>();
 
+    /** The icon font descriptor of each icon, built as they're added */
+    private static Map<Icon, IconFontDescriptorWrapper> iconFontDescriptorsByIcon = new HashMap<Icon, IconFontDescriptorWrapper>();
+
     /**
      * Add support for a new icon font.
      * @param iconFontDescriptor The IconDescriptor holding the ttf file reference and its mappings.
@@ -40,6 +47,16 @@ public class Iconify {
         }
     }
 
+    /**
+     * Set the size of the cache of the bitmaps that {@link IconDrawable}s draw their icons from,
+     * when they aren't spinning or pulsing. It's disabled by default, and is meant for screens
+     * that draw many of the same icons, like the rows of a list.
+     * @param maxBytes The maximum size of the cache in bytes, or 0 to disable it.
+     */
+    public static void setBitmapCacheSize(@IntRange(from = 0) int maxBytes) {
+        IconBitmapCache.setMaxSize(maxBytes);
+    }
+
     private static void addIconFontDescriptor(@NonNull IconFontDescriptor iconFontDescriptor) {
 
         // Prevent duplicates
@@ -51,7 +68,15 @@ public class Iconify {
         }
 
         // Add to the list
-        iconFontDescriptors.add(new IconFontDescriptorWrapper(iconFontDescriptor));
+        IconFontDescriptorWrapper wrapper = new IconFontDescriptorWrapper(iconFontDescriptor);
+        iconFontDescriptors.add(wrapper);
+
+        // Index its icons, keeping the first font that was added for any duplicates
+        for (Icon icon : iconFontDescriptor.characters()) {
+            if (!iconFontDescriptorsByIcon.containsKey(icon)) {
+                iconFontDescriptorsByIcon.put(icon, wrapper);
+            }
+        }
 
     }
 
@@ -92,12 +117,7 @@ public class Iconify {
     @CheckResult
     @Nullable
     public static IconFontDescriptorWrapper findTypefaceOf(@NonNull Icon icon) {
-        for (IconFontDescriptorWrapper iconFontDescriptor : iconFontDescriptors) {
-            if (iconFontDescriptor.hasIcon(icon)) {
-                return iconFontDescriptor;
-            }
-        }
-        return null;
+        return iconFontDescriptorsByIcon.get(icon);
     }
 
 
@@ -0,0 +1,121 @@
+package com.joanzapata.iconify.internal;
+
+import android.graphics.Bitmap;
+import android.graphics.Paint;
+import android.support.annotation.CheckResult;
+import android.support.annotation.ColorInt;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.joanzapata.iconify.Icon;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the icons that have already been rendered to bitmaps, so that the drawables of static
+ * icons can draw them rather than shaping their text on every frame. It's disabled until it's
+ * given a size with {@link #setMaxSize(int)}, after which the least recently used bitmaps are
+ * evicted once their total size goes over it.
+ */
+public final class IconBitmapCache {
+
+    // The following are guarded by the class lock
+    private static final Map<Key, Bitmap> bitmaps = new LinkedHashMap<Key, Bitmap>(16, 0.75f, true);
+    private static int maxSize;
+    private static int size;
+
+    // Prevents instantiation
+    private IconBitmapCache() {}
+
+    /**
+     * Set the maximum size of the cache.
+     * @param maxBytes The maximum size in bytes, or 0 to disable the cache.
+     */
+    public static synchronized void setMaxSize(@IntRange(from = 0) int maxBytes) {
+        maxSize = maxBytes;
+        trimToSize();
+    }
+
+    @CheckResult
+    public static synchronized boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    @CheckResult
+    @Nullable
+    public static synchronized Bitmap get(@NonNull Key key) {
+        return bitmaps.get(key);
+    }
+
+    public static synchronized void put(@NonNull Key key, @NonNull Bitmap bitmap) {
+        final int bitmapSize = getSize(bitmap);
+        if (bitmapSize > maxSize) return;
+        final Bitmap previous = bitmaps.put(key, bitmap);
+        if (previous != null) {
+            size -= getSize(previous);
+        }
+        size += bitmapSize;
+        trimToSize();
+    }
+
+    private static void trimToSize() {
+        final Iterator<Bitmap> iterator = bitmaps.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            // The drawables may still be holding the evicted bitmaps, so they're left to be
+            // garbage collected rather than recycled
+            size -= getSize(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    // Bitmap.getByteCount() is only available from API 12
+    private static int getSize(@NonNull Bitmap bitmap) {
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    /**
+     * What the rendering of an icon depends on. The alpha and the colour filters aren't
+     * included, as they're applied when the bitmap is drawn.
+     */
+    public static final class Key {
+        @NonNull
+        private final Icon icon;
+        private final int width;
+        private final int height;
+        @ColorInt
+        private final int color;
+        @NonNull
+        private final Paint.Style style;
+
+        public Key(@NonNull Icon icon, int width, int height, @ColorInt int color,
+                   @NonNull Paint.Style style) {
+            this.icon = icon;
+            this.width = width;
+            this.height = height;
+            this.color = color;
+            this.style = style;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key other = (Key) o;
+            return icon.equals(other.icon) && width == other.width && height == other.height &&
+                    color == other.color && style == other.style;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = icon.hashCode();
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + color;
+            result = 31 * result + style.hashCode();
+            return result;
+        }
+    }
+}
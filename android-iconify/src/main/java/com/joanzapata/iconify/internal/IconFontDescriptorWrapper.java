@@ -58,6 +58,6 @@ public class IconFontDescriptorWrapper {
 
     @CheckResult
     public boolean hasIcon(@NonNull Icon icon) {
-        return iconsByKey.values().contains(icon);
+        return icon.equals(iconsByKey.get(icon.key()));
     }
 }
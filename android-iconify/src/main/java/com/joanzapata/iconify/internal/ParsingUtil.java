@@ -3,22 +3,55 @@ package com.joanzapata.iconify.internal;
 import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.Color;
+import android.graphics.Typeface;
 import android.support.annotation.CheckResult;
 import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
 import android.support.annotation.Size;
 import android.text.SpannableStringBuilder;
 import android.text.Spanned;
+import android.util.DisplayMetrics;
 import android.util.TypedValue;
 import android.widget.TextView;
 import com.joanzapata.iconify.Icon;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 public final class ParsingUtil {
 
     private static final String ANDROID_PACKAGE_NAME = "android";
 
+    // Compiled once, rather than by String.matches() for every stroke
+    private static final Pattern DP_PATTERN = Pattern.compile("([0-9]*(\\.[0-9]*)?)dp");
+    private static final Pattern SP_PATTERN = Pattern.compile("([0-9]*(\\.[0-9]*)?)sp");
+    private static final Pattern PX_PATTERN = Pattern.compile("([0-9]*)px");
+    private static final Pattern PERCENT_PATTERN = Pattern.compile("([0-9]*(\\.[0-9]*)?)%");
+    private static final Pattern HEX_COLOR_PATTERN =
+            Pattern.compile("#([0-9A-Fa-f]{6}|[0-9A-Fa-f]{8})");
+
+    private static final String DIMEN_PREFIX = "@dimen/";
+    private static final String ANDROID_DIMEN_PREFIX = "@android:dimen/";
+    private static final String COLOR_PREFIX = "@color/";
+    private static final String ANDROID_COLOR_PREFIX = "@android:color/";
+
+    /**
+     * The number of parsed texts that are kept, so that the views that are bound to the same
+     * text again, like the rows of a list, only need to have the spans applied.
+     */
+    private static final int TEMPLATE_CACHE_SIZE = 128;
+
+    private static final Map<TemplateKey, Template> templateCache =
+            new LinkedHashMap<TemplateKey, Template>(TEMPLATE_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<TemplateKey, Template> eldest) {
+                    return size() > TEMPLATE_CACHE_SIZE;
+                }
+            };
+
     // Prevents instantiation
     private ParsingUtil() {}
 
@@ -31,121 +64,254 @@ public final class ParsingUtil {
             List<IconFontDescriptorWrapper> iconFontDescriptors,
             @NonNull
             CharSequence text) {
-        final SpannableStringBuilder spannableBuilder = new SpannableStringBuilder(text);
-        recursivePrepareSpannableIndexes(targetView,
-                text.toString(), spannableBuilder,
-                iconFontDescriptors, 0);
-        return spannableBuilder;
+        if (text instanceof Spanned) {
+            // The spans of the text have to be kept, so the tokens are replaced in place
+            final List<Token> tokens = tokenize(targetView.getContext(),
+                    text.toString(), iconFontDescriptors);
+            final SpannableStringBuilder spannableBuilder = new SpannableStringBuilder(text);
+            // From the end, so that the indexes of the earlier tokens stay valid
+            for (int i = tokens.size() - 1; i >= 0; i--) {
+                final Token token = tokens.get(i);
+                spannableBuilder.replace(token.start, token.end,
+                        String.valueOf(token.icon.character()));
+                spannableBuilder.setSpan(token.createSpan(targetView),
+                        token.start, token.start + 1, Spanned.SPAN_INCLUSIVE_EXCLUSIVE);
+            }
+            return spannableBuilder;
+        }
+
+        final Context context = targetView.getContext();
+        final TemplateKey key = new TemplateKey(context.getResources(),
+                text.toString(), iconFontDescriptors.size());
+        Template template;
+        synchronized (templateCache) {
+            template = templateCache.get(key);
+        }
+        if (template == null) {
+            template = new Template(key.text,
+                    tokenize(context, key.text, iconFontDescriptors));
+            synchronized (templateCache) {
+                templateCache.put(key, template);
+            }
+        }
+        return template.apply(targetView);
     }
 
-    // Analyse the text and replace {} blocks with the appropriate character
-    // Retain all transformations in the accumulator
-    private static void recursivePrepareSpannableIndexes(
+    // Analyse the text in a single pass, and find the {} blocks that have a matching icon
+    @NonNull
+    private static List<Token> tokenize(
             @NonNull
-            TextView targetView,
+            Context context,
+            @NonNull
+            String text,
+            @NonNull @Size(min = 1)
+            List<IconFontDescriptorWrapper> iconFontDescriptors) {
+        final List<Token> tokens = new ArrayList<Token>();
+        int index = 0;
+        while (true) {
+            // Try to find a {...} in the string and extract expression from it
+            final int startIndex = text.indexOf('{', index);
+            if (startIndex == -1) break;
+            final int closingIndex = text.indexOf('}', startIndex);
+            if (closingIndex == -1) break;
+            final int endIndex = closingIndex + 1;
+            index = endIndex;
+            final String expression = text.substring(startIndex + 1, closingIndex);
+
+            // Split the expression and retrieve the icon key
+            final String[] strokes = expression.split(" ");
+            final String key = strokes[0];
+
+            // Loop through the descriptors to find a key match
+            IconFontDescriptorWrapper iconFontDescriptor = null;
+            Icon icon = null;
+            for (int i = 0; i < iconFontDescriptors.size(); i++) {
+                iconFontDescriptor = iconFontDescriptors.get(i);
+                icon = iconFontDescriptor.getIcon(key);
+                if (icon != null) break;
+            }
+
+            // If no match, ignore and continue
+            if (icon == null) continue;
+
+            final Token token = new Token(startIndex, endIndex, icon,
+                    iconFontDescriptor.getTypeface(context));
+            for (int i = 1; i < strokes.length; i++) {
+                applyStroke(context, text, strokes[i], token);
+            }
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    // Apply a stroke within {} to the token
+    private static void applyStroke(
+            @NonNull
+            Context context,
             @NonNull
             String fullText,
             @NonNull
-            SpannableStringBuilder text,
-            @NonNull @Size(min = 1)
-            List<IconFontDescriptorWrapper> iconFontDescriptors,
-            @IntRange(from = 0)
-            int start) {
+            String stroke,
+            @NonNull
+            Token token) {
+        // Look for "spin"
+        if (stroke.equalsIgnoreCase("spin")) {
+            token.animation = Animation.SPIN;
+        }
 
-        // Try to find a {...} in the string and extract expression from it
-        String stringText = text.toString();
-        int startIndex = stringText.indexOf("{", start);
-        if (startIndex == -1) return;
-        int endIndex = stringText.indexOf("}", startIndex) + 1;
-        String expression = stringText.substring(startIndex + 1, endIndex - 1);
+        // Look for "pulse"
+        else if (stroke.equalsIgnoreCase("pulse")) {
+            token.animation = Animation.PULSE;
+        }
 
-        // Split the expression and retrieve the icon key
-        String[] strokes = expression.split(" ");
-        String key = strokes[0];
+        // Look for "baseline"
+        else if (stroke.equalsIgnoreCase("baseline")) {
+            token.baselineAligned = true;
+        }
 
-        // Loop through the descriptors to find a key match
-        IconFontDescriptorWrapper iconFontDescriptor = null;
-        Icon icon = null;
-        for (int i = 0; i < iconFontDescriptors.size(); i++) {
-            iconFontDescriptor = iconFontDescriptors.get(i);
-            icon = iconFontDescriptor.getIcon(key);
-            if (icon != null) break;
+        // Look for an icon size
+        else if (DP_PATTERN.matcher(stroke).matches()) {
+            token.iconSizePx = dpToPx(context, Float.valueOf(stroke.substring(0, stroke.length() - 2)));
+        } else if (SP_PATTERN.matcher(stroke).matches()) {
+            token.iconSizePx = spToPx(context, Float.valueOf(stroke.substring(0, stroke.length() - 2)));
+        } else if (PX_PATTERN.matcher(stroke).matches()) {
+            token.iconSizePx = Integer.valueOf(stroke.substring(0, stroke.length() - 2));
+        } else if (stroke.startsWith(DIMEN_PREFIX)) {
+            token.iconSizePx = getPxFromDimen(context, context.getPackageName(),
+                    stroke.substring(DIMEN_PREFIX.length()));
+            if (token.iconSizePx < 0)
+                throw new IllegalArgumentException("Unknown resource " + stroke + " in \"" + fullText + "\"");
+        } else if (stroke.startsWith(ANDROID_DIMEN_PREFIX)) {
+            token.iconSizePx = getPxFromDimen(context, ANDROID_PACKAGE_NAME,
+                    stroke.substring(ANDROID_DIMEN_PREFIX.length()));
+            if (token.iconSizePx < 0)
+                throw new IllegalArgumentException("Unknown resource " + stroke + " in \"" + fullText + "\"");
+        } else if (PERCENT_PATTERN.matcher(stroke).matches()) {
+            token.iconSizeRatio = Float.valueOf(stroke.substring(0, stroke.length() - 1)) / 100f;
         }
 
-        // If no match, ignore and continue
-        if (icon == null) {
-            recursivePrepareSpannableIndexes(targetView, fullText, text, iconFontDescriptors, endIndex);
-            return;
+        // Look for an icon color
+        else if (HEX_COLOR_PATTERN.matcher(stroke).matches()) {
+            token.iconColor = Color.parseColor(stroke);
+        } else if (stroke.startsWith(COLOR_PREFIX)) {
+            token.iconColor = getColorFromResource(context, context.getPackageName(),
+                    stroke.substring(COLOR_PREFIX.length()));
+            if (token.iconColor == Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Unknown resource " + stroke + " in \"" + fullText + "\"");
+        } else if (stroke.startsWith(ANDROID_COLOR_PREFIX)) {
+            token.iconColor = getColorFromResource(context, ANDROID_PACKAGE_NAME,
+                    stroke.substring(ANDROID_COLOR_PREFIX.length()));
+            if (token.iconColor == Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Unknown resource " + stroke + " in \"" + fullText + "\"");
+        } else {
+            throw new IllegalArgumentException("Unknown expression " + stroke + " in \"" + fullText + "\"");
         }
+    }
 
-        // See if any more stroke within {} should be applied
-        Context context = targetView.getContext();
+    // A {} block of the text, and the icon and strokes it resolved to
+    private static final class Token {
+        final int start;
+        final int end;
+        @NonNull
+        final Icon icon;
+        @NonNull
+        final Typeface typeface;
         float iconSizePx = -1;
         int iconColor = Integer.MAX_VALUE;
         float iconSizeRatio = -1;
+        @NonNull
         Animation animation = Animation.NONE;
         boolean baselineAligned = false;
-        for (int i = 1; i < strokes.length; i++) {
-            String stroke = strokes[i];
 
-            // Look for "spin"
-            if (stroke.equalsIgnoreCase("spin")) {
-                animation = Animation.SPIN;
-            }
+        Token(int start, int end, @NonNull Icon icon, @NonNull Typeface typeface) {
+            this.start = start;
+            this.end = end;
+            this.icon = icon;
+            this.typeface = typeface;
+        }
 
-            // Look for "pulse"
-            else if (stroke.equalsIgnoreCase("pulse")) {
-                animation = Animation.PULSE;
-            }
+        // The spans hold the view and their animation state, so each view gets its own
+        @NonNull
+        CustomTypefaceSpan createSpan(@NonNull TextView targetView) {
+            return new CustomTypefaceSpan(targetView, icon, typeface,
+                    iconSizePx, iconSizeRatio, iconColor, animation, baselineAligned);
+        }
+    }
 
-            // Look for "baseline"
-            else if (stroke.equalsIgnoreCase("baseline")) {
-                baselineAligned = true;
-            }
+    // A parsed text, with the {} blocks replaced by their characters
+    private static final class Template {
+        @NonNull
+        final String text;
+        @NonNull
+        final Token[] tokens;
+        @NonNull
+        final int[] positions;
 
-            // Look for an icon size
-            else if (stroke.matches("([0-9]*(\\.[0-9]*)?)dp")) {
-                iconSizePx = dpToPx(context, Float.valueOf(stroke.substring(0, stroke.length() - 2)));
-            } else if (stroke.matches("([0-9]*(\\.[0-9]*)?)sp")) {
-                iconSizePx = spToPx(context, Float.valueOf(stroke.substring(0, stroke.length() - 2)));
-            } else if (stroke.matches("([0-9]*)px")) {
-                iconSizePx = Integer.valueOf(stroke.substring(0, stroke.length() - 2));
-            } else if (stroke.matches("@dimen/(.*)")) {
-                iconSizePx = getPxFromDimen(context, context.getPackageName(), stroke.substring(7));
-                if (iconSizePx < 0)
-                    throw new IllegalArgumentException("Unknown resource " + stroke + " in \"" + fullText + "\"");
-            } else if (stroke.matches("@android:dimen/(.*)")) {
-                iconSizePx = getPxFromDimen(context, ANDROID_PACKAGE_NAME, stroke.substring(15));
-                if (iconSizePx < 0)
-                    throw new IllegalArgumentException("Unknown resource " + stroke + " in \"" + fullText + "\"");
-            } else if (stroke.matches("([0-9]*(\\.[0-9]*)?)%")) {
-                iconSizeRatio = Float.valueOf(stroke.substring(0, stroke.length() - 1)) / 100f;
+        Template(@NonNull String rawText, @NonNull List<Token> tokens) {
+            final StringBuilder builder = new StringBuilder(rawText.length());
+            this.tokens = tokens.toArray(new Token[tokens.size()]);
+            positions = new int[this.tokens.length];
+            int index = 0;
+            for (int i = 0; i < this.tokens.length; i++) {
+                final Token token = this.tokens[i];
+                builder.append(rawText, index, token.start);
+                positions[i] = builder.length();
+                builder.append(token.icon.character());
+                index = token.end;
             }
+            builder.append(rawText, index, rawText.length());
+            text = builder.toString();
+        }
 
-            // Look for an icon color
-            else if (stroke.matches("#([0-9A-Fa-f]{6}|[0-9A-Fa-f]{8})")) {
-                iconColor = Color.parseColor(stroke);
-            } else if (stroke.matches("@color/(.*)")) {
-                iconColor = getColorFromResource(context, context.getPackageName(), stroke.substring(7));
-                if (iconColor == Integer.MAX_VALUE)
-                    throw new IllegalArgumentException("Unknown resource " + stroke + " in \"" + fullText + "\"");
-            } else if (stroke.matches("@android:color/(.*)")) {
-                iconColor = getColorFromResource(context, ANDROID_PACKAGE_NAME, stroke.substring(15));
-                if (iconColor == Integer.MAX_VALUE)
-                    throw new IllegalArgumentException("Unknown resource " + stroke + " in \"" + fullText + "\"");
-            } else {
-                throw new IllegalArgumentException("Unknown expression " + stroke + " in \"" + fullText + "\"");
+        @NonNull
+        CharSequence apply(@NonNull TextView targetView) {
+            final SpannableStringBuilder spannableBuilder = new SpannableStringBuilder(text);
+            for (int i = 0; i < tokens.length; i++) {
+                spannableBuilder.setSpan(tokens[i].createSpan(targetView),
+                        positions[i], positions[i] + 1, Spanned.SPAN_INCLUSIVE_EXCLUSIVE);
             }
+            return spannableBuilder;
         }
+    }
+
+    // The text, and what the resolution of its strokes depends on
+    private static final class TemplateKey {
+        @NonNull
+        final String text;
+        final float density;
+        final float scaledDensity;
+        final int configurationHash;
+        final int descriptorCount;
 
-        // Replace the character and apply the typeface
-        text = text.replace(startIndex, endIndex, "" + icon.character());
-        text.setSpan(new CustomTypefaceSpan(targetView, icon,
-                        iconFontDescriptor.getTypeface(context),
-                        iconSizePx, iconSizeRatio, iconColor, animation, baselineAligned),
-                startIndex, startIndex + 1,
-                Spanned.SPAN_INCLUSIVE_EXCLUSIVE);
-        recursivePrepareSpannableIndexes(targetView, fullText, text, iconFontDescriptors, startIndex);
+        TemplateKey(@NonNull Resources resources, @NonNull String text, int descriptorCount) {
+            this.text = text;
+            final DisplayMetrics metrics = resources.getDisplayMetrics();
+            density = metrics.density;
+            scaledDensity = metrics.scaledDensity;
+            configurationHash = resources.getConfiguration().hashCode();
+            this.descriptorCount = descriptorCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TemplateKey)) return false;
+            final TemplateKey other = (TemplateKey) o;
+            return text.equals(other.text) && density == other.density &&
+                    scaledDensity == other.scaledDensity &&
+                    configurationHash == other.configurationHash &&
+                    descriptorCount == other.descriptorCount;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = text.hashCode();
+            result = 31 * result + Float.floatToIntBits(density);
+            result = 31 * result + Float.floatToIntBits(scaledDensity);
+            result = 31 * result + configurationHash;
+            result = 31 * result + descriptorCount;
+            return result;
+        }
     }
 
     @CheckResult